@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import uia.dao.stub.StubDriver;
+
+/**
+ * The backends benchmarks run against.<br>
+ * <ul>
+ * <li>stub - the in-memory stub driver of uia-dao tests, measures the overhead of the library only.</li>
+ * <li>sqlite - SQLite in memory, measures end to end.</li>
+ * </ul>
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class Backends {
+
+    public static final String STUB = "stub";
+
+    public static final String SQLITE = "sqlite";
+
+    private static final String[] COLUMNS = { "id", "name", "qty", "amount", "created_time", "remark" };
+
+    private Backends() {
+    }
+
+    /**
+     * Opens a connection with bench_row filled.
+     *
+     * @param backend The backend.
+     * @param rows The count of rows.
+     * @return The connection.
+     * @throws SQLException Failed to open.
+     */
+    public static Connection open(String backend, int rows) throws SQLException {
+        if (STUB.equals(backend)) {
+            Object[][] table = new Object[rows][];
+            for (int i = 0; i < rows; i++) {
+                table[i] = BenchRow.values(i);
+            }
+            return StubDriver.database("bench_row" + rows)
+                    .table("bench_row", COLUMNS, table)
+                    .connect();
+        }
+        if (SQLITE.equals(backend)) {
+            Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+            try (Statement st = conn.createStatement()) {
+                st.execute(BenchRow.CREATE_SQL);
+            }
+            fill(conn, rows);
+            return conn;
+        }
+        throw new IllegalArgumentException("unknown backend: " + backend);
+    }
+
+    private static void fill(Connection conn, int rows) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO bench_row(" + String.join(",", COLUMNS) + ") VALUES (?,?,?,?,?,?)")) {
+            for (int i = 0; i < rows; i++) {
+                Object[] values = BenchRow.values(i);
+                for (int c = 0; c < values.length; c++) {
+                    ps.setObject(c + 1, values[c]);
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+}
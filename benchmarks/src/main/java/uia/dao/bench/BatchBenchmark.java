@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uia.dao.DaoFactory;
+import uia.dao.TableDao;
+
+/**
+ * Inserts rows with the batch of TableDao.insert(List).<br>
+ * The rows inserted into SQLite are rolled back after each call, so the rollback is measured too.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class BatchBenchmark {
+
+    @Param({ Backends.STUB, Backends.SQLITE })
+    public String backend;
+
+    @Param({ "10", "1000" })
+    public int batchSize;
+
+    private Connection conn;
+
+    private TableDao<BenchRow> dao;
+
+    private List<BenchRow> data;
+
+    @Setup
+    public void setup() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(BenchRow.class);
+        this.conn = Backends.open(this.backend, 0);
+        this.conn.setAutoCommit(false);
+        this.dao = new TableDao<>(this.conn, factory.forTable(BenchRow.class));
+        this.data = BenchRow.rows(this.batchSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.conn.close();
+    }
+
+    @Benchmark
+    public int[] insert() throws Exception {
+        try {
+            return this.dao.insert(this.data);
+        }
+        finally {
+            this.conn.rollback();
+        }
+    }
+}
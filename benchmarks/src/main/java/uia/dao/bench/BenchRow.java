@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+
+/**
+ * The row used by benchmarks.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@TableInfo(name = "bench_row")
+public class BenchRow {
+
+    public static final String CREATE_SQL = "CREATE TABLE bench_row(id VARCHAR(32) PRIMARY KEY, name VARCHAR(64), qty INTEGER, amount NUMERIC(12,2), created_time TIMESTAMP, remark VARCHAR(128))";
+
+    @ColumnInfo(name = "id", primaryKey = true)
+    private String id;
+
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "qty")
+    private int qty;
+
+    @ColumnInfo(name = "amount")
+    private BigDecimal amount;
+
+    @ColumnInfo(name = "created_time")
+    private Date createdTime;
+
+    @ColumnInfo(name = "remark")
+    private String remark;
+
+    public BenchRow() {
+    }
+
+    public BenchRow(int i) {
+        this.id = "row" + i;
+        this.name = "name" + (i % 100);
+        this.qty = i;
+        this.amount = BigDecimal.valueOf(i, 2);
+        this.createdTime = new Date(1600000000000L + i * 1000L);
+        this.remark = i % 10 == 0 ? null : "remark of row " + i;
+    }
+
+    /**
+     * Creates rows.
+     *
+     * @param count The count of rows.
+     * @return The rows.
+     */
+    public static List<BenchRow> rows(int count) {
+        ArrayList<BenchRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new BenchRow(i));
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the column values of a row in the order of columns of the table.
+     *
+     * @param i The sequence number of the row.
+     * @return The values.
+     */
+    public static Object[] values(int i) {
+        BenchRow row = new BenchRow(i);
+        return new Object[] {
+                row.id,
+                row.name,
+                row.qty,
+                row.amount,
+                new java.sql.Timestamp(row.createdTime.getTime()),
+                row.remark
+        };
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getQty() {
+        return this.qty;
+    }
+
+    public void setQty(int qty) {
+        this.qty = qty;
+    }
+
+    public BigDecimal getAmount() {
+        return this.amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Date getCreatedTime() {
+        return this.createdTime;
+    }
+
+    public void setCreatedTime(Date createdTime) {
+        this.createdTime = createdTime;
+    }
+
+    public String getRemark() {
+        return this.remark;
+    }
+
+    public void setRemark(String remark) {
+        this.remark = remark;
+    }
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import uia.dao.DaoException;
+import uia.dao.TableDao;
+import uia.dao.TableDaoHelper;
+import uia.dao.annotation.DaoInfo;
+import uia.dao.annotation.SelectInfo;
+import uia.dao.annotation.UpdateInfo;
+
+/**
+ * The proxy DAO used by benchmarks.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@DaoInfo(type = BenchRow.class)
+public abstract class BenchRowDao extends TableDao<BenchRow> {
+
+    public BenchRowDao(Connection conn, TableDaoHelper<BenchRow> helper) {
+        super(conn, helper);
+    }
+
+    @SelectInfo(sql = "WHERE name=? ORDER BY id")
+    public abstract List<BenchRow> selectByName(String name) throws SQLException, DaoException;
+
+    @UpdateInfo(sql = "SET remark=? WHERE id=?")
+    public abstract int updateRemark(String remark, String id) throws SQLException, DaoException;
+}
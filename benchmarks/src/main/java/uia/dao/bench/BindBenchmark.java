@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uia.dao.DaoFactory;
+import uia.dao.DaoMethod;
+import uia.dao.where.SimpleWhere;
+import uia.dao.where.Where;
+
+/**
+ * Generates 'where' statements with SimpleWhere.generate and binds parameters with Where.accept and DaoMethod.fromOne.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class BindBenchmark {
+
+    private DaoMethod<BenchRow> insert;
+
+    private BenchRow row;
+
+    private Connection conn;
+
+    private PreparedStatement ps;
+
+    @Setup
+    public void setup() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(BenchRow.class);
+        this.insert = factory.forTable(BenchRow.class).forInsert();
+        this.row = new BenchRow(1);
+        this.conn = Backends.open(Backends.STUB, 0);
+        this.ps = this.conn.prepareStatement(this.insert.getSql());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.ps.close();
+        this.conn.close();
+    }
+
+    @Benchmark
+    public void simpleWhere(Blackhole bh) throws Exception {
+        SimpleWhere where = Where.simpleAnd()
+                .eq("name", "name1")
+                .notEq("remark", null)
+                .between("qty", 10, 20)
+                .moreThan("amount", BigDecimal.ONE, true)
+                .likeBegin("id", "row");
+        bh.consume(where.generate());
+        bh.consume(where.accept(this.ps, 1));
+    }
+
+    @Benchmark
+    public void nestedWhere(Blackhole bh) throws Exception {
+        Where where = Where.or(
+                Where.simpleAnd().eq("name", "name1").lessThan("qty", 10, false),
+                Where.simpleAnd().eq("name", "name2").isNull("remark"));
+        bh.consume(where.generate());
+        bh.consume(where.accept(this.ps, 1));
+    }
+
+    @Benchmark
+    public PreparedStatement fromOne() throws Exception {
+        this.insert.fromOne(this.ps, this.row);
+        return this.ps;
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uia.dao.DaoFactory;
+import uia.dao.DaoMethod;
+import uia.dao.Filter;
+import uia.dao.TableDaoHelper;
+
+/**
+ * Maps rows of a stub result set with DaoMethod.toList, each column is read by DaoColumn.run.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class MappingBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    public int rows;
+
+    private Connection conn;
+
+    private PreparedStatement ps;
+
+    private DaoMethod<BenchRow> select;
+
+    @Setup
+    public void setup() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(BenchRow.class);
+        TableDaoHelper<BenchRow> helper = factory.forTable(BenchRow.class);
+        this.conn = Backends.open(Backends.STUB, this.rows);
+        this.select = helper.forSelect();
+        this.ps = this.conn.prepareStatement(this.select.getSql());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.ps.close();
+        this.conn.close();
+    }
+
+    @Benchmark
+    public List<BenchRow> toList() throws Exception {
+        return this.select.toList(this.ps.executeQuery(), Filter.ALL);
+    }
+}
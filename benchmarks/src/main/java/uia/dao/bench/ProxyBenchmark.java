@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uia.dao.DaoFactory;
+
+/**
+ * Creates a proxy DAO and calls its methods, the path of ProxyDao.bind and ProxyDao.runTable.<br>
+ * A query returns the same count of rows from both backends: SQLite is filled with 100 names, each of them has the count of rows.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ProxyBenchmark {
+
+    @Param({ Backends.STUB, Backends.SQLITE })
+    public String backend;
+
+    @Param({ "1", "10" })
+    public int rows;
+
+    private DaoFactory factory;
+
+    private Connection conn;
+
+    private BenchRowDao dao;
+
+    @Setup
+    public void setup() throws Exception {
+        this.factory = new DaoFactory(false);
+        this.factory.addTable(BenchRow.class);
+        this.conn = Backends.open(this.backend, Backends.STUB.equals(this.backend) ? this.rows : this.rows * 100);
+        this.dao = this.factory.proxyTableDao(BenchRowDao.class, this.conn);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.conn.close();
+    }
+
+    @Benchmark
+    public BenchRowDao bind() throws Exception {
+        return this.factory.proxyTableDao(BenchRowDao.class, this.conn);
+    }
+
+    @Benchmark
+    public List<BenchRow> select() throws Exception {
+        return this.dao.selectByName("name1");
+    }
+
+    @Benchmark
+    public int update() throws Exception {
+        return this.dao.updateRemark("updated", "row1");
+    }
+}
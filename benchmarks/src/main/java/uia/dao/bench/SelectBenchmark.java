@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.bench;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uia.dao.DaoFactory;
+import uia.dao.TableDao;
+
+/**
+ * Selects all rows with TableDao, the mapping of DaoMethod.toList end to end.<br>
+ * The hand written JDBC mapping is the reference of the library overhead.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SelectBenchmark {
+
+    @Param({ Backends.STUB, Backends.SQLITE })
+    public String backend;
+
+    @Param({ "1", "100", "10000" })
+    public int rows;
+
+    private Connection conn;
+
+    private TableDao<BenchRow> dao;
+
+    @Setup
+    public void setup() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(BenchRow.class);
+        this.conn = Backends.open(this.backend, this.rows);
+        this.dao = new TableDao<>(this.conn, factory.forTable(BenchRow.class));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.conn.close();
+    }
+
+    @Benchmark
+    public List<BenchRow> selectAll() throws Exception {
+        return this.dao.selectAll();
+    }
+
+    @Benchmark
+    public List<BenchRow> jdbc() throws Exception {
+        ArrayList<BenchRow> result = new ArrayList<>();
+        try (PreparedStatement ps = this.conn.prepareStatement("SELECT id,name,qty,amount,created_time,remark FROM bench_row")) {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    BenchRow row = new BenchRow();
+                    row.setId(rs.getString(1));
+                    row.setName(rs.getString(2));
+                    row.setQty(rs.getInt(3));
+                    row.setAmount(rs.getBigDecimal(4));
+                    row.setCreatedTime(date(rs.getTimestamp(5)));
+                    row.setRemark(rs.getString(6));
+                    result.add(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Date date(Timestamp value) {
+        return value == null ? null : new Date(value.getTime());
+    }
+}
@@ -19,16 +19,25 @@
 package uia.dao;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
+import uia.dao.hana.Hana;
+import uia.dao.ora.Oracle;
+import uia.dao.pg.PostgreSQL;
+import uia.dao.sqlite.SQLite;
+import uia.dao.sqlserver.SQLServer;
+
 /**
  * Abstract implementation for all databases.
  *
@@ -41,6 +50,8 @@ public abstract class AbstractDatabase implements Database {
 
     private static final String VIEW = "VIEW";
 
+    private static final ConcurrentHashMap<String, Database> DIALECTS = new ConcurrentHashMap<>();
+
     private final String url;
 
     protected final Connection conn;
@@ -51,6 +62,8 @@ public abstract class AbstractDatabase implements Database {
 
     private boolean alwaysTimestampZ;
 
+    private volatile SlowQueryLog slowQueryLog;
+
     /**
      * Constructor.
      *
@@ -77,7 +90,9 @@ public abstract class AbstractDatabase implements Database {
      */
     protected AbstractDatabase(String driverName, String url, String user, String pwd, String schema) throws SQLException {
         this.url = url;
-        System.out.println(this.url);
+        if (url != null) {
+            System.out.println(this.url);
+        }
         this.alwaysNVarchar = false;
         this.alwaysTimestampZ = false;
         if (url != null) {
@@ -95,6 +110,79 @@ public abstract class AbstractDatabase implements Database {
         }
     }
 
+    /**
+     * Returns the dialect of the database the connection connects to.<br>
+     * The dialect is an offline instance without connection and shared by all connections of the same database product.
+     *
+     * @param conn The connection.
+     * @return The dialect or null if the database product is not supported.
+     * @throws SQLException Failed to read the metadata.
+     */
+    public static Database dialect(Connection conn) throws SQLException {
+        if (conn instanceof DaoEnv.ConnectionProxy) {
+            return ((DaoEnv.ConnectionProxy) conn).getDialect();
+        }
+        return dialect(conn.getMetaData());
+    }
+
+    /**
+     * Returns the dialect of the database product.
+     *
+     * @param meta The metadata of the connection.
+     * @return The dialect or null if the database product is not supported.
+     * @throws SQLException Failed to read the metadata.
+     */
+    public static Database dialect(DatabaseMetaData meta) throws SQLException {
+        String product = meta.getDatabaseProductName();
+        if (product == null) {
+            return null;
+        }
+        String key = product.toLowerCase();
+        if (key.contains("sqlite")) {
+            // the limit of bind parameters depends on the version.
+            key = key + " " + meta.getDatabaseMajorVersion() + "." + meta.getDatabaseMinorVersion();
+        }
+
+        Database dialect = DIALECTS.get(key);
+        if (dialect == null) {
+            dialect = createDialect(key);
+            if (dialect == null) {
+                return null;
+            }
+            ((AbstractDatabase) dialect).initialDialect(meta);
+            DIALECTS.putIfAbsent(key, dialect);
+        }
+        return dialect;
+    }
+
+    private static Database createDialect(String product) throws SQLException {
+        if (product.contains("postgresql")) {
+            return new PostgreSQL();
+        }
+        else if (product.contains("sqlite")) {
+            return new SQLite();
+        }
+        else if (product.contains("sql server")) {
+            return new SQLServer();
+        }
+        else if (product.contains("oracle")) {
+            return new Oracle();
+        }
+        else if (product.contains("hdb") || product.contains("hana")) {
+            return new Hana();
+        }
+        return null;
+    }
+
+    /**
+     * Initializes an offline instance used as a dialect. Implementation can read version specific limits here.
+     *
+     * @param meta The metadata of the connection.
+     * @throws SQLException Failed to read the metadata.
+     */
+    protected void initialDialect(DatabaseMetaData meta) throws SQLException {
+    }
+
     @Override
     public boolean isAlwaysNVarchar() {
         return this.alwaysNVarchar;
@@ -122,6 +210,24 @@ public abstract class AbstractDatabase implements Database {
         }
     }
 
+    /**
+     * Returns the slow query log of statements executed by this instance.
+     *
+     * @return The log or null if disabled.
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return this.slowQueryLog;
+    }
+
+    /**
+     * Sets the slow query log of statements executed by this instance.
+     *
+     * @param slowQueryLog The log or null to disable.
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
     @Override
     public Connection getConnection() {
         return this.conn;
@@ -272,7 +378,16 @@ public abstract class AbstractDatabase implements Database {
         try (java.sql.Statement state = this.conn.createStatement()) {
             sql = fix(sql);
             if (sql != null) {
-                return state.execute(sql);
+                long start = System.nanoTime();
+                boolean failed = true;
+                try {
+                    boolean result = state.execute(sql);
+                    failed = false;
+                    return result;
+                }
+                finally {
+                    slow("execute", sql, null, 0, start, start, failed);
+                }
             }
             else {
                 return false;
@@ -283,19 +398,30 @@ public abstract class AbstractDatabase implements Database {
     @Override
     public int[] executeBatch(List<String> sqls) throws SQLException {
         try (java.sql.Statement state = this.conn.createStatement()) {
+            ArrayList<String> batch = new ArrayList<>();
             for (String sql : sqls) {
                 sql = fix(sql);
                 if (sql != null) {
                     System.out.println(sql);
                     state.addBatch(sql);
+                    batch.add(sql);
                 }
             }
-            return state.executeBatch();
+            long start = System.nanoTime();
+            int[] result = null;
+            try {
+                result = state.executeBatch();
+                return result;
+            }
+            finally {
+                slow("executeBatch", String.join(";\n", batch), null, result == null ? 0 : result.length, start, start, result == null);
+            }
         }
     }
 
     @Override
     public int[] executeBatch(String sql, List<List<Object>> rows) throws SQLException {
+        long start = System.nanoTime();
         try (PreparedStatement ps = this.conn.prepareStatement(sql)) {
             for (List<Object> row : rows) {
                 int i = 1;
@@ -304,10 +430,140 @@ public abstract class AbstractDatabase implements Database {
                 }
                 ps.addBatch();
             }
-            return ps.executeBatch();
+            long prepared = System.nanoTime();
+            int[] result = null;
+            try {
+                result = ps.executeBatch();
+                return result;
+            }
+            finally {
+                SlowQueryLog log = this.slowQueryLog;
+                List<Object> parameters = log != null && !rows.isEmpty() && log.sample() ? rows.get(0) : null;
+                slow("executeBatch", sql, parameters, rows.size(), start, prepared, result == null);
+            }
         }
     }
 
+    @Override
+    public int getMaxParameters() {
+        return 2000;
+    }
+
+    @Override
+    public int getMaxInsertRows() {
+        return 0;
+    }
+
+    @Override
+    public int getMaxInListSize() {
+        // ORA-01795: maximum number of expressions in a list is 1000
+        return 1000;
+    }
+
+    @Override
+    public boolean supportsRowValueIn() {
+        return false;
+    }
+
+    @Override
+    public String generateInsertSQL(String tableName, List<String> columnNames, int rows) {
+        String values = "(" + String.join(",", Collections.nCopies(columnNames.size(), "?")) + ")";
+        StringBuilder sb = new StringBuilder(32 + tableName.length() + rows * (values.length() + 1));
+        sb.append("INSERT INTO ").append(tableName)
+                .append("(").append(String.join(",", columnNames)).append(") VALUES ")
+                .append(values);
+        for (int i = 1; i < rows; i++) {
+            sb.append(",").append(values);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String generateUpsertSQL(String tableName, List<String> columnNames, List<String> primaryKeys) {
+        return null;
+    }
+
+    @Override
+    public String generateLimitSQL(String sql, int limit) {
+        return null;
+    }
+
+    /**
+     * Generate a MERGE statement. The source row is 'SELECT ? c1,? c2... FROM {dual}' with alias 's'.
+     *
+     * @param tableName Table name.
+     * @param columnNames Column names.
+     * @param primaryKeys Primary keys.
+     * @param dual The dummy table or null if the FROM is not required.
+     * @return MERGE statement.
+     */
+    protected String generateMergeSQL(String tableName, List<String> columnNames, List<String> primaryKeys, String dual) {
+        return generateMergeSQL(tableName, columnNames, primaryKeys, dual, null);
+    }
+
+    /**
+     * Generate a MERGE statement with a table hint, e.g. HOLDLOCK of SQL Server to serialize concurrent MERGE of the same key.
+     *
+     * @param tableName Table name.
+     * @param columnNames Column names.
+     * @param primaryKeys Primary keys.
+     * @param dual The dummy table or null if the FROM is not required.
+     * @param tableHint The table hint or null if not required.
+     * @return MERGE statement.
+     */
+    protected String generateMergeSQL(String tableName, List<String> columnNames, List<String> primaryKeys, String dual, String tableHint) {
+        ArrayList<String> sources = new ArrayList<>();
+        ArrayList<String> ons = new ArrayList<>();
+        ArrayList<String> sets = new ArrayList<>();
+        ArrayList<String> values = new ArrayList<>();
+        for (String col : columnNames) {
+            sources.add("? " + col);
+            values.add("s." + col);
+            if (primaryKeys.contains(col)) {
+                ons.add("x." + col + "=s." + col);
+            }
+            else {
+                sets.add(col + "=s." + col);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("MERGE INTO %s%s x USING (SELECT %s%s) s ON (%s)",
+                tableName,
+                tableHint == null ? "" : " WITH (" + tableHint + ")",
+                String.join(",", sources),
+                dual == null ? "" : " FROM " + dual,
+                String.join(" AND ", ons)));
+        if (!sets.isEmpty()) {
+            sb.append(" WHEN MATCHED THEN UPDATE SET ").append(String.join(",", sets));
+        }
+        sb.append(String.format(" WHEN NOT MATCHED THEN INSERT (%s) VALUES (%s)",
+                String.join(",", columnNames),
+                String.join(",", values)));
+        return sb.toString();
+    }
+
+    /**
+     * Generate an 'INSERT ... ON CONFLICT (pk) DO UPDATE' statement.
+     *
+     * @param tableName Table name.
+     * @param columnNames Column names.
+     * @param primaryKeys Primary keys.
+     * @return UPSERT statement.
+     */
+    protected String generateOnConflictSQL(String tableName, List<String> columnNames, List<String> primaryKeys) {
+        ArrayList<String> sets = new ArrayList<>();
+        for (String col : columnNames) {
+            if (!primaryKeys.contains(col)) {
+                sets.add(col + "=EXCLUDED." + col);
+            }
+        }
+        return String.format("%s ON CONFLICT (%s) DO %s",
+                generateInsertSQL(tableName, columnNames, 1),
+                String.join(",", primaryKeys),
+                sets.isEmpty() ? "NOTHING" : "UPDATE SET " + String.join(",", sets));
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + " url:" + this.url;
@@ -337,6 +593,8 @@ public abstract class AbstractDatabase implements Database {
     public List<Object[]> query(String sql) throws SQLException {
         ArrayList<Object[]> result = new ArrayList<>();
         Statement stat = this.conn.createStatement();
+        long start = System.nanoTime();
+        boolean failed = true;
         try (ResultSet rs = stat.executeQuery(sql)) {
             int c = rs.getMetaData().getColumnCount();
             while (rs.next()) {
@@ -346,10 +604,45 @@ public abstract class AbstractDatabase implements Database {
                 }
                 result.add(values);
             }
+            failed = false;
+        }
+        finally {
+            slow("query", sql, null, result.size(), start, start, failed);
         }
         return result;
     }
 
+    /**
+     * Adds the statement to the slow query log if it is slower than the threshold.
+     *
+     * @param operation The operation.
+     * @param sql The SQL statement.
+     * @param parameters The parameters or null if not captured.
+     * @param rows The rows read or written.
+     * @param start The nano time the statement started.
+     * @param prepared The nano time the statement was prepared.
+     * @param failed The statement failed or not.
+     */
+    protected void slow(String operation, String sql, List<Object> parameters, long rows, long start, long prepared, boolean failed) {
+        SlowQueryLog log = this.slowQueryLog;
+        if (log == null) {
+            return;
+        }
+        long end = System.nanoTime();
+        if (log.isSlow(end - start)) {
+            log.add(new SlowQueryLog.Entry(
+                    getClass().getName(),
+                    operation,
+                    sql,
+                    parameters,
+                    rows,
+                    prepared - start,
+                    end - prepared,
+                    0,
+                    failed));
+        }
+    }
+
     /**
     private DataSource createDataSource(String driverName, String connectUrl, String user, String pwd) {
         HikariConfig config = new HikariConfig();
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+/**
+ * The listener of the chunked batch.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public interface BatchListener {
+
+    /**
+     * Notifies a chunk is executed, and committed if commit per chunk.
+     *
+     * @param chunk The sequence number of the chunk, starting at 1.
+     * @param rows The count of rows in the chunk.
+     * @param affected The count of rows affected by the chunk.
+     * @param totalRows The count of rows executed so far.
+     */
+    public void chunkExecuted(int chunk, int rows, int affected, long totalRows);
+}
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The recorder of parameters bound to a prepared statement.<br>
+ * The statement returned by {@link #getStatement()} executes nothing, it only records the values set by converters or where statements.
+ * Streams and LOBs are read into String or byte[] when they are bound.<br>
+ * A recorder created with a target statement forwards all calls to the target, streams and LOBs are recorded by their types.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class BindRecorder {
+
+    private final ArrayList<Object> values;
+
+    private final PreparedStatement target;
+
+    private final PreparedStatement statement;
+
+    public BindRecorder() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param target The statement the calls are forwarded to, or null to execute nothing.
+     */
+    BindRecorder(PreparedStatement target) {
+        this.target = target;
+        this.values = new ArrayList<>();
+        this.statement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                (proxy, method, args) -> invoke(proxy, method, args));
+    }
+
+    /**
+     * Returns the statement to record parameters.
+     *
+     * @return The statement.
+     */
+    public PreparedStatement getStatement() {
+        return this.statement;
+    }
+
+    /**
+     * Returns the value of a parameter.
+     *
+     * @param index The parameter index, starting at 1.
+     * @return The value.
+     */
+    public Object get(int index) {
+        return index <= this.values.size() ? this.values.get(index - 1) : null;
+    }
+
+    /**
+     * Returns the values in the order of parameter index.
+     *
+     * @return The values.
+     */
+    public List<Object> getValues() {
+        return Collections.unmodifiableList(this.values);
+    }
+
+    /**
+     * Returns the count of parameters.
+     *
+     * @return The count.
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+    public void clear() {
+        this.values.clear();
+    }
+
+    @Override
+    public String toString() {
+        return this.values.toString();
+    }
+
+    private Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            if (this.target == null) {
+                set((Integer) args[0], "setNull".equals(name) ? null : read(args[1]));
+                return null;
+            }
+            set((Integer) args[0], "setNull".equals(name) ? null : describe(args[1]));
+        }
+        else if ("clearParameters".equals(name)) {
+            clear();
+            if (this.target == null) {
+                return null;
+            }
+        }
+
+        if (this.target != null) {
+            try {
+                return method.invoke(this.target, args);
+            }
+            catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "BindRecorder" + this.values;
+            case "unwrap":
+            case "isWrapperFor":
+                throw new SQLException("not a wrapper");
+            default:
+                return defaultValue(method.getReturnType());
+        }
+    }
+
+    private void set(int index, Object value) {
+        while (this.values.size() < index) {
+            this.values.add(null);
+        }
+        this.values.set(index - 1, value);
+    }
+
+    private static Object describe(Object value) {
+        if (value instanceof Reader) {
+            return "<Reader>";
+        }
+        if (value instanceof InputStream) {
+            return "<InputStream>";
+        }
+        if (value instanceof Clob) {
+            return "<Clob>";
+        }
+        if (value instanceof Blob) {
+            return "<Blob>";
+        }
+        return value;
+    }
+
+    private static Object read(Object value) throws SQLException {
+        try {
+            if (value instanceof Reader) {
+                StringBuilder sb = new StringBuilder();
+                char[] buf = new char[4096];
+                int n;
+                while ((n = ((Reader) value).read(buf)) > 0) {
+                    sb.append(buf, 0, n);
+                }
+                return sb.toString();
+            }
+            if (value instanceof InputStream) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                byte[] buf = new byte[4096];
+                int n;
+                while ((n = ((InputStream) value).read(buf)) > 0) {
+                    bos.write(buf, 0, n);
+                }
+                return bos.toByteArray();
+            }
+            if (value instanceof Clob) {
+                Clob clob = (Clob) value;
+                return clob.getSubString(1, (int) clob.length());
+            }
+            if (value instanceof Blob) {
+                Blob blob = (Blob) value;
+                return blob.getBytes(1, (int) blob.length());
+            }
+            return value;
+        }
+        catch (IOException ex) {
+            throw new SQLException("failed to read the parameter", ex);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * The limiter of concurrent connections of a DaoEnv.<br>
+ * A fair semaphore hands out permits in the order of requests, a request waits at most the max wait time.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class Bulkhead {
+
+    private final int maxConcurrent;
+
+    private final long maxWaitMillis;
+
+    private final Semaphore permits;
+
+    private final AtomicLong acquired;
+
+    private final AtomicLong rejected;
+
+    private final AtomicLong totalWaitNanos;
+
+    private final LongAccumulator maxWaitNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrent The max count of concurrent connections.
+     * @param maxWaitMillis The max milliseconds to wait for a permit.
+     */
+    public Bulkhead(int maxConcurrent, long maxWaitMillis) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquired = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.totalWaitNanos = new AtomicLong();
+        this.maxWaitNanos = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Acquires a permit.
+     *
+     * @throws SQLTransientConnectionException Timeout or interrupted.
+     */
+    public void acquire() throws SQLTransientConnectionException {
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = this.permits.tryAcquire(this.maxWaitMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            this.rejected.incrementAndGet();
+            throw new SQLTransientConnectionException("interrupted while waiting for a connection permit", ex);
+        }
+
+        long waited = System.nanoTime() - start;
+        this.totalWaitNanos.addAndGet(waited);
+        this.maxWaitNanos.accumulate(waited);
+        if (!ok) {
+            this.rejected.incrementAndGet();
+            throw new SQLTransientConnectionException(String.format(
+                    "no connection permit in %sms, %s in use, %s waiting",
+                    this.maxWaitMillis,
+                    getActive(),
+                    getWaiting()));
+        }
+        this.acquired.incrementAndGet();
+    }
+
+    /**
+     * Releases a permit.
+     */
+    public void release() {
+        this.permits.release();
+    }
+
+    public int getMaxConcurrent() {
+        return this.maxConcurrent;
+    }
+
+    public long getMaxWaitMillis() {
+        return this.maxWaitMillis;
+    }
+
+    /**
+     * Returns the count of permits in use.
+     *
+     * @return The count.
+     */
+    public int getActive() {
+        return this.maxConcurrent - this.permits.availablePermits();
+    }
+
+    /**
+     * Returns the estimated count of threads waiting for a permit.
+     *
+     * @return The count.
+     */
+    public int getWaiting() {
+        return this.permits.getQueueLength();
+    }
+
+    public long getAcquired() {
+        return this.acquired.get();
+    }
+
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Returns the average queue time of requests, including rejected ones.
+     *
+     * @return The milliseconds.
+     */
+    public double getAverageWaitMillis() {
+        long n = this.acquired.get() + this.rejected.get();
+        return n == 0 ? 0 : this.totalWaitNanos.get() / 1000000d / n;
+    }
+
+    /**
+     * Returns the max queue time of requests.
+     *
+     * @return The milliseconds.
+     */
+    public double getMaxWaitedMillis() {
+        return this.maxWaitNanos.get() / 1000000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active:%s/%s, waiting:%s, acquired:%s, rejected:%s, avgWait:%.3fms, maxWait:%.3fms",
+                getActive(),
+                this.maxConcurrent,
+                getWaiting(),
+                getAcquired(),
+                getRejected(),
+                getAverageWaitMillis(),
+                getMaxWaitedMillis());
+    }
+}
@@ -1,19 +1,32 @@
 package uia.dao;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class ClassUtils {
 
+    private static final Logger LOGGER = Logger.getLogger(ClassUtils.class.getName());
+
+    /**
+     * The index of DTO classes generated by uia.dao.processor.DaoProcessor, one binary class name per line.
+     */
+    public static final String INDEX = "META-INF/uia-dao/dto.index";
+
     public static Class<?> loadClass(String className, boolean isInitialized) {
         try {
             return Class.forName(className, isInitialized, getClassLoader());
@@ -24,16 +37,27 @@ public class ClassUtils {
     }
 
     public static Set<Class<?>> getClassSet(String packageName) {
+        return getClassSet(packageName, getClassLoader());
+    }
+
+    /**
+     * Scans classes of a package and its sub packages.
+     *
+     * @param packageName The package name.
+     * @param loader The class loader.
+     * @return The classes.
+     */
+    public static Set<Class<?>> getClassSet(String packageName, ClassLoader loader) {
         Set<Class<?>> classSet = new HashSet<Class<?>>();
+        String packagePath = packageName.replace(".", "/");
         try {
-            Enumeration<URL> urls = getClassLoader().getResources(packageName.replace(".", "/"));
+            Enumeration<URL> urls = loader.getResources(packagePath);
             while (urls.hasMoreElements()) {
                 URL url = urls.nextElement();
                 if (url != null) {
                     String protocol = url.getProtocol();
                     if (protocol.equals("file")) {
-                        String packagePath = URLDecoder.decode(url.getFile(), "UTF-8");
-                        addClass(classSet, packagePath, packageName);
+                        addClass(classSet, URLDecoder.decode(url.getFile(), "UTF-8"), packageName, loader);
                     }
                     else if (protocol.equals("jar")) {
                         JarURLConnection jarURLConnection = (JarURLConnection) url.openConnection();
@@ -44,11 +68,11 @@ public class ClassUtils {
                                 while (jarEntries.hasMoreElements()) {
                                     JarEntry jarEntry = jarEntries.nextElement();
                                     String jarEntryName = jarEntry.getName();
-                                    if (jarEntryName.endsWith(".class")) {
+                                    if (jarEntryName.startsWith(packagePath.isEmpty() ? "" : packagePath + "/") && jarEntryName.endsWith(".class")) {
                                         String className = jarEntryName
                                                 .substring(0, jarEntryName.lastIndexOf("."))
                                                 .replaceAll("/", ".");
-                                        doAddClass(classSet, className);
+                                        doAddClass(classSet, className, loader);
                                     }
                                 }
 
@@ -65,11 +89,60 @@ public class ClassUtils {
         return classSet;
     }
 
+    /**
+     * Returns the name of the DaoAccessor generated by DaoProcessor for a DTO class, the '$' of a nested class is replaced with '_'.
+     *
+     * @param dtoClassName The binary name of the DTO class.
+     * @return The binary name of the accessor.
+     */
+    public static String accessorName(String dtoClassName) {
+        int dot = dtoClassName.lastIndexOf('.');
+        return dtoClassName.substring(0, dot + 1) + dtoClassName.substring(dot + 1).replace('$', '_') + "_DaoAccessor";
+    }
+
+    /**
+     * Returns the classes of a package listed in the indexes generated at compile time.
+     * A class listed but not found, e.g. deleted after the index was generated, is ignored.
+     *
+     * @param packageName The package name, sub packages are included.
+     * @param loader The class loader.
+     * @return The classes or empty if no class listed.
+     */
+    public static Set<Class<?>> getIndexedClassSet(String packageName, ClassLoader loader) {
+        Set<Class<?>> classSet = new LinkedHashSet<Class<?>>();
+        String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        try {
+            Enumeration<URL> urls = loader.getResources(INDEX);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    String className;
+                    while ((className = reader.readLine()) != null) {
+                        className = className.trim();
+                        if (className.isEmpty() || !className.startsWith(prefix)) {
+                            continue;
+                        }
+                        try {
+                            classSet.add(Class.forName(className, false, loader));
+                        }
+                        catch (ClassNotFoundException | LinkageError e) {
+                            // stale entry
+                        }
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.WARNING, "failed to read " + INDEX + ", package:" + packageName, e);
+        }
+        return classSet;
+    }
+
     private static ClassLoader getClassLoader() {
         return Thread.currentThread().getContextClassLoader();
     }
 
-    private static void addClass(Set<Class<?>> classSet, String packagePath, String packageName) {
+    private static void addClass(Set<Class<?>> classSet, String packagePath, String packageName, ClassLoader loader) {
         File[] files = new File(packagePath).listFiles(new FileFilter() {
 
             @Override
@@ -88,7 +161,7 @@ public class ClassUtils {
                     className = packageName + "." + className;
                 }
                 // 添加
-                doAddClass(classSet, className);
+                doAddClass(classSet, className, loader);
             }
             else {
                 // 子目录
@@ -102,13 +175,17 @@ public class ClassUtils {
                     subPackageName = packageName + "." + subPackageName;
                 }
 
-                addClass(classSet, subPackagePath, subPackageName);
+                addClass(classSet, subPackagePath, subPackageName, loader);
             }
         }
     }
 
-    private static void doAddClass(Set<Class<?>> classSet, String className) {
-        Class<?> cls = loadClass(className, false);
-        classSet.add(cls);
+    private static void doAddClass(Set<Class<?>> classSet, String className, ClassLoader loader) {
+        try {
+            classSet.add(Class.forName(className, false, loader));
+        }
+        catch (ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+/**
+ * The accessor of a DTO class.<br>
+ * The implementation is generated per DTO class and reads/writes fields without reflection.
+ * The typed methods read/write a field of the primitive type without boxing.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public interface DaoAccessor {
+
+    /**
+     * Creates a new DTO object with the no-arg constructor.
+     *
+     * @return The DTO object.
+     */
+    public Object newInstance();
+
+    /**
+     * Returns the value of a field.
+     *
+     * @param dto The DTO object.
+     * @param index The index of the field.
+     * @return The value.
+     */
+    public Object get(Object dto, int index);
+
+    /**
+     * Sets the value of a field.
+     *
+     * @param dto The DTO object.
+     * @param index The index of the field.
+     * @param value The value.
+     */
+    public void set(Object dto, int index, Object value);
+
+    public default int getInt(Object dto, int index) {
+        return ((Number) get(dto, index)).intValue();
+    }
+
+    public default void setInt(Object dto, int index, int value) {
+        set(dto, index, value);
+    }
+
+    public default long getLong(Object dto, int index) {
+        return ((Number) get(dto, index)).longValue();
+    }
+
+    public default void setLong(Object dto, int index, long value) {
+        set(dto, index, value);
+    }
+
+    public default double getDouble(Object dto, int index) {
+        return ((Number) get(dto, index)).doubleValue();
+    }
+
+    public default void setDouble(Object dto, int index, double value) {
+        set(dto, index, value);
+    }
+
+    public default boolean getBoolean(Object dto, int index) {
+        return (Boolean) get(dto, index);
+    }
+
+    public default void setBoolean(Object dto, int index, boolean value) {
+        set(dto, index, value);
+    }
+}
@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javassist.CannotCompileException;
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+/**
+ * The generator of DaoAccessor.<br>
+ * The generated class is defined in the package of the DTO class and accesses fields directly.
+ * A private field is bound to the method handles of the field, its getter and setter are not called since they may do more than the field access.
+ * Reflection is the fallback only if the method handles can't be created.
+ * The typed methods are generated for int, long, double and boolean fields.
+ * The accessor generated by DaoProcessor at compile time is used if present.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+final class DaoAccessorGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(DaoAccessorGenerator.class.getName());
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    /**
+     * The primitive types with typed methods in DaoAccessor.
+     */
+    private static final Class<?>[] TYPED = { int.class, long.class, double.class, boolean.class };
+
+    private DaoAccessorGenerator() {
+    }
+
+    /**
+     * Generates an accessor of a DTO class and binds it to the columns.
+     *
+     * @param clz The DTO class.
+     * @param columns The columns of the DTO class.
+     * @return The accessor or null if failed to generate.
+     */
+    static DaoAccessor bind(Class<?> clz, List<DaoColumn> columns) {
+        DaoAccessor accessor = bindGenerated(clz, columns);
+        if (accessor == null) {
+            accessor = generate(clz, columns);
+        }
+        bindHandles(clz, columns);
+        return accessor;
+    }
+
+    /**
+     * Generates an accessor of the fields the DTO class can access directly and binds it to the columns.
+     *
+     * @param clz The DTO class.
+     * @param columns The columns of the DTO class.
+     * @return The accessor or null if failed to generate.
+     */
+    static DaoAccessor generate(Class<?> clz, List<DaoColumn> columns) {
+        try {
+            if (!canCreate(clz)) {
+                return null;
+            }
+
+            String dtoName = typeName(clz);
+            StringBuilder getCode = new StringBuilder();
+            StringBuilder setCode = new StringBuilder();
+            StringBuilder[] typedGetCode = new StringBuilder[TYPED.length];
+            StringBuilder[] typedSetCode = new StringBuilder[TYPED.length];
+            for (int t = 0; t < TYPED.length; t++) {
+                typedGetCode[t] = new StringBuilder();
+                typedSetCode[t] = new StringBuilder();
+            }
+            ArrayList<DaoColumn> bound = new ArrayList<>();
+            for (DaoColumn column : columns) {
+                Field f = column.getField();
+                if (!canAccess(clz, f)) {
+                    continue;
+                }
+                String getter = "d." + f.getName();
+                String setter = "d." + f.getName() + "=%s;";
+
+                int index = bound.size();
+                getCode.append(String.format(" case %s: return %s;%n", index, box(f.getType(), getter)));
+                setCode.append(String.format(" case %s: %s return;%n", index, String.format(setter, unbox(f.getType(), "v"))));
+                int t = Arrays.asList(TYPED).indexOf(f.getType());
+                if (t >= 0) {
+                    typedGetCode[t].append(String.format(" case %s: return %s;%n", index, getter));
+                    typedSetCode[t].append(String.format(" case %s: %s return;%n", index, String.format(setter, "v")));
+                }
+                bound.add(column);
+            }
+
+            ClassPool pool = new ClassPool(true);
+            pool.appendClassPath(new LoaderClassPath(clz.getClassLoader()));
+            pool.appendClassPath(new ClassClassPath(DaoAccessor.class));
+
+            CtClass cc = pool.makeClass(clz.getName() + "$$DaoAccessor" + SEQ.incrementAndGet());
+            cc.addInterface(pool.get(DaoAccessor.class.getName()));
+            cc.addConstructor(CtNewConstructor.defaultConstructor(cc));
+            cc.addMethod(CtNewMethod.make(
+                    "public java.lang.Object newInstance() { return new " + dtoName + "(); }",
+                    cc));
+            cc.addMethod(CtNewMethod.make(
+                    "public java.lang.Object get(java.lang.Object dto, int index) { "
+                            + dtoName + " d = (" + dtoName + ")dto; "
+                            + switchCode(getCode)
+                            + "throw new java.lang.IllegalArgumentException(\"index:\" + index); }",
+                    cc));
+            cc.addMethod(CtNewMethod.make(
+                    "public void set(java.lang.Object dto, int index, java.lang.Object v) { "
+                            + dtoName + " d = (" + dtoName + ")dto; "
+                            + switchCode(setCode)
+                            + "throw new java.lang.IllegalArgumentException(\"index:\" + index); }",
+                    cc));
+            for (int t = 0; t < TYPED.length; t++) {
+                if (typedGetCode[t].length() == 0) {
+                    continue;
+                }
+                String type = TYPED[t].getName();
+                String name = Character.toUpperCase(type.charAt(0)) + type.substring(1);
+                cc.addMethod(CtNewMethod.make(
+                        "public " + type + " get" + name + "(java.lang.Object dto, int index) { "
+                                + dtoName + " d = (" + dtoName + ")dto; "
+                                + switchCode(typedGetCode[t])
+                                + "throw new java.lang.IllegalArgumentException(\"index:\" + index); }",
+                        cc));
+                cc.addMethod(CtNewMethod.make(
+                        "public void set" + name + "(java.lang.Object dto, int index, " + type + " v) { "
+                                + dtoName + " d = (" + dtoName + ")dto; "
+                                + switchCode(typedSetCode[t])
+                                + "throw new java.lang.IllegalArgumentException(\"index:\" + index); }",
+                        cc));
+            }
+
+            Class<?> accessorClass = cc.toClass(clz);
+            cc.detach();
+
+            DaoAccessor accessor = (DaoAccessor) accessorClass.getDeclaredConstructor().newInstance();
+            for (int i = 0; i < bound.size(); i++) {
+                bound.get(i).bind(accessor, i);
+            }
+            return accessor;
+        }
+        catch (CannotCompileException | NotFoundException | ReflectiveOperationException ex) {
+            LOGGER.log(Level.WARNING, "failed to generate the accessor of " + clz.getName() + ", use reflection", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Binds the method handles of the fields not bound yet, e.g. private fields.
+     *
+     * @param clz The DTO class.
+     * @param columns The columns of the DTO class.
+     */
+    static void bindHandles(Class<?> clz, List<DaoColumn> columns) {
+        ArrayList<DaoColumn> unbound = new ArrayList<>();
+        ArrayList<Field> fields = new ArrayList<>();
+        for (DaoColumn column : columns) {
+            if (!column.isBound() && !Modifier.isStatic(column.getField().getModifiers())) {
+                unbound.add(column);
+                fields.add(column.getField());
+            }
+        }
+        if (unbound.isEmpty()) {
+            return;
+        }
+
+        try {
+            MethodHandleAccessor accessor = new MethodHandleAccessor(fields);
+            for (int i = 0; i < unbound.size(); i++) {
+                unbound.get(i).bind(accessor, i);
+            }
+        }
+        catch (IllegalAccessException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "failed to bind the field handles of " + clz.getName() + ", use reflection", ex);
+        }
+    }
+
+    /**
+     * Binds the accessor generated by DaoProcessor at compile time to the columns.
+     *
+     * @param clz The DTO class.
+     * @param columns The columns of the DTO class.
+     * @return The accessor or null if not generated.
+     */
+    static DaoAccessor bindGenerated(Class<?> clz, List<DaoColumn> columns) {
+        try {
+            Class<?> accessorClass = Class.forName(ClassUtils.accessorName(clz.getName()), true, clz.getClassLoader());
+            if (!DaoAccessor.class.isAssignableFrom(accessorClass)) {
+                return null;
+            }
+
+            List<String> fields = Arrays.asList((String[]) accessorClass.getField("FIELDS").get(null));
+            DaoAccessor accessor = (DaoAccessor) accessorClass.getDeclaredConstructor().newInstance();
+            for (DaoColumn column : columns) {
+                Field f = column.getField();
+                int index = fields.indexOf(f.getDeclaringClass().getName() + "." + f.getName());
+                if (index >= 0) {
+                    column.bind(accessor, index);
+                }
+            }
+            return accessor;
+        }
+        catch (ClassNotFoundException ex) {
+            return null;
+        }
+        catch (ReflectiveOperationException | ClassCastException | LinkageError ex) {
+            // LinkageError: the method handles of private fields failed to initialize
+            LOGGER.log(Level.WARNING, "failed to bind the generated accessor of " + clz.getName(), ex);
+            return null;
+        }
+    }
+
+    private static String switchCode(StringBuilder cases) {
+        return cases.length() == 0 ? "" : "switch(index) { " + cases + " } ";
+    }
+
+    private static boolean canCreate(Class<?> clz) {
+        if (Modifier.isAbstract(clz.getModifiers()) || clz.isMemberClass() && !Modifier.isStatic(clz.getModifiers())) {
+            return false;
+        }
+        try {
+            Constructor<?> c = clz.getDeclaredConstructor();
+            return !Modifier.isPrivate(c.getModifiers());
+        }
+        catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    private static boolean canAccess(Class<?> clz, Field f) {
+        int m = f.getModifiers();
+        if (Modifier.isPrivate(m) || Modifier.isFinal(m) || Modifier.isStatic(m)) {
+            return false;
+        }
+        Class<?> owner = f.getDeclaringClass();
+        return Modifier.isPublic(m) && Modifier.isPublic(owner.getModifiers())
+                || samePackage(clz, owner);
+    }
+
+    private static boolean samePackage(Class<?> c1, Class<?> c2) {
+        return c1.getClassLoader() == c2.getClassLoader()
+                && packageName(c1).equals(packageName(c2));
+    }
+
+    private static String packageName(Class<?> clz) {
+        String name = clz.getName();
+        int i = name.lastIndexOf('.');
+        return i < 0 ? "" : name.substring(0, i);
+    }
+
+    private static String typeName(Class<?> type) {
+        return type.isArray()
+                ? typeName(type.getComponentType()) + "[]"
+                : type.getName();
+    }
+
+    private static String box(Class<?> type, String value) {
+        if (!type.isPrimitive()) {
+            return value;
+        }
+        if (type == boolean.class) {
+            return "java.lang.Boolean.valueOf(" + value + ")";
+        }
+        if (type == char.class) {
+            return "java.lang.Character.valueOf(" + value + ")";
+        }
+        if (type == byte.class) {
+            return "java.lang.Byte.valueOf(" + value + ")";
+        }
+        if (type == short.class) {
+            return "java.lang.Short.valueOf(" + value + ")";
+        }
+        if (type == int.class) {
+            return "java.lang.Integer.valueOf(" + value + ")";
+        }
+        if (type == long.class) {
+            return "java.lang.Long.valueOf(" + value + ")";
+        }
+        if (type == float.class) {
+            return "java.lang.Float.valueOf(" + value + ")";
+        }
+        return "java.lang.Double.valueOf(" + value + ")";
+    }
+
+    private static String unbox(Class<?> type, String value) {
+        if (!type.isPrimitive()) {
+            return "(" + typeName(type) + ")" + value;
+        }
+        if (type == boolean.class) {
+            return "((java.lang.Boolean)" + value + ").booleanValue()";
+        }
+        if (type == char.class) {
+            return "((java.lang.Character)" + value + ").charValue()";
+        }
+        return "((java.lang.Number)" + value + ")." + type.getName() + "Value()";
+    }
+}
@@ -22,6 +22,8 @@ import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -36,16 +38,80 @@ public class DaoColumn {
 
     private DaoColumnReader reader;
 
+    private DaoAccessor accessor;
+
+    private int accessorIndex;
+
+    private final Primitive reads;
+
+    private final Primitive writes;
+
+    /**
+     * Constructor.<br>
+     * A field of int, long, double or boolean with the typed reader or writer of the same type is read or written without boxing,
+     * SQL NULL is read as 0 or false.
+     *
+     * @param field The field.
+     * @param reader The reader.
+     * @param writer The writer.
+     */
     public DaoColumn(Field field, DaoColumnReader reader, DaoColumnWriter writer) {
         this.field = field;
         this.field.setAccessible(true);
         this.reader = reader;
         this.writer = writer;
+
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            this.reads = reader instanceof DaoColumnReader.OfInt ? Primitive.INT : Primitive.NONE;
+            this.writes = writer instanceof DaoColumnWriter.OfInt ? Primitive.INT : Primitive.NONE;
+        }
+        else if (type == long.class) {
+            this.reads = reader instanceof DaoColumnReader.OfLong ? Primitive.LONG : Primitive.NONE;
+            this.writes = writer instanceof DaoColumnWriter.OfLong ? Primitive.LONG : Primitive.NONE;
+        }
+        else if (type == double.class) {
+            this.reads = reader instanceof DaoColumnReader.OfDouble ? Primitive.DOUBLE : Primitive.NONE;
+            this.writes = writer instanceof DaoColumnWriter.OfDouble ? Primitive.DOUBLE : Primitive.NONE;
+        }
+        else if (type == boolean.class) {
+            this.reads = reader instanceof DaoColumnReader.OfBoolean ? Primitive.BOOLEAN : Primitive.NONE;
+            this.writes = writer instanceof DaoColumnWriter.OfBoolean ? Primitive.BOOLEAN : Primitive.NONE;
+        }
+        else {
+            this.reads = Primitive.NONE;
+            this.writes = Primitive.NONE;
+        }
     }
 
     void run(Object obj, PreparedStatement ps, int index) throws SQLException, DaoException {
         try {
-            this.writer.write(ps, index, this.field.get(obj));
+            switch (this.writes) {
+                case INT:
+                    ((DaoColumnWriter.OfInt) this.writer).writeInt(ps, index, this.accessor == null
+                            ? this.field.getInt(obj)
+                            : this.accessor.getInt(obj, this.accessorIndex));
+                    break;
+                case LONG:
+                    ((DaoColumnWriter.OfLong) this.writer).writeLong(ps, index, this.accessor == null
+                            ? this.field.getLong(obj)
+                            : this.accessor.getLong(obj, this.accessorIndex));
+                    break;
+                case DOUBLE:
+                    ((DaoColumnWriter.OfDouble) this.writer).writeDouble(ps, index, this.accessor == null
+                            ? this.field.getDouble(obj)
+                            : this.accessor.getDouble(obj, this.accessorIndex));
+                    break;
+                case BOOLEAN:
+                    ((DaoColumnWriter.OfBoolean) this.writer).writeBoolean(ps, index, this.accessor == null
+                            ? this.field.getBoolean(obj)
+                            : this.accessor.getBoolean(obj, this.accessorIndex));
+                    break;
+                default:
+                    this.writer.write(ps, index, this.accessor == null
+                            ? this.field.get(obj)
+                            : this.accessor.get(obj, this.accessorIndex));
+            }
         }
         catch (Exception e) {
             throw new DaoException(String.format("%s(%s) write failed", this, index), e);
@@ -54,16 +120,150 @@ public class DaoColumn {
 
     void run(Object obj, ResultSet rs, int index) throws SQLException, DaoException {
         try {
-            this.field.set(obj, this.reader.read(rs, index));
+            switch (this.reads) {
+                case INT:
+                    int i = ((DaoColumnReader.OfInt) this.reader).readInt(rs, index);
+                    if (this.accessor == null) {
+                        this.field.setInt(obj, i);
+                    }
+                    else {
+                        this.accessor.setInt(obj, this.accessorIndex, i);
+                    }
+                    break;
+                case LONG:
+                    long l = ((DaoColumnReader.OfLong) this.reader).readLong(rs, index);
+                    if (this.accessor == null) {
+                        this.field.setLong(obj, l);
+                    }
+                    else {
+                        this.accessor.setLong(obj, this.accessorIndex, l);
+                    }
+                    break;
+                case DOUBLE:
+                    double d = ((DaoColumnReader.OfDouble) this.reader).readDouble(rs, index);
+                    if (this.accessor == null) {
+                        this.field.setDouble(obj, d);
+                    }
+                    else {
+                        this.accessor.setDouble(obj, this.accessorIndex, d);
+                    }
+                    break;
+                case BOOLEAN:
+                    boolean b = ((DaoColumnReader.OfBoolean) this.reader).readBoolean(rs, index);
+                    if (this.accessor == null) {
+                        this.field.setBoolean(obj, b);
+                    }
+                    else {
+                        this.accessor.setBoolean(obj, this.accessorIndex, b);
+                    }
+                    break;
+                default:
+                    if (this.accessor == null) {
+                        this.field.set(obj, this.reader.read(rs, index));
+                    }
+                    else {
+                        this.accessor.set(obj, this.accessorIndex, this.reader.read(rs, index));
+                    }
+            }
         }
         catch (Exception e) {
             throw new DaoException(String.format("%s(%s) read failed", this, index), e);
         }
     }
 
+    /**
+     * Returns the value of the field.
+     *
+     * @param obj The DTO object.
+     * @return The value.
+     * @throws DaoException Failed to read the field.
+     */
+    Object getValue(Object obj) throws DaoException {
+        try {
+            return this.accessor == null
+                    ? this.field.get(obj)
+                    : this.accessor.get(obj, this.accessorIndex);
+        }
+        catch (Exception e) {
+            throw new DaoException(String.format("%s read value failed", this), e);
+        }
+    }
+
+    /**
+     * Sets the value of the field.
+     *
+     * @param obj The DTO object.
+     * @param value The value.
+     * @throws DaoException Failed to write the field.
+     */
+    void setValue(Object obj, Object value) throws DaoException {
+        try {
+            if (this.accessor == null) {
+                this.field.set(obj, value);
+            }
+            else {
+                this.accessor.set(obj, this.accessorIndex, value);
+            }
+        }
+        catch (Exception e) {
+            throw new DaoException(String.format("%s write value failed", this), e);
+        }
+    }
+
+    /**
+     * Returns values of some columns of the DTO object.
+     *
+     * @param columns The columns keyed by the lower case column name.
+     * @param obj The DTO object.
+     * @param columnNames The column names, the alias is ignored, e.g. 'x.c1'.
+     * @return The values.
+     * @throws DaoException Failed to read values or the column is not found.
+     */
+    static Object[] readValues(Map<String, DaoColumn> columns, Object obj, List<String> columnNames) throws DaoException {
+        Object[] values = new Object[columnNames.size()];
+        for (int i = 0; i < values.length; i++) {
+            String name = columnNames.get(i);
+            DaoColumn column = columns.get(name.substring(name.lastIndexOf('.') + 1).toLowerCase());
+            if (column == null) {
+                throw new DaoException(String.format("column:%s not found", name));
+            }
+            values[i] = column.getValue(obj);
+        }
+        return values;
+    }
+
+    Field getField() {
+        return this.field;
+    }
+
+    DaoAccessor getAccessor() {
+        return this.accessor;
+    }
+
+    boolean isBound() {
+        return this.accessor != null;
+    }
+
+    void bind(DaoAccessor accessor, int accessorIndex) {
+        this.accessor = accessor;
+        this.accessorIndex = accessorIndex;
+    }
+
     @Override
     public String toString() {
         return this.field.getName();
     }
 
+    /**
+     * The primitive type read or written without boxing.
+     *
+     */
+    private enum Primitive {
+        NONE,
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN
+    }
+
 }
@@ -47,4 +47,68 @@ public interface DaoColumnReader {
         String r = rs.getString(index);
         return r != null && r.isEmpty() ? null : r;
     }
+
+    /**
+     * The reader of an int column. The value is read by one typed getter, a primitive field is set without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfInt extends DaoColumnReader {
+
+        public int readInt(ResultSet rs, int index) throws SQLException;
+
+        @Override
+        public default Object read(ResultSet rs, int index) throws SQLException {
+            int v = readInt(rs, index);
+            return rs.wasNull() ? null : v;
+        }
+    }
+
+    /**
+     * The reader of a long column. The value is read by one typed getter, a primitive field is set without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfLong extends DaoColumnReader {
+
+        public long readLong(ResultSet rs, int index) throws SQLException;
+
+        @Override
+        public default Object read(ResultSet rs, int index) throws SQLException {
+            long v = readLong(rs, index);
+            return rs.wasNull() ? null : v;
+        }
+    }
+
+    /**
+     * The reader of a double column. The value is read by one typed getter, a primitive field is set without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfDouble extends DaoColumnReader {
+
+        public double readDouble(ResultSet rs, int index) throws SQLException;
+
+        @Override
+        public default Object read(ResultSet rs, int index) throws SQLException {
+            double v = readDouble(rs, index);
+            return rs.wasNull() ? null : v;
+        }
+    }
+
+    /**
+     * The reader of a boolean column. The value is read by one typed getter, a primitive field is set without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfBoolean extends DaoColumnReader {
+
+        public boolean readBoolean(ResultSet rs, int index) throws SQLException;
+
+        @Override
+        public default Object read(ResultSet rs, int index) throws SQLException {
+            boolean v = readBoolean(rs, index);
+            return rs.wasNull() ? null : v;
+        }
+    }
 }
@@ -20,6 +20,7 @@ package uia.dao;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 
 /**
 *
@@ -39,4 +40,84 @@ public interface DaoColumnWriter {
         }
     }
 
+    /**
+     * The writer of an int column. A primitive field is bound without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfInt extends DaoColumnWriter {
+
+        public void writeInt(PreparedStatement ps, int index, int value) throws SQLException;
+
+        @Override
+        public default void write(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value == null) {
+                ps.setNull(index, Types.INTEGER);
+            }
+            else {
+                writeInt(ps, index, ((Number) value).intValue());
+            }
+        }
+    }
+
+    /**
+     * The writer of a long column. A primitive field is bound without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfLong extends DaoColumnWriter {
+
+        public void writeLong(PreparedStatement ps, int index, long value) throws SQLException;
+
+        @Override
+        public default void write(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value == null) {
+                ps.setNull(index, Types.BIGINT);
+            }
+            else {
+                writeLong(ps, index, ((Number) value).longValue());
+            }
+        }
+    }
+
+    /**
+     * The writer of a double column. A primitive field is bound without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfDouble extends DaoColumnWriter {
+
+        public void writeDouble(PreparedStatement ps, int index, double value) throws SQLException;
+
+        @Override
+        public default void write(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value == null) {
+                ps.setNull(index, Types.DOUBLE);
+            }
+            else {
+                writeDouble(ps, index, ((Number) value).doubleValue());
+            }
+        }
+    }
+
+    /**
+     * The writer of a boolean column. A primitive field is bound without boxing.
+     *
+     */
+    @FunctionalInterface
+    public interface OfBoolean extends DaoColumnWriter {
+
+        public void writeBoolean(PreparedStatement ps, int index, boolean value) throws SQLException;
+
+        @Override
+        public default void write(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value == null) {
+                ps.setNull(index, Types.BOOLEAN);
+            }
+            else {
+                writeBoolean(ps, index, (Boolean) value);
+            }
+        }
+    }
+
 }
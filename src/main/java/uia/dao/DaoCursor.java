@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The forward-only cursor maps one row at a time from a result set.<br>
+ * The cursor owns the statement and the result set, and releases them when it is closed or reaches the end.
+ * The rows read are recorded to the metrics of the statement when the cursor is closed.
+ * Some drivers stream rows with the fetch size only in specific conditions, e.g. PostgreSQL requires auto-commit off.
+ *
+ * @author Kyle K. Lin
+ *
+ * @param <T> The DTO class type.
+ */
+public class DaoCursor<T> implements Iterator<T>, AutoCloseable {
+
+    private final DaoStatement stmt;
+
+    private final ResultSet rs;
+
+    private final DaoMethod<T> method;
+
+    private final Filter filter;
+
+    private T current;
+
+    private int rows;
+
+    private boolean closed;
+
+    private DaoCursor(DaoStatement stmt, ResultSet rs, DaoMethod<T> method, Filter filter) {
+        this.stmt = stmt;
+        this.rs = rs;
+        this.method = method;
+        this.filter = filter == null ? Filter.ALL : filter;
+    }
+
+    /**
+     * Executes a query and opens a cursor on it. The statement is closed if failed.
+     *
+     * @param stmt The statement to be executed.
+     * @param method The method to map rows.
+     * @param filter The filter.
+     * @param fetchSize The fetch size. Zero or negative is ignored.
+     * @param <T> The DTO class type.
+     * @return The cursor.
+     * @throws SQLException Failed to execute the SQL statement.
+     */
+    static <T> DaoCursor<T> open(DaoStatement stmt, DaoMethod<T> method, Filter filter, int fetchSize) throws SQLException {
+        try {
+            if (fetchSize > 0) {
+                stmt.getStatement().setFetchSize(fetchSize);
+            }
+            return new DaoCursor<>(stmt, stmt.executeQuery(), method, filter);
+        }
+        catch (SQLException | RuntimeException ex) {
+            try {
+                stmt.close();
+            }
+            catch (SQLException ex2) {
+                ex.addSuppressed(ex2);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.current != null) {
+            return true;
+        }
+        try {
+            this.current = fetch();
+            return this.current != null;
+        }
+        catch (SQLException | DaoException ex) {
+            IllegalStateException failure = new IllegalStateException("cursor failed to read", ex);
+            closeQuietly(failure);
+            throw failure;
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T result = this.current;
+        this.current = null;
+        return result;
+    }
+
+    /**
+     * Consumes all remaining rows and closes the cursor.
+     *
+     * @param consumer The consumer.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public void consume(Consumer<T> consumer) throws SQLException, DaoException {
+        try {
+            if (this.current != null) {
+                T data = this.current;
+                this.current = null;
+                consumer.accept(data);
+            }
+            T data;
+            while ((data = fetch()) != null) {
+                consumer.accept(data);
+            }
+        }
+        catch (SQLException | DaoException | RuntimeException ex) {
+            closeQuietly(ex);
+            throw ex;
+        }
+        close();
+    }
+
+    /**
+     * Returns a sequential stream of remaining rows. Closing the stream closes the cursor.
+     *
+     * @return The stream.
+     */
+    public Stream<T> stream() {
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::closeUnchecked);
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        close(true);
+    }
+
+    private T fetch() throws SQLException, DaoException {
+        if (this.closed) {
+            return null;
+        }
+        while (this.rs.next()) {
+            if (this.filter.accept(this.rs)) {
+                T data = this.method.read(this.rs);
+                this.rows++;
+                return data;
+            }
+        }
+        close();
+        return null;
+    }
+
+    /**
+     * Closes the cursor. The statement is recorded as failed if the rows are not completed.
+     */
+    private void close(boolean completed) throws SQLException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.rs.close();
+        }
+        finally {
+            if (completed) {
+                this.stmt.fetched(null, this.rows);
+            }
+            this.stmt.close();
+        }
+    }
+
+    /**
+     * Closes the cursor after a failure, the failure of closing is added to the cause as a suppressed exception.
+     */
+    private void closeQuietly(Throwable cause) {
+        try {
+            close(false);
+        }
+        catch (SQLException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    /**
+     * Closes the cursor for the stream, which can't throw a checked exception.
+     */
+    private void closeUnchecked() {
+        try {
+            close();
+        }
+        catch (SQLException ex) {
+            throw new IllegalStateException("cursor failed to close", ex);
+        }
+    }
+}
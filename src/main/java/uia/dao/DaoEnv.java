@@ -18,19 +18,23 @@ import java.sql.Struct;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import uia.dao.env.AppSourceEnv;
 import uia.dao.env.Env;
 import uia.dao.env.HanaEnv;
 import uia.dao.env.HikariEnv;
 import uia.dao.env.OracleEnv;
+import uia.dao.env.PooledEnv;
 import uia.dao.env.PostgreSQLEnv;
 import uia.dao.env.SQLServerEnv;
 import uia.dao.env.SQLServerOldEnv;
@@ -55,7 +59,20 @@ public abstract class DaoEnv {
 
     private final String envName;
 
-    private Env env;
+    private final Object configLock = new Object();
+
+    private volatile Env env;
+
+    private volatile Bulkhead bulkhead;
+
+    /**
+     * The max count of cached prepared statements per connection if the env doesn't cache them.
+     */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    private int statementCacheSize = -1;
+
+    private final ConcurrentHashMap<Class<?>, DaoLoader<?>> loaders = new ConcurrentHashMap<>();
 
     public static DaoEnv dataSource(final boolean dateToUTC, final String packageName) throws DaoException {
         return new DaoEnv(DATASOURCE, dateToUTC) {
@@ -125,6 +142,54 @@ public abstract class DaoEnv {
         }
     }
 
+    public int getStatementCacheSize() {
+        return this.statementCacheSize;
+    }
+
+    /**
+     * Sets the max count of cached prepared statements per connection.<br>
+     * By default, statements are cached only if the pool or the JDBC driver doesn't cache them, see {@link Env#cachesStatements()}.
+     *
+     * @param statementCacheSize The max count. Zero disables the cache, negative uses the default.
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * Returns the limiter of concurrent connections.
+     *
+     * @return The limiter or null if not limited.
+     */
+    public Bulkhead getBulkhead() {
+        return this.bulkhead;
+    }
+
+    /**
+     * Limits the count of concurrent connections created by this environment.<br>
+     * A request waits in a fair queue, SQLTransientConnectionException is thrown if no connection is returned in the max wait time.
+     * A connection holds the permit until it is closed.
+     *
+     * @param maxConcurrent The max count of concurrent connections. Zero or negative removes the limit.
+     * @param maxWaitMillis The max milliseconds to wait.
+     * @return The instance.
+     */
+    public DaoEnv limit(int maxConcurrent, long maxWaitMillis) {
+        this.bulkhead = maxConcurrent > 0 ? new Bulkhead(maxConcurrent, maxWaitMillis) : null;
+        return this;
+    }
+
+    /**
+     * Adds an interceptor of statements executed by DAOs of this environment.
+     *
+     * @param interceptor The interceptor.
+     * @return The instance.
+     */
+    public DaoEnv intercept(DaoInterceptor interceptor) {
+        this.factory.addInterceptor(interceptor);
+        return this;
+    }
+
     public DaoFactory getDaoFactory() {
         return this.factory;
     }
@@ -137,8 +202,13 @@ public abstract class DaoEnv {
         return this.factory.fromUTC(utc);
     }
 
+    /**
+     * Closes the environment. The connection pool is drained.
+     */
     public void close() {
-        this.env.close();
+        if (this.env != null) {
+            this.env.close();
+        }
     }
 
     public <T> TableDaoHelper<T> forTable(Class<T> clz) {
@@ -147,6 +217,24 @@ public abstract class DaoEnv {
                 : this.factory.forTable(clz);
     }
 
+    /**
+     * Returns the loader of rows of a table shared by threads of this environment.<br>
+     * Keys requested by threads at the same time are selected by one query.
+     * The connection of a batch doesn't wait for the limiter, the leader of the batch may be a thread holding the only permit.
+     *
+     * @param clz The DTO class of the table.
+     * @param <T> The DTO class type.
+     * @return The loader.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> DaoLoader<T> loader(Class<T> clz) {
+        return (DaoLoader<T>) this.loaders.computeIfAbsent(clz, c -> new DaoLoader<>(
+                forTable(clz),
+                this::createUnlimited,
+                DaoLoader.DEFAULT_WINDOW_MILLIS,
+                DaoLoader.DEFAULT_MAX_BATCH));
+    }
+
     public <T> ViewDaoHelper<T> forView(Class<T> clz) {
         return this.factory == null
                 ? null
@@ -195,7 +283,7 @@ public abstract class DaoEnv {
     }
 
     /**
-     * Configure database.
+     * Configure database. The connection pool of the dialect is enabled with default settings.
      *
      * @param conn The JDBC connection string.
      * @param user The user id.
@@ -203,32 +291,12 @@ public abstract class DaoEnv {
      * @param schema The schema.
      * @return The instance.
      */
-    public synchronized DaoEnv config(
+    public DaoEnv config(
             String conn,
             String user,
             String pwd,
             String schema) {
-        if (DATASOURCE.equals(this.envName)) {
-            this.env = new AppSourceEnv(conn);
-        }
-        else if (DATAPOOL.equals(this.envName)) {
-            this.env = new HikariEnv(conn, user, pwd);
-        }
-        else if (HANA.equals(this.envName)) {
-            this.env = new HanaEnv(conn, user, pwd, schema);
-        }
-        else if (MSSQL.equals(this.envName)) {
-            this.env = new SQLServerEnv(conn, user, pwd, schema);
-        }
-        else if (MSSQLOLD.equals(this.envName)) {
-            this.env = new SQLServerOldEnv(conn, user, pwd, schema);
-        }
-        else if (ORACLE.equals(this.envName)) {
-            this.env = new OracleEnv(conn, user, pwd, schema);
-        }
-        else {
-            this.env = new PostgreSQLEnv(conn, user, pwd, schema);
-        }
+        replaceEnv(createEnv(conn, user, pwd, schema, null));
         try (Connection x = create()) {
         }
         catch (Exception ex) {
@@ -237,7 +305,9 @@ public abstract class DaoEnv {
     }
 
     /**
-     * Configure database.
+     * Configure database.<br>
+     * The properties with the prefix 'pool.' configure the connection pool of the dialect, see {@link PooledEnv},
+     * e.g. 'pool.enabled', 'pool.minIdle', 'pool.maxSize' and 'pool.idleTimeout'. Others are passed to the JDBC driver.
      *
      * @param conn The JDBC connection string.
      * @param user The user id.
@@ -246,48 +316,99 @@ public abstract class DaoEnv {
      * @param props The properties.
      * @return The instance.
      */
-    public synchronized DaoEnv config(
+    public DaoEnv config(
             String conn,
             String user,
             String pwd,
             String schema,
             Properties props) {
+        replaceEnv(createEnv(conn, user, pwd, schema, props));
+        return this;
+    }
+
+    /**
+     * Create a connection.
+     *
+     * @return A connection.
+     * @throws SQLException Failed to execute.
+     */
+    public Connection create() throws SQLException {
+        Env current = this.env;
+        Bulkhead limiter = this.bulkhead;
+        if (limiter == null) {
+            return new ConnectionProxy(current.create(), statementCacheSize(current));
+        }
+
+        limiter.acquire();
+        try {
+            return new ConnectionProxy(current.create(), statementCacheSize(current), limiter::release);
+        }
+        catch (SQLException | RuntimeException ex) {
+            limiter.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Create a connection without the permit of the limiter.
+     *
+     * @return A connection.
+     * @throws SQLException Failed to execute.
+     */
+    Connection createUnlimited() throws SQLException {
+        Env current = this.env;
+        return new ConnectionProxy(current.create(), statementCacheSize(current));
+    }
+
+    protected abstract void initialFactory(DaoFactory factory) throws Exception;
+
+    private int statementCacheSize(Env env) {
+        if (this.statementCacheSize >= 0) {
+            return this.statementCacheSize;
+        }
+        return env.cachesStatements() ? 0 : DEFAULT_STATEMENT_CACHE_SIZE;
+    }
+
+    private Env createEnv(String conn, String user, String pwd, String schema, Properties props) {
         if (DATASOURCE.equals(this.envName)) {
-            this.env = new AppSourceEnv(conn);
+            return new AppSourceEnv(conn);
         }
         else if (DATAPOOL.equals(this.envName)) {
-            this.env = new HikariEnv(conn, user, pwd, props);
+            return props == null
+                    ? new HikariEnv(conn, user, pwd)
+                    : new HikariEnv(conn, user, pwd, props);
         }
         else if (HANA.equals(this.envName)) {
-            this.env = new HanaEnv(conn, user, pwd, schema);
+            return new HanaEnv(conn, user, pwd, schema, props);
         }
         else if (MSSQL.equals(this.envName)) {
-            this.env = new SQLServerEnv(conn, user, pwd, schema);
+            return new SQLServerEnv(conn, user, pwd, schema, props);
         }
         else if (MSSQLOLD.equals(this.envName)) {
-            this.env = new SQLServerOldEnv(conn, user, pwd, schema);
+            return new SQLServerOldEnv(conn, user, pwd, schema);
         }
         else if (ORACLE.equals(this.envName)) {
-            this.env = new OracleEnv(conn, user, pwd, schema);
+            return new OracleEnv(conn, user, pwd, schema, props);
         }
         else {
-            this.env = new PostgreSQLEnv(conn, user, pwd, schema);
+            return new PostgreSQLEnv(conn, user, pwd, schema, props);
         }
-        return this;
     }
 
     /**
-     * Create a connection.
-     *
-     * @return A connection.
-     * @throws SQLException Failed to execute.
+     * Replaces the environment and closes the old one, the pool of the old one is drained.
      */
-    public synchronized Connection create() throws SQLException {
-        return new ConnectionProxy(this.env.create());
+    private void replaceEnv(Env env) {
+        Env old;
+        synchronized (this.configLock) {
+            old = this.env;
+            this.env = env;
+        }
+        if (old != null) {
+            old.close();
+        }
     }
 
-    protected abstract void initialFactory(DaoFactory factory) throws Exception;
-
     /**
      * Connection proxy of J2SE connection.
      *
@@ -298,8 +419,118 @@ public abstract class DaoEnv {
 
         private final Connection conn;
 
+        private final StatementCache statementCache;
+
+        private final Runnable onClose;
+
+        private final AtomicBoolean closed;
+
+        private final ArrayList<Runnable> transactionListeners;
+
+        /**
+         * The objects, e.g. DAO helpers of tables, written in the current transaction.
+         */
+        private final IdentityHashMap<Object, Object> dirty;
+
+        private Database dialect;
+
         ConnectionProxy(Connection conn) {
+            this(conn, 0);
+        }
+
+        ConnectionProxy(Connection conn, int statementCacheSize) {
+            this(conn, statementCacheSize, null);
+        }
+
+        ConnectionProxy(Connection conn, int statementCacheSize, Runnable onClose) {
             this.conn = conn;
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(conn, statementCacheSize)
+                    : null;
+            this.onClose = onClose;
+            this.closed = new AtomicBoolean();
+            this.transactionListeners = new ArrayList<>();
+            this.dirty = new IdentityHashMap<>();
+        }
+
+        /**
+         * Runs an action once when the current transaction is committed or rolled back.
+         *
+         * @param action The action.
+         */
+        public void afterTransaction(Runnable action) {
+            this.transactionListeners.add(action);
+        }
+
+        /**
+         * Marks an object written in the current transaction until the transaction is committed or rolled back.
+         *
+         * @param target The object, e.g. the DAO helper of a table.
+         */
+        public void markDirty(Object target) {
+            this.dirty.putIfAbsent(target, target);
+        }
+
+        /**
+         * Marks an object written in the current transaction with a state until the transaction is committed or rolled back.
+         *
+         * @param target The object, e.g. the DAO helper of a table.
+         * @param state The state, e.g. the invalidation run when the transaction ends.
+         */
+        public void markDirty(Object target, Object state) {
+            this.dirty.put(target, state);
+        }
+
+        /**
+         * Returns the state of an object written in the current transaction.
+         *
+         * @param target The object.
+         * @return The state, the object itself if marked without a state, or null if not written.
+         */
+        public Object getDirty(Object target) {
+            return this.dirty.get(target);
+        }
+
+        /**
+         * Tests if an object is written in the current transaction.
+         *
+         * @param target The object.
+         * @return True if written.
+         */
+        public boolean isDirty(Object target) {
+            return this.dirty.containsKey(target);
+        }
+
+        private void endTransaction() {
+            this.dirty.clear();
+            if (this.transactionListeners.isEmpty()) {
+                return;
+            }
+            ArrayList<Runnable> actions = new ArrayList<>(this.transactionListeners);
+            this.transactionListeners.clear();
+            actions.forEach(Runnable::run);
+        }
+
+        /**
+         * Returns the statement cache of this connection.
+         *
+         * @return The cache or null if disabled.
+         */
+        public StatementCache getStatementCache() {
+            return this.statementCache;
+        }
+
+        /**
+         * Returns the dialect of the database this connection connects to.
+         *
+         * @return The dialect or null if the database product is not supported.
+         * @throws SQLException Failed to read the metadata.
+         */
+        public Database getDialect() throws SQLException {
+            if (this.dialect == null) {
+                this.dialect = AbstractDatabase.dialect(this.conn.getMetaData());
+            }
+            return this.dialect;
         }
 
         @Override
@@ -325,16 +556,36 @@ public abstract class DaoEnv {
 
         @Override
         public void close() throws SQLException {
-            if (!getAutoCommit()) {
-                this.conn.rollback();
+            if (!this.closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (this.statementCache != null) {
+                    this.statementCache.close();
+                }
+                if (!getAutoCommit()) {
+                    this.conn.rollback();
+                }
+                this.conn.close();
+            }
+            finally {
+                endTransaction();
+                // the permit is released once even if closing fails.
+                if (this.onClose != null) {
+                    this.onClose.run();
+                }
             }
-            this.conn.close();
         }
 
         @Override
         public void commit() throws SQLException {
-            this.conn.commit();
-            this.conn.setAutoCommit(true);
+            try {
+                this.conn.commit();
+                this.conn.setAutoCommit(true);
+            }
+            finally {
+                endTransaction();
+            }
         }
 
         @Override
@@ -474,7 +725,9 @@ public abstract class DaoEnv {
 
         @Override
         public PreparedStatement prepareStatement(String sql) throws SQLException {
-            return this.conn.prepareStatement(sql);
+            return this.statementCache == null
+                    ? this.conn.prepareStatement(sql)
+                    : this.statementCache.prepare(sql);
         }
 
         @Override
@@ -509,7 +762,12 @@ public abstract class DaoEnv {
 
         @Override
         public void rollback() throws SQLException {
-            this.conn.rollback();
+            try {
+                this.conn.rollback();
+            }
+            finally {
+                endTransaction();
+            }
         }
 
         @Override
@@ -519,7 +777,12 @@ public abstract class DaoEnv {
 
         @Override
         public void setAutoCommit(boolean autoCommit) throws SQLException {
+            boolean commit = autoCommit && !this.conn.getAutoCommit();
             this.conn.setAutoCommit(autoCommit);
+            if (commit) {
+                // turning auto-commit on commits the transaction.
+                endTransaction();
+            }
         }
 
         @Override
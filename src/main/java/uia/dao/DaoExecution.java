@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The execution of a statement seen by interceptors.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class DaoExecution {
+
+    private final String dto;
+
+    private final String operation;
+
+    private String sql;
+
+    private Type type;
+
+    private List<Object> parameters;
+
+    private long rows;
+
+    private long elapsedNanos;
+
+    private Throwable error;
+
+    private HashMap<String, Object> attributes;
+
+    DaoExecution(String dto, String operation) {
+        this.dto = dto;
+        this.operation = operation;
+    }
+
+    /**
+     * Returns the DTO class name.
+     *
+     * @return The class name.
+     */
+    public String getDto() {
+        return this.dto;
+    }
+
+    /**
+     * Returns the operation, the DAO method name.
+     *
+     * @return The operation.
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Returns the type of the statement.
+     *
+     * @return The type.
+     */
+    public Type getType() {
+        if (this.type == null) {
+            this.type = Type.of(this.sql);
+        }
+        return this.type;
+    }
+
+    /**
+     * Returns the SQL statement. The statement is rewritten by interceptors when they are preparing it.
+     *
+     * @return The SQL statement.
+     */
+    public String getSql() {
+        return this.sql;
+    }
+
+    /**
+     * Returns the parameters bound. The parameters of the last row are returned for a batch.
+     *
+     * @return The parameters or null before the statement is executed.
+     */
+    public List<Object> getParameters() {
+        return this.parameters;
+    }
+
+    /**
+     * Returns the rows read or written.
+     *
+     * @return The rows.
+     */
+    public long getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the nanoseconds from preparing to closing the statement.
+     *
+     * @return The nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Returns the error.
+     *
+     * @return The error or null if succeeded.
+     */
+    public Throwable getError() {
+        return this.error;
+    }
+
+    public boolean isFailed() {
+        return this.error != null;
+    }
+
+    /**
+     * Returns an attribute kept by interceptors between calls.
+     *
+     * @param name The name.
+     * @return The value or null.
+     */
+    public Object getAttribute(String name) {
+        return this.attributes == null ? null : this.attributes.get(name);
+    }
+
+    /**
+     * Sets an attribute kept by interceptors between calls.
+     *
+     * @param name The name.
+     * @param value The value.
+     */
+    public void setAttribute(String name, Object value) {
+        if (this.attributes == null) {
+            this.attributes = new HashMap<>();
+        }
+        this.attributes.put(name, value);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s %s rows:%s, %sns%s",
+                this.dto,
+                this.operation,
+                this.sql,
+                this.rows,
+                this.elapsedNanos,
+                this.error == null ? "" : ", error:" + this.error.getMessage());
+    }
+
+    void sql(String sql) {
+        this.sql = sql;
+        this.type = null;
+    }
+
+    void parameters(List<Object> parameters) {
+        this.parameters = parameters;
+    }
+
+    void finish(long rows, long elapsedNanos, Throwable error) {
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    /**
+     * The type of statements.
+     *
+     */
+    public static enum Type {
+
+        SELECT,
+
+        INSERT,
+
+        UPDATE,
+
+        DELETE,
+
+        MERGE,
+
+        OTHER;
+
+        static Type of(String sql) {
+            if (sql == null) {
+                return OTHER;
+            }
+            // skip white spaces and comments
+            int b = 0;
+            while (b < sql.length()) {
+                if (Character.isWhitespace(sql.charAt(b))) {
+                    b++;
+                }
+                else if (sql.startsWith("/*", b)) {
+                    int e = sql.indexOf("*/", b + 2);
+                    b = e < 0 ? sql.length() : e + 2;
+                }
+                else if (sql.startsWith("--", b)) {
+                    int e = sql.indexOf('\n', b + 2);
+                    b = e < 0 ? sql.length() : e + 1;
+                }
+                else {
+                    break;
+                }
+            }
+            int i = b;
+            while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+                i++;
+            }
+            switch (sql.substring(b, i).toUpperCase(Locale.ENGLISH)) {
+                case "SELECT":
+                case "WITH":
+                    return SELECT;
+                case "INSERT":
+                case "UPSERT":
+                    return INSERT;
+                case "UPDATE":
+                    return UPDATE;
+                case "DELETE":
+                    return DELETE;
+                case "MERGE":
+                    return MERGE;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+}
@@ -23,16 +23,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.postgresql.util.PGobject;
 
@@ -66,12 +74,33 @@ public final class DaoFactory {
      */
     private final TreeMap<String, DaoColumnWriter> writers;
 
-    private final TreeMap<String, TableDaoHelper<?>> daoTables;
+    /**
+     * DTO class name - TableDaoHelper mapping, a helper is built at most once.
+     */
+    private final ConcurrentHashMap<String, TableDaoHelper<?>> daoTables;
+
+    /**
+     * DTO class name - ViewDaoHelper mapping, a helper is built at most once.
+     */
+    private final ConcurrentHashMap<String, ViewDaoHelper<?>> daoViews;
 
-    private final TreeMap<String, ViewDaoHelper<?>> daoViews;
+    /**
+     * DAO class - ProxyDao mapping.
+     */
+    private final ConcurrentHashMap<Class<?>, ProxyDao<?>> proxies;
 
     private final boolean dateToUTC;
 
+    private final DaoMetrics metrics;
+
+    private volatile SlowQueryLog slowQueryLog;
+
+    private volatile DaoInterceptor[] interceptors = new DaoInterceptor[0];
+
+    private volatile ScanIndex scanIndex;
+
+    private final CopyOnWriteArrayList<DaoLoadMetrics> loadMetrics;
+
     /**
      * Constructor.
      *
@@ -86,6 +115,7 @@ public final class DaoFactory {
         this.dataTypes.put("int", DataType.INTEGER);
         this.dataTypes.put("integer", DataType.INTEGER);
         this.dataTypes.put("long", DataType.LONG);
+        this.dataTypes.put("double", DataType.DOUBLE);
         this.dataTypes.put("bigdecimal", DataType.NUMERIC);
         this.dataTypes.put("string", DataType.NVARCHAR2);
         this.dataTypes.put("stringE2N", DataType.NVARCHAR2);
@@ -99,11 +129,12 @@ public final class DaoFactory {
         this.dataTypes.put("bit", DataType.BIT);
 
         this.readers = new TreeMap<>();
-        this.readers.put("boolean", this::readBoolean);
+        this.readers.put("boolean", (DaoColumnReader.OfBoolean) ResultSet::getBoolean);
         this.readers.put("short", this::readShort);
-        this.readers.put("int", this::readInt);
-        this.readers.put("integer", this::readInt);
-        this.readers.put("long", this::readLong);
+        this.readers.put("int", (DaoColumnReader.OfInt) ResultSet::getInt);
+        this.readers.put("integer", (DaoColumnReader.OfInt) ResultSet::getInt);
+        this.readers.put("long", (DaoColumnReader.OfLong) ResultSet::getLong);
+        this.readers.put("double", (DaoColumnReader.OfDouble) ResultSet::getDouble);
         this.readers.put("bigdecimal", this::readBigDecimal);
         this.readers.put("string", this::readString);
         this.readers.put("stringE2N", DaoColumnReader::empty2Null);
@@ -115,14 +146,15 @@ public final class DaoFactory {
         this.readers.put("byte[]", this::readBytes);
         this.readers.put("json", this::readString);
         this.readers.put("object", this::readObject);
-        this.readers.put("bit", this::readBoolean);
+        this.readers.put("bit", (DaoColumnReader.OfBoolean) ResultSet::getBoolean);
 
         this.writers = new TreeMap<>();
-        this.writers.put("boolean", this::writeBoolean);
+        this.writers.put("boolean", (DaoColumnWriter.OfBoolean) PreparedStatement::setBoolean);
         this.writers.put("short", this::writeShort);
-        this.writers.put("int", this::writeInt);
-        this.writers.put("integer", this::writeInt);
-        this.writers.put("long", this::writeLong);
+        this.writers.put("int", (DaoColumnWriter.OfInt) PreparedStatement::setInt);
+        this.writers.put("integer", (DaoColumnWriter.OfInt) PreparedStatement::setInt);
+        this.writers.put("long", (DaoColumnWriter.OfLong) PreparedStatement::setLong);
+        this.writers.put("double", (DaoColumnWriter.OfDouble) PreparedStatement::setDouble);
         this.writers.put("bigdecimal", this::writeBigDecimal);
         this.writers.put("string", this::writeString);
         this.writers.put("stringE2N", DaoColumnWriter::empty2Null);
@@ -134,10 +166,13 @@ public final class DaoFactory {
         this.writers.put("byte[]", this::writeBytes);
         this.writers.put("json", this::writeJson);
         this.writers.put("object", this::writeObject);
-        this.writers.put("bit", this::writeBoolean);
+        this.writers.put("bit", (DaoColumnWriter.OfBoolean) PreparedStatement::setBoolean);
 
-        this.daoTables = new TreeMap<>();
-        this.daoViews = new TreeMap<>();
+        this.daoTables = new ConcurrentHashMap<>();
+        this.daoViews = new ConcurrentHashMap<>();
+        this.metrics = new DaoMetrics();
+        this.loadMetrics = new CopyOnWriteArrayList<>();
+        this.proxies = new ConcurrentHashMap<>();
     }
 
     public DaoSession createSession(Connection conn) {
@@ -192,30 +227,131 @@ public final class DaoFactory {
                 : new ViewDao<T>(conn, helper);
     }
 
+    @SuppressWarnings("unchecked")
     public <T extends TableDao<?>> T proxyTableDao(Class<T> daoClz, Connection conn) throws DaoException {
-        DaoInfo dao = daoClz.getDeclaredAnnotation(DaoInfo.class);
-        if (dao == null) {
-            throw new NullPointerException("@DaoInfo not found");
-        }
-
-        TableDaoHelper<?> tableHelper = forTable(dao.type());
-        if (tableHelper != null) {
-            return new ProxyDao().bind(daoClz, conn, tableHelper);
+        ProxyDao<?> proxy = this.proxies.get(daoClz);
+        if (proxy == null) {
+            DaoInfo dao = daoClz.getDeclaredAnnotation(DaoInfo.class);
+            if (dao == null) {
+                throw new NullPointerException("@DaoInfo not found");
+            }
+            proxy = proxy(daoClz, new ProxyDao<>(daoClz, forTable(dao.type())));
         }
-        return null;
+        return (T) proxy.bind(conn);
     }
 
+    @SuppressWarnings("unchecked")
     public <T extends ViewDao<?>> T proxyViewDao(Class<T> daoClz, Connection conn) throws DaoException {
-        DaoInfo dao = daoClz.getDeclaredAnnotation(DaoInfo.class);
-        if (dao == null) {
-            throw new NullPointerException("@DaoInfo not found");
+        ProxyDao<?> proxy = this.proxies.get(daoClz);
+        if (proxy == null) {
+            DaoInfo dao = daoClz.getDeclaredAnnotation(DaoInfo.class);
+            if (dao == null) {
+                throw new NullPointerException("@DaoInfo not found");
+            }
+            proxy = proxy(daoClz, new ProxyDao<>(daoClz, forView(dao.type())));
         }
+        return (T) proxy.bind(conn);
+    }
 
-        ViewDaoHelper<?> viewHelper = forView(dao.type());
-        if (viewHelper != null) {
-            return new ProxyDao().bind(daoClz, conn, viewHelper);
-        }
-        return null;
+    /**
+     * Caches the proxy of a DAO class. The proxy cached first is kept if compiled by concurrent callers.
+     */
+    private ProxyDao<?> proxy(Class<?> daoClz, ProxyDao<?> proxy) {
+        ProxyDao<?> cached = this.proxies.putIfAbsent(daoClz, proxy);
+        return cached == null ? proxy : cached;
+    }
+
+    /**
+     * Returns the metrics of statements executed by DAOs of this factory.
+     *
+     * @return The metrics.
+     */
+    public DaoMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns the slow query log of statements executed by DAOs of this factory.
+     *
+     * @return The log or null if disabled.
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return this.slowQueryLog;
+    }
+
+    /**
+     * Sets the slow query log of statements executed by DAOs of this factory.
+     *
+     * @param slowQueryLog The log or null to disable.
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Adds an interceptor of statements executed by DAOs of this factory.
+     *
+     * @param interceptor The interceptor.
+     */
+    public synchronized void addInterceptor(DaoInterceptor interceptor) {
+        DaoInterceptor[] result = Arrays.copyOf(this.interceptors, this.interceptors.length + 1);
+        result[result.length - 1] = interceptor;
+        this.interceptors = result;
+    }
+
+    /**
+     * Removes an interceptor.
+     *
+     * @param interceptor The interceptor.
+     * @return True if removed.
+     */
+    public synchronized boolean removeInterceptor(DaoInterceptor interceptor) {
+        List<DaoInterceptor> result = new ArrayList<>(Arrays.asList(this.interceptors));
+        boolean removed = result.remove(interceptor);
+        this.interceptors = result.toArray(new DaoInterceptor[0]);
+        return removed;
+    }
+
+    /**
+     * Returns the interceptors in the order they are called.
+     *
+     * @return The interceptors.
+     */
+    public List<DaoInterceptor> getInterceptors() {
+        return Collections.unmodifiableList(Arrays.asList(this.interceptors));
+    }
+
+    /**
+     * Returns the file of the scan index.
+     *
+     * @return The file or null if disabled.
+     */
+    public Path getScanIndex() {
+        ScanIndex index = this.scanIndex;
+        return index == null ? null : index.getFile();
+    }
+
+    /**
+     * Sets the file of the scan index. The DTO classes found by scanning a package are saved to the file,
+     * a restart loading the package skips the scan if the checksum of the package is not changed.
+     *
+     * @param file The file or null to disable.
+     */
+    public void setScanIndex(Path file) {
+        this.scanIndex = file == null ? null : new ScanIndex(file);
+    }
+
+    /**
+     * Returns the metrics of packages loaded, the latest is the last.
+     *
+     * @return The metrics.
+     */
+    public List<DaoLoadMetrics> getLoadMetrics() {
+        return Collections.unmodifiableList(this.loadMetrics);
+    }
+
+    DaoInterceptor[] interceptors() {
+        return this.interceptors;
     }
 
     public String getDefaultSchema() {
@@ -247,7 +383,11 @@ public final class DaoFactory {
     }
 
     /**
-     * Loads definitions of DAO.
+     * Loads definitions of DAO.<br>
+     * The DTO classes are listed by the index generated by DaoProcessor at compile time.
+     * If no class of the package is listed, the DTO classes saved in the scan index are used when the checksum of the package is not changed,
+     * otherwise the classpath is scanned and the scan index is updated.
+     * The DAO helpers are built in parallel, the time of each phase is added to the load metrics.
      *
      * @param packageName The package name.
      * @param loader The class loader.
@@ -258,58 +398,108 @@ public final class DaoFactory {
             return;
         }
 
-        String name = null;
-        // Reflections version
-        /**
-        try {
-            Reflections ref = new Reflections(packageName, loader);
-            // tables
-            Set<Class<?>> tables = ref.getTypesAnnotatedWith(TableInfo.class, true);
-            for (Class<?> t : tables) {
-                TableInfo ti = t.getDeclaredAnnotation(TableInfo.class);
-                if (ti == null) {
-                    continue;
+        // index generated by DaoProcessor
+        long t0 = System.nanoTime();
+        Set<Class<?>> tvs = ClassUtils.getIndexedClassSet(packageName, loader);
+        DaoLoadMetrics.Source source = DaoLoadMetrics.Source.INDEX;
+        long t1 = System.nanoTime();
+
+        // scan index or scanning the classpath
+        ScanIndex scanIndex = this.scanIndex;
+        String checksum = null;
+        if (tvs.isEmpty()) {
+            source = DaoLoadMetrics.Source.SCAN;
+            if (scanIndex != null) {
+                checksum = ScanIndex.checksum(packageName, loader);
+                List<String> classNames = checksum == null ? null : scanIndex.get(packageName, checksum);
+                if (classNames != null) {
+                    tvs = forNames(classNames, loader);
+                    source = tvs.size() == classNames.size() ? DaoLoadMetrics.Source.SCAN_INDEX : DaoLoadMetrics.Source.SCAN;
                 }
-                name = t.getName();
-                this.daoTables.put(t.getName(), new TableDaoHelper<>(this, t));
             }
-            // views
-            Set<Class<?>> views = ref.getTypesAnnotatedWith(ViewInfo.class, true);
-            for (Class<?> v : views) {
-                ViewInfo vi = v.getDeclaredAnnotation(ViewInfo.class);
-                if (vi == null) {
-                    continue;
+            if (source == DaoLoadMetrics.Source.SCAN) {
+                try {
+                    tvs = ClassUtils.getClassSet(packageName, loader);
+                }
+                catch (RuntimeException ex) {
+                    throw new DaoException(packageName + " failed, " + ex.getMessage(), ex);
                 }
-                name = v.getName();
-                this.daoViews.put(v.getName(), new ViewDaoHelper<>(this, v));
             }
         }
-        catch (Exception ex) {
-            throw new DaoException(name + " failed, " + ex.getMessage(), ex);
+        long t2 = System.nanoTime();
+
+        // helpers
+        List<Class<?>> classes = new ArrayList<>(tvs);
+        Object[] helpers = classes.parallelStream()
+                .map(this::createHelper)
+                .toArray();
+        int tables = 0;
+        int views = 0;
+        ArrayList<String> dtos = new ArrayList<>();
+        for (int i = 0; i < helpers.length; i++) {
+            Object helper = helpers[i];
+            if (helper instanceof DaoException) {
+                throw (DaoException) helper;
+            }
+            // a helper built before is kept
+            String name = classes.get(i).getName();
+            if (helper instanceof TableDaoHelper) {
+                this.daoTables.putIfAbsent(name, (TableDaoHelper<?>) helper);
+                dtos.add(name);
+                tables++;
+            }
+            else if (helper instanceof ViewDaoHelper) {
+                this.daoViews.putIfAbsent(name, (ViewDaoHelper<?>) helper);
+                dtos.add(name);
+                views++;
+            }
+        }
+        long t3 = System.nanoTime();
+
+        if (source == DaoLoadMetrics.Source.SCAN && checksum != null) {
+            try {
+                scanIndex.put(packageName, checksum, dtos);
+            }
+            catch (IOException ex) {
+                // scan again next time
+            }
         }
-        */
 
-        // ClassUtils version
+        this.loadMetrics.add(new DaoLoadMetrics(packageName, source, tvs.size(), tables, views, t1 - t0, t2 - t1, t3 - t2));
+    }
+
+    /**
+     * Builds the DAO helper of a class. The failure is returned instead of thrown, so the first failed class in order is reported.
+     *
+     * @param tv The class.
+     * @return The TableDaoHelper, ViewDaoHelper, DaoException or null if the class is not a DTO class.
+     */
+    private Object createHelper(Class<?> tv) {
         try {
-            // tables
-            Set<Class<?>> tvs = ClassUtils.getClassSet(packageName);
-            for (Class<?> tv : tvs) {
-                name = tv.getName();
-                TableInfo ti = tv.getDeclaredAnnotation(TableInfo.class);
-                if (ti != null) {
-                    this.daoTables.put(name, new TableDaoHelper<>(this, tv));
-                    continue;
-                }
-                ViewInfo vi = tv.getDeclaredAnnotation(ViewInfo.class);
-                if (vi != null) {
-                    this.daoViews.put(name, new ViewDaoHelper<>(this, tv));
-                    continue;
-                }
+            if (tv.getDeclaredAnnotation(TableInfo.class) != null) {
+                return new TableDaoHelper<>(this, tv);
             }
+            if (tv.getDeclaredAnnotation(ViewInfo.class) != null) {
+                return new ViewDaoHelper<>(this, tv);
+            }
+            return null;
         }
         catch (Exception ex) {
-            throw new DaoException(name + " failed, " + ex.getMessage(), ex);
+            return new DaoException(tv.getName() + " failed, " + ex.getMessage(), ex);
+        }
+    }
+
+    private static Set<Class<?>> forNames(List<String> classNames, ClassLoader loader) {
+        LinkedHashSet<Class<?>> classSet = new LinkedHashSet<>();
+        for (String className : classNames) {
+            try {
+                classSet.add(Class.forName(className, false, loader));
+            }
+            catch (ClassNotFoundException | LinkageError ex) {
+                // stale entry, scan again
+            }
         }
+        return classSet;
     }
 
     /**
@@ -318,9 +508,7 @@ public final class DaoFactory {
      * @param t Table class.
      */
     public void addTable(Class<?> t) {
-        if (!this.daoTables.containsKey(t.getName())) {
-            this.daoTables.put(t.getName(), new TableDaoHelper<>(this, t));
-        }
+        table(t);
     }
 
     /**
@@ -329,9 +517,7 @@ public final class DaoFactory {
      * @param v View class.
      */
     public void addView(Class<?> v) {
-        if (!this.daoViews.containsKey(v.getName())) {
-            this.daoViews.put(v.getName(), new ViewDaoHelper<>(this, v));
-        }
+        view(v);
     }
 
     /**
@@ -353,7 +539,8 @@ public final class DaoFactory {
     }
 
     /**
-     * Returns DAO helper for a table.
+     * Returns DAO helper for a table.<br>
+     * The helper is built at first call, concurrent callers get the same helper.
      *
      * @param clz The DTO class type of a table.
      * @param <T> The type of DTO class.
@@ -361,12 +548,12 @@ public final class DaoFactory {
      */
     @SuppressWarnings("unchecked")
     public <T> TableDaoHelper<T> forTable(Class<T> clz) {
-        addTable(clz);
-        return (TableDaoHelper<T>) this.daoTables.get(clz.getName());
+        return (TableDaoHelper<T>) table(clz);
     }
 
     /**
-     * Returns DAO helper for a view.
+     * Returns DAO helper for a view.<br>
+     * The helper is built at first call, concurrent callers get the same helper.
      *
      * @param clz The DTO class type of a view.
      * @param <T> The type of DTO class.
@@ -374,10 +561,33 @@ public final class DaoFactory {
      */
     @SuppressWarnings("unchecked")
     public <T> ViewDaoHelper<T> forView(Class<T> clz) {
-        addView(clz);
-        return (ViewDaoHelper<T>) this.daoViews.get(clz.getName());
+        return (ViewDaoHelper<T>) view(clz);
+    }
+
+    private TableDaoHelper<?> table(Class<?> t) {
+        // get first, computeIfAbsent locks the bin even if the helper exists.
+        TableDaoHelper<?> helper = this.daoTables.get(t.getName());
+        return helper != null
+                ? helper
+                : this.daoTables.computeIfAbsent(t.getName(), k -> new TableDaoHelper<>(this, t));
+    }
+
+    private ViewDaoHelper<?> view(Class<?> v) {
+        ViewDaoHelper<?> helper = this.daoViews.get(v.getName());
+        return helper != null
+                ? helper
+                : this.daoViews.computeIfAbsent(v.getName(), k -> new ViewDaoHelper<>(this, v));
     }
 
+    /**
+     * Registers a converter.<br>
+     * A typed reader or writer, e.g. DaoColumnReader.OfInt and DaoColumnWriter.OfInt, reads and writes a field of the primitive type without boxing.
+     *
+     * @param cvrtName The name of the converter.
+     * @param dataType The SQL type.
+     * @param reader The reader.
+     * @param writer The writer.
+     */
     public void register(String cvrtName, DataType dataType, DaoColumnReader reader, DaoColumnWriter writer) {
         this.dataTypes.put(cvrtName, dataType);
         this.readers.put(cvrtName.toLowerCase(), reader);
@@ -468,23 +678,9 @@ public final class DaoFactory {
         return this.writers.get(cvrtName.toLowerCase());
     }
 
-    private Object readBoolean(ResultSet rs, int index) throws SQLException {
-        return rs.getBoolean(index);
-    }
-
     private Object readShort(ResultSet rs, int index) throws SQLException {
-        Object v = rs.getObject(index);
-        return v == null ? null : rs.getShort(index);
-    }
-
-    private Object readInt(ResultSet rs, int index) throws SQLException {
-        Object v = rs.getObject(index);
-        return v == null ? null : rs.getInt(index);
-    }
-
-    private Object readLong(ResultSet rs, int index) throws SQLException {
-        Object v = rs.getObject(index);
-        return v == null ? null : rs.getLong(index);
+        short v = rs.getShort(index);
+        return rs.wasNull() ? null : v;
     }
 
     private Object readBigDecimal(ResultSet rs, int index) throws SQLException {
@@ -508,23 +704,14 @@ public final class DaoFactory {
     }
 
     private Byte readByte(ResultSet rs, int index) throws SQLException {
-        Object v = rs.getObject(index);
-        return v == null ? null : rs.getByte(index);
+        byte v = rs.getByte(index);
+        return rs.wasNull() ? null : v;
     }
 
     private Object readBytes(ResultSet rs, int index) throws SQLException {
         return rs.getBytes(index);
     }
 
-    private void writeBoolean(PreparedStatement ps, int index, Object value) throws SQLException {
-        if (value == null) {
-            ps.setNull(index, Types.BOOLEAN);
-        }
-        else {
-            ps.setBoolean(index, (boolean) value);
-        }
-    }
-
     private void writeShort(PreparedStatement ps, int index, Object value) throws SQLException {
         if (value == null) {
             ps.setNull(index, Types.SMALLINT);
@@ -534,24 +721,6 @@ public final class DaoFactory {
         }
     }
 
-    private void writeInt(PreparedStatement ps, int index, Object value) throws SQLException {
-        if (value == null) {
-            ps.setNull(index, Types.INTEGER);
-        }
-        else {
-            ps.setInt(index, (int) value);
-        }
-    }
-
-    private void writeLong(PreparedStatement ps, int index, Object value) throws SQLException {
-        if (value == null) {
-            ps.setNull(index, Types.BIGINT);
-        }
-        else {
-            ps.setLong(index, (long) value);
-        }
-    }
-
     private void writeBigDecimal(PreparedStatement ps, int index, Object value) throws SQLException {
         ps.setBigDecimal(index, (BigDecimal) value);
     }
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.SQLException;
+
+/**
+ * The interceptor of statements executed by DAOs.<br>
+ * Interceptors are added to a DAO factory and called in the order they are added, after() in the reverse order.
+ * For one execution, prepare() is always called, before() is called only if the statement is prepared.
+ * after() is paired with before(), it is called only if before() of the interceptor completed,
+ * so neither a statement failed to prepare nor a statement closed without execution is notified.
+ * If before() of an interceptor rejects the statement, the interceptors entered before it are notified with the error.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public interface DaoInterceptor {
+
+    /**
+     * Notifies a statement is going to be prepared. The SQL statement can be rewritten.
+     *
+     * @param execution The execution.
+     * @param sql The SQL statement, rewritten by previous interceptors.
+     * @return The SQL statement to prepare.
+     * @throws SQLException Failed to prepare, the statement is rejected.
+     */
+    public default String prepare(DaoExecution execution, String sql) throws SQLException {
+        return sql;
+    }
+
+    /**
+     * Notifies a statement is going to be executed, the parameters are bound.
+     *
+     * @param execution The execution.
+     * @throws SQLException Failed to execute, the statement is rejected.
+     */
+    public default void before(DaoExecution execution) throws SQLException {
+    }
+
+    /**
+     * Notifies a statement is closed after before() of this interceptor completed. The rows, elapsed time and error are available.
+     *
+     * @param execution The execution.
+     */
+    public default void after(DaoExecution execution) {
+    }
+}
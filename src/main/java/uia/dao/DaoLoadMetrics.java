@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.Date;
+
+/**
+ * The time spent by a DaoFactory.load call, by phase.<br>
+ * The phases are reading the index generated at compile time, finding the DTO classes when not indexed and building the DAO helpers.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class DaoLoadMetrics {
+
+    /**
+     * The source the DTO classes are found from.
+     *
+     */
+    public static enum Source {
+        /**
+         * The index generated by DaoProcessor at compile time.
+         */
+        INDEX,
+        /**
+         * The scan index saved by a previous scan with the same checksum.
+         */
+        SCAN_INDEX,
+        /**
+         * Scanning the classpath.
+         */
+        SCAN
+    }
+
+    private final long time;
+
+    private final String packageName;
+
+    private final Source source;
+
+    private final int classes;
+
+    private final int tables;
+
+    private final int views;
+
+    private final long indexNanos;
+
+    private final long scanNanos;
+
+    private final long helperNanos;
+
+    DaoLoadMetrics(String packageName, Source source, int classes, int tables, int views, long indexNanos, long scanNanos, long helperNanos) {
+        this.time = System.currentTimeMillis();
+        this.packageName = packageName;
+        this.source = source;
+        this.classes = classes;
+        this.tables = tables;
+        this.views = views;
+        this.indexNanos = indexNanos;
+        this.scanNanos = scanNanos;
+        this.helperNanos = helperNanos;
+    }
+
+    public Date getTime() {
+        return new Date(this.time);
+    }
+
+    public String getPackageName() {
+        return this.packageName;
+    }
+
+    public Source getSource() {
+        return this.source;
+    }
+
+    /**
+     * Returns the count of classes found, including classes which are not DTO classes when scanning.
+     *
+     * @return The count.
+     */
+    public int getClasses() {
+        return this.classes;
+    }
+
+    public int getTables() {
+        return this.tables;
+    }
+
+    public int getViews() {
+        return this.views;
+    }
+
+    /**
+     * Returns the milliseconds to read the index generated at compile time.
+     *
+     * @return The milliseconds.
+     */
+    public double getIndexMillis() {
+        return this.indexNanos / 1000000d;
+    }
+
+    /**
+     * Returns the milliseconds to find DTO classes by the scan index or scanning, zero if indexed at compile time.
+     *
+     * @return The milliseconds.
+     */
+    public double getScanMillis() {
+        return this.scanNanos / 1000000d;
+    }
+
+    /**
+     * Returns the milliseconds to build the DAO helpers.
+     *
+     * @return The milliseconds.
+     */
+    public double getHelperMillis() {
+        return this.helperNanos / 1000000d;
+    }
+
+    public double getTotalMillis() {
+        return (this.indexNanos + this.scanNanos + this.helperNanos) / 1000000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s from %s %.3fms (index:%.3f, scan:%.3f, helpers:%.3f) classes:%s, tables:%s, views:%s",
+                this.packageName,
+                this.source,
+                getTotalMillis(),
+                getIndexMillis(),
+                getScanMillis(),
+                getHelperMillis(),
+                this.classes,
+                this.tables,
+                this.views);
+    }
+}
@@ -0,0 +1,322 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The loader of rows by primary key shared by threads.<br>
+ * Concurrent requests of the same key wait for one lookup, and keys requested in a short window are selected by one
+ * TableDao.selectByPKs() call. The first request of a window leads the batch: it waits for the window or until the batch is full,
+ * then selects the rows with a new connection and hands them to the waiting requests. No background thread is used.
+ *
+ * @author Kyle K. Lin
+ *
+ * @param <T> The DTO class type.
+ */
+public final class DaoLoader<T> {
+
+    /**
+     * The default milliseconds to gather keys.
+     */
+    public static final long DEFAULT_WINDOW_MILLIS = 2;
+
+    /**
+     * The default max count of keys of a batch.
+     */
+    public static final int DEFAULT_MAX_BATCH = 100;
+
+    private final TableDaoHelper<T> helper;
+
+    private final Connector connector;
+
+    private final int pkCount;
+
+    private final HashMap<Object, CompletableFuture<T>> inflight;
+
+    private volatile long windowNanos;
+
+    private volatile int maxBatch;
+
+    private Batch current;
+
+    private final AtomicLong requests;
+
+    private final AtomicLong joins;
+
+    private final AtomicLong batches;
+
+    private final AtomicLong batchedKeys;
+
+    /**
+     * Constructor.
+     *
+     * @param helper The helper of the table.
+     * @param connector The connector creates a connection for a batch.
+     * @param windowMillis The milliseconds to gather keys.
+     * @param maxBatch The max count of keys of a batch.
+     */
+    DaoLoader(TableDaoHelper<T> helper, Connector connector, long windowMillis, int maxBatch) {
+        this.helper = helper;
+        this.connector = connector;
+        this.pkCount = helper.getPrimaryKeys().length;
+        if (this.pkCount == 0) {
+            throw new UnsupportedOperationException(helper.getTableName() + " has no primary key");
+        }
+        this.inflight = new HashMap<>();
+        this.requests = new AtomicLong();
+        this.joins = new AtomicLong();
+        this.batches = new AtomicLong();
+        this.batchedKeys = new AtomicLong();
+        setWindowMillis(windowMillis);
+        setMaxBatch(maxBatch);
+    }
+
+    /**
+     * Returns the row of a primary key.
+     *
+     * @param key The value of the primary key, or a List of values of a composite primary key.
+     * @return The row or null if not found.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public T get(Object key) throws SQLException, DaoException {
+        this.requests.incrementAndGet();
+        Object norm = TableDao.normalizeKey(key, this.pkCount);
+        EntityCache<T> cache = this.helper.getCache();
+        if (cache != null) {
+            T data = cache.get(norm);
+            if (data != null) {
+                return data;
+            }
+        }
+
+        Batch batch = null;
+        boolean joined = false;
+        CompletableFuture<T> future;
+        synchronized (this) {
+            future = this.inflight.get(norm);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                this.inflight.put(norm, future);
+                if (this.current == null) {
+                    this.current = new Batch();
+                    batch = this.current;
+                }
+                this.current.keys.put(norm, key);
+                if (this.current.keys.size() >= this.maxBatch) {
+                    // wake up the leader
+                    this.current.full = true;
+                    this.current = null;
+                    notifyAll();
+                }
+            }
+            else {
+                joined = true;
+                this.joins.incrementAndGet();
+            }
+        }
+
+        if (batch != null) {
+            lead(batch);
+        }
+        T data = await(future);
+        // callers never share an instance.
+        return joined && data != null ? this.helper.forSelect().copy(data) : data;
+    }
+
+    public long getWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.windowNanos);
+    }
+
+    /**
+     * Sets the milliseconds to gather keys.
+     *
+     * @param windowMillis The milliseconds. Zero selects a key once it is requested, only concurrent requests of the same key are merged.
+     */
+    public void setWindowMillis(long windowMillis) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+    }
+
+    public int getMaxBatch() {
+        return this.maxBatch;
+    }
+
+    /**
+     * Sets the max count of keys of a batch. A full batch is selected without waiting for the window.
+     *
+     * @param maxBatch The max count.
+     */
+    public void setMaxBatch(int maxBatch) {
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    /**
+     * Returns the count of requests waiting for the lookup of another request of the same key.
+     *
+     * @return The count.
+     */
+    public long getJoins() {
+        return this.joins.get();
+    }
+
+    public long getBatches() {
+        return this.batches.get();
+    }
+
+    public double getAverageBatchSize() {
+        long n = this.batches.get();
+        return n == 0 ? 0 : (double) this.batchedKeys.get() / n;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s requests:%s, joins:%s, batches:%s, avgBatch:%.1f",
+                this.helper.getTableName(),
+                getRequests(),
+                getJoins(),
+                getBatches(),
+                getAverageBatchSize());
+    }
+
+    private void lead(Batch batch) {
+        synchronized (this) {
+            long deadline = System.nanoTime() + this.windowNanos;
+            long remaining;
+            while (!batch.full && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                catch (InterruptedException ex) {
+                    // select now, other requests are waiting for the batch.
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (this.current == batch) {
+                this.current = null;
+            }
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        this.batches.incrementAndGet();
+        this.batchedKeys.addAndGet(batch.keys.size());
+
+        HashMap<Object, T> found = new HashMap<>();
+        Throwable error = null;
+        EntityCache<T> cache = this.helper.getCache();
+        long version = cache == null ? 0 : cache.version();
+        try (Connection conn = this.connector.create()) {
+            if (cache != null && !conn.getAutoCommit()) {
+                // rows of a transaction may not be committed.
+                cache = null;
+            }
+            Map<Object, T> rows = new TableDao<>(conn, this.helper).selectByPKs(new ArrayList<>(batch.keys.values()));
+            for (Map.Entry<Object, Object> e : batch.keys.entrySet()) {
+                T data = rows.get(e.getValue());
+                if (data != null) {
+                    found.put(e.getKey(), data);
+                    if (cache != null) {
+                        cache.put(e.getKey(), data, version);
+                    }
+                }
+            }
+        }
+        catch (SQLException | DaoException | RuntimeException | Error ex) {
+            error = ex;
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(batch.keys.size());
+        synchronized (this) {
+            for (Object norm : batch.keys.keySet()) {
+                futures.add(this.inflight.remove(norm));
+            }
+        }
+        int i = 0;
+        for (Object norm : batch.keys.keySet()) {
+            CompletableFuture<T> future = futures.get(i++);
+            if (error == null) {
+                future.complete(found.get(norm));
+            }
+            else {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+
+    private T await(CompletableFuture<T> future) throws SQLException, DaoException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DaoException("interrupted while waiting for the row", ex);
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof DaoException) {
+                throw (DaoException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DaoException(cause);
+        }
+    }
+
+    /**
+     * The connector creates a connection for a batch.
+     */
+    public interface Connector {
+
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * The keys of a batch, keyed by the normalized keys.
+     */
+    class Batch {
+
+        final LinkedHashMap<Object, Object> keys = new LinkedHashMap<>();
+
+        boolean full;
+    }
+}
@@ -22,6 +22,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -38,6 +39,8 @@ public final class DaoMethod<T> {
 
     private String sql;
 
+    private DaoAccessor accessor;
+
     public DaoMethod(Class<T> clz) {
         this.clz = clz;
         this.columns = new ArrayList<>();
@@ -61,21 +64,57 @@ public final class DaoMethod<T> {
      * @throws DaoException Failed to map to the DTO object.
      */
     public void fromOne(PreparedStatement ps, Object obj) throws SQLException, DaoException {
-        int index = 1;
+        fromOne(ps, obj, 1);
+    }
+
+    /**
+     * Apply a DTO object to the SQL statement from a specific parameter index.
+     *
+     * @param ps The prepared statement to be setup.
+     * @param obj The DTO object.
+     * @param index The first parameter index.
+     * @return The next parameter index.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public int fromOne(PreparedStatement ps, Object obj, int index) throws SQLException, DaoException {
         for (DaoColumn col : this.columns) {
             try {
                 col.run(obj, ps, index);
                 index++;
             }
             catch (SQLException ex1) {
-                System.out.println("column:" + col + " failed");
-                throw ex1;
+                throw new SQLException("column:" + col + " failed, " + ex1.getMessage(), ex1.getSQLState(), ex1.getErrorCode(), ex1);
             }
             catch (DaoException ex2) {
-                System.out.println("column:" + col + " failed");
-                throw ex2;
+                throw new DaoException("column:" + col + " failed", ex2);
             }
         }
+        return index;
+    }
+
+    /**
+     * Returns the values of a DTO object applied to the SQL statement.
+     *
+     * @param obj The DTO object.
+     * @return The values.
+     * @throws DaoException Failed to read the DTO object.
+     */
+    public List<Object> values(Object obj) throws DaoException {
+        ArrayList<Object> values = new ArrayList<>(this.columns.size());
+        for (DaoColumn col : this.columns) {
+            values.add(col.getValue(obj));
+        }
+        return values;
+    }
+
+    /**
+     * Returns the count of columns.
+     *
+     * @return The count.
+     */
+    public int getColumnCount() {
+        return this.columns.size();
     }
 
     /**
@@ -96,19 +135,7 @@ public final class DaoMethod<T> {
             if (!filter.accept(rs)) {
                 continue;
             }
-            int index = 1;
-            try {
-                T data = this.clz.newInstance();
-                for (DaoColumn col : this.columns) {
-                    col.run(data, rs, index);
-                    index++;
-                }
-                result.add(data);
-            }
-            catch (InstantiationException | IllegalAccessException e) {
-                throw new DaoException(e);
-            }
-
+            result.add(read(rs));
         }
         return result;
     }
@@ -133,24 +160,13 @@ public final class DaoMethod<T> {
 
         ArrayList<T> result = new ArrayList<>();
         int i = 0;
-        while (rs.next() && i < n) {
-            try {
-                if (!filter.accept(rs)) {
-                    continue;
-                }
-                i++;
-                T data = this.clz.newInstance();
-                int index = 1;
-                for (DaoColumn col : this.columns) {
-                    col.run(data, rs, index);
-                    index++;
-                }
-                result.add(data);
-            }
-            catch (InstantiationException | IllegalAccessException e) {
-                throw new DaoException(e);
+        // test the count first, no more row is fetched after the n-th accepted row.
+        while (i < n && rs.next()) {
+            if (!filter.accept(rs)) {
+                continue;
             }
-
+            i++;
+            result.add(read(rs));
         }
         return result;
     }
@@ -164,22 +180,30 @@ public final class DaoMethod<T> {
      * @throws DaoException Failed to map to the DTO object.
      */
     public T toOne(ResultSet rs) throws SQLException, DaoException {
-        T data = null;
-        if (rs.next()) {
-            try {
-                data = this.clz.newInstance();
-                int index = 1;
-                for (DaoColumn col : this.columns) {
-                    col.run(data, rs, index);
-                    index++;
-                }
-            }
-            catch (InstantiationException | IllegalAccessException e) {
-                throw new DaoException(e);
-            }
+        return rs.next() ? read(rs) : null;
+    }
 
+    /**
+     * Convert current row of the result set to one DTO object.
+     *
+     * @param rs The result set.
+     * @return A DTO object.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    T read(ResultSet rs) throws SQLException, DaoException {
+        try {
+            T data = newInstance();
+            int index = 1;
+            for (DaoColumn col : this.columns) {
+                col.run(data, rs, index);
+                index++;
+            }
+            return data;
+        }
+        catch (InstantiationException | IllegalAccessException e) {
+            throw new DaoException(e);
         }
-        return data;
     }
 
     /**
@@ -206,4 +230,42 @@ public final class DaoMethod<T> {
     public void setSql(String sql) {
         this.sql = sql;
     }
+
+    void setAccessor(DaoAccessor accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * Copies the columns of a DTO object to a new one. Dates and arrays are cloned, others are shared.
+     *
+     * @param data The DTO object.
+     * @return The new DTO object.
+     * @throws DaoException Failed to copy.
+     */
+    T copy(T data) throws DaoException {
+        try {
+            T result = newInstance();
+            for (DaoColumn col : this.columns) {
+                Object value = col.getValue(data);
+                if (value instanceof Date) {
+                    value = ((Date) value).clone();
+                }
+                else if (value instanceof byte[]) {
+                    value = ((byte[]) value).clone();
+                }
+                col.setValue(result, value);
+            }
+            return result;
+        }
+        catch (InstantiationException | IllegalAccessException e) {
+            throw new DaoException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() throws InstantiationException, IllegalAccessException {
+        return this.accessor == null
+                ? this.clz.newInstance()
+                : (T) this.accessor.newInstance();
+    }
 }
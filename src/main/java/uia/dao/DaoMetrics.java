@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The metrics of statements executed by DAOs of a factory, keyed by DTO class and operation.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class DaoMetrics implements DaoMetricsMXBean {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, StatementMetrics>> metrics;
+
+    private volatile boolean enabled;
+
+    private ObjectName objectName;
+
+    DaoMetrics() {
+        this.metrics = new ConcurrentHashMap<>();
+        this.enabled = true;
+    }
+
+    /**
+     * Returns the metrics of an operation.
+     *
+     * @param dto The DTO class name.
+     * @param operation The operation, e.g. insert, update, select or the name of a proxy method.
+     * @return The metrics or null if disabled.
+     */
+    public StatementMetrics of(String dto, String operation) {
+        if (!this.enabled) {
+            return null;
+        }
+        ConcurrentHashMap<String, StatementMetrics> ops = this.metrics.get(dto);
+        if (ops == null) {
+            ops = this.metrics.computeIfAbsent(dto, k -> new ConcurrentHashMap<>());
+        }
+        StatementMetrics result = ops.get(operation);
+        if (result == null) {
+            result = ops.computeIfAbsent(operation, k -> new StatementMetrics(dto, k));
+        }
+        return result;
+    }
+
+    @Override
+    public List<StatementMetrics.Snapshot> getStatements() {
+        ArrayList<StatementMetrics.Snapshot> result = new ArrayList<>();
+        for (ConcurrentHashMap<String, StatementMetrics> ops : this.metrics.values()) {
+            for (StatementMetrics m : ops.values()) {
+                result.add(m.snapshot());
+            }
+        }
+        result.sort((a, b) -> a.getDto().equals(b.getDto())
+                ? a.getOperation().compareTo(b.getOperation())
+                : a.getDto().compareTo(b.getDto()));
+        return result;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset() {
+        this.metrics.clear();
+    }
+
+    /**
+     * Registers the metrics to the platform MBean server as 'uia.dao:type=DaoMetrics,name={name}'.
+     *
+     * @param name The name.
+     * @throws DaoException Failed to register.
+     */
+    public synchronized void register(String name) throws DaoException {
+        unregister();
+        try {
+            ObjectName on = new ObjectName("uia.dao:type=DaoMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+            this.objectName = on;
+        }
+        catch (JMException ex) {
+            throw new DaoException("failed to register metrics:" + name, ex);
+        }
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server.
+     */
+    public synchronized void unregister() {
+        if (this.objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(this.objectName)) {
+                server.unregisterMBean(this.objectName);
+            }
+        }
+        catch (JMException ex) {
+            // ignore, the bean is gone.
+        }
+        this.objectName = null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (ConcurrentHashMap<String, StatementMetrics> ops : this.metrics.values()) {
+            for (StatementMetrics m : ops.values()) {
+                sb.append(m).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
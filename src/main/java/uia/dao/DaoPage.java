@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.List;
+
+/**
+ * A page of rows selected by the keyset (seek) pagination.<br>
+ * The next page is selected with the next key, the values of the order columns of the last row.
+ *
+ * @author Kyle K. Lin
+ *
+ * @param <T> The DTO class type.
+ */
+public class DaoPage<T> {
+
+    private final List<T> rows;
+
+    private final Object[] nextKey;
+
+    DaoPage(List<T> rows, Object[] nextKey) {
+        this.rows = rows;
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * Returns rows of this page.
+     *
+     * @return The rows.
+     */
+    public List<T> getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the key to select the next page.
+     *
+     * @return The key or null if this is the last page.
+     */
+    public Object[] getNextKey() {
+        return this.nextKey;
+    }
+
+    /**
+     * Tests if there are more rows after this page.
+     *
+     * @return True if the next page exists.
+     */
+    public boolean hasNext() {
+        return this.nextKey != null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows:%s, hasNext:%s", this.rows.size(), hasNext());
+    }
+}
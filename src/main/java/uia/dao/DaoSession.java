@@ -89,6 +89,17 @@ public class DaoSession implements Closeable {
         this.conn.rollback();
     }
 
+    /**
+     * Returns the prepared statement cache of the connection.
+     *
+     * @return The cache or null if the connection is not created by DaoEnv or the cache is disabled.
+     */
+    public StatementCache getStatementCache() {
+        return this.conn instanceof DaoEnv.ConnectionProxy
+                ? ((DaoEnv.ConnectionProxy) this.conn).getStatementCache()
+                : null;
+    }
+
     public <T> TableDao<T> forTable(Class<T> dtoClz) {
         return new TableDao<T>(this.conn, this.factory.forTable(dtoClz));
     }
@@ -0,0 +1,461 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The statement executed by a DAO.<br>
+ * The time of phases, rows and batch sizes are recorded to the metrics when the statement is closed,
+ * statements slower than the threshold of the slow query log are added to the log.
+ * The interceptors of the factory are called when the statement is prepared, executed and closed,
+ * after() is called only on the interceptors whose before() completed.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class DaoStatement implements AutoCloseable {
+
+    private final String dto;
+
+    private final String operation;
+
+    private final StatementMetrics metrics;
+
+    private final SlowQueryLog slowLog;
+
+    private final DaoInterceptor[] interceptors;
+
+    private final DaoExecution execution;
+
+    private final long start;
+
+    private String sql;
+
+    private SelectStatement select;
+
+    private PreparedStatement ps;
+
+    private BindRecorder recorder;
+
+    private boolean sampled;
+
+    /**
+     * The method and the last DTO object bound, the values are read as the parameters only if the statement is slow.
+     */
+    private DaoMethod<?> boundMethod;
+
+    private Object bound;
+
+    private long rows;
+
+    /**
+     * The count of interceptors whose before() completed, only they are notified by after().
+     */
+    private int entered;
+
+    private long prepared;
+
+    private long executeNanos;
+
+    private long executed;
+
+    private long fetched;
+
+    private boolean started;
+
+    private boolean query;
+
+    private boolean done;
+
+    private boolean failed;
+
+    private Throwable error;
+
+    private DaoStatement(DaoFactory factory, String dto, String operation) {
+        this.dto = dto;
+        this.operation = operation;
+        this.metrics = factory.getMetrics().of(dto, operation);
+        this.slowLog = factory.getSlowQueryLog();
+        this.interceptors = factory.interceptors();
+        this.execution = this.interceptors.length == 0 ? null : new DaoExecution(dto, operation);
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Prepares a statement.
+     *
+     * @param conn The connection.
+     * @param factory The DAO factory.
+     * @param dto The DTO class name.
+     * @param operation The operation.
+     * @param sql The SQL statement.
+     * @return The statement.
+     * @throws SQLException Failed to prepare.
+     */
+    public static DaoStatement prepare(Connection conn, DaoFactory factory, String dto, String operation, String sql) throws SQLException {
+        DaoStatement stmt = new DaoStatement(factory, dto, operation);
+        stmt.sql = sql;
+        try {
+            stmt.ps = conn.prepareStatement(stmt.execution == null ? sql : stmt.rewrite(sql));
+        }
+        catch (SQLException | RuntimeException ex) {
+            stmt.fail(ex);
+            throw ex;
+        }
+        stmt.intercept();
+        return stmt;
+    }
+
+    /**
+     * Prepares a statement with the 'where' parameters bound.
+     *
+     * @param conn The connection.
+     * @param factory The DAO factory.
+     * @param dto The DTO class name.
+     * @param operation The operation.
+     * @param sql The SELECT statement.
+     * @return The statement.
+     * @throws SQLException Failed to prepare.
+     */
+    public static DaoStatement prepare(Connection conn, DaoFactory factory, String dto, String operation, SelectStatement sql) throws SQLException {
+        DaoStatement stmt = new DaoStatement(factory, dto, operation);
+        stmt.select = sql;
+        try {
+            stmt.ps = stmt.execution == null ? sql.prepare(conn) : sql.prepare(conn, stmt::rewrite);
+        }
+        catch (SQLException | RuntimeException ex) {
+            stmt.fail(ex);
+            throw ex;
+        }
+        stmt.intercept();
+        return stmt;
+    }
+
+    /**
+     * Returns the prepared statement to bind parameters.<br>
+     * The parameters bound to the statement are captured for a sample of statements, see {@link SlowQueryLog#sample()}.
+     *
+     * @return The prepared statement.
+     */
+    public PreparedStatement getStatement() {
+        if (this.recorder == null && !this.sampled) {
+            this.sampled = true;
+            // the parameters of a SELECT statement are generated again from the 'where'.
+            if (this.select == null && this.slowLog != null && this.slowLog.sample()) {
+                this.recorder = new BindRecorder(this.ps);
+            }
+        }
+        return this.recorder == null ? this.ps : this.recorder.getStatement();
+    }
+
+    /**
+     * Binds a DTO object. The DTO object is kept to read the parameters if the statement is slow, the last one of a batch.
+     *
+     * @param method The method.
+     * @param dto The DTO object.
+     * @throws SQLException Failed to bind.
+     * @throws DaoException Failed to read the DTO object.
+     */
+    public void bind(DaoMethod<?> method, Object dto) throws SQLException, DaoException {
+        bind(method, dto, 1);
+    }
+
+    /**
+     * Binds a DTO object from a specific parameter index.
+     *
+     * @param method The method.
+     * @param dto The DTO object.
+     * @param index The first parameter index.
+     * @return The next parameter index.
+     * @throws SQLException Failed to bind.
+     * @throws DaoException Failed to read the DTO object.
+     */
+    public int bind(DaoMethod<?> method, Object dto, int index) throws SQLException, DaoException {
+        this.boundMethod = method;
+        this.bound = dto;
+        return method.fromOne(this.recorder == null ? this.ps : this.recorder.getStatement(), dto, index);
+    }
+
+    /**
+     * Adds the parameters bound to the batch.
+     *
+     * @throws SQLException Failed to add.
+     */
+    public void addBatch() throws SQLException {
+        (this.recorder == null ? this.ps : this.recorder.getStatement()).addBatch();
+    }
+
+    /**
+     * Executes the query. The result set is fetched until the rows are reported by fetched().
+     *
+     * @return The result set.
+     * @throws SQLException Failed to execute.
+     */
+    public ResultSet executeQuery() throws SQLException {
+        long t = begin();
+        this.query = true;
+        try {
+            ResultSet rs = this.ps.executeQuery();
+            end(t);
+            return rs;
+        }
+        catch (SQLException | RuntimeException ex) {
+            this.failed = true;
+            this.error = ex;
+            end(t);
+            throw ex;
+        }
+    }
+
+    /**
+     * Executes the statement.
+     *
+     * @return The count of rows written.
+     * @throws SQLException Failed to execute.
+     */
+    public int executeUpdate() throws SQLException {
+        long t = begin();
+        try {
+            int n = this.ps.executeUpdate();
+            end(t);
+            this.rows += n;
+            if (this.metrics != null) {
+                this.metrics.rowsWritten(n);
+            }
+            return n;
+        }
+        catch (SQLException | RuntimeException ex) {
+            this.failed = true;
+            this.error = ex;
+            end(t);
+            throw ex;
+        }
+    }
+
+    /**
+     * Executes the batch.
+     *
+     * @return The counts of rows written.
+     * @throws SQLException Failed to execute.
+     */
+    public int[] executeBatch() throws SQLException {
+        long t = begin();
+        try {
+            int[] result = this.ps.executeBatch();
+            end(t);
+            long n = 0;
+            for (int r : result) {
+                n += r == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, r);
+            }
+            this.rows += n;
+            if (this.metrics != null) {
+                this.metrics.batch(result.length);
+                this.metrics.rowsWritten(n);
+            }
+            return result;
+        }
+        catch (SQLException | RuntimeException ex) {
+            this.failed = true;
+            this.error = ex;
+            end(t);
+            throw ex;
+        }
+    }
+
+    /**
+     * Reports the rows fetched from the result set.
+     *
+     * @param rows The rows.
+     * @param <L> The list type.
+     * @return The rows.
+     */
+    public <L extends List<?>> L fetched(L rows) {
+        return fetched(rows, rows.size());
+    }
+
+    /**
+     * Reports the result fetched from the result set.
+     *
+     * @param result The result.
+     * @param rows The count of rows.
+     * @param <R> The result type.
+     * @return The result.
+     */
+    public <R> R fetched(R result, int rows) {
+        this.fetched = System.nanoTime();
+        this.done = true;
+        this.rows += rows;
+        if (this.metrics != null) {
+            this.metrics.rowsRead(rows);
+        }
+        return result;
+    }
+
+    /**
+     * Closes the statement and records the metrics.
+     *
+     * @throws SQLException Failed to close.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (this.ps != null) {
+                this.ps.close();
+            }
+        }
+        finally {
+            record();
+        }
+    }
+
+    private long begin() throws SQLException {
+        if (!this.started) {
+            if (this.execution != null) {
+                before();
+            }
+            this.started = true;
+            this.prepared = System.nanoTime();
+            return this.prepared;
+        }
+        return System.nanoTime();
+    }
+
+    private void end(long t) {
+        this.executed = System.nanoTime();
+        this.executeNanos += this.executed - t;
+    }
+
+    private String rewrite(String sql) throws SQLException {
+        for (DaoInterceptor interceptor : this.interceptors) {
+            this.execution.sql(sql);
+            sql = interceptor.prepare(this.execution, sql);
+        }
+        this.execution.sql(sql);
+        this.sql = sql;
+        return sql;
+    }
+
+    private void before() throws SQLException {
+        this.execution.parameters(parameters());
+        try {
+            for (DaoInterceptor interceptor : this.interceptors) {
+                interceptor.before(this.execution);
+                this.entered++;
+            }
+        }
+        catch (SQLException | RuntimeException ex) {
+            this.error = ex;
+            throw ex;
+        }
+    }
+
+    private void after(long elapsedNanos, boolean failed) {
+        Throwable cause = this.error;
+        if (cause == null && failed) {
+            cause = new SQLException("statement not completed");
+        }
+        this.execution.finish(this.rows, elapsedNanos, cause);
+        for (int i = this.entered - 1; i >= 0; i--) {
+            this.interceptors[i].after(this.execution);
+        }
+    }
+
+    private void intercept() {
+        // the interceptors read the parameters before the execution.
+        if (this.execution != null) {
+            this.recorder = new BindRecorder(this.ps);
+        }
+    }
+
+    private void fail(Throwable ex) {
+        this.failed = true;
+        this.error = ex;
+        record();
+    }
+
+    private void record() {
+        if (this.metrics == null && this.slowLog == null && this.execution == null) {
+            return;
+        }
+
+        long prepareNanos;
+        long fetchNanos;
+        boolean error;
+        if (!this.started) {
+            // failed before execution
+            prepareNanos = System.nanoTime() - this.start;
+            fetchNanos = -1;
+            error = true;
+        }
+        else {
+            prepareNanos = this.prepared - this.start;
+            fetchNanos = this.done ? this.fetched - this.executed : -1;
+            error = this.failed || this.query && !this.done;
+        }
+
+        if (this.metrics != null) {
+            this.metrics.record(prepareNanos, this.executeNanos, fetchNanos, error);
+        }
+        long total = prepareNanos + this.executeNanos + Math.max(0, fetchNanos);
+        if (this.slowLog != null && this.slowLog.isSlow(total)) {
+            this.slowLog.add(new SlowQueryLog.Entry(
+                    this.dto,
+                    this.operation,
+                    this.sql != null ? this.sql : this.select.getSql(),
+                    parameters(),
+                    this.rows,
+                    prepareNanos,
+                    this.executeNanos,
+                    Math.max(0, fetchNanos),
+                    error));
+        }
+        if (this.entered > 0) {
+            after(total, error);
+        }
+    }
+
+    /**
+     * Returns the parameters. The parameters bound to a sampled statement are recorded,
+     * the parameters of a DTO object or the 'where' of a SELECT statement are read again.
+     */
+    private List<Object> parameters() {
+        if (this.recorder != null && this.recorder.size() > 0) {
+            return new ArrayList<>(this.recorder.getValues());
+        }
+        try {
+            if (this.boundMethod != null) {
+                return this.boundMethod.values(this.bound);
+            }
+            if (this.select != null) {
+                return new ArrayList<>(this.select.getParameters());
+            }
+        }
+        catch (SQLException | DaoException ex) {
+            return null;
+        }
+        return this.recorder == null ? null : new ArrayList<>();
+    }
+}
@@ -219,4 +219,62 @@ public interface Database extends AutoCloseable {
     public int[] executeBatch(String sql, List<List<Object>> rows) throws SQLException;
 
     public List<Object[]> query(String sql) throws SQLException;
+
+    /**
+     * Returns the max count of bind parameters in one statement.
+     *
+     * @return The max count.
+     */
+    public int getMaxParameters();
+
+    /**
+     * Returns the max count of rows in one multi-row INSERT statement.
+     *
+     * @return The max count. Zero means the multi-row INSERT is not supported.
+     */
+    public int getMaxInsertRows();
+
+    /**
+     * Returns the max count of values in one IN list.
+     *
+     * @return The max count.
+     */
+    public int getMaxInListSize();
+
+    /**
+     * Tests if the row value IN predicate, e.g. '(c1,c2) IN ((?,?),(?,?))', is supported.
+     *
+     * @return True if supported.
+     */
+    public boolean supportsRowValueIn();
+
+    /**
+     * Generate a multi-row INSERT statement, e.g. 'INSERT INTO t(c1,c2) VALUES (?,?),(?,?)'.
+     *
+     * @param tableName Table name.
+     * @param columnNames Column names.
+     * @param rows The count of rows.
+     * @return INSERT statement.
+     */
+    public String generateInsertSQL(String tableName, List<String> columnNames, int rows);
+
+    /**
+     * Generate an UPSERT statement which inserts a row or updates it if the primary key exists.<br>
+     * The parameters are bound in the order of the column names.
+     *
+     * @param tableName Table name.
+     * @param columnNames Column names.
+     * @param primaryKeys Primary keys.
+     * @return UPSERT statement or null if not supported.
+     */
+    public String generateUpsertSQL(String tableName, List<String> columnNames, List<String> primaryKeys);
+
+    /**
+     * Generate a SELECT statement limited to some rows, e.g. 'SELECT ... LIMIT 10'.
+     *
+     * @param sql The SELECT statement including the 'order by' part.
+     * @param limit The max count of rows.
+     * @return SELECT statement or null if the dialect doesn't support it.
+     */
+    public String generateLimitSQL(String sql, int limit);
 }
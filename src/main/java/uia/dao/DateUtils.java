@@ -21,6 +21,7 @@ package uia.dao;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.Date;
@@ -64,16 +65,12 @@ public final class DateUtils {
     }
 
     public static Date getDate(ResultSet rs, int index) throws SQLException {
-        if (rs.getObject(index) == null) {
-            return null;
-        }
-        return new Date(rs.getTimestamp(index).getTime());
+        Timestamp ts = rs.getTimestamp(index);
+        return ts == null ? null : new Date(ts.getTime());
     }
 
     public static Date getDateTz(ResultSet rs, int index) throws SQLException {
-        if (rs.getObject(index) == null) {
-            return null;
-        }
-        return new Date(rs.getTimestamp(index).getTime() + TimeZone.getDefault().getRawOffset());
+        Timestamp ts = rs.getTimestamp(index);
+        return ts == null ? null : new Date(ts.getTime() + TimeZone.getDefault().getRawOffset());
     }
 }
@@ -0,0 +1,400 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cache of rows of a table keyed by primary key, enabled by {@link uia.dao.annotation.TableInfo#cacheSize()}.<br>
+ * A row is copied when it is put and when it is returned, so the callers never share an instance.
+ * A row written by the TableDao is invalidated, and invalidated again when the transaction ends.
+ * A row loaded before an invalidation is not cached.
+ *
+ * @author Kyle K. Lin
+ *
+ * @param <T> The DTO class type.
+ */
+public final class EntityCache<T> {
+
+    private final DaoMethod<T> method;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final CachePolicy policy;
+
+    private final Store<T> store;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    private final AtomicLong evictions;
+
+    private final AtomicLong expirations;
+
+    private long version;
+
+    /**
+     * Constructor.
+     *
+     * @param method The method to copy rows.
+     * @param maxSize The max count of rows.
+     * @param ttlMillis The milliseconds a row lives. Zero means no expiry.
+     * @param policy The eviction policy.
+     */
+    EntityCache(DaoMethod<T> method, int maxSize, long ttlMillis, CachePolicy policy) {
+        this.method = method;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis <= 0 ? 0 : TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.policy = policy;
+        this.store = policy == CachePolicy.LFU ? new LfuStore<>(maxSize) : new LruStore<>(maxSize);
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.expirations = new AtomicLong();
+    }
+
+    /**
+     * Returns the cache key of values of primary keys.
+     *
+     * @param pks Values of primary keys.
+     * @return The key.
+     */
+    static Object key(Object[] pks) {
+        return pks.length == 1
+                ? TableDao.normalizeValue(pks[0])
+                : TableDao.normalizeKey(Arrays.asList(pks), pks.length);
+    }
+
+    /**
+     * Returns a copy of the cached row.
+     *
+     * @param key The key.
+     * @return The row or null if not cached.
+     * @throws DaoException Failed to copy.
+     */
+    public T get(Object key) throws DaoException {
+        T cached;
+        synchronized (this) {
+            Entry<T> entry = this.store.get(key);
+            if (entry != null && entry.expired(System.nanoTime())) {
+                this.store.remove(key);
+                this.expirations.incrementAndGet();
+                entry = null;
+            }
+            cached = entry == null ? null : entry.value;
+        }
+
+        if (cached == null) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return this.method.copy(cached);
+    }
+
+    /**
+     * Returns the version increased by each invalidation, used to put a row loaded from the database.
+     *
+     * @return The version.
+     */
+    public synchronized long version() {
+        return this.version;
+    }
+
+    /**
+     * Puts a copy of the row if no invalidation happens after the version is read.
+     *
+     * @param key The key.
+     * @param value The row.
+     * @param version The version read before the row is loaded.
+     * @throws DaoException Failed to copy.
+     */
+    public void put(Object key, T value, long version) throws DaoException {
+        T copy = this.method.copy(value);
+        long expireAt = this.ttlNanos == 0 ? 0 : System.nanoTime() + this.ttlNanos;
+        synchronized (this) {
+            if (this.version != version) {
+                return;
+            }
+            if (this.store.put(key, new Entry<>(copy, expireAt))) {
+                this.evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Invalidates a row.
+     *
+     * @param key The key.
+     */
+    public synchronized void invalidate(Object key) {
+        this.version++;
+        this.store.remove(key);
+    }
+
+    /**
+     * Invalidates all rows.
+     */
+    public synchronized void clear() {
+        this.version++;
+        this.store.clear();
+    }
+
+    public synchronized int size() {
+        return this.store.size();
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public CachePolicy getPolicy() {
+        return this.policy;
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    public long getExpirations() {
+        return this.expirations.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s size:%s/%s, hits:%s, misses:%s, evictions:%s, expirations:%s",
+                this.policy,
+                size(),
+                this.maxSize,
+                getHits(),
+                getMisses(),
+                getEvictions(),
+                getExpirations());
+    }
+
+    static class Entry<T> {
+
+        final T value;
+
+        final long expireAt;
+
+        Entry(T value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean expired(long now) {
+            return this.expireAt != 0 && now - this.expireAt >= 0;
+        }
+    }
+
+    interface Store<T> {
+
+        Entry<T> get(Object key);
+
+        /**
+         * Puts an entry.
+         *
+         * @return True if an entry is evicted.
+         */
+        boolean put(Object key, Entry<T> entry);
+
+        void remove(Object key);
+
+        void clear();
+
+        int size();
+    }
+
+    /**
+     * The store keeps entries in access order.
+     */
+    static class LruStore<T> implements Store<T> {
+
+        private final int maxSize;
+
+        private final LinkedHashMap<Object, Entry<T>> entries;
+
+        LruStore(int maxSize) {
+            this.maxSize = maxSize;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        @Override
+        public Entry<T> get(Object key) {
+            return this.entries.get(key);
+        }
+
+        @Override
+        public boolean put(Object key, Entry<T> entry) {
+            this.entries.put(key, entry);
+            if (this.entries.size() <= this.maxSize) {
+                return false;
+            }
+            Iterator<Map.Entry<Object, Entry<T>>> it = this.entries.entrySet().iterator();
+            it.next();
+            it.remove();
+            return true;
+        }
+
+        @Override
+        public void remove(Object key) {
+            this.entries.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            this.entries.clear();
+        }
+
+        @Override
+        public int size() {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * The store keeps keys in buckets of use count, O(1) for all operations.
+     */
+    static class LfuStore<T> implements Store<T> {
+
+        private final int maxSize;
+
+        private final HashMap<Object, Node<T>> nodes;
+
+        private final HashMap<Integer, LinkedHashSet<Object>> buckets;
+
+        private int minCount;
+
+        LfuStore(int maxSize) {
+            this.maxSize = maxSize;
+            this.nodes = new HashMap<>();
+            this.buckets = new HashMap<>();
+        }
+
+        @Override
+        public Entry<T> get(Object key) {
+            Node<T> node = this.nodes.get(key);
+            if (node == null) {
+                return null;
+            }
+            touch(key, node);
+            return node.entry;
+        }
+
+        @Override
+        public boolean put(Object key, Entry<T> entry) {
+            Node<T> node = this.nodes.get(key);
+            if (node != null) {
+                node.entry = entry;
+                touch(key, node);
+                return false;
+            }
+
+            boolean evicted = false;
+            if (this.nodes.size() >= this.maxSize) {
+                evict();
+                evicted = true;
+            }
+            this.nodes.put(key, new Node<>(entry));
+            this.buckets.computeIfAbsent(1, k -> new LinkedHashSet<>()).add(key);
+            this.minCount = 1;
+            return evicted;
+        }
+
+        @Override
+        public void remove(Object key) {
+            Node<T> node = this.nodes.remove(key);
+            if (node != null) {
+                leave(key, node.count);
+            }
+        }
+
+        @Override
+        public void clear() {
+            this.nodes.clear();
+            this.buckets.clear();
+            this.minCount = 0;
+        }
+
+        @Override
+        public int size() {
+            return this.nodes.size();
+        }
+
+        private void touch(Object key, Node<T> node) {
+            leave(key, node.count);
+            if (this.minCount == node.count && !this.buckets.containsKey(node.count)) {
+                this.minCount++;
+            }
+            node.count++;
+            this.buckets.computeIfAbsent(node.count, k -> new LinkedHashSet<>()).add(key);
+        }
+
+        private void leave(Object key, int count) {
+            LinkedHashSet<Object> bucket = this.buckets.get(count);
+            bucket.remove(key);
+            if (bucket.isEmpty()) {
+                this.buckets.remove(count);
+            }
+        }
+
+        private void evict() {
+            LinkedHashSet<Object> bucket = this.buckets.get(this.minCount);
+            if (bucket == null) {
+                // the min count is stale after removals.
+                this.minCount = this.buckets.keySet().stream().min(Integer::compare).orElse(0);
+                bucket = this.buckets.get(this.minCount);
+            }
+            Object key = bucket.iterator().next();
+            this.nodes.remove(key);
+            leave(key, this.minCount);
+        }
+    }
+
+    static class Node<T> {
+
+        Entry<T> entry;
+
+        int count;
+
+        Node(Entry<T> entry) {
+            this.entry = entry;
+            this.count = 1;
+        }
+    }
+}
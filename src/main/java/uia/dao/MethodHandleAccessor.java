@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * The accessor reads/writes fields through the method handles.<br>
+ * It is used for the fields the generated accessor can't access, e.g. private fields.
+ * The handles are unreflected from the accessible fields, the getters and setters are not called.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+final class MethodHandleAccessor implements DaoAccessor {
+
+    private final MethodHandle[] getters;
+
+    private final MethodHandle[] setters;
+
+    private final MethodHandle[] typedGetters;
+
+    private final MethodHandle[] typedSetters;
+
+    /**
+     * The constructor.
+     *
+     * @param fields The accessible fields.
+     * @throws IllegalAccessException Failed to unreflect a field.
+     */
+    MethodHandleAccessor(List<Field> fields) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        int size = fields.size();
+        this.getters = new MethodHandle[size];
+        this.setters = new MethodHandle[size];
+        this.typedGetters = new MethodHandle[size];
+        this.typedSetters = new MethodHandle[size];
+        for (int i = 0; i < size; i++) {
+            Field f = fields.get(i);
+            MethodHandle getter = lookup.unreflectGetter(f);
+            MethodHandle setter = lookup.unreflectSetter(f);
+            this.getters[i] = getter.asType(MethodType.methodType(Object.class, Object.class));
+            this.setters[i] = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            if (f.getType().isPrimitive()) {
+                this.typedGetters[i] = getter.asType(MethodType.methodType(f.getType(), Object.class));
+                this.typedSetters[i] = setter.asType(MethodType.methodType(void.class, Object.class, f.getType()));
+            }
+        }
+    }
+
+    @Override
+    public Object newInstance() {
+        throw new UnsupportedOperationException("fields only");
+    }
+
+    @Override
+    public Object get(Object dto, int index) {
+        try {
+            return this.getters[index].invokeExact(dto);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public void set(Object dto, int index, Object value) {
+        try {
+            this.setters[index].invokeExact(dto, value);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public int getInt(Object dto, int index) {
+        try {
+            return (int) this.typedGetters[index].invokeExact(dto);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public void setInt(Object dto, int index, int value) {
+        try {
+            this.typedSetters[index].invokeExact(dto, value);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public long getLong(Object dto, int index) {
+        try {
+            return (long) this.typedGetters[index].invokeExact(dto);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public void setLong(Object dto, int index, long value) {
+        try {
+            this.typedSetters[index].invokeExact(dto, value);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public double getDouble(Object dto, int index) {
+        try {
+            return (double) this.typedGetters[index].invokeExact(dto);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public void setDouble(Object dto, int index, double value) {
+        try {
+            this.typedSetters[index].invokeExact(dto, value);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(Object dto, int index) {
+        try {
+            return (boolean) this.typedGetters[index].invokeExact(dto);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    @Override
+    public void setBoolean(Object dto, int index, boolean value) {
+        try {
+            this.typedSetters[index].invokeExact(dto, value);
+        }
+        catch (Throwable th) {
+            throw rethrow(th);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable th) {
+        if (th instanceof RuntimeException) {
+            return (RuntimeException) th;
+        }
+        if (th instanceof Error) {
+            throw (Error) th;
+        }
+        return new IllegalStateException(th);
+    }
+}
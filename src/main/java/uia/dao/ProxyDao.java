@@ -1,168 +1,349 @@
 package uia.dao;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import uia.dao.annotation.DeleteInfo;
 import uia.dao.annotation.SelectInfo;
 import uia.dao.annotation.UpdateInfo;
 
+import javassist.util.proxy.MethodHandler;
+import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory;
 
-public final class ProxyDao {
+/**
+ * The proxy of an abstract DAO class.<br>
+ * The proxy class is generated once, each abstract method is compiled once into a plan with the SQL statement,
+ * the writers of parameters resolved from the declared types and the mapper, so a call only binds, executes and maps.
+ *
+ * @author Kyle K. Lin
+ *
+ * @param <T> The DAO class type.
+ */
+public final class ProxyDao<T> {
 
-    private Connection conn;
+    private final Object helper;
 
-    ProxyDao() {
+    private final Constructor<?> constructor;
+
+    private final Map<Method, Plan> plans;
+
+    private final MethodHandler handler;
+
+    ProxyDao(Class<T> absclz, TableDaoHelper<?> helper) throws DaoException {
+        this.helper = helper;
+        this.constructor = proxyClass(absclz, TableDaoHelper.class);
+        this.plans = new HashMap<>();
+        for (Method m : abstractMethods(absclz)) {
+            Plan plan = Plan.of(m, helper);
+            if (plan != null) {
+                this.plans.put(m, plan);
+            }
+        }
+        this.handler = this::runTable;
     }
 
-    @SuppressWarnings("unchecked")
-    <T> T bind(Class<T> absclz, Connection conn, TableDaoHelper<?> helper) throws DaoException {
-        this.conn = conn;
-        ProxyFactory factory = new ProxyFactory();
-        factory.setSuperclass(absclz);
-        factory.setFilter(m -> Modifier.isAbstract(m.getModifiers()));
+    ProxyDao(Class<T> absclz, ViewDaoHelper<?> helper) throws DaoException {
+        this.helper = helper;
+        this.constructor = proxyClass(absclz, ViewDaoHelper.class);
+        this.plans = new HashMap<>();
+        for (Method m : abstractMethods(absclz)) {
+            this.plans.put(m, Plan.of(m, helper));
+        }
+        this.handler = this::runView;
+    }
 
+    /**
+     * Creates a DAO.
+     *
+     * @param conn The connection.
+     * @return The DAO.
+     * @throws DaoException Failed to create.
+     */
+    @SuppressWarnings("unchecked")
+    T bind(Connection conn) throws DaoException {
         try {
-            T result = (T) factory.create(
-                    new Class<?>[] { Connection.class, TableDaoHelper.class },
-                    new Object[] { conn, helper },
-                    this::runTable);
-            return result;
+            Object dao = this.constructor.newInstance(conn, this.helper);
+            ((Proxy) dao).setHandler(this.handler);
+            return (T) dao;
         }
-        catch (Exception ex) {
+        catch (ReflectiveOperationException ex) {
             throw new DaoException(ex);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    <T> T bind(Class<T> absclz, Connection conn, ViewDaoHelper<?> helper) throws DaoException {
-        this.conn = conn;
+    @SuppressWarnings("rawtypes")
+    private Object runTable(Object self, Method proxyMethod, Method proceed, Object[] args) throws Throwable {
+        Plan plan = this.plans.get(proxyMethod);
+        if (plan == null) {
+            return null;
+        }
+
+        TableDao dao = (TableDao) self;
+        Object result = plan.run(dao.conn, args);
+        if (plan.kind == Kind.WRITE) {
+            dao.invalidateAll();
+        }
+        return result;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Object runView(Object self, Method proxyMethod, Method proceed, Object[] args) throws Throwable {
+        Plan plan = this.plans.get(proxyMethod);
+        if (plan == null) {
+            return null;
+        }
+        return plan.run(((ViewDao) self).conn, args);
+    }
+
+    private static Constructor<?> proxyClass(Class<?> absclz, Class<?> helperType) throws DaoException {
         ProxyFactory factory = new ProxyFactory();
         factory.setSuperclass(absclz);
         factory.setFilter(m -> Modifier.isAbstract(m.getModifiers()));
-
         try {
-            return (T) factory.create(
-                    new Class<?>[] { Connection.class, ViewDaoHelper.class },
-                    new Object[] { conn, helper },
-                    this::runView);
+            return factory.createClass().getConstructor(Connection.class, helperType);
         }
         catch (Exception ex) {
             throw new DaoException(ex);
         }
     }
 
+    private static List<Method> abstractMethods(Class<?> absclz) {
+        ArrayList<Method> methods = new ArrayList<>();
+        for (Class<?> c = absclz; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                if (Modifier.isAbstract(m.getModifiers())) {
+                    methods.add(m);
+                }
+            }
+        }
+        return methods;
+    }
+
+    private enum Kind {
+        SELECT,
+        WRITE,
+        NONE
+    }
+
+    /**
+     * The compiled abstract method.
+     *
+     */
     @SuppressWarnings("rawtypes")
-    private Object runTable(Object self, Method proxyMethod, Method proceed, Object[] args) throws Throwable {
-        TableDao dao = (TableDao) self;
+    private static final class Plan {
 
-        // select
-        SelectInfo selectInfo = proxyMethod.getDeclaredAnnotation(SelectInfo.class);
-        if (selectInfo != null) {
-            boolean list = List.class.isAssignableFrom(proxyMethod.getReturnType());
-            DaoMethod<?> method = selectInfo.join()
-                    ? dao.tableHelper.forSelectX()
-                    : dao.tableHelper.forSelect();
-            final String sql = method.getSql() + " " + selectInfo.sql();
-            try (PreparedStatement ps = this.conn.prepareStatement(sql)) {
-                int r = 1;
-                Filter filter = Filter.ALL;
-                for (int i = 0; i < args.length; i++) {
-                    Object v = args[i];
-                    if (v != null && v instanceof Filter) {
-                        filter = (Filter) v;
-                        continue;
-                    }
-                    else {
-                        dao.tableHelper.getFactory()
-                                .getColumnWriter(v == null ? "object" : v.getClass().getSimpleName())
-                                .write(ps, r++, v);
-                    }
-                }
-                if (selectInfo.mapper() == ObjectMapper.Null.class) {
-                    try (ResultSet rs = ps.executeQuery()) {
-                        return list ? method.toList(rs, filter, selectInfo.top()) : method.toOne(rs);
-                    }
+        private final Kind kind;
+
+        private final DaoFactory factory;
+
+        private final String dto;
+
+        private final String operation;
+
+        private final String sql;
+
+        private final boolean list;
+
+        /**
+         * The writers of parameters, null for a filter.
+         */
+        private final DaoColumnWriter[] writers;
+
+        private final int filterIndex;
+
+        private DaoMethod<?> method;
+
+        private ResultCache cache;
+
+        private String cacheKey;
+
+        private int top;
+
+        private long cacheTtl;
+
+        private ObjectMapper<?> mapper;
+
+        private Plan(Kind kind, DaoFactory factory, String dto, Method m, String sql) {
+            this.kind = kind;
+            this.factory = factory;
+            this.dto = dto;
+            this.operation = m.getName();
+            this.sql = sql;
+            this.list = List.class.isAssignableFrom(m.getReturnType());
+
+            Class<?>[] types = m.getParameterTypes();
+            this.writers = new DaoColumnWriter[types.length];
+            int filterIndex = -1;
+            for (int i = 0; i < types.length; i++) {
+                if (Filter.class.isAssignableFrom(types[i])) {
+                    filterIndex = filterIndex < 0 ? i : filterIndex;
                 }
                 else {
-                    ObjectMapper mapper = selectInfo.mapper().newInstance();
-                    return mapper.read(ps.executeQuery());
+                    this.writers[i] = writer(factory, types[i]);
                 }
             }
+            this.filterIndex = filterIndex;
         }
 
-        // update
-        UpdateInfo updateInfo = proxyMethod.getDeclaredAnnotation(UpdateInfo.class);
-        if (updateInfo != null) {
-            try (PreparedStatement ps = this.conn.prepareStatement(String.format("UPDATE %s %s",
-                    dao.tableHelper.getTableName(),
-                    updateInfo.sql()))) {
-                for (int i = 0; i < args.length; i++) {
-                    dao.tableHelper.getFactory()
-                            .getColumnWriter(args[i] == null ? "object" : args[i].getClass().getSimpleName())
-                            .write(ps, i + 1, args[i]);
-                }
-                return ps.executeUpdate();
+        static Plan of(Method m, TableDaoHelper<?> helper) throws DaoException {
+            DaoFactory factory = helper.getFactory();
+            String dto = helper.getTableClassName();
+
+            SelectInfo selectInfo = m.getDeclaredAnnotation(SelectInfo.class);
+            if (selectInfo != null) {
+                DaoMethod<?> method = selectInfo.join()
+                        ? helper.forSelectX()
+                        : helper.forSelect();
+                return new Plan(Kind.SELECT, factory, dto, m, method.getSql() + " " + selectInfo.sql())
+                        .select(method, selectInfo, selectInfo.cacheTtl() > 0 ? helper.useResultCache() : null);
+            }
+
+            UpdateInfo updateInfo = m.getDeclaredAnnotation(UpdateInfo.class);
+            if (updateInfo != null) {
+                return new Plan(Kind.WRITE, factory, dto, m, String.format("UPDATE %s %s",
+                        helper.getTableName(),
+                        updateInfo.sql()));
             }
+
+            DeleteInfo deleteInfo = m.getDeclaredAnnotation(DeleteInfo.class);
+            if (deleteInfo != null) {
+                return new Plan(Kind.WRITE, factory, dto, m, helper.forDelete().getSql() + " " + deleteInfo.sql());
+            }
+
+            // nothing to do, the proxy returns null
+            return null;
+        }
+
+        static Plan of(Method m, ViewDaoHelper<?> helper) throws DaoException {
+            DaoFactory factory = helper.getFactory();
+            String dto = helper.getViewClassName();
+
+            SelectInfo selectInfo = m.getDeclaredAnnotation(SelectInfo.class);
+            if (selectInfo == null) {
+                return new Plan(Kind.NONE, factory, dto, m, null);
+            }
+
+            DaoMethod<?> method = selectInfo.join()
+                    ? helper.forSelectX()
+                    : helper.forSelect();
+            return new Plan(Kind.SELECT, factory, dto, m, method.getSql() + " " + selectInfo.sql())
+                    .select(method, selectInfo, helper.getResultCache());
         }
 
-        // delete
-        DeleteInfo deleteInfo = proxyMethod.getDeclaredAnnotation(DeleteInfo.class);
-        if (deleteInfo != null) {
-            DaoMethod<?> method = dao.tableHelper.forDelete();
-            try (PreparedStatement ps = this.conn.prepareStatement(method.getSql() + " " + deleteInfo.sql())) {
-                for (int i = 0; i < args.length; i++) {
-                    dao.tableHelper.getFactory()
-                            .getColumnWriter(args[i] == null ? "object" : args[i].getClass().getSimpleName())
-                            .write(ps, i + 1, args[i]);
+        private Plan select(DaoMethod<?> method, SelectInfo selectInfo, ResultCache cache) throws DaoException {
+            this.method = method;
+            this.cache = cache;
+            this.top = selectInfo.top();
+            this.cacheTtl = selectInfo.cacheTtl();
+            this.cacheKey = this.sql + (this.list ? " #top " + this.top : " #one");
+            if (selectInfo.mapper() != ObjectMapper.Null.class) {
+                try {
+                    this.mapper = selectInfo.mapper().newInstance();
+                }
+                catch (ReflectiveOperationException ex) {
+                    throw new DaoException(selectInfo.mapper().getName() + " failed, " + ex.getMessage(), ex);
                 }
-                return ps.executeUpdate();
             }
+            return this;
         }
-        return null;
-    }
 
-    @SuppressWarnings("rawtypes")
-    private Object runView(Object self, Method proxyMethod, Method proceed, Object[] args) throws Throwable {
-        boolean list = List.class.isAssignableFrom(proxyMethod.getReturnType());
-        SelectInfo selectInfo = proxyMethod.getDeclaredAnnotation(SelectInfo.class);
-        if (selectInfo == null) {
-            return list ? new ArrayList<>() : null;
+        Object run(Connection conn, Object[] args) throws SQLException, DaoException {
+            switch (this.kind) {
+                case SELECT:
+                    return select(conn, args);
+                case WRITE:
+                    try (DaoStatement stmt = DaoStatement.prepare(conn, this.factory, this.dto, this.operation, this.sql)) {
+                        bind(stmt.getStatement(), args);
+                        return stmt.executeUpdate();
+                    }
+                default:
+                    return this.list ? new ArrayList<>() : null;
+            }
         }
 
-        ViewDao dao = (ViewDao) self;
-        DaoMethod<?> method = selectInfo.join()
-                ? dao.viewHelper.forSelectX()
-                : dao.viewHelper.forSelect();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql() + " " + selectInfo.sql())) {
-            int r = 1;
-            Filter filter = Filter.ALL;
-            for (int i = 0; i < args.length; i++) {
-                Object v = args[i];
-                if (v != null && v instanceof Filter) {
-                    filter = (Filter) v;
+        /**
+         * Executes the SELECT statement. The result is cached if the TTL of the method is positive, no filter or mapper is used
+         * and the connection is not in a transaction, whose rows may not be committed.
+         */
+        @SuppressWarnings("unchecked")
+        private Object select(Connection conn, Object[] args) throws SQLException, DaoException {
+            Filter filter = filter(args);
+            if (this.cacheTtl <= 0 || filter != Filter.ALL || this.mapper != null || !conn.getAutoCommit()) {
+                return query(conn, filter, args);
+            }
+
+            BindRecorder recorder = new BindRecorder();
+            bind(recorder.getStatement(), args);
+            List rows = this.cache.get(this.cacheKey, recorder.getValues(), this.cacheTtl, () -> {
+                Object result = query(conn, filter, args);
+                if (this.list) {
+                    return (List) result;
                 }
-                else {
-                    dao.viewHelper.getFactory()
-                            .getColumnWriter(v == null ? "object" : v.getClass().getSimpleName())
-                            .write(ps, r++, v);
+                return result == null ? Collections.emptyList() : Collections.singletonList(result);
+            });
+            if (this.list) {
+                return rows;
+            }
+            return rows.isEmpty() ? null : rows.get(0);
+        }
+
+        /**
+         * Executes the SELECT statement. The top count is pushed into the statement only if no filter rejects rows.
+         */
+        private Object query(Connection conn, Filter filter, Object[] args) throws SQLException, DaoException {
+            int limit = this.list && filter == Filter.ALL ? this.top : 0;
+            try (DaoStatement stmt = DaoStatement.prepare(conn, this.factory, this.dto, this.operation, new SelectStatement(this.sql).limit(limit))) {
+                bind(stmt.getStatement(), args);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (this.mapper != null) {
+                        Object result = this.mapper.read(rs);
+                        return stmt.fetched(result, result instanceof List ? ((List) result).size() : 1);
+                    }
+                    if (this.list) {
+                        return stmt.fetched(this.method.toList(rs, filter, this.top));
+                    }
+                    Object data = this.method.toOne(rs);
+                    return stmt.fetched(data, data == null ? 0 : 1);
                 }
             }
-            if (selectInfo.mapper() == ObjectMapper.Null.class) {
-                try (ResultSet rs = ps.executeQuery()) {
-                    return list ? method.toList(rs, filter, selectInfo.top()) : method.toOne(rs);
+        }
+
+        private void bind(PreparedStatement ps, Object[] args) throws SQLException {
+            int r = 1;
+            for (int i = 0; i < this.writers.length; i++) {
+                if (this.writers[i] != null) {
+                    this.writers[i].write(ps, r++, args[i]);
                 }
             }
-            else {
-                ObjectMapper mapper = selectInfo.mapper().newInstance();
-                return mapper.read(ps.executeQuery());
+        }
+
+        private Filter filter(Object[] args) {
+            Filter filter = this.filterIndex < 0 ? null : (Filter) args[this.filterIndex];
+            return filter == null ? Filter.ALL : filter;
+        }
+
+        /**
+         * Returns the writer of a declared parameter type. The writer is resolved by the value of each call if the type is Object or not registered.
+         */
+        private static DaoColumnWriter writer(DaoFactory factory, Class<?> type) {
+            DaoColumnWriter writer = type == Object.class ? null : factory.getColumnWriter(type.getSimpleName());
+            if (writer != null) {
+                return writer;
             }
+            return (ps, index, value) -> factory
+                    .getColumnWriter(value == null ? "object" : value.getClass().getSimpleName())
+                    .write(ps, index, value);
         }
     }
 }
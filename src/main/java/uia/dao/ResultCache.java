@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cache of query results keyed by the SQL statement and values of parameters.<br>
+ * Concurrent requests of the same key are loaded once, the others wait for the result of the first one.
+ * Results are copied when they are returned, so the callers never share an instance.
+ * The cache is never invalidated by writes of other tables, call {@link #clear()} explicitly.
+ * DAOs neither read nor load the cache with a connection in a transaction, whose rows may not be committed.
+ *
+ * @author Kyle K. Lin
+ *
+ * @param <T> The DTO class type.
+ */
+public final class ResultCache<T> {
+
+    /**
+     * The default max count of results.
+     */
+    public static final int DEFAULT_SIZE = 256;
+
+    private final DaoMethod<T> method;
+
+    private final int maxSize;
+
+    private final LinkedHashMap<Key, Holder<T>> entries;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    private final AtomicLong joins;
+
+    private final AtomicLong evictions;
+
+    /**
+     * Constructor.
+     *
+     * @param method The method to copy rows.
+     * @param maxSize The max count of results.
+     */
+    ResultCache(DaoMethod<T> method, int maxSize) {
+        this.method = method;
+        this.maxSize = maxSize <= 0 ? DEFAULT_SIZE : maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.joins = new AtomicLong();
+        this.evictions = new AtomicLong();
+    }
+
+    /**
+     * Returns the cached result or loads it.
+     *
+     * @param sql The SQL statement.
+     * @param binds Values of parameters.
+     * @param ttlMillis The milliseconds the result lives.
+     * @param loader The loader.
+     * @return The result.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public List<T> get(String sql, List<Object> binds, long ttlMillis, Loader<T> loader) throws SQLException, DaoException {
+        Key key = new Key(sql, binds);
+        Holder<T> holder;
+        boolean owner = false;
+        synchronized (this) {
+            holder = this.entries.get(key);
+            if (holder != null && holder.expired(System.nanoTime())) {
+                this.entries.remove(key);
+                holder = null;
+            }
+            if (holder == null) {
+                holder = new Holder<>();
+                this.entries.put(key, holder);
+                owner = true;
+                evict();
+            }
+        }
+
+        if (owner) {
+            this.misses.incrementAndGet();
+            return load(key, holder, ttlMillis, loader);
+        }
+
+        if (holder.future.isDone()) {
+            this.hits.incrementAndGet();
+        }
+        else {
+            this.joins.incrementAndGet();
+        }
+        return copy(await(holder));
+    }
+
+    /**
+     * Invalidates all results.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the count of requests waiting for the result loaded by another request.
+     *
+     * @return The count.
+     */
+    public long getJoins() {
+        return this.joins.get();
+    }
+
+    public long getEvictions() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size:%s/%s, hits:%s, misses:%s, joins:%s, evictions:%s",
+                size(),
+                this.maxSize,
+                getHits(),
+                getMisses(),
+                getJoins(),
+                getEvictions());
+    }
+
+    private List<T> load(Key key, Holder<T> holder, long ttlMillis, Loader<T> loader) throws SQLException, DaoException {
+        try {
+            List<T> result = loader.load();
+            ArrayList<T> cached = new ArrayList<>(result.size());
+            for (T t : result) {
+                cached.add(this.method.copy(t));
+            }
+            holder.expireAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+            holder.future.complete(cached);
+            return result;
+        }
+        catch (SQLException | DaoException | RuntimeException ex) {
+            synchronized (this) {
+                this.entries.remove(key, holder);
+            }
+            holder.future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private List<T> await(Holder<T> holder) throws SQLException, DaoException {
+        try {
+            return holder.future.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DaoException("interrupted while waiting for the result", ex);
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof DaoException) {
+                throw (DaoException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DaoException(cause);
+        }
+    }
+
+    private List<T> copy(List<T> cached) throws DaoException {
+        ArrayList<T> result = new ArrayList<>(cached.size());
+        for (T t : cached) {
+            result.add(this.method.copy(t));
+        }
+        return result;
+    }
+
+    private void evict() {
+        while (this.entries.size() > this.maxSize) {
+            Map.Entry<Key, Holder<T>> eldest = this.entries.entrySet().iterator().next();
+            this.entries.remove(eldest.getKey());
+            this.evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * The loader of a result.
+     *
+     * @param <T> The DTO class type.
+     */
+    public interface Loader<T> {
+
+        List<T> load() throws SQLException, DaoException;
+    }
+
+    static class Holder<T> {
+
+        final CompletableFuture<List<T>> future = new CompletableFuture<>();
+
+        volatile long expireAt;
+
+        boolean expired(long now) {
+            return this.future.isDone() && now - this.expireAt >= 0;
+        }
+    }
+
+    static class Key {
+
+        private final String sql;
+
+        private final Object[] binds;
+
+        private final int hash;
+
+        Key(String sql, List<Object> binds) {
+            this.sql = sql;
+            this.binds = new Object[binds.size()];
+            for (int i = 0; i < this.binds.length; i++) {
+                // the same value in different types, e.g. 1 and 1L.
+                this.binds[i] = TableDao.normalizeValue(binds.get(i));
+            }
+            this.hash = 31 * sql.hashCode() + Arrays.deepHashCode(this.binds);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return this.hash == other.hash
+                    && this.sql.equals(other.sql)
+                    && Arrays.deepEquals(this.binds, other.binds);
+        }
+    }
+}
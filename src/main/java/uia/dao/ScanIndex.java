@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The on-disk index of DTO classes found by scanning packages.<br>
+ * The DTO class names of a package are saved with the checksum of the package, a restart with the same checksum skips the scan.
+ * The checksum of a package in a jar is calculated from the CRC of its entries kept in the jar, in a directory from the size and time of its files,
+ * so nothing is loaded or read to verify an entry.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+final class ScanIndex {
+
+    private final Path file;
+
+    ScanIndex(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the DTO class names of a package.
+     *
+     * @param packageName The package name.
+     * @param checksum The checksum of the package.
+     * @return The class names or null if the package is not indexed or the checksum is changed.
+     */
+    synchronized List<String> get(String packageName, String checksum) {
+        Properties props = read();
+        if (!checksum.equals(props.getProperty(packageName + ".checksum"))) {
+            return null;
+        }
+        String classes = props.getProperty(packageName + ".classes", "");
+        return classes.isEmpty()
+                ? new ArrayList<>()
+                : Arrays.asList(classes.split(","));
+    }
+
+    /**
+     * Saves the DTO class names of a package.
+     *
+     * @param packageName The package name.
+     * @param checksum The checksum of the package.
+     * @param classNames The class names.
+     * @throws IOException Failed to write the file.
+     */
+    synchronized void put(String packageName, String checksum, List<String> classNames) throws IOException {
+        Properties props = read();
+        props.setProperty(packageName + ".checksum", checksum);
+        props.setProperty(packageName + ".classes", String.join(",", classNames));
+
+        Path parent = this.file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = Files.createTempFile(parent, this.file.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "uia-dao scan index");
+        }
+        Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Properties read() {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(this.file)) {
+            props.load(in);
+        }
+        catch (NoSuchFileException ex) {
+            // not saved yet
+        }
+        catch (IOException | IllegalArgumentException ex) {
+            // broken, scan again
+            props.clear();
+        }
+        return props;
+    }
+
+    /**
+     * Calculates the checksum of a package.
+     *
+     * @param packageName The package name.
+     * @param loader The class loader.
+     * @return The checksum or null if the location of the package is not supported.
+     */
+    static String checksum(String packageName, ClassLoader loader) {
+        String path = packageName.replace('.', '/');
+        CRC32 crc = new CRC32();
+        try {
+            Enumeration<URL> urls = loader.getResources(path);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                update(crc, url.toString());
+                if ("jar".equals(url.getProtocol())) {
+                    JarFile jarFile = ((JarURLConnection) url.openConnection()).getJarFile();
+                    Enumeration<JarEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        JarEntry entry = entries.nextElement();
+                        if (entry.getName().startsWith(path.isEmpty() ? "" : path + "/") && entry.getName().endsWith(".class")) {
+                            update(crc, entry.getName());
+                            update(crc, entry.getCrc());
+                            update(crc, entry.getSize());
+                        }
+                    }
+                }
+                else if ("file".equals(url.getProtocol())) {
+                    Path dir = Paths.get(url.toURI());
+                    List<Path> files;
+                    try (Stream<Path> stream = Files.walk(dir)) {
+                        files = stream
+                                .filter(p -> p.toString().endsWith(".class"))
+                                .sorted()
+                                .collect(Collectors.toList());
+                    }
+                    for (Path p : files) {
+                        update(crc, dir.relativize(p).toString());
+                        update(crc, Files.size(p));
+                        update(crc, Files.getLastModifiedTime(p).toMillis());
+                    }
+                }
+                else {
+                    return null;
+                }
+            }
+        }
+        catch (IOException | URISyntaxException | RuntimeException ex) {
+            return null;
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static void update(CRC32 crc, String value) {
+        crc.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void update(CRC32 crc, long value) {
+        for (int i = 0; i < 8; i++) {
+            crc.update((int) (value >>> (i * 8)));
+        }
+    }
+}
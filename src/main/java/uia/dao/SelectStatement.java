@@ -21,6 +21,7 @@ package uia.dao;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
 import uia.dao.where.Where;
 
@@ -40,6 +41,8 @@ public class SelectStatement {
 
     private String orders;
 
+    private int limit;
+
     /**
      * Constructor.
      *
@@ -52,6 +55,7 @@ public class SelectStatement {
     public void reset() {
         this.groups = null;
         this.orders = null;
+        this.limit = 0;
     }
 
     /**
@@ -87,27 +91,109 @@ public class SelectStatement {
         return this;
     }
 
+    /**
+     * Sets the max count of rows.<br>
+     * The limit is generated by the dialect of the connection, e.g. 'LIMIT n', 'TOP n' or 'FETCH FIRST n ROWS ONLY'.
+     * If the dialect is unknown, the limit is applied by Statement.setMaxRows().
+     *
+     * @param limit The max count of rows. Zero means no limit.
+     * @return The instance.
+     */
+    public SelectStatement limit(int limit) {
+        this.limit = Math.max(0, limit);
+        return this;
+    }
+
     public PreparedStatement prepare(Connection conn) throws SQLException {
-        final PreparedStatement ps;
+        return prepare(conn, null);
+    }
+
+    /**
+     * Prepares the statement, the SQL statement sent to the connection is rewritten first.
+     *
+     * @param conn The connection.
+     * @param rewriter The rewriter or null.
+     * @return The statement with the 'where' parameters bound.
+     * @throws SQLException Failed to prepare.
+     */
+    PreparedStatement prepare(Connection conn, Rewriter rewriter) throws SQLException {
+        String whereSQL = whereSql();
+        PreparedStatement ps = prepare(conn, sql(whereSQL), rewriter);
+        if (whereSQL != null) {
+            try {
+                this.where.accept(ps, 1);
+            }
+            catch (SQLException ex) {
+                ps.close();
+                throw ex;
+            }
+        }
+        return ps;
+    }
 
+    /**
+     * Returns the SQL statement without the limit.
+     *
+     * @return The SQL statement.
+     */
+    public String getSql() {
+        return sql(whereSql());
+    }
+
+    /**
+     * Returns values of parameters of the 'where' statement.
+     *
+     * @return The values.
+     * @throws SQLException Failed to bind values.
+     */
+    public List<Object> getParameters() throws SQLException {
+        BindRecorder recorder = new BindRecorder();
+        if (whereSql() != null) {
+            this.where.accept(recorder.getStatement(), 1);
+        }
+        return recorder.getValues();
+    }
+
+    private String whereSql() {
         String whereSQL = this.where == null ? null : this.where.generate();
-        if (whereSQL == null || whereSQL.trim().length() == 0) {
-            String sql = String.format("%s%s%s",
+        return whereSQL == null || whereSQL.trim().length() == 0 ? null : whereSQL;
+    }
+
+    private String sql(String whereSQL) {
+        if (whereSQL == null) {
+            return String.format("%s%s%s",
                     this.selectSql,
                     groupBy(),
                     orderBy());
-            ps = conn.prepareStatement(sql);
         }
         else {
-            String sql = String.format("%s where %s%s%s",
+            return String.format("%s where %s%s%s",
                     this.selectSql,
                     whereSQL,
                     groupBy(),
                     orderBy());
-            ps = conn.prepareStatement(sql);
-            this.where.accept(ps, 1);
         }
+    }
 
+    private PreparedStatement prepare(Connection conn, String sql, Rewriter rewriter) throws SQLException {
+        if (this.limit <= 0) {
+            return conn.prepareStatement(rewrite(rewriter, sql));
+        }
+
+        Database dialect = AbstractDatabase.dialect(conn);
+        String limitSql = dialect == null ? null : dialect.generateLimitSQL(sql, this.limit);
+        if (limitSql != null) {
+            return conn.prepareStatement(rewrite(rewriter, limitSql));
+        }
+
+        PreparedStatement ps = conn.prepareStatement(rewrite(rewriter, sql));
+        try {
+            ps.setMaxRows(this.limit);
+        }
+        catch (SQLException ex) {
+            ps.close();
+            throw ex;
+        }
         return ps;
     }
 
@@ -127,4 +213,16 @@ public class SelectStatement {
         return value == null || value.toString().trim().length() == 0;
     }
 
+    private static String rewrite(Rewriter rewriter, String sql) throws SQLException {
+        return rewriter == null ? sql : rewriter.rewrite(sql);
+    }
+
+    /**
+     * The rewriter of SQL statements.
+     *
+     */
+    interface Rewriter {
+
+        String rewrite(String sql) throws SQLException;
+    }
 }
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import uia.dao.where.Where;
+
+/**
+ * The log of statements slower than a threshold.<br>
+ * The latest entries are kept in a ring buffer and can be appended to a file.
+ * The file is written by a background thread which keeps it open, an entry is dropped if the queue of the thread is full.
+ * The parameters of a slow statement bound by a DTO object or a 'where' are read again when the entry is added, the last DTO object of a batch.
+ * The parameters of a statement bound by raw values are captured for a sample of statements only, 1% by default, the others are logged without parameters.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class SlowQueryLog {
+
+    /**
+     * The default rate of statements bound by raw values whose parameters are captured.
+     */
+    public static final double DEFAULT_SAMPLE_RATE = 0.01d;
+
+    private static final int QUEUE_SIZE = 1024;
+
+    private final long thresholdNanos;
+
+    private final AtomicReferenceArray<Entry> entries;
+
+    private final AtomicLong count;
+
+    private final AtomicLong fileErrors;
+
+    private final AtomicLong fileDrops;
+
+    private volatile double sampleRate;
+
+    private volatile Path file;
+
+    private volatile ThreadPoolExecutor writer;
+
+    /**
+     * The file opened by the writer thread.
+     */
+    private BufferedWriter out;
+
+    private Path outPath;
+
+    /**
+     * Constructor.
+     *
+     * @param thresholdMillis The milliseconds a statement is slow.
+     * @param capacity The max count of entries kept.
+     */
+    public SlowQueryLog(long thresholdMillis, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, thresholdMillis));
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.count = new AtomicLong();
+        this.fileErrors = new AtomicLong();
+        this.fileDrops = new AtomicLong();
+        this.sampleRate = DEFAULT_SAMPLE_RATE;
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(this.thresholdNanos);
+    }
+
+    public double getSampleRate() {
+        return this.sampleRate;
+    }
+
+    /**
+     * Sets the rate of statements bound by raw values whose parameters are captured.
+     *
+     * @param sampleRate The rate, 0 to 1.
+     * @return The instance.
+     */
+    public SlowQueryLog sampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        return this;
+    }
+
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Sets the file the entries are appended to. The writer thread is started at the first call.
+     *
+     * @param file The file or null to disable.
+     * @return The instance.
+     */
+    public synchronized SlowQueryLog file(Path file) {
+        this.file = file;
+        if (file != null && this.writer == null) {
+            this.writer = new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(QUEUE_SIZE),
+                    r -> {
+                        Thread t = new Thread(r, "uia-dao-slow-query-log");
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    (r, executor) -> this.fileDrops.incrementAndGet());
+        }
+        return this;
+    }
+
+    /**
+     * Writes the pending entries and closes the file. The entries added later are not written until a file is set again.
+     * The entries still pending after 5 seconds are dropped.
+     */
+    public void close() {
+        ThreadPoolExecutor executor;
+        synchronized (this) {
+            executor = this.writer;
+            this.writer = null;
+            this.file = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                this.fileDrops.addAndGet(executor.shutdownNow().size());
+            }
+        }
+        catch (InterruptedException ex) {
+            this.fileDrops.addAndGet(executor.shutdownNow().size());
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            closeOut();
+        }
+    }
+
+    /**
+     * Tests if the parameters of a statement should be captured.
+     *
+     * @return True if captured.
+     */
+    public boolean sample() {
+        double rate = this.sampleRate;
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    /**
+     * Tests if the elapsed time is slow.
+     *
+     * @param nanos The nanoseconds.
+     * @return True if slow.
+     */
+    public boolean isSlow(long nanos) {
+        return nanos >= this.thresholdNanos;
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @param entry The entry.
+     */
+    public void add(Entry entry) {
+        long i = this.count.getAndIncrement();
+        this.entries.set((int) (i % this.entries.length()), entry);
+
+        Path path = this.file;
+        ThreadPoolExecutor executor = this.writer;
+        if (path != null && executor != null) {
+            executor.execute(() -> write(path, entry));
+        }
+    }
+
+    /**
+     * Returns the entries kept, the latest is the last.
+     *
+     * @return The entries.
+     */
+    public List<Entry> getEntries() {
+        int capacity = this.entries.length();
+        long end = this.count.get();
+        long start = Math.max(0, end - capacity);
+        ArrayList<Entry> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            Entry entry = this.entries.get((int) (i % capacity));
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the count of slow statements logged.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    public long getFileErrors() {
+        return this.fileErrors.get();
+    }
+
+    /**
+     * Returns the count of entries not written to the file since the queue of the writer thread is full.
+     *
+     * @return The count.
+     */
+    public long getFileDrops() {
+        return this.fileDrops.get();
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.entries.length(); i++) {
+            this.entries.set(i, null);
+        }
+        this.count.set(0);
+    }
+
+    /**
+     * Writes an entry in the writer thread. The file is flushed when no entry is pending.
+     * The writer thread interrupted by close() writes nothing since the file is closed.
+     */
+    private synchronized void write(Path path, Entry entry) {
+        if (Thread.currentThread().isInterrupted()) {
+            this.fileDrops.incrementAndGet();
+            return;
+        }
+        try {
+            if (!path.equals(this.outPath)) {
+                closeOut();
+                this.out = Files.newBufferedWriter(
+                        path,
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+                this.outPath = path;
+            }
+            this.out.write(entry.toString());
+            this.out.newLine();
+            ThreadPoolExecutor executor = this.writer;
+            if (executor == null || executor.getQueue().isEmpty()) {
+                this.out.flush();
+            }
+        }
+        catch (IOException ex) {
+            this.fileErrors.incrementAndGet();
+            closeOut();
+        }
+    }
+
+    private synchronized void closeOut() {
+        if (this.out == null) {
+            return;
+        }
+        try {
+            this.out.close();
+        }
+        catch (IOException ex) {
+            this.fileErrors.incrementAndGet();
+        }
+        this.out = null;
+        this.outPath = null;
+    }
+
+    /**
+     * The slow statement.
+     *
+     */
+    public static final class Entry {
+
+        private final long time;
+
+        private final String dto;
+
+        private final String operation;
+
+        private final String sql;
+
+        private final List<Object> parameters;
+
+        private final long rows;
+
+        private final long prepareNanos;
+
+        private final long executeNanos;
+
+        private final long fetchNanos;
+
+        private final boolean failed;
+
+        /**
+         * Constructor.
+         *
+         * @param dto The DTO class name.
+         * @param operation The operation.
+         * @param sql The SQL statement.
+         * @param parameters The parameters or null if not captured.
+         * @param rows The rows read or written.
+         * @param prepareNanos The nanoseconds to prepare.
+         * @param executeNanos The nanoseconds to execute.
+         * @param fetchNanos The nanoseconds to fetch.
+         * @param failed The statement failed or not.
+         */
+        public Entry(String dto, String operation, String sql, List<Object> parameters, long rows, long prepareNanos, long executeNanos, long fetchNanos, boolean failed) {
+            this.time = System.currentTimeMillis();
+            this.dto = dto;
+            this.operation = operation;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.rows = rows;
+            this.prepareNanos = prepareNanos;
+            this.executeNanos = executeNanos;
+            this.fetchNanos = fetchNanos;
+            this.failed = failed;
+        }
+
+        public Date getTime() {
+            return new Date(this.time);
+        }
+
+        public String getDto() {
+            return this.dto;
+        }
+
+        public String getOperation() {
+            return this.operation;
+        }
+
+        public String getSql() {
+            return this.sql;
+        }
+
+        /**
+         * Returns the parameters.
+         *
+         * @return The parameters or null if not captured.
+         */
+        public List<Object> getParameters() {
+            return this.parameters;
+        }
+
+        public long getRows() {
+            return this.rows;
+        }
+
+        public double getPrepareMillis() {
+            return this.prepareNanos / 1000000d;
+        }
+
+        public double getExecuteMillis() {
+            return this.executeNanos / 1000000d;
+        }
+
+        public double getFetchMillis() {
+            return this.fetchNanos / 1000000d;
+        }
+
+        public double getTotalMillis() {
+            return (this.prepareNanos + this.executeNanos + this.fetchNanos) / 1000000d;
+        }
+
+        public boolean isFailed() {
+            return this.failed;
+        }
+
+        /**
+         * Returns the SQL statement with parameters rendered.
+         *
+         * @return The SQL statement.
+         */
+        public String render() {
+            return this.parameters == null
+                    ? this.sql
+                    : Where.toString(this.sql, this.parameters);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s.%s%s %.3fms (prepare:%.3f, execute:%.3f, fetch:%.3f) rows:%s%s %s",
+                    new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(getTime()),
+                    this.dto,
+                    this.operation,
+                    this.failed ? " FAILED" : "",
+                    getTotalMillis(),
+                    getPrepareMillis(),
+                    getExecuteMillis(),
+                    getFetchMillis(),
+                    this.rows,
+                    this.parameters == null ? " (parameters not sampled)" : "",
+                    render());
+        }
+    }
+}
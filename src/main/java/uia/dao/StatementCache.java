@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The LRU cache of prepared statements of one connection, keyed by SQL text.<br>
+ * A statement is removed from the cache while it is in use and returned when the caller closes it,
+ * so the same SQL used twice at the same time gets two statements.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class StatementCache {
+
+    private final Connection conn;
+
+    private final int maxSize;
+
+    private final LinkedHashMap<String, PreparedStatement> idle;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param conn The connection to prepare statements.
+     * @param maxSize The max count of idle statements.
+     */
+    StatementCache(Connection conn, int maxSize) {
+        this.conn = conn;
+        this.maxSize = maxSize;
+        this.idle = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 2216471563460549577L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    StatementCache.this.evictions++;
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Returns the count of idle statements.
+     *
+     * @return The count.
+     */
+    public int size() {
+        return this.idle.size();
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%s/%s, hits=%s, misses=%s, evictions=%s",
+                this.idle.size(),
+                this.maxSize,
+                this.hits,
+                this.misses,
+                this.evictions);
+    }
+
+    /**
+     * Returns a statement of the SQL. Closing the statement returns it to the cache.
+     *
+     * @param sql The SQL statement.
+     * @return The statement.
+     * @throws SQLException Failed to prepare the statement.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement ps = this.closed ? null : this.idle.remove(sql);
+        if (ps == null) {
+            this.misses++;
+            ps = this.conn.prepareStatement(sql);
+        }
+        else {
+            this.hits++;
+        }
+        return new CachedStatement(this, sql, ps);
+    }
+
+    /**
+     * Closes all idle statements. Statements in use are closed when they are returned.
+     */
+    void close() {
+        this.closed = true;
+        ArrayList<PreparedStatement> pss = new ArrayList<>(this.idle.values());
+        this.idle.clear();
+        pss.forEach(StatementCache::closeQuietly);
+    }
+
+    /**
+     * Returns a borrowed statement. It is closed if it can't be reused.
+     *
+     * @param sql The SQL statement.
+     * @param ps The statement of the driver.
+     * @param borrowed The statement returned by prepare.
+     */
+    void giveBack(String sql, PreparedStatement ps, CachedStatement borrowed) {
+        if (this.closed || !borrowed.reset() || this.idle.containsKey(sql)) {
+            closeQuietly(ps);
+            return;
+        }
+        this.idle.put(sql, ps);
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        }
+        catch (SQLException ex) {
+
+        }
+    }
+}
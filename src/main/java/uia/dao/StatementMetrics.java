@@ -0,0 +1,259 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The metrics of an operation of a DTO class.<br>
+ * Latency is recorded in nanoseconds by phase: prepare (including binding parameters), execute and fetch (including mapping to DTO objects).
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class StatementMetrics {
+
+    private final String dto;
+
+    private final String operation;
+
+    private final AtomicLong errors;
+
+    private final AtomicLong rowsRead;
+
+    private final AtomicLong rowsWritten;
+
+    private final DaoHistogram prepare;
+
+    private final DaoHistogram execute;
+
+    private final DaoHistogram fetch;
+
+    private final DaoHistogram total;
+
+    private final DaoHistogram batchSize;
+
+    StatementMetrics(String dto, String operation) {
+        this.dto = dto;
+        this.operation = operation;
+        this.errors = new AtomicLong();
+        this.rowsRead = new AtomicLong();
+        this.rowsWritten = new AtomicLong();
+        this.prepare = new DaoHistogram();
+        this.execute = new DaoHistogram();
+        this.fetch = new DaoHistogram();
+        this.total = new DaoHistogram();
+        this.batchSize = new DaoHistogram();
+    }
+
+    public String getDto() {
+        return this.dto;
+    }
+
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Records an execution.
+     *
+     * @param prepareNanos The nanoseconds to prepare the statement and bind parameters.
+     * @param executeNanos The nanoseconds to execute the statement.
+     * @param fetchNanos The nanoseconds to fetch and map rows, negative if nothing is fetched.
+     * @param failed True if the execution failed.
+     */
+    public void record(long prepareNanos, long executeNanos, long fetchNanos, boolean failed) {
+        if (failed) {
+            this.errors.incrementAndGet();
+        }
+        this.prepare.record(prepareNanos);
+        this.execute.record(executeNanos);
+        if (fetchNanos >= 0) {
+            this.fetch.record(fetchNanos);
+        }
+        this.total.record(prepareNanos + executeNanos + Math.max(0, fetchNanos));
+    }
+
+    public void rowsRead(long rows) {
+        this.rowsRead.addAndGet(rows);
+    }
+
+    public void rowsWritten(long rows) {
+        this.rowsWritten.addAndGet(rows);
+    }
+
+    public void batch(int size) {
+        this.batchSize.record(size);
+    }
+
+    public long getCount() {
+        return this.total.getCount();
+    }
+
+    public long getErrors() {
+        return this.errors.get();
+    }
+
+    public long getRowsRead() {
+        return this.rowsRead.get();
+    }
+
+    public long getRowsWritten() {
+        return this.rowsWritten.get();
+    }
+
+    public DaoHistogram getPrepare() {
+        return this.prepare;
+    }
+
+    public DaoHistogram getExecute() {
+        return this.execute;
+    }
+
+    public DaoHistogram getFetch() {
+        return this.fetch;
+    }
+
+    public DaoHistogram getTotal() {
+        return this.total;
+    }
+
+    public DaoHistogram getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Returns a snapshot of the metrics.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    public void reset() {
+        this.errors.set(0);
+        this.rowsRead.set(0);
+        this.rowsWritten.set(0);
+        this.prepare.reset();
+        this.execute.reset();
+        this.fetch.reset();
+        this.total.reset();
+        this.batchSize.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s count:%s, errors:%s, read:%s, written:%s, total(ns) %s",
+                this.dto,
+                this.operation,
+                getCount(),
+                getErrors(),
+                getRowsRead(),
+                getRowsWritten(),
+                this.total.snapshot());
+    }
+
+    /**
+     * The snapshot of metrics of an operation.
+     *
+     */
+    public static final class Snapshot {
+
+        private final String dto;
+
+        private final String operation;
+
+        private final long count;
+
+        private final long errors;
+
+        private final long rowsRead;
+
+        private final long rowsWritten;
+
+        private final DaoHistogram.Snapshot prepare;
+
+        private final DaoHistogram.Snapshot execute;
+
+        private final DaoHistogram.Snapshot fetch;
+
+        private final DaoHistogram.Snapshot total;
+
+        private final DaoHistogram.Snapshot batchSize;
+
+        Snapshot(StatementMetrics metrics) {
+            this.dto = metrics.dto;
+            this.operation = metrics.operation;
+            this.count = metrics.getCount();
+            this.errors = metrics.getErrors();
+            this.rowsRead = metrics.getRowsRead();
+            this.rowsWritten = metrics.getRowsWritten();
+            this.prepare = metrics.prepare.snapshot();
+            this.execute = metrics.execute.snapshot();
+            this.fetch = metrics.fetch.snapshot();
+            this.total = metrics.total.snapshot();
+            this.batchSize = metrics.batchSize.snapshot();
+        }
+
+        public String getDto() {
+            return this.dto;
+        }
+
+        public String getOperation() {
+            return this.operation;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getErrors() {
+            return this.errors;
+        }
+
+        public long getRowsRead() {
+            return this.rowsRead;
+        }
+
+        public long getRowsWritten() {
+            return this.rowsWritten;
+        }
+
+        public DaoHistogram.Snapshot getPrepare() {
+            return this.prepare;
+        }
+
+        public DaoHistogram.Snapshot getExecute() {
+            return this.execute;
+        }
+
+        public DaoHistogram.Snapshot getFetch() {
+            return this.fetch;
+        }
+
+        public DaoHistogram.Snapshot getTotal() {
+            return this.total;
+        }
+
+        public DaoHistogram.Snapshot getBatchSize() {
+            return this.batchSize;
+        }
+    }
+}
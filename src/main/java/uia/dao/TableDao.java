@@ -18,12 +18,25 @@
  *******************************************************************************/
 package uia.dao;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import uia.dao.where.SeekWhere;
 import uia.dao.where.Where;
 
 /**
@@ -45,6 +58,11 @@ public class TableDao<T> {
      */
     protected final TableDaoHelper<T> tableHelper;
 
+    /**
+     * The fetch size used by the cursor.
+     */
+    protected int fetchSize;
+
     /**
      * Constructor.
      *
@@ -54,6 +72,20 @@ public class TableDao<T> {
     public TableDao(Connection conn, TableDaoHelper<T> tableHelper) {
         this.conn = conn;
         this.tableHelper = tableHelper;
+        this.fetchSize = 1000;
+    }
+
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    /**
+     * Sets the fetch size used by the cursor.
+     *
+     * @param fetchSize The rows fetched per round trip. Zero means the driver default.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
     }
 
     public String getSelectSql() {
@@ -87,9 +119,11 @@ public class TableDao<T> {
      */
     public int insert(T data) throws SQLException, DaoException {
         DaoMethod<T> method = this.tableHelper.forInsert();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql())) {
-            method.fromOne(ps, data);
-            return ps.executeUpdate();
+        try (DaoStatement stmt = prepare("insert", method.getSql())) {
+            stmt.bind(method, data);
+            int n = stmt.executeUpdate();
+            invalidateResults();
+            return n;
         }
     }
 
@@ -107,12 +141,14 @@ public class TableDao<T> {
         }
 
         DaoMethod<T> method = this.tableHelper.forInsert();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql())) {
+        try (DaoStatement stmt = prepare("insert", method.getSql())) {
             for (T t : data) {
-                method.fromOne(ps, t);
-                ps.addBatch();
+                stmt.bind(method, t);
+                stmt.addBatch();
             }
-            return ps.executeBatch();
+            int[] result = stmt.executeBatch();
+            invalidateResults();
+            return result;
         }
     }
 
@@ -126,9 +162,11 @@ public class TableDao<T> {
      */
     public int update(T data) throws SQLException, DaoException {
         DaoMethod<T> method = this.tableHelper.forUpdate();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql())) {
-            method.fromOne(ps, data);
-            return ps.executeUpdate();
+        try (DaoStatement stmt = prepare("update", method.getSql())) {
+            stmt.bind(method, data);
+            int n = stmt.executeUpdate();
+            invalidateRow(data);
+            return n;
         }
     }
 
@@ -146,12 +184,216 @@ public class TableDao<T> {
         }
 
         DaoMethod<T> method = this.tableHelper.forUpdate();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql())) {
+        try (DaoStatement stmt = prepare("update", method.getSql())) {
             for (T t : data) {
-                method.fromOne(ps, t);
-                ps.addBatch();
+                stmt.bind(method, t);
+                stmt.addBatch();
             }
-            return ps.executeBatch();
+            int[] result = stmt.executeBatch();
+            invalidateRows(data);
+            return result;
+        }
+    }
+
+    /**
+     * Inserts rows with multi-row INSERT statements.<br>
+     * The rows are split automatically to meet the limit of bind parameters of the database,
+     * the rest rows less than a full statement are split to powers of two so that only a few statements are prepared.
+     * If the database doesn't support multi-row INSERT, the rows are inserted with a batch.
+     *
+     * @param data The rows.
+     * @return The count of rows inserted.
+     * @throws SQLException Failed to insert.
+     * @throws DaoException Failed or ORM.
+     */
+    public int insertMulti(List<T> data) throws SQLException, DaoException {
+        if (data.isEmpty()) {
+            return 0;
+        }
+
+        DaoMethod<T> method = this.tableHelper.forInsert();
+        Database dialect = AbstractDatabase.dialect(this.conn);
+        int rowsPerStatement = dialect == null
+                ? 0
+                : Math.min(dialect.getMaxInsertRows(), dialect.getMaxParameters() / method.getColumnCount());
+        if (rowsPerStatement < 2 || data.size() == 1) {
+            int count = 0;
+            for (int n : insert(data)) {
+                count += n == Statement.SUCCESS_NO_INFO ? 1 : Math.max(n, 0);
+            }
+            return count;
+        }
+
+        int count = 0;
+        int offset = 0;
+        while (offset < data.size()) {
+            int rows = data.size() - offset;
+            rows = rows >= rowsPerStatement ? rowsPerStatement : Integer.highestOneBit(rows);
+            try (DaoStatement stmt = prepare("insertMulti", this.tableHelper.forInsertMulti(dialect, rows))) {
+                int index = 1;
+                for (T t : data.subList(offset, offset + rows)) {
+                    index = stmt.bind(method, t, index);
+                }
+                count += stmt.executeUpdate();
+            }
+            offset += rows;
+        }
+        invalidateResults();
+        return count;
+    }
+
+    /**
+     * Inserts rows chunk by chunk.
+     *
+     * @param data The rows.
+     * @param chunkSize The max count of rows per batch.
+     * @return The count of rows affected.
+     * @throws SQLException Failed to insert.
+     * @throws DaoException Failed or ORM.
+     */
+    public long insertBatched(Iterable<T> data, int chunkSize) throws SQLException, DaoException {
+        return insertBatched(data.iterator(), chunkSize, false, null);
+    }
+
+    /**
+     * Inserts rows chunk by chunk.
+     *
+     * @param data The rows.
+     * @param chunkSize The max count of rows per batch.
+     * @param commitPerChunk Commit after each chunk or not. Not allowed if the connection is in a transaction.
+     * @param listener The listener of the progress. Null is allowed.
+     * @return The count of rows affected.
+     * @throws SQLException Failed to insert.
+     * @throws DaoException Failed or ORM.
+     */
+    public long insertBatched(Stream<T> data, int chunkSize, boolean commitPerChunk, BatchListener listener) throws SQLException, DaoException {
+        return insertBatched(data.iterator(), chunkSize, commitPerChunk, listener);
+    }
+
+    /**
+     * Inserts rows chunk by chunk. The rows are read from the iterator lazily.
+     *
+     * @param data The rows.
+     * @param chunkSize The max count of rows per batch.
+     * @param commitPerChunk Commit after each chunk or not. Not allowed if the connection is in a transaction.
+     * @param listener The listener of the progress. Null is allowed.
+     * @return The count of rows affected.
+     * @throws SQLException Failed to insert.
+     * @throws DaoException Failed or ORM.
+     */
+    public long insertBatched(Iterator<T> data, int chunkSize, boolean commitPerChunk, BatchListener listener) throws SQLException, DaoException {
+        try {
+            return executeBatched(this.tableHelper.forInsert(), data, chunkSize, commitPerChunk, listener);
+        }
+        finally {
+            invalidateResults();
+        }
+    }
+
+    /**
+     * Updates rows chunk by chunk.
+     *
+     * @param data The rows.
+     * @param chunkSize The max count of rows per batch.
+     * @return The count of rows affected.
+     * @throws SQLException Failed to update.
+     * @throws DaoException Failed or ORM.
+     */
+    public long updateBatched(Iterable<T> data, int chunkSize) throws SQLException, DaoException {
+        return updateBatched(data.iterator(), chunkSize, false, null);
+    }
+
+    /**
+     * Updates rows chunk by chunk.
+     *
+     * @param data The rows.
+     * @param chunkSize The max count of rows per batch.
+     * @param commitPerChunk Commit after each chunk or not. Not allowed if the connection is in a transaction.
+     * @param listener The listener of the progress. Null is allowed.
+     * @return The count of rows affected.
+     * @throws SQLException Failed to update.
+     * @throws DaoException Failed or ORM.
+     */
+    public long updateBatched(Stream<T> data, int chunkSize, boolean commitPerChunk, BatchListener listener) throws SQLException, DaoException {
+        return updateBatched(data.iterator(), chunkSize, commitPerChunk, listener);
+    }
+
+    /**
+     * Updates rows chunk by chunk. The rows are read from the iterator lazily.
+     *
+     * @param data The rows.
+     * @param chunkSize The max count of rows per batch.
+     * @param commitPerChunk Commit after each chunk or not. Not allowed if the connection is in a transaction.
+     * @param listener The listener of the progress. Null is allowed.
+     * @return The count of rows affected.
+     * @throws SQLException Failed to update.
+     * @throws DaoException Failed or ORM.
+     */
+    public long updateBatched(Iterator<T> data, int chunkSize, boolean commitPerChunk, BatchListener listener) throws SQLException, DaoException {
+        try {
+            return executeBatched(this.tableHelper.forUpdate(), data, chunkSize, commitPerChunk, listener);
+        }
+        finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Inserts a row or updates it if the primary key exists, in one statement.<br>
+     * If the database doesn't support UPSERT, the row is updated first and inserted if no row is updated.
+     *
+     * @param data The row.
+     * @return Result.
+     * @throws SQLException Failed to upsert.
+     * @throws DaoException Failed or ORM.
+     */
+    public int upsert(T data) throws SQLException, DaoException {
+        String sql = upsertSql();
+        if (sql == null) {
+            int n = this.tableHelper.forUpdate().getSql() == null ? 0 : update(data);
+            return n > 0 ? n : insert(data);
+        }
+
+        try (DaoStatement stmt = prepare("upsert", sql)) {
+            stmt.bind(this.tableHelper.forInsert(), data);
+            int n = stmt.executeUpdate();
+            invalidateRow(data);
+            return n;
+        }
+    }
+
+    /**
+     * Inserts rows or updates them if the primary keys exist, with a batch.<br>
+     * If the database doesn't support UPSERT, the rows are upserted one by one.
+     *
+     * @param data The rows.
+     * @return Result.
+     * @throws SQLException Failed to upsert.
+     * @throws DaoException Failed or ORM.
+     */
+    public int[] upsert(List<T> data) throws SQLException, DaoException {
+        if (data.isEmpty()) {
+            return new int[0];
+        }
+
+        String sql = upsertSql();
+        if (sql == null) {
+            int[] result = new int[data.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = upsert(data.get(i));
+            }
+            return result;
+        }
+
+        DaoMethod<T> method = this.tableHelper.forInsert();
+        try (DaoStatement stmt = prepare("upsert", sql)) {
+            for (T t : data) {
+                stmt.bind(method, t);
+                stmt.addBatch();
+            }
+            int[] result = stmt.executeBatch();
+            invalidateRows(data);
+            return result;
         }
     }
 
@@ -163,8 +405,10 @@ public class TableDao<T> {
      */
     public int deleteAll() throws SQLException {
         DaoMethod<T> method = this.tableHelper.forDelete();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql())) {
-            return ps.executeUpdate();
+        try (DaoStatement stmt = prepare("delete", method.getSql())) {
+            int n = stmt.executeUpdate();
+            invalidateAll();
+            return n;
         }
     }
 
@@ -181,11 +425,14 @@ public class TableDao<T> {
         }
 
         DaoMethod<T> method = this.tableHelper.forDelete();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql() + " WHERE " + this.tableHelper.forWherePK())) {
+        try (DaoStatement stmt = prepare("deleteByPK", method.getSql() + " WHERE " + this.tableHelper.forWherePK())) {
+            PreparedStatement ps = stmt.getStatement();
             for (int i = 0; i < pks.length; i++) {
                 ps.setObject(i + 1, pks[i]);
             }
-            return ps.executeUpdate();
+            int n = stmt.executeUpdate();
+            invalidateKey(pks);
+            return n;
         }
     }
 
@@ -202,15 +449,16 @@ public class TableDao<T> {
         if (!orderBy.isEmpty()) {
             orderBy = " ORDER BY " + orderBy;
         }
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql() + orderBy)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return method.toList(rs, Filter.ALL);
+        try (DaoStatement stmt = prepare("selectAll", method.getSql() + orderBy)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(method.toList(rs, Filter.ALL));
             }
         }
     }
 
     /**
-     * Selects all rows of the table and return a specific count.
+     * Selects all rows of the table and return a specific count.<br>
+     * The row limit is generated by the dialect of the connection.
      *
      * @param topN The max count of records to be returned.
      * @return All rows of the table.
@@ -222,14 +470,12 @@ public class TableDao<T> {
             return selectAll();
         }
         DaoMethod<T> method = this.tableHelper.forSelect();
-        String orderBy = this.tableHelper.getOrderBy();
-        if (!orderBy.isEmpty()) {
-            orderBy = " ORDER BY " + orderBy;
-        }
-
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql() + orderBy)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return method.toList(rs, Filter.ALL, topN);
+        SelectStatement sql = new SelectStatement(method.getSql())
+                .orderBy(this.tableHelper.getOrderBy())
+                .limit(topN);
+        try (DaoStatement stmt = prepare("selectAll", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(method.toList(rs, Filter.ALL, topN));
             }
         }
     }
@@ -242,10 +488,10 @@ public class TableDao<T> {
      * @throws DaoException Failed to map to the DTO object.
      */
     public long count() throws SQLException, DaoException {
-        try (PreparedStatement ps = this.conn.prepareStatement("select count(*) n from " + this.tableHelper.getTableName())) {
-            try (ResultSet rs = ps.executeQuery()) {
+        try (DaoStatement stmt = prepare("count", "select count(*) n from " + this.tableHelper.getTableName())) {
+            try (ResultSet rs = stmt.executeQuery()) {
                 rs.next();
-                return rs.getLong(1);
+                return stmt.fetched(rs.getLong(1), 1);
             }
         }
     }
@@ -263,15 +509,110 @@ public class TableDao<T> {
             return null;
         }
 
+        EntityCache<T> cache = shareCache() ? this.tableHelper.getCache() : null;
+        Object key = null;
+        long version = 0;
+        if (cache != null) {
+            key = EntityCache.key(pks);
+            T data = cache.get(key);
+            if (data != null) {
+                return data;
+            }
+            version = cache.version();
+        }
+
         DaoMethod<T> method = this.tableHelper.forSelect();
-        try (PreparedStatement ps = this.conn.prepareStatement(method.getSql() + " WHERE " + this.tableHelper.forWherePK())) {
+        try (DaoStatement stmt = prepare("selectByPK", method.getSql() + " WHERE " + this.tableHelper.forWherePK())) {
+            PreparedStatement ps = stmt.getStatement();
             for (int i = 0; i < pks.length; i++) {
                 ps.setObject(i + 1, pks[i]);
             }
-            try (ResultSet rs = ps.executeQuery()) {
-                return method.toOne(rs);
+            try (ResultSet rs = stmt.executeQuery()) {
+                T data = method.toOne(rs);
+                stmt.fetched(data, data == null ? 0 : 1);
+                if (cache != null && data != null) {
+                    cache.put(key, data, version);
+                }
+                return data;
+            }
+        }
+    }
+
+    /**
+     * Selects rows by some primary keys, one round trip per chunk of keys.<br>
+     * The keys are split by the limit of the IN list and bind parameters of the database,
+     * and a chunk is padded to a power of two so that only a few statements are prepared.
+     * A key of a composite primary key is a List of values in the order of the primary keys.
+     *
+     * @param pks Values of primary keys.
+     * @param <K> The key type.
+     * @return Rows found, keyed by the requested keys.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public <K> Map<K, T> selectByPKs(Collection<K> pks) throws SQLException, DaoException {
+        LinkedHashMap<K, T> result = new LinkedHashMap<>();
+        if (pks.isEmpty()) {
+            return result;
+        }
+
+        int pkCount = this.tableHelper.getPrimaryKeys().length;
+        if (pkCount == 0) {
+            throw new UnsupportedOperationException(this.tableHelper.getTableName() + " has no primary key");
+        }
+        Database dialect = AbstractDatabase.dialect(this.conn);
+        int maxChunk = dialect == null
+                ? 1000
+                : Math.max(1, Math.min(dialect.getMaxInListSize(), dialect.getMaxParameters() / pkCount));
+        boolean rowValue = dialect != null && dialect.supportsRowValueIn();
+
+        LinkedHashMap<Object, K> requested = new LinkedHashMap<>();
+        for (K pk : pks) {
+            requested.putIfAbsent(normalizeKey(pk, pkCount), pk);
+        }
+        ArrayList<K> keys = new ArrayList<>(requested.values());
+
+        DaoMethod<T> method = this.tableHelper.forSelect();
+        for (int offset = 0; offset < keys.size(); offset += maxChunk) {
+            List<K> chunk = keys.subList(offset, Math.min(keys.size(), offset + maxChunk));
+            int size = chunk.size();
+            if (size < maxChunk) {
+                size = Math.min(maxChunk, Integer.highestOneBit(size - 1) << 1);
+                size = Math.max(size, chunk.size());
+            }
+
+            String sql = method.getSql() + " WHERE " + this.tableHelper.forWherePKs(size, rowValue);
+            try (DaoStatement stmt = prepare("selectByPKs", sql)) {
+                PreparedStatement ps = stmt.getStatement();
+                int index = 1;
+                for (int i = 0; i < size; i++) {
+                    // pad with the last key
+                    K key = chunk.get(Math.min(i, chunk.size() - 1));
+                    if (pkCount == 1) {
+                        ps.setObject(index++, key);
+                    }
+                    else {
+                        for (Object v : (List<?>) key) {
+                            ps.setObject(index++, v);
+                        }
+                    }
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    int rows = 0;
+                    while (rs.next()) {
+                        T data = method.read(rs);
+                        Object[] values = this.tableHelper.readPrimaryKeys(data);
+                        K key = requested.get(normalizeKey(pkCount == 1 ? values[0] : Arrays.asList(values), pkCount));
+                        if (key != null) {
+                            result.put(key, data);
+                        }
+                        rows++;
+                    }
+                    stmt.fetched(result, rows);
+                }
             }
         }
+        return result;
     }
 
     /**
@@ -287,9 +628,9 @@ public class TableDao<T> {
         SelectStatement sql = new SelectStatement(method.getSql())
                 .where(where)
                 .orderBy(this.tableHelper.getOrderBy());
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return method.toList(rs, Filter.ALL);
+        try (DaoStatement stmt = prepare("select", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(method.toList(rs, Filter.ALL));
             }
         }
     }
@@ -308,9 +649,9 @@ public class TableDao<T> {
         SelectStatement sql = new SelectStatement(method.getSql())
                 .where(where)
                 .orderBy(orders);
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return method.toList(rs, Filter.ALL);
+        try (DaoStatement stmt = prepare("select", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(method.toList(rs, Filter.ALL));
             }
         }
     }
@@ -329,10 +670,11 @@ public class TableDao<T> {
         DaoMethod<T> method = this.tableHelper.forSelect();
         SelectStatement sql = new SelectStatement(method.getSql())
                 .where(where)
-                .orderBy(orders);
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return method.toList(rs, Filter.ALL, topN);
+                .orderBy(orders)
+                .limit(topN);
+        try (DaoStatement stmt = prepare("select", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(method.toList(rs, Filter.ALL, topN));
             }
         }
     }
@@ -349,9 +691,97 @@ public class TableDao<T> {
         DaoMethod<T> method = this.tableHelper.forSelect();
         SelectStatement sql = new SelectStatement(method.getSql())
                 .where(where);
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return method.toOne(rs);
+        try (DaoStatement stmt = prepare("selectOne", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                T data = method.toOne(rs);
+                return stmt.fetched(data, data == null ? 0 : 1);
+            }
+        }
+    }
+
+    /**
+     * Opens a cursor on rows with a criteria. The cursor must be closed by the caller.<br>
+     * PostgreSQL streams rows only when the auto-commit of the connection is off.
+     *
+     * @param where The where statement.
+     * @return The cursor.
+     * @throws SQLException Failed to execute the SQL statement.
+     */
+    public DaoCursor<T> cursor(Where where) throws SQLException {
+        return cursor(where, this.tableHelper.getOrderBy());
+    }
+
+    /**
+     * Opens a cursor on rows with a criteria. The cursor must be closed by the caller.<br>
+     * PostgreSQL streams rows only when the auto-commit of the connection is off.
+     *
+     * @param where The where statement.
+     * @param orders The orders.
+     * @return The cursor.
+     * @throws SQLException Failed to execute the SQL statement.
+     */
+    public DaoCursor<T> cursor(Where where, String orders) throws SQLException {
+        SelectStatement sql = new SelectStatement(this.tableHelper.forSelect().getSql())
+                .where(where)
+                .orderBy(orders);
+        return DaoCursor.open(prepare("cursor", sql), this.tableHelper.forSelect(), Filter.ALL, this.fetchSize);
+    }
+
+    /**
+     * Returns a stream of rows with a criteria. The stream must be closed by the caller.
+     *
+     * @param where The where statement.
+     * @return The stream.
+     * @throws SQLException Failed to execute the SQL statement.
+     */
+    public Stream<T> stream(Where where) throws SQLException {
+        return cursor(where).stream();
+    }
+
+    /**
+     * Consumes rows with a criteria one by one.
+     *
+     * @param where The where statement.
+     * @param consumer The consumer.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public void forEach(Where where, Consumer<T> consumer) throws SQLException, DaoException {
+        cursor(where).consume(consumer);
+    }
+
+    /**
+     * Selects a page of rows with the keyset (seek) pagination.<br>
+     * Rows after the last key are selected in the order of columns, the row limit is generated by the dialect of the connection.
+     * The order columns must be unique together, e.g. end with the primary key, and must not be null.
+     *
+     * @param where The where statement.
+     * @param orderColumns The order columns, e.g. 'c1', 'c2 desc'.
+     * @param lastKey The next key of the previous page, or null for the first page.
+     * @param pageSize The max count of rows of the page.
+     * @return The page.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public DaoPage<T> page(Where where, String[] orderColumns, Object[] lastKey, int pageSize) throws SQLException, DaoException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+
+        DaoMethod<T> method = this.tableHelper.forSelect();
+        SeekWhere seek = new SeekWhere(orderColumns, lastKey);
+        SelectStatement sql = new SelectStatement(method.getSql())
+                .where(where == null ? seek : Where.and(where, seek))
+                .orderBy(seek.orderBy())
+                .limit(pageSize + 1);   // one more row to test if the next page exists
+        try (DaoStatement stmt = prepare("page", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<T> rows = stmt.fetched(method.toList(rs, Filter.ALL));
+                if (rows.size() <= pageSize) {
+                    return new DaoPage<>(rows, null);
+                }
+                rows.remove(pageSize);
+                return new DaoPage<>(rows, this.tableHelper.readColumns(rows.get(pageSize - 1), seek.getColumns()));
             }
         }
     }
@@ -367,8 +797,10 @@ public class TableDao<T> {
         DaoMethod<T> method = this.tableHelper.forDelete();
         SelectStatement sql = new SelectStatement(method.getSql())
                 .where(where);
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            return ps.executeUpdate();
+        try (DaoStatement stmt = prepare("delete", sql)) {
+            int n = stmt.executeUpdate();
+            invalidateAll();
+            return n;
         }
     }
 
@@ -381,9 +813,12 @@ public class TableDao<T> {
      */
     public int update(TableColumnValues cvs) throws SQLException {
         String sql = String.format("update %s set %s", this.tableHelper.getTableName(), cvs.sql());
-        try (PreparedStatement ps = this.conn.prepareStatement(sql)) {
+        try (DaoStatement stmt = prepare("update", sql)) {
+            PreparedStatement ps = stmt.getStatement();
             cvs.accept(ps, 1);
-            return ps.executeUpdate();
+            int n = stmt.executeUpdate();
+            invalidateAll();
+            return n;
         }
     }
 
@@ -400,10 +835,334 @@ public class TableDao<T> {
         if (where.hasConditions()) {
             sql += (" where " + where.generate());
         }
-        try (PreparedStatement ps = this.conn.prepareStatement(sql)) {
+        try (DaoStatement stmt = prepare("update", sql)) {
+            PreparedStatement ps = stmt.getStatement();
             int next = cvs.accept(ps, 1);
             where.accept(ps, next);
-            return ps.executeUpdate();
+            int n = stmt.executeUpdate();
+            invalidateAll();
+            return n;
+        }
+    }
+
+    /**
+     * Prepares a statement recorded to the metrics and the slow query log of the operation.
+     *
+     * @param operation The operation.
+     * @param sql The SQL statement.
+     * @return The statement.
+     * @throws SQLException Failed to prepare.
+     */
+    protected DaoStatement prepare(String operation, String sql) throws SQLException {
+        return DaoStatement.prepare(this.conn, this.tableHelper.getFactory(), this.tableHelper.getTableClassName(), operation, sql);
+    }
+
+    /**
+     * Prepares a statement recorded to the metrics and the slow query log of the operation.
+     *
+     * @param operation The operation.
+     * @param sql The statement.
+     * @return The statement.
+     * @throws SQLException Failed to prepare.
+     */
+    protected DaoStatement prepare(String operation, SelectStatement sql) throws SQLException {
+        return DaoStatement.prepare(this.conn, this.tableHelper.getFactory(), this.tableHelper.getTableClassName(), operation, sql);
+    }
+
+    /**
+     * Invalidates the cached row of a DTO object.
+     *
+     * @param data The DTO object.
+     * @throws SQLException Failed to read the state of the transaction.
+     * @throws DaoException Failed to read primary keys.
+     */
+    void invalidateRow(T data) throws SQLException, DaoException {
+        if (this.tableHelper.getCache() != null) {
+            invalidateKey(this.tableHelper.readPrimaryKeys(data));
+        }
+        else {
+            invalidateResults();
+        }
+    }
+
+    /**
+     * Invalidates the cached rows of DTO objects. The results are invalidated once.
+     *
+     * @param data The DTO objects.
+     * @throws SQLException Failed to read the state of the transaction.
+     * @throws DaoException Failed to read primary keys.
+     */
+    void invalidateRows(List<T> data) throws SQLException, DaoException {
+        if (this.tableHelper.getCache() == null) {
+            invalidateResults();
+            return;
+        }
+
+        Invalidation<T> invalidation = invalidation();
+        for (T t : data) {
+            invalidation.key(EntityCache.key(this.tableHelper.readPrimaryKeys(t)));
+        }
+        invalidation.results();
+    }
+
+    /**
+     * Invalidates the cached row of primary keys.
+     *
+     * @param pks Values of primary keys.
+     * @throws SQLException Failed to read the state of the transaction.
+     */
+    void invalidateKey(Object[] pks) throws SQLException {
+        Invalidation<T> invalidation = invalidation();
+        if (invalidation != null) {
+            if (this.tableHelper.getCache() != null) {
+                invalidation.key(EntityCache.key(pks));
+            }
+            invalidation.results();
+        }
+    }
+
+    /**
+     * Invalidates all cached rows.
+     *
+     * @throws SQLException Failed to read the state of the transaction.
+     */
+    void invalidateAll() throws SQLException {
+        Invalidation<T> invalidation = invalidation();
+        if (invalidation != null) {
+            invalidation.all();
+        }
+    }
+
+    /**
+     * Invalidates results of queries cached by @SelectInfo methods.<br>
+     * Every write of this DAO invalidates the results, call this method after the table is written without the DAO, e.g. by COPY.
+     *
+     * @throws SQLException Failed to read the state of the transaction.
+     */
+    public void invalidateResults() throws SQLException {
+        Invalidation<T> invalidation = invalidation();
+        if (invalidation != null) {
+            invalidation.results();
+        }
+    }
+
+    /**
+     * Returns the invalidation of the caches. In a transaction, the invalidation is run again once when the transaction ends
+     * since other sessions may load the old rows before the transaction ends.
+     *
+     * @return The invalidation or null if no cache is used.
+     * @throws SQLException Failed to read the state of the transaction.
+     */
+    @SuppressWarnings("unchecked")
+    private Invalidation<T> invalidation() throws SQLException {
+        EntityCache<T> cache = this.tableHelper.getCache();
+        ResultCache<T> results = this.tableHelper.getResultCache();
+        if (cache == null && results == null) {
+            return null;
+        }
+        if (!(this.conn instanceof DaoEnv.ConnectionProxy) || this.conn.getAutoCommit()) {
+            return new Invalidation<>(cache, results, false);
+        }
+
+        DaoEnv.ConnectionProxy proxy = (DaoEnv.ConnectionProxy) this.conn;
+        if (proxy.isDirty(this.tableHelper)) {
+            Object state = proxy.getDirty(this.tableHelper);
+            if (state instanceof Invalidation) {
+                return (Invalidation<T>) state;
+            }
+        }
+        Invalidation<T> deferred = new Invalidation<>(cache, results, true);
+        proxy.markDirty(this.tableHelper, deferred);
+        proxy.afterTransaction(deferred);
+        return deferred;
+    }
+
+    /**
+     * Tests if the entity cache can be read and filled with this connection.<br>
+     * Rows read in a transaction which writes the table are not committed, and the cached rows are older than the rows written.
+     * The transaction of a connection not from DaoEnv is not tracked, the cache is used with auto-commit only.
+     *
+     * @return True if the cache can be used.
+     * @throws SQLException Failed to read the state of the transaction.
+     */
+    boolean shareCache() throws SQLException {
+        if (this.tableHelper.getCache() == null || this.conn.getAutoCommit()) {
+            return true;
+        }
+        return this.conn instanceof DaoEnv.ConnectionProxy && !((DaoEnv.ConnectionProxy) this.conn).isDirty(this.tableHelper);
+    }
+
+    static Object normalizeKey(Object key, int pkCount) {
+        if (pkCount == 1) {
+            return normalizeValue(key);
+        }
+        if (!(key instanceof List) || ((List<?>) key).size() != pkCount) {
+            throw new IllegalArgumentException("the key of a composite primary key must be a List of " + pkCount + " values: " + key);
+        }
+        ArrayList<Object> values = new ArrayList<>(pkCount);
+        for (Object v : (List<?>) key) {
+            values.add(normalizeValue(v));
+        }
+        return values;
+    }
+
+    static Object normalizeValue(Object value) {
+        // the type of the requested key may differ from the type of the field, e.g. Long and Integer.
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).stripTrailingZeros();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return value;
+    }
+
+    private String upsertSql() throws SQLException {
+        Database dialect = AbstractDatabase.dialect(this.conn);
+        return dialect == null ? null : this.tableHelper.forUpsert(dialect);
+    }
+
+    /**
+     * Executes rows chunk by chunk.<br>
+     * If commit per chunk, the auto-commit is turned off during the batch and restored after that.
+     * A failed chunk is rolled back, and the chunks committed before are kept.
+     * Commit per chunk is refused in a transaction opened by the caller, since the commit would include the pending work of the caller.
+     *
+     * @param method The method to bind a row.
+     * @param data The rows.
+     * @param chunkSize The max count of rows per batch.
+     * @param commitPerChunk Commit after each chunk or not. Not allowed if the connection is in a transaction.
+     * @param listener The listener of the progress. Null is allowed.
+     * @return The count of rows affected.
+     * @throws SQLException Failed to execute.
+     * @throws DaoException Failed or ORM.
+     */
+    protected long executeBatched(DaoMethod<T> method, Iterator<T> data, int chunkSize, boolean commitPerChunk, BatchListener listener) throws SQLException, DaoException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        boolean autoCommit = this.conn.getAutoCommit();
+        if (commitPerChunk && !autoCommit) {
+            throw new IllegalStateException("commitPerChunk is not allowed in a transaction");
+        }
+        if (!data.hasNext()) {
+            return 0;
+        }
+
+        if (commitPerChunk) {
+            this.conn.setAutoCommit(false);
+        }
+
+        long affected = 0;
+        long total = 0;
+        int chunk = 0;
+        String operation = method == this.tableHelper.forInsert() ? "insertBatched" : "updateBatched";
+        try (DaoStatement stmt = prepare(operation, method.getSql())) {
+            while (data.hasNext()) {
+                int rows = 0;
+                while (rows < chunkSize && data.hasNext()) {
+                    stmt.bind(method, data.next());
+                    stmt.addBatch();
+                    rows++;
+                }
+
+                int chunkAffected = 0;
+                for (int n : stmt.executeBatch()) {
+                    chunkAffected += n == Statement.SUCCESS_NO_INFO ? 1 : Math.max(n, 0);
+                }
+                if (commitPerChunk) {
+                    this.conn.commit();
+                    // the commit of DaoEnv connection turns auto-commit on.
+                    this.conn.setAutoCommit(false);
+                }
+
+                chunk++;
+                total += rows;
+                affected += chunkAffected;
+                if (listener != null) {
+                    listener.chunkExecuted(chunk, rows, chunkAffected, total);
+                }
+            }
+        }
+        catch (SQLException | DaoException | RuntimeException ex) {
+            if (commitPerChunk) {
+                try {
+                    this.conn.rollback();
+                }
+                catch (SQLException ex2) {
+                    ex.addSuppressed(ex2);
+                }
+            }
+            throw ex;
+        }
+        finally {
+            if (commitPerChunk) {
+                this.conn.setAutoCommit(autoCommit);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * The invalidation of the caches of a table. The rows and the results are invalidated immediately.
+     * A deferred invalidation records the keys to invalidate them again when the transaction ends.
+     *
+     * @param <T> The DTO class type.
+     */
+    private static final class Invalidation<T> implements Runnable {
+
+        private final EntityCache<T> cache;
+
+        private final ResultCache<T> results;
+
+        private final boolean deferred;
+
+        private final HashSet<Object> keys;
+
+        private boolean all;
+
+        Invalidation(EntityCache<T> cache, ResultCache<T> results, boolean deferred) {
+            this.cache = cache;
+            this.results = results;
+            this.deferred = deferred;
+            this.keys = deferred ? new HashSet<>() : null;
+        }
+
+        void key(Object key) {
+            this.cache.invalidate(key);
+            if (this.deferred && !this.all) {
+                this.keys.add(key);
+            }
+        }
+
+        void all() {
+            if (this.cache != null) {
+                this.cache.clear();
+            }
+            if (this.deferred) {
+                this.all = true;
+                this.keys.clear();
+            }
+            results();
+        }
+
+        void results() {
+            if (this.results != null) {
+                this.results.clear();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (this.cache != null) {
+                if (this.all) {
+                    this.cache.clear();
+                }
+                else {
+                    this.keys.forEach(this.cache::invalidate);
+                }
+            }
+            results();
         }
     }
 }
@@ -22,7 +22,10 @@ import java.lang.reflect.Field;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import uia.dao.ColumnType.DataType;
 import uia.dao.annotation.ColumnInfo;
@@ -60,6 +63,18 @@ public final class TableDaoHelper<T> {
 
     private final TableType tableType;
 
+    private final List<String> columnNames;
+
+    private final List<DaoColumn> primaryKeyColumns;
+
+    private final HashMap<String, DaoColumn> columnsByName;
+
+    private final ConcurrentHashMap<String, String> dialectSqls;
+
+    private final EntityCache<T> cache;
+
+    private volatile ResultCache<T> resultCache;
+
     TableDaoHelper(DaoFactory factory, Class<T> clz) {
         this.factory = factory;;
         TableInfo ti = clz.getDeclaredAnnotation(TableInfo.class);
@@ -77,6 +92,7 @@ public final class TableDaoHelper<T> {
         this.select = new DaoMethod<>(clz);
         this.selectWithAlias = new DaoMethod<>(clz);
         this.primaryKeys = new ArrayList<>();
+        this.columnsByName = new HashMap<>();
 
         ArrayList<String> prikeyColNames = new ArrayList<>();
         ArrayList<String> insertColNames = new ArrayList<>();
@@ -86,6 +102,7 @@ public final class TableDaoHelper<T> {
 
         ArrayList<ColumnType> cts = new ArrayList<>();
         ArrayList<DaoColumn> pks = new ArrayList<>();
+        ArrayList<DaoColumn> columns = new ArrayList<>();
         for (Field f : fs) {
             ColumnInfo ci = f.getDeclaredAnnotation(ColumnInfo.class);
 
@@ -127,6 +144,8 @@ public final class TableDaoHelper<T> {
                     throw new NullPointerException(String.format("Column:%s writer:%s not found", ct.getColumnName(), cvrtName));
                 }
                 DaoColumn column = new DaoColumn(f, r, w);
+                columns.add(column);
+                this.columnsByName.put(ci.name().toLowerCase(), column);
 
                 if (ci.primaryKey()) {
                     this.primaryKeys.add(ci.name());
@@ -171,12 +190,57 @@ public final class TableDaoHelper<T> {
                 String.join(",x.", selectColNames),
                 this.tableName));
         this.wherePK = String.join(" AND ", prikeyColNames);
+        this.columnNames = Collections.unmodifiableList(selectColNames);
+        this.primaryKeyColumns = pks;
+        this.dialectSqls = new ConcurrentHashMap<>();
+
+        // replace reflection with the generated accessor
+        DaoAccessor accessor = DaoAccessorGenerator.bind(clz, columns);
+        this.insert.setAccessor(accessor);
+        this.update.setAccessor(accessor);
+        this.delete.setAccessor(accessor);
+        this.select.setAccessor(accessor);
+        this.selectWithAlias.setAccessor(accessor);
+
+        this.cache = ti.cacheSize() > 0
+                ? new EntityCache<>(this.select, ti.cacheSize(), ti.cacheTtl(), ti.cachePolicy())
+                : null;
     }
 
     public DaoFactory getFactory() {
         return this.factory;
     }
 
+    /**
+     * Returns the cache of rows keyed by primary key.
+     *
+     * @return The cache or null if disabled.
+     */
+    public EntityCache<T> getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Returns the cache of results of @SelectInfo methods, invalidated by writes of the TableDao.
+     *
+     * @return The cache or null if no @SelectInfo method caches results.
+     */
+    public ResultCache<T> getResultCache() {
+        return this.resultCache;
+    }
+
+    /**
+     * Returns the cache of results, created for the first @SelectInfo method with a positive TTL.
+     *
+     * @return The cache.
+     */
+    synchronized ResultCache<T> useResultCache() {
+        if (this.resultCache == null) {
+            this.resultCache = new ResultCache<>(this.select, ResultCache.DEFAULT_SIZE);
+        }
+        return this.resultCache;
+    }
+
     public TableType getTableType() {
         return this.tableType;
     }
@@ -213,6 +277,109 @@ public final class TableDaoHelper<T> {
         return this.insert;
     }
 
+    /**
+     * Returns the multi-row INSERT statement of a dialect.<br>
+     * The SQL will be 'INSERT INTO table_name(pk1,pk2,c1,c2...) VALUES (?,?,?,?...),(?,?,?,?...)'.
+     * The parameters of each row are bound in the same order of {@link #forInsert()}.
+     * The statement is cached per count of rows, use a few distinct counts, e.g. powers of two.
+     *
+     * @param dialect The dialect.
+     * @param rows The count of rows.
+     * @return The INSERT statement.
+     */
+    public String forInsertMulti(Database dialect, int rows) {
+        return this.dialectSqls.computeIfAbsent(
+                "insert:" + dialect.getClass().getName() + ":" + rows,
+                k -> dialect.generateInsertSQL(this.tableName, this.columnNames, rows));
+    }
+
+    /**
+     * Returns the UPSERT statement of a dialect, e.g. 'INSERT ... ON CONFLICT (pk) DO UPDATE' or 'MERGE'.<br>
+     * The parameters are bound in the same order of {@link #forInsert()}.
+     *
+     * @param dialect The dialect.
+     * @return The UPSERT statement or null if the dialect doesn't support it or the table has no primary key.
+     */
+    public String forUpsert(Database dialect) {
+        if (this.primaryKeys.isEmpty()) {
+            return null;
+        }
+        String sql = this.dialectSqls.computeIfAbsent(
+                "upsert:" + dialect.getClass().getName(),
+                k -> {
+                    String upsert = dialect.generateUpsertSQL(this.tableName, this.columnNames, this.primaryKeys);
+                    return upsert == null ? "" : upsert;
+                });
+        return sql.isEmpty() ? null : sql;
+    }
+
+    /**
+     * Returns the WHERE predicate to select rows by some primary keys.<br>
+     * The predicate will be 'pk IN (?,?...)' for a single primary key,
+     * '(pk1,pk2) IN ((?,?),(?,?)...)' or '(pk1=? AND pk2=?) OR (pk1=? AND pk2=?)...' for a composite primary key.
+     * The predicate is cached per count of keys, use a few distinct counts, e.g. powers of two.
+     *
+     * @param count The count of keys.
+     * @param rowValue Use the row value IN predicate for a composite primary key or not.
+     * @return The WHERE predicate.
+     */
+    public String forWherePKs(int count, boolean rowValue) {
+        return this.dialectSqls.computeIfAbsent(
+                "pks:" + rowValue + ":" + count,
+                k -> {
+                    int n = this.primaryKeys.size();
+                    if (n == 1) {
+                        return String.format("%s IN (%s)",
+                                this.primaryKeys.get(0),
+                                String.join(",", Collections.nCopies(count, "?")));
+                    }
+                    if (rowValue) {
+                        String row = "(" + String.join(",", Collections.nCopies(n, "?")) + ")";
+                        return String.format("(%s) IN (%s)",
+                                String.join(",", this.primaryKeys),
+                                String.join(",", Collections.nCopies(count, row)));
+                    }
+                    String row = "(" + String.join("=? AND ", this.primaryKeys) + "=?)";
+                    return "(" + String.join(" OR ", Collections.nCopies(count, row)) + ")";
+                });
+    }
+
+    /**
+     * Returns values of primary keys of a row.
+     *
+     * @param data The row.
+     * @return The values in the order of primary keys.
+     * @throws DaoException Failed to read values.
+     */
+    public Object[] readPrimaryKeys(T data) throws DaoException {
+        Object[] values = new Object[this.primaryKeyColumns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.primaryKeyColumns.get(i).getValue(data);
+        }
+        return values;
+    }
+
+    /**
+     * Returns values of some columns of a row.
+     *
+     * @param data The row.
+     * @param columnNames The column names.
+     * @return The values in the order of the column names.
+     * @throws DaoException Failed to read values or the column is not found.
+     */
+    public Object[] readColumns(T data, List<String> columnNames) throws DaoException {
+        return DaoColumn.readValues(this.columnsByName, data, columnNames);
+    }
+
+    /**
+     * Returns the column names in the order of INSERT.
+     *
+     * @return The column names.
+     */
+    public List<String> getColumnNames() {
+        return this.columnNames;
+    }
+
     /**
      * Returns a method for UPDATE contains all columns of the table.<br>
      * The SQL will be 'UPDATE table_name SET c1=?,c2=?... WHERE pk1=? AND pk2=?'.
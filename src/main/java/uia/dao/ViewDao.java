@@ -19,11 +19,14 @@
 package uia.dao;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import uia.dao.where.SeekWhere;
 import uia.dao.where.Where;
 
 /**
@@ -45,6 +48,11 @@ public class ViewDao<T> {
      */
     protected final ViewDaoHelper<T> viewHelper;
 
+    /**
+     * The fetch size used by the cursor.
+     */
+    protected int fetchSize;
+
     /**
      * Constructor.
      *
@@ -54,6 +62,20 @@ public class ViewDao<T> {
     public ViewDao(Connection conn, ViewDaoHelper<T> viewHelper) {
         this.conn = conn;
         this.viewHelper = viewHelper;
+        this.fetchSize = 1000;
+    }
+
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    /**
+     * Sets the fetch size used by the cursor.
+     *
+     * @param fetchSize The rows fetched per round trip. Zero means the driver default.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
     }
 
     /**
@@ -70,11 +92,15 @@ public class ViewDao<T> {
             sql = sql + " ORDER BY " + orderBy;
         }
 
-        try (PreparedStatement ps = this.conn.prepareStatement(sql)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return toList(rs, Filter.ALL);
-            }
+        if (this.viewHelper.getCacheTtl() > 0 && this.conn.getAutoCommit()) {
+            final String cacheSql = sql;
+            return this.viewHelper.getResultCache().get(
+                    cacheSql,
+                    Collections.emptyList(),
+                    this.viewHelper.getCacheTtl(),
+                    () -> selectAll(cacheSql));
         }
+        return selectAll(sql);
     }
 
     /**
@@ -92,9 +118,9 @@ public class ViewDao<T> {
             sql = sql + " ORDER BY " + orderBy;
         }
 
-        try (PreparedStatement ps = this.conn.prepareStatement(sql)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return toList(rs, filter);
+        try (DaoStatement stmt = prepare("select", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(toList(rs, filter));
             }
         }
     }
@@ -111,17 +137,7 @@ public class ViewDao<T> {
         SelectStatement sql = new SelectStatement(getSql())
                 .where(where)
                 .orderBy(this.viewHelper.getOrderBy());
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return toList(rs, Filter.ALL);
-            }
-            catch (SQLException ex) {
-                throw ex;
-            }
-            catch (DaoException ex2) {
-                throw ex2;
-            }
-        }
+        return select(sql);
     }
 
     /**
@@ -137,11 +153,7 @@ public class ViewDao<T> {
         SelectStatement sql = new SelectStatement(getSql())
                 .where(where)
                 .orderBy(orders);
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return toList(rs, Filter.ALL);
-            }
-        }
+        return select(sql);
     }
 
     /**
@@ -157,9 +169,9 @@ public class ViewDao<T> {
         SelectStatement sql = new SelectStatement(getSql())
                 .where(where)
                 .orderBy(this.viewHelper.getOrderBy());
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return toList(rs, filter);
+        try (DaoStatement stmt = prepare("select", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(toList(rs, filter));
             }
             catch (SQLException ex) {
                 throw ex;
@@ -184,9 +196,9 @@ public class ViewDao<T> {
         SelectStatement sql = new SelectStatement(getSql())
                 .where(where)
                 .orderBy(orders);
-        try (PreparedStatement ps = sql.prepare(this.conn)) {
-            try (ResultSet rs = ps.executeQuery()) {
-                return toList(rs, filter);
+        try (DaoStatement stmt = prepare("select", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(toList(rs, filter));
             }
             catch (SQLException ex) {
                 throw ex;
@@ -197,10 +209,132 @@ public class ViewDao<T> {
         }
     }
 
+    /**
+     * Opens a cursor on rows with a criteria. The cursor must be closed by the caller.<br>
+     * PostgreSQL streams rows only when the auto-commit of the connection is off.
+     *
+     * @param where The where statement.
+     * @return The cursor.
+     * @throws SQLException Failed to execute the SQL statement.
+     */
+    public DaoCursor<T> cursor(Where where) throws SQLException {
+        return cursor(where, this.viewHelper.getOrderBy());
+    }
+
+    /**
+     * Opens a cursor on rows with a criteria. The cursor must be closed by the caller.<br>
+     * PostgreSQL streams rows only when the auto-commit of the connection is off.
+     *
+     * @param where The where statement.
+     * @param orders The orders.
+     * @return The cursor.
+     * @throws SQLException Failed to execute the SQL statement.
+     */
+    public DaoCursor<T> cursor(Where where, String orders) throws SQLException {
+        SelectStatement sql = new SelectStatement(getSql())
+                .where(where)
+                .orderBy(orders);
+        return DaoCursor.open(prepare("cursor", sql), this.viewHelper.forSelect(), Filter.ALL, this.fetchSize);
+    }
+
+    /**
+     * Returns a stream of rows with a criteria. The stream must be closed by the caller.
+     *
+     * @param where The where statement.
+     * @return The stream.
+     * @throws SQLException Failed to execute the SQL statement.
+     */
+    public Stream<T> stream(Where where) throws SQLException {
+        return cursor(where).stream();
+    }
+
+    /**
+     * Consumes rows with a criteria one by one.
+     *
+     * @param where The where statement.
+     * @param consumer The consumer.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public void forEach(Where where, Consumer<T> consumer) throws SQLException, DaoException {
+        cursor(where).consume(consumer);
+    }
+
+    /**
+     * Selects a page of rows with the keyset (seek) pagination.<br>
+     * Rows after the last key are selected in the order of columns, the row limit is generated by the dialect of the connection.
+     * The order columns must be unique together, e.g. end with the primary key, and must not be null.
+     *
+     * @param where The where statement.
+     * @param orderColumns The order columns, e.g. 'c1', 'c2 desc'.
+     * @param lastKey The next key of the previous page, or null for the first page.
+     * @param pageSize The max count of rows of the page.
+     * @return The page.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    public DaoPage<T> page(Where where, String[] orderColumns, Object[] lastKey, int pageSize) throws SQLException, DaoException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+
+        DaoMethod<T> method = this.viewHelper.forSelect();
+        SeekWhere seek = new SeekWhere(orderColumns, lastKey);
+        SelectStatement sql = new SelectStatement(method.getSql())
+                .where(where == null ? seek : Where.and(where, seek))
+                .orderBy(seek.orderBy())
+                .limit(pageSize + 1);   // one more row to test if the next page exists
+        try (DaoStatement stmt = prepare("page", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<T> rows = stmt.fetched(method.toList(rs, Filter.ALL));
+                if (rows.size() <= pageSize) {
+                    return new DaoPage<>(rows, null);
+                }
+                rows.remove(pageSize);
+                return new DaoPage<>(rows, this.viewHelper.readColumns(rows.get(pageSize - 1), seek.getColumns()));
+            }
+        }
+    }
+
     public String getSql() {
         return this.viewHelper.forSelect().getSql();
     }
 
+    /**
+     * Selects rows of the statement, the result is cached if the view enables the cache and the connection is not in a transaction.
+     *
+     * @param sql The statement.
+     * @return Rows.
+     * @throws SQLException Failed to execute the SQL statement.
+     * @throws DaoException Failed to map to the DTO object.
+     */
+    protected List<T> select(SelectStatement sql) throws SQLException, DaoException {
+        if (this.viewHelper.getCacheTtl() > 0 && this.conn.getAutoCommit()) {
+            return this.viewHelper.getResultCache().get(
+                    sql.getSql(),
+                    sql.getParameters(),
+                    this.viewHelper.getCacheTtl(),
+                    () -> query(sql));
+        }
+        return query(sql);
+    }
+
+    private List<T> query(SelectStatement sql) throws SQLException, DaoException {
+        try (DaoStatement stmt = prepare("select", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(toList(rs, Filter.ALL));
+            }
+        }
+    }
+
+    private List<T> selectAll(String sql) throws SQLException, DaoException {
+        try (DaoStatement stmt = prepare("selectAll", sql)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                return stmt.fetched(toList(rs, Filter.ALL));
+            }
+        }
+    }
+
     protected String getSql(String where) {
         return this.viewHelper.forSelect().getSql() + " " + where;
     }
@@ -209,6 +343,30 @@ public class ViewDao<T> {
         return this.viewHelper.forSelect().getSql() + " " + where + " ORDER BY " + orderBy;
     }
 
+    /**
+     * Prepares a statement recorded to the metrics and the slow query log of the operation.
+     *
+     * @param operation The operation.
+     * @param sql The SQL statement.
+     * @return The statement.
+     * @throws SQLException Failed to prepare.
+     */
+    protected DaoStatement prepare(String operation, String sql) throws SQLException {
+        return DaoStatement.prepare(this.conn, this.viewHelper.getFactory(), this.viewHelper.getViewClassName(), operation, sql);
+    }
+
+    /**
+     * Prepares a statement recorded to the metrics and the slow query log of the operation.
+     *
+     * @param operation The operation.
+     * @param sql The statement.
+     * @return The statement.
+     * @throws SQLException Failed to prepare.
+     */
+    protected DaoStatement prepare(String operation, SelectStatement sql) throws SQLException {
+        return DaoStatement.prepare(this.conn, this.viewHelper.getFactory(), this.viewHelper.getViewClassName(), operation, sql);
+    }
+
     protected List<T> toList(ResultSet rs, Filter filter) throws SQLException, DaoException {
         return this.viewHelper.forSelect().toList(rs, filter);
     }
@@ -20,6 +20,8 @@ package uia.dao;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 
 import uia.dao.annotation.ColumnInfo;
 import uia.dao.annotation.ViewInfo;
@@ -46,6 +48,12 @@ public final class ViewDaoHelper<T> {
 
     private final String code;
 
+    private final HashMap<String, DaoColumn> columnsByName;
+
+    private final long cacheTtl;
+
+    private final ResultCache<T> resultCache;
+
     ViewDaoHelper(DaoFactory factory, Class<T> clz) {
         this.factory = factory;
         ViewInfo ti = clz.getDeclaredAnnotation(ViewInfo.class);
@@ -59,8 +67,12 @@ public final class ViewDaoHelper<T> {
         this.selectWithAlias = new DaoMethod<>(clz);
         this.orderBy = ti.orderBy().trim().isEmpty() ? "" : ti.orderBy();
         this.code = ti.code();
+        this.columnsByName = new HashMap<>();
+        this.cacheTtl = ti.cacheTtl();
+        this.resultCache = new ResultCache<>(this.select, ti.cacheSize());
 
         ArrayList<String> selectColNames = new ArrayList<>();
+        ArrayList<DaoColumn> columns = new ArrayList<>();
         Class<?> curr = clz;
         String packageName = curr.getPackage().getName();
         boolean next = true;
@@ -84,6 +96,8 @@ public final class ViewDaoHelper<T> {
                     this.select.addColumn(column);
                     this.selectWithAlias.addColumn(column);
                     selectColNames.add(ci.name());
+                    columns.add(column);
+                    this.columnsByName.putIfAbsent(ci.name().toLowerCase(), column);
 
                 }
             }
@@ -109,6 +123,11 @@ public final class ViewDaoHelper<T> {
 	                String.join(",x.", selectColNames),
 	                this.viewName));
         }
+
+        // replace reflection with the generated accessor
+        DaoAccessor accessor = DaoAccessorGenerator.bind(clz, columns);
+        this.select.setAccessor(accessor);
+        this.selectWithAlias.setAccessor(accessor);
     }
 
     public DaoFactory getFactory() {
@@ -161,6 +180,37 @@ public final class ViewDaoHelper<T> {
         return this.selectWithAlias;
     }
 
+    /**
+     * Returns values of some columns of a row.
+     *
+     * @param data The row.
+     * @param columnNames The column names.
+     * @return The values in the order of the column names.
+     * @throws DaoException Failed to read values or the column is not found.
+     */
+    public Object[] readColumns(T data, List<String> columnNames) throws DaoException {
+        return DaoColumn.readValues(this.columnsByName, data, columnNames);
+    }
+
+    /**
+     * Returns the milliseconds a result of the ViewDao.select(Where) lives.
+     *
+     * @return The milliseconds. Zero means the cache is disabled.
+     */
+    public long getCacheTtl() {
+        return this.cacheTtl;
+    }
+
+    /**
+     * Returns the cache of results of the ViewDao.select(Where) and @SelectInfo methods.<br>
+     * The cache is never invalidated by writes of tables, call ResultCache.clear() when the view changes.
+     *
+     * @return The cache.
+     */
+    public ResultCache<T> getResultCache() {
+        return this.resultCache;
+    }
+
     public String getOrderBy() {
         return this.orderBy;
     }
@@ -38,4 +38,12 @@ public @interface SelectInfo {
     @SuppressWarnings("rawtypes")
     Class<? extends ObjectMapper> mapper() default ObjectMapper.Null.class;
 
+    /**
+     * The milliseconds a result lives in the cache of the table or view. Zero disables the cache.<br>
+     * The result is not cached if a filter or a mapper is used.
+     *
+     * @return The milliseconds.
+     */
+    long cacheTtl() default 0;
+
 }
@@ -21,6 +21,8 @@ package uia.dao.annotation;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
+import uia.dao.CachePolicy;
+
 @Retention(RetentionPolicy.RUNTIME)
 public @interface TableInfo {
 
@@ -31,4 +33,20 @@ public @interface TableInfo {
     String orderBy() default "";
 
     String remark() default "";
+
+    /**
+     * The max count of rows cached by primary key. Zero disables the cache.
+     *
+     * @return The max count.
+     */
+    int cacheSize() default 0;
+
+    /**
+     * The milliseconds a cached row lives. Zero means no expiry.
+     *
+     * @return The milliseconds.
+     */
+    long cacheTtl() default 0;
+
+    CachePolicy cachePolicy() default CachePolicy.LRU;
 }
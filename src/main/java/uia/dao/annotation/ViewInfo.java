@@ -33,4 +33,18 @@ public @interface ViewInfo {
     String orderBy() default "";
 
     String code() default "";
+
+    /**
+     * The milliseconds a result of the ViewDao.select(Where) lives. Zero disables the cache.
+     *
+     * @return The milliseconds.
+     */
+    long cacheTtl() default 0;
+
+    /**
+     * The max count of cached results.
+     *
+     * @return The max count.
+     */
+    int cacheSize() default 256;
 }
@@ -11,4 +11,13 @@ public interface Env {
 
     public default void close() {
     }
+
+    /**
+     * Tests if the pool or the JDBC driver caches prepared statements, so DAOs don't cache them again.
+     *
+     * @return True if statements are cached.
+     */
+    public default boolean cachesStatements() {
+        return false;
+    }
 }
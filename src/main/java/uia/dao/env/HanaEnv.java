@@ -1,8 +1,7 @@
 package uia.dao.env;
 
-import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.util.Properties;
 
 /**
  * HANA helper.
@@ -10,15 +9,7 @@ import java.sql.SQLException;
  * @author Kyle K. Lin
  *
  */
-public class HanaEnv implements Env {
-
-    private String hanaConn;
-
-    private String hanaUser;
-
-    private String hanaPwd;
-
-    private String hanaSchema;
+public class HanaEnv extends PooledEnv {
 
     static {
         try {
@@ -30,32 +21,31 @@ public class HanaEnv implements Env {
     }
 
     public HanaEnv() {
-		this.hanaConn = "jdbc:sap://localhost:39015";
-		this.hanaUser = "SYS";
-		this.hanaPwd = "SYS";
+        this(null, null, null, null);
     }
 
     public HanaEnv(String conn, String user, String pwd, String schema) {
-    	if(conn == null) {
-    		this.hanaConn = "jdbc:sap://localhost:39015";
-    		this.hanaUser = "SYS";
-    		this.hanaPwd = "SYS";
-    	}
-    	else {
-    		this.hanaConn = conn;
-    		this.hanaUser = user;
-    		this.hanaPwd = pwd;
-    		this.hanaSchema = schema;
-    	}
+        this(conn, user, pwd, schema, null);
     }
-    
+
+    public HanaEnv(String conn, String user, String pwd, String schema, Properties props) {
+        super(
+                conn == null ? "jdbc:sap://localhost:39015" : conn,
+                conn == null ? "SYS" : user,
+                conn == null ? "SYS" : pwd,
+                conn == null ? null : schema,
+                props);
+    }
+
     @Override
     public String test() {
-        return String.format("%s, user:%s, schema:%s", this.hanaConn, this.hanaUser, this.hanaSchema);
+        return String.format("%s, user:%s, schema:%s", this.connString, this.user, this.schema);
     }
 
     @Override
-    public Connection create() throws SQLException {
-        return java.sql.DriverManager.getConnection(this.hanaConn, this.hanaUser, this.hanaPwd);
+    protected Properties statementCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty("statementCacheSize", "32");
+        return props;
     }
-}
\ No newline at end of file
+}
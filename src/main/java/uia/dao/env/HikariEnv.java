@@ -47,6 +47,11 @@ public class HikariEnv implements Env {
         this.ds.close();
     }
 
+    @Override
+    public boolean cachesStatements() {
+        return "true".equalsIgnoreCase(this.config.getDataSourceProperties().getProperty("cachePrepStmts"));
+    }
+
     @Override
     public String test() {
         return String.format("%s, user:%s", this.config.getJdbcUrl(), this.config.getUsername());
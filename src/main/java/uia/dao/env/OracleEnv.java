@@ -1,36 +1,15 @@
 package uia.dao.env;
 
-import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.util.Properties;
 
 /**
- * HANA helper.
+ * Oracle helper.
  *
  * @author Kyle K. Lin
  *
  */
-public class OracleEnv implements Env {
-
-    /**
-     * Connection string.
-     */
-    private String oraConn;
-
-    /**
-     * User id.
-     */
-    private String oraUser;
-
-    /**
-     * Password.
-     */
-    private String oraPwd;
-
-    /**
-     * Schema
-     */
-    private String oraSchema;
+public class OracleEnv extends PooledEnv {
 
     static {
         try {
@@ -42,34 +21,31 @@ public class OracleEnv implements Env {
     }
 
     public OracleEnv() {
-        this.oraConn = "jdbc:oracle:thin:@localhost:1521/orcl.localdomain";
-        this.oraUser = "orcl";
-        this.oraPwd = "orcl";
-        this.oraSchema = null;
+        this(null, null, null, null);
     }
 
     public OracleEnv(String conn, String user, String pwd, String schema) {
-        if (conn == null) {
-            this.oraConn = "jdbc:oracle:thin:@localhost:1521/orcl.localdomain";
-            this.oraUser = "orcl";
-            this.oraPwd = "orcl";
-            this.oraSchema = null;
-        }
-        else {
-            this.oraConn = conn;
-            this.oraUser = user;
-            this.oraPwd = pwd;
-            this.oraSchema = schema;
-        }
+        this(conn, user, pwd, schema, null);
+    }
+
+    public OracleEnv(String conn, String user, String pwd, String schema, Properties props) {
+        super(
+                conn == null ? "jdbc:oracle:thin:@localhost:1521/orcl.localdomain" : conn,
+                conn == null ? "orcl" : user,
+                conn == null ? "orcl" : pwd,
+                conn == null ? null : schema,
+                props);
     }
 
     @Override
     public String test() {
-        return String.format("%s, user:%s, schema:%s", this.oraConn, this.oraUser, this.oraSchema);
+        return String.format("%s, user:%s, schema:%s", this.connString, this.user, this.schema);
     }
 
     @Override
-    public Connection create() throws SQLException {
-        return java.sql.DriverManager.getConnection(this.oraConn, this.oraUser, this.oraPwd);
+    protected Properties statementCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty("oracle.jdbc.implicitStatementCacheSize", "32");
+        return props;
     }
-}
\ No newline at end of file
+}
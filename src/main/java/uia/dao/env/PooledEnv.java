@@ -0,0 +1,239 @@
+package uia.dao.env;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * The base of a dialect environment with a connection pool.<br>
+ * The pool is created when the first connection is requested. Properties with the prefix 'pool.' configure the pool,
+ * others are passed to the JDBC driver and override the statement cache properties of the dialect.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public abstract class PooledEnv implements Env {
+
+    /**
+     * Enable the pool or not. Default is true.
+     */
+    public static final String POOL_ENABLED = "pool.enabled";
+
+    /**
+     * The min count of idle connections. Default is 2.
+     */
+    public static final String POOL_MIN_IDLE = "pool.minIdle";
+
+    /**
+     * The max count of connections. Default is 10.
+     */
+    public static final String POOL_MAX_SIZE = "pool.maxSize";
+
+    /**
+     * The milliseconds an idle connection is kept. Default is 600000.
+     */
+    public static final String POOL_IDLE_TIMEOUT = "pool.idleTimeout";
+
+    /**
+     * The max milliseconds of a connection. Default is 1800000.
+     */
+    public static final String POOL_MAX_LIFETIME = "pool.maxLifetime";
+
+    /**
+     * The max milliseconds to wait for a connection. Default is 30000.
+     */
+    public static final String POOL_CONNECTION_TIMEOUT = "pool.connectionTimeout";
+
+    /**
+     * The max milliseconds to validate a connection on borrow. Default is 5000.
+     */
+    public static final String POOL_VALIDATION_TIMEOUT = "pool.validationTimeout";
+
+    /**
+     * The query to validate a connection on borrow. Default is Connection.isValid().
+     */
+    public static final String POOL_TEST_QUERY = "pool.testQuery";
+
+    private static final String PREFIX = "pool.";
+
+    protected final String connString;
+
+    protected final String user;
+
+    protected final String pwd;
+
+    protected final String schema;
+
+    private final Properties props;
+
+    private final boolean poolEnabled;
+
+    private volatile HikariDataSource ds;
+
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param connString The JDBC connection string.
+     * @param user The user id.
+     * @param pwd The password.
+     * @param schema The schema.
+     * @param props The pool and driver properties. Null means the default.
+     */
+    protected PooledEnv(String connString, String user, String pwd, String schema, Properties props) {
+        this.connString = connString;
+        this.user = user;
+        this.pwd = pwd;
+        this.schema = schema;
+        this.props = props == null ? new Properties() : props;
+        this.poolEnabled = Boolean.parseBoolean(this.props.getProperty(POOL_ENABLED, "true"));
+    }
+
+    /**
+     * Tests if the pool is enabled.
+     *
+     * @return True if enabled.
+     */
+    public boolean isPoolEnabled() {
+        return this.poolEnabled;
+    }
+
+    /**
+     * Returns the pool.
+     *
+     * @return The pool or null if the pool is disabled or not created yet.
+     */
+    public HikariDataSource getDataSource() {
+        return this.ds;
+    }
+
+    @Override
+    public Connection create() throws SQLException {
+        if (!this.poolEnabled) {
+            Connection conn = DriverManager.getConnection(this.connString, driverProperties());
+            try {
+                prepare(conn);
+            }
+            catch (SQLException ex) {
+                conn.close();
+                throw ex;
+            }
+            return conn;
+        }
+        return dataSource().getConnection();
+    }
+
+    @Override
+    public void close() {
+        HikariDataSource pool;
+        synchronized (this) {
+            this.closed = true;
+            pool = this.ds;
+            this.ds = null;
+        }
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Override
+    public boolean cachesStatements() {
+        return !statementCacheProperties().isEmpty();
+    }
+
+    /**
+     * Returns the statement cache properties of the JDBC driver.
+     *
+     * @return The properties.
+     */
+    protected abstract Properties statementCacheProperties();
+
+    /**
+     * Prepares a new connection if the pool is disabled.
+     *
+     * @param conn The connection.
+     * @throws SQLException Failed to prepare.
+     */
+    protected void prepare(Connection conn) throws SQLException {
+    }
+
+    /**
+     * Configures the pool for the dialect.
+     *
+     * @param config The configuration.
+     */
+    protected void configure(HikariConfig config) {
+    }
+
+    private HikariDataSource dataSource() throws SQLException {
+        HikariDataSource pool = this.ds;
+        if (pool == null) {
+            synchronized (this) {
+                if (this.closed) {
+                    throw new SQLException(test() + " closed");
+                }
+                pool = this.ds;
+                if (pool == null) {
+                    pool = new HikariDataSource(config());
+                    this.ds = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    private HikariConfig config() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(getClass().getSimpleName() + "-" + Integer.toHexString(System.identityHashCode(this)));
+        config.setJdbcUrl(this.connString);
+        config.setUsername(this.user);
+        config.setPassword(this.pwd);
+        config.setMinimumIdle(intValue(POOL_MIN_IDLE, 2));
+        config.setMaximumPoolSize(intValue(POOL_MAX_SIZE, 10));
+        config.setIdleTimeout(longValue(POOL_IDLE_TIMEOUT, 600000L));
+        config.setMaxLifetime(longValue(POOL_MAX_LIFETIME, 1800000L));
+        config.setConnectionTimeout(longValue(POOL_CONNECTION_TIMEOUT, 30000L));
+        config.setValidationTimeout(longValue(POOL_VALIDATION_TIMEOUT, 5000L));
+        String testQuery = this.props.getProperty(POOL_TEST_QUERY);
+        if (testQuery != null && !testQuery.trim().isEmpty()) {
+            config.setConnectionTestQuery(testQuery);
+        }
+        // don't fail if the database is not ready, the pool retries.
+        config.setInitializationFailTimeout(-1);
+        config.setDataSourceProperties(driverProperties());
+        configure(config);
+        return config;
+    }
+
+    private Properties driverProperties() {
+        Properties result = new Properties();
+        result.putAll(statementCacheProperties());
+        for (String key : this.props.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX)) {
+                result.setProperty(key, this.props.getProperty(key));
+            }
+        }
+        if (this.user != null) {
+            result.setProperty("user", this.user);
+        }
+        if (this.pwd != null) {
+            result.setProperty("password", this.pwd);
+        }
+        return result;
+    }
+
+    private int intValue(String key, int defaultValue) {
+        String value = this.props.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private long longValue(String key, long defaultValue) {
+        String value = this.props.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+}
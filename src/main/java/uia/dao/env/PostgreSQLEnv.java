@@ -3,6 +3,9 @@ package uia.dao.env;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+
+import com.zaxxer.hikari.HikariConfig;
 
 /**
  * PostgreSQL helper.
@@ -10,27 +13,7 @@ import java.sql.SQLException;
  * @author Kyle K. Lin
  *
  */
-public class PostgreSQLEnv implements Env {
-
-    /**
-     * Connection string.
-     */
-    private String pgConn;
-
-    /**
-     * User id.
-     */
-    private String pgUser;
-
-    /**
-     * Password.
-     */
-    private String pgPwd;
-
-    /**
-     * Schema.
-     */
-    private String pgSchema;
+public class PostgreSQLEnv extends PooledEnv {
 
     static {
         try {
@@ -40,38 +23,46 @@ public class PostgreSQLEnv implements Env {
 
         }
     }
-    
+
     public PostgreSQLEnv() {
-		this.pgConn = "jdbc:postgresql://localhost:5432/postgres";
-		this.pgUser = "postgres";
-		this.pgPwd = "postgres";
-		this.pgSchema = "public";
+        this(null, null, null, null);
     }
 
     public PostgreSQLEnv(String conn, String user, String pwd, String schema) {
-    	if(conn == null) {
-    		this.pgConn = "jdbc:postgresql://localhost:5432/postgres";
-    		this.pgUser = "postgres";
-    		this.pgPwd = "postgres";
-    		this.pgSchema = "public";
-    	}
-    	else {
-    		this.pgConn = conn;
-    		this.pgUser = user;
-    		this.pgPwd = pwd;
-    		this.pgSchema = schema;
-    	}
+        this(conn, user, pwd, schema, null);
+    }
+
+    public PostgreSQLEnv(String conn, String user, String pwd, String schema, Properties props) {
+        super(
+                conn == null ? "jdbc:postgresql://localhost:5432/postgres" : conn,
+                conn == null ? "postgres" : user,
+                conn == null ? "postgres" : pwd,
+                conn == null ? "public" : schema,
+                props);
     }
 
     @Override
     public String test() {
-        return String.format("%s, user:%s, schema:%s", this.pgConn, this.pgUser, this.pgSchema);
+        return String.format("%s, user:%s, schema:%s", this.connString, this.user, this.schema);
+    }
+
+    @Override
+    protected Properties statementCacheProperties() {
+        Properties props = new Properties();
+        // server-side prepared statements after 5 executions
+        props.setProperty("prepareThreshold", "5");
+        props.setProperty("preparedStatementCacheQueries", "256");
+        props.setProperty("preparedStatementCacheSizeMiB", "5");
+        return props;
+    }
+
+    @Override
+    protected void prepare(Connection conn) throws SQLException {
+        conn.setSchema(this.schema);
     }
 
     @Override
-    public Connection create() throws SQLException {
-        Connection conn = DriverManager.getConnection(this.pgConn, this.pgUser, this.pgPwd);
-        conn.setSchema(this.pgSchema);
-        return conn;
+    protected void configure(HikariConfig config) {
+        config.setSchema(this.schema);
     }
 }
@@ -3,22 +3,17 @@ package uia.dao.env;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
+
+import com.zaxxer.hikari.HikariConfig;
 
 /**
- * HANA helper.
+ * SQL Server helper.
  *
  * @author Kyle K. Lin
  *
  */
-public class SQLServerEnv implements Env {
-
-    private String sqlserverConn;
-
-    private String sqlserverUser;
-
-    private String sqlserverPwd;
-
-    private String sqlserverSchema;
+public class SQLServerEnv extends PooledEnv {
 
     static {
         try {
@@ -30,36 +25,42 @@ public class SQLServerEnv implements Env {
     }
 
     public SQLServerEnv() {
-        this.sqlserverConn = "jdbc:sqlserver://localhost:1433;databaseName=unknown;schema=dbo";
-        this.sqlserverUser = "admin";
-        this.sqlserverPwd = "admin";
-        this.sqlserverSchema = "dbo";
+        this(null, null, null, null);
     }
 
     public SQLServerEnv(String conn, String user, String pwd, String schema) {
-    	if(conn == null) {
-            this.sqlserverConn = "jdbc:sqlserver://localhost:1433;databaseName=unknown;schema=dbo";
-            this.sqlserverUser = "admin";
-            this.sqlserverPwd = "admin";
-            this.sqlserverSchema = "dbo";
-    	}
-    	else {
-    		this.sqlserverConn = conn;
-    		this.sqlserverUser = user;
-    		this.sqlserverPwd = pwd;
-    		this.sqlserverSchema = schema;
-    	}
+        this(conn, user, pwd, schema, null);
+    }
+
+    public SQLServerEnv(String conn, String user, String pwd, String schema, Properties props) {
+        super(
+                conn == null ? "jdbc:sqlserver://localhost:1433;databaseName=unknown;schema=dbo" : conn,
+                conn == null ? "admin" : user,
+                conn == null ? "admin" : pwd,
+                conn == null ? "dbo" : schema,
+                props);
     }
 
     @Override
     public String test() {
-        return String.format("%s, user:%s, schema:%s", this.sqlserverConn, this.sqlserverUser, this.sqlserverSchema);
+        return String.format("%s, user:%s, schema:%s", this.connString, this.user, this.schema);
+    }
+
+    @Override
+    protected Properties statementCacheProperties() {
+        Properties props = new Properties();
+        props.setProperty("disableStatementPooling", "false");
+        props.setProperty("statementPoolingCacheSize", "32");
+        return props;
+    }
+
+    @Override
+    protected void prepare(Connection conn) throws SQLException {
+        conn.setSchema(this.schema);
     }
 
     @Override
-    public Connection create() throws SQLException {
-        Connection conn = java.sql.DriverManager.getConnection(this.sqlserverConn, this.sqlserverUser, this.sqlserverPwd);
-        conn.setSchema(this.sqlserverSchema);
-        return conn;
+    protected void configure(HikariConfig config) {
+        config.setSchema(this.schema);
     }
-}
\ No newline at end of file
+}
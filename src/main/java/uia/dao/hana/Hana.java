@@ -280,6 +280,21 @@ public class Hana extends AbstractDatabase {
         return cts;
     }
 
+    @Override
+    public int getMaxParameters() {
+        return 32767;
+    }
+
+    @Override
+    public String generateUpsertSQL(String tableName, List<String> columnNames, List<String> primaryKeys) {
+        return generateMergeSQL(tableName, columnNames, primaryKeys, "DUMMY");
+    }
+
+    @Override
+    public String generateLimitSQL(String sql, int limit) {
+        return sql + " LIMIT " + limit;
+    }
+
     @Override
     protected String upperOrLower(String value) {
         return value.toUpperCase();
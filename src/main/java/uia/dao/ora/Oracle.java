@@ -303,6 +303,27 @@ public class Oracle extends AbstractDatabase {
         return cts;
     }
 
+    @Override
+    public int getMaxParameters() {
+        return 65535;
+    }
+
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    @Override
+    public String generateUpsertSQL(String tableName, List<String> columnNames, List<String> primaryKeys) {
+        return generateMergeSQL(tableName, columnNames, primaryKeys, "DUAL");
+    }
+
+    @Override
+    public String generateLimitSQL(String sql, int limit) {
+        // 12c or later
+        return sql + " FETCH FIRST " + limit + " ROWS ONLY";
+    }
+
     @Override
     protected String upperOrLower(String value) {
         return value.toUpperCase();
@@ -301,6 +301,37 @@ public class PostgreSQL extends AbstractDatabase {
         return cts;
     }
 
+    @Override
+    public int getMaxParameters() {
+        // the count of bind parameters is a 16-bit value in the protocol.
+        return 32767;
+    }
+
+    @Override
+    public int getMaxInsertRows() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getMaxInListSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean supportsRowValueIn() {
+        return true;
+    }
+
+    @Override
+    public String generateUpsertSQL(String tableName, List<String> columnNames, List<String> primaryKeys) {
+        return generateOnConflictSQL(tableName, columnNames, primaryKeys);
+    }
+
+    @Override
+    public String generateLimitSQL(String sql, int limit) {
+        return sql + " LIMIT " + limit;
+    }
+
     @Override
     protected String upperOrLower(String value) {
         return value.toLowerCase();
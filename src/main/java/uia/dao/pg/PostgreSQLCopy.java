@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.pg;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.util.PGobject;
+
+import uia.dao.BindRecorder;
+import uia.dao.DaoException;
+import uia.dao.DaoMethod;
+import uia.dao.TableDao;
+import uia.dao.TableDaoHelper;
+
+/**
+ * The bulk loader with 'COPY ... FROM STDIN' of PostgreSQL.<br>
+ * Rows are encoded in the text format and streamed to the server, so the input is never materialized.
+ * The values of a DTO are encoded with the converters of the INSERT method of the table.
+ * A date is encoded with the offset of the JVM time zone, the same as the driver binds it in INSERT,
+ * so a date stored by COPY is equal to the one stored by TableDao.insert, with or without dateToUTC.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class PostgreSQLCopy {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss.SSSSSSxxx");
+
+    private final Connection conn;
+
+    private int bufferSize;
+
+    /**
+     * Constructor.
+     *
+     * @param conn The connection of PostgreSQL. A pooled or proxy connection must be able to unwrap to PGConnection.
+     */
+    public PostgreSQLCopy(Connection conn) {
+        this.conn = conn;
+        this.bufferSize = 65536;
+    }
+
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    /**
+     * Sets the size of the buffer sent to the server at once.
+     *
+     * @param bufferSize The size in bytes.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Copies rows into the table.
+     *
+     * @param helper The helper of the table.
+     * @param rows The rows.
+     * @param <T> The DTO class type.
+     * @return The count of rows copied.
+     * @throws SQLException Failed to copy.
+     * @throws DaoException Failed to convert the DTO object.
+     */
+    public <T> long copyIn(TableDaoHelper<T> helper, Iterable<T> rows) throws SQLException, DaoException {
+        return copyIn(helper, rows.iterator());
+    }
+
+    /**
+     * Copies rows into the table.
+     *
+     * @param helper The helper of the table.
+     * @param rows The rows.
+     * @param <T> The DTO class type.
+     * @return The count of rows copied.
+     * @throws SQLException Failed to copy.
+     * @throws DaoException Failed to convert the DTO object.
+     */
+    public <T> long copyIn(TableDaoHelper<T> helper, Stream<T> rows) throws SQLException, DaoException {
+        return copyIn(helper, rows.iterator());
+    }
+
+    /**
+     * Copies rows into the table. The rows are read from the iterator lazily.
+     *
+     * @param helper The helper of the table.
+     * @param rows The rows.
+     * @param <T> The DTO class type.
+     * @return The count of rows copied.
+     * @throws SQLException Failed to copy.
+     * @throws DaoException Failed to convert the DTO object.
+     */
+    public <T> long copyIn(TableDaoHelper<T> helper, Iterator<T> rows) throws SQLException, DaoException {
+        DaoMethod<T> method = helper.forInsert();
+        BindRecorder recorder = new BindRecorder();
+        try {
+            return copyIn(
+                    copySQL(helper.getTableName(), helper.getColumnNames()),
+                    rows,
+                    (row, line) -> {
+                        recorder.clear();
+                        method.fromOne(recorder.getStatement(), row);
+                        encodeRow(recorder.getValues(), line);
+                    });
+        }
+        finally {
+            new TableDao<>(this.conn, helper).invalidateResults();
+        }
+    }
+
+    /**
+     * Copies rows into the table. The values of a row are in the same order of the column names.
+     *
+     * @param tableName The table name.
+     * @param columnNames The column names.
+     * @param rows The rows.
+     * @return The count of rows copied.
+     * @throws SQLException Failed to copy.
+     */
+    public long copyIn(String tableName, List<String> columnNames, List<List<Object>> rows) throws SQLException {
+        try {
+            return copyIn(copySQL(tableName, columnNames), rows.iterator(), PostgreSQLCopy::encodeRow);
+        }
+        catch (DaoException ex) {
+            throw new SQLException(ex);
+        }
+    }
+
+    private <R> long copyIn(String sql, Iterator<R> rows, LineEncoder<R> encoder) throws SQLException, DaoException {
+        CopyIn copyIn = this.conn.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        return write(copyIn, rows, encoder, this.bufferSize);
+    }
+
+    static String copySQL(String tableName, List<String> columnNames) {
+        return String.format("COPY %s(%s) FROM STDIN", tableName, String.join(",", columnNames));
+    }
+
+    static <R> long write(CopyIn copyIn, Iterator<R> rows, LineEncoder<R> encoder, int bufferSize) throws SQLException, DaoException {
+        byte[] buf = new byte[bufferSize];
+        int pos = 0;
+        StringBuilder line = new StringBuilder(256);
+        try {
+            while (rows.hasNext()) {
+                line.setLength(0);
+                encoder.encode(rows.next(), line);
+                line.append('\n');
+
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                if (pos + bytes.length > buf.length) {
+                    copyIn.writeToCopy(buf, 0, pos);
+                    pos = 0;
+                }
+                if (bytes.length > buf.length) {
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+                else {
+                    System.arraycopy(bytes, 0, buf, pos, bytes.length);
+                    pos += bytes.length;
+                }
+            }
+            if (pos > 0) {
+                copyIn.writeToCopy(buf, 0, pos);
+            }
+            return copyIn.endCopy();
+        }
+        catch (SQLException | DaoException | RuntimeException ex) {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Encodes values of a row in the text format, separated by tabs.
+     *
+     * @param values The values.
+     * @param line The output.
+     */
+    static void encodeRow(List<Object> values, StringBuilder line) {
+        int i = 0;
+        for (Object value : values) {
+            if (i++ > 0) {
+                line.append('\t');
+            }
+            encode(value, line);
+        }
+    }
+
+    /**
+     * Encodes a value in the text format.
+     *
+     * @param value The value.
+     * @param line The output.
+     */
+    static void encode(Object value, StringBuilder line) {
+        if (value == null) {
+            line.append("\\N");
+        }
+        else if (value instanceof Boolean) {
+            line.append((Boolean) value ? 't' : 'f');
+        }
+        else if (value instanceof BigDecimal) {
+            line.append(((BigDecimal) value).toPlainString());
+        }
+        else if (value instanceof Number) {
+            line.append(value);
+        }
+        else if (value instanceof byte[]) {
+            // bytea hex format, the backslash is escaped.
+            line.append("\\\\x");
+            for (byte b : (byte[]) value) {
+                line.append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+            }
+        }
+        else if (value instanceof Date && !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time)) {
+            // ISO-8601 with an explicit offset, Timestamp.toString() has no offset and is read in the time zone of the server.
+            Timestamp ts = value instanceof Timestamp ? (Timestamp) value : new Timestamp(((Date) value).getTime());
+            TIMESTAMP.formatTo(ZonedDateTime.ofInstant(ts.toInstant(), ZoneId.systemDefault()), line);
+        }
+        else if (value instanceof PGobject) {
+            escape(((PGobject) value).getValue(), line);
+        }
+        else {
+            escape(value.toString(), line);
+        }
+    }
+
+    private static void escape(String value, StringBuilder line) {
+        if (value == null) {
+            line.append("\\N");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                default:
+                    line.append(c);
+            }
+        }
+    }
+
+    /**
+     * The encoder of one row.
+     *
+     * @author Kyle K. Lin
+     *
+     * @param <R> The row type.
+     */
+    interface LineEncoder<R> {
+
+        void encode(R row, StringBuilder line) throws SQLException, DaoException;
+    }
+}
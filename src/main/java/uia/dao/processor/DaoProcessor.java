@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import uia.dao.ClassUtils;
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+import uia.dao.annotation.ViewInfo;
+
+/**
+ * The annotation processor of DTO classes annotated with @TableInfo or @ViewInfo.<br>
+ * For each DTO class it generates &lt;DTO class&gt;_DaoAccessor, a DaoAccessor reading and writing @ColumnInfo fields directly,
+ * the DAO helpers use it instead of generating an accessor at runtime.
+ * A private field is accessed through the method handles of the field kept in static final fields, its getter and setter are not called.
+ * The names of DTO classes are written to the index ClassUtils.INDEX, DaoFactory.load reads it instead of scanning the classpath.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+@SupportedAnnotationTypes({ "uia.dao.annotation.TableInfo", "uia.dao.annotation.ViewInfo" })
+public class DaoProcessor extends AbstractProcessor {
+
+    private static final String[] TYPED = { "int", "long", "double", "boolean" };
+
+    private final TreeSet<String> dtoNames = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        LinkedHashSet<Element> dtos = new LinkedHashSet<>();
+        dtos.addAll(roundEnv.getElementsAnnotatedWith(TableInfo.class));
+        dtos.addAll(roundEnv.getElementsAnnotatedWith(ViewInfo.class));
+        for (Element e : dtos) {
+            if (e.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            TypeElement dto = (TypeElement) e;
+            this.dtoNames.add(elements().getBinaryName(dto).toString());
+            try {
+                generate(dto);
+            }
+            catch (IOException ex) {
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "DaoAccessor not generated, " + ex.getMessage(), dto);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement dto) throws IOException {
+        if (!canCreate(dto)) {
+            return;
+        }
+
+        String dtoType = dto.getQualifiedName().toString();
+        String accessorName = ClassUtils.accessorName(elements().getBinaryName(dto).toString());
+        int dot = accessorName.lastIndexOf('.');
+
+        ArrayList<String> keys = new ArrayList<>();
+        StringBuilder handles = new StringBuilder();
+        StringBuilder getCode = new StringBuilder();
+        StringBuilder setCode = new StringBuilder();
+        StringBuilder[] typedGetCode = new StringBuilder[TYPED.length];
+        StringBuilder[] typedSetCode = new StringBuilder[TYPED.length];
+        for (int t = 0; t < TYPED.length; t++) {
+            typedGetCode[t] = new StringBuilder();
+            typedSetCode[t] = new StringBuilder();
+        }
+
+        TypeElement curr = dto;
+        while (curr != null && !"java.lang.Object".equals(curr.getQualifiedName().toString())) {
+            // a field of a super class is accessed by the super class type in case it is hidden
+            String target = curr == dto ? "d" : "((" + curr.getQualifiedName() + ") d)";
+            for (VariableElement f : ElementFilter.fieldsIn(curr.getEnclosedElements())) {
+                if (f.getAnnotation(ColumnInfo.class) == null) {
+                    continue;
+                }
+
+                // the getter and setter of a private field are not called since they may do more than the field access.
+                boolean direct = canAccess(dto, curr, f);
+                if (!direct && !canHandle(dto, curr, f)) {
+                    continue;
+                }
+                String name = f.getSimpleName().toString();
+                String type = types().erasure(f.asType()).toString();
+                int index = keys.size();
+                String getter;
+                String setter;
+                if (direct) {
+                    getter = target + "." + name;
+                    setter = target + "." + name + " = %s;";
+                }
+                else {
+                    // the method handles in static final fields are constants of the JIT compiler
+                    handles.append(String.format("    private static final java.lang.invoke.MethodHandle GET%s = handle(%s.class, \"%s\", false);%n",
+                            index,
+                            curr.getQualifiedName(),
+                            name));
+                    handles.append(String.format("    private static final java.lang.invoke.MethodHandle SET%s = handle(%s.class, \"%s\", true);%n",
+                            index,
+                            curr.getQualifiedName(),
+                            name));
+                    getter = "(" + type + ") GET" + index + ".invokeExact(" + target + ")";
+                    setter = "SET" + index + ".invokeExact(" + target + ", %s);";
+                }
+
+                keys.add(elements().getBinaryName(curr) + "." + name);
+                getCode.append(String.format("            case %s:%n                return %s;%n", index, getter));
+                setCode.append(String.format("            case %s:%n                %s%n                return;%n", index, String.format(setter, unbox(type, "v"))));
+                for (int t = 0; t < TYPED.length; t++) {
+                    if (TYPED[t].equals(type)) {
+                        typedGetCode[t].append(String.format("            case %s:%n                return %s;%n", index, getter));
+                        typedSetCode[t].append(String.format("            case %s:%n                %s%n                return;%n", index, String.format(setter, "v")));
+                    }
+                }
+            }
+            TypeMirror sup = curr.getSuperclass();
+            curr = sup.getKind() == TypeKind.DECLARED ? (TypeElement) types().asElement(sup) : null;
+        }
+
+        StringBuilder code = new StringBuilder();
+        if (dot > 0) {
+            code.append("package ").append(accessorName, 0, dot).append(";\n\n");
+        }
+        code.append("/**\n * The DaoAccessor of ").append(dtoType).append(", generated by ").append(getClass().getName()).append(".\n */\n");
+        code.append("public final class ").append(accessorName.substring(dot + 1)).append(" implements uia.dao.DaoAccessor {\n\n");
+        code.append("    public static final String[] FIELDS = {\n");
+        for (int i = 0; i < keys.size(); i++) {
+            code.append("            \"").append(keys.get(i)).append(i < keys.size() - 1 ? "\",\n" : "\"\n");
+        }
+        code.append("    };\n\n");
+        if (handles.length() > 0) {
+            code.append(handles).append("\n");
+        }
+        code.append("    @Override\n    public Object newInstance() {\n        return new ").append(dtoType).append("();\n    }\n");
+        boolean invoke = handles.length() > 0;
+        code.append(method("Object get(Object dto, int index)", dtoType, getCode, invoke));
+        code.append(method("void set(Object dto, int index, Object v)", dtoType, setCode, invoke));
+        for (int t = 0; t < TYPED.length; t++) {
+            if (typedGetCode[t].length() > 0) {
+                String name = Character.toUpperCase(TYPED[t].charAt(0)) + TYPED[t].substring(1);
+                code.append(method(TYPED[t] + " get" + name + "(Object dto, int index)", dtoType, typedGetCode[t], invoke));
+                code.append(method("void set" + name + "(Object dto, int index, " + TYPED[t] + " v)", dtoType, typedSetCode[t], invoke));
+            }
+        }
+        if (invoke) {
+            code.append("\n    private static java.lang.invoke.MethodHandle handle(Class<?> owner, String name, boolean setter) {\n");
+            code.append("        try {\n");
+            code.append("            java.lang.reflect.Field f = owner.getDeclaredField(name);\n");
+            code.append("            f.setAccessible(true);\n");
+            code.append("            java.lang.invoke.MethodHandles.Lookup lookup = java.lang.invoke.MethodHandles.lookup();\n");
+            code.append("            return setter ? lookup.unreflectSetter(f) : lookup.unreflectGetter(f);\n");
+            code.append("        }\n");
+            code.append("        catch (ReflectiveOperationException ex) {\n");
+            code.append("            throw new ExceptionInInitializerError(ex);\n");
+            code.append("        }\n");
+            code.append("    }\n");
+        }
+        code.append("}\n");
+
+        JavaFileObject file = filer().createSourceFile(accessorName, dto);
+        try (Writer writer = file.openWriter()) {
+            writer.write(code.toString());
+        }
+    }
+
+    /**
+     * Writes the names of DTO classes processed, merged with the index of classes compiled before.
+     */
+    private void writeIndex() {
+        if (this.dtoNames.isEmpty()) {
+            return;
+        }
+
+        TreeSet<String> names = new TreeSet<>(this.dtoNames);
+        try {
+            FileObject existing = filer().getResource(StandardLocation.CLASS_OUTPUT, "", ClassUtils.INDEX);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        names.add(line.trim());
+                    }
+                }
+            }
+        }
+        catch (IOException | IllegalArgumentException ex) {
+            // no index compiled before
+        }
+
+        try {
+            FileObject index = filer().createResource(StandardLocation.CLASS_OUTPUT, "", ClassUtils.INDEX);
+            try (Writer writer = index.openWriter()) {
+                for (String name : names) {
+                    writer.write(name);
+                    writer.write("\n");
+                }
+            }
+        }
+        catch (IOException ex) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, ClassUtils.INDEX + " not generated, " + ex.getMessage());
+        }
+    }
+
+    private static String method(String signature, String dtoType, StringBuilder cases, boolean invoke) {
+        StringBuilder code = new StringBuilder();
+        code.append("\n    @Override\n    public ").append(signature).append(" {\n");
+        if (cases.length() == 0) {
+            code.append("        throw new IllegalArgumentException(\"index:\" + index);\n");
+        }
+        else if (!invoke) {
+            code.append("        ").append(dtoType).append(" d = (").append(dtoType).append(") dto;\n");
+            code.append("        switch (index) {\n").append(cases).append("            default:\n");
+            code.append("                throw new IllegalArgumentException(\"index:\" + index);\n        }\n");
+        }
+        else {
+            // MethodHandle.invokeExact() throws Throwable
+            code.append("        ").append(dtoType).append(" d = (").append(dtoType).append(") dto;\n");
+            code.append("        try {\n");
+            code.append("            switch (index) {\n").append(cases.toString().replace("\n", "\n    ").replaceFirst("^", "    ").replaceAll(" +$", ""));
+            code.append("                default:\n");
+            code.append("                    throw new IllegalArgumentException(\"index:\" + index);\n            }\n");
+            code.append("        }\n");
+            code.append("        catch (RuntimeException | Error ex) {\n            throw ex;\n        }\n");
+            code.append("        catch (Throwable ex) {\n            throw new IllegalStateException(ex);\n        }\n");
+        }
+        code.append("    }\n");
+        return code.toString();
+    }
+
+    private boolean canCreate(TypeElement dto) {
+        if (dto.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        Element e = dto;
+        while (e instanceof TypeElement) {
+            TypeElement te = (TypeElement) e;
+            if (te.getModifiers().contains(Modifier.PRIVATE)
+                    || te.getNestingKind() == NestingKind.LOCAL
+                    || te.getNestingKind() == NestingKind.ANONYMOUS
+                    || te.getNestingKind() == NestingKind.MEMBER && !te.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            e = te.getEnclosingElement();
+        }
+        for (ExecutableElement c : ElementFilter.constructorsIn(dto.getEnclosedElements())) {
+            if (c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean canAccess(TypeElement dto, TypeElement owner, VariableElement f) {
+        Set<Modifier> m = f.getModifiers();
+        if (m.contains(Modifier.PRIVATE) || m.contains(Modifier.FINAL) || m.contains(Modifier.STATIC)) {
+            return false;
+        }
+        return samePackage(dto, owner) || m.contains(Modifier.PUBLIC) && isPublic(owner);
+    }
+
+    /**
+     * Tests if a field not accessed directly is accessed through the method handles, the owner class must be accessible.
+     */
+    private boolean canHandle(TypeElement dto, TypeElement owner, VariableElement f) {
+        Set<Modifier> m = f.getModifiers();
+        if (m.contains(Modifier.FINAL) || m.contains(Modifier.STATIC)) {
+            return false;
+        }
+        return samePackage(dto, owner) && !owner.getModifiers().contains(Modifier.PRIVATE) || isPublic(owner);
+    }
+
+    private boolean samePackage(Element e1, Element e2) {
+        return elements().getPackageOf(e1).equals(elements().getPackageOf(e2));
+    }
+
+    private static boolean isPublic(TypeElement type) {
+        Element e = type;
+        while (e instanceof TypeElement) {
+            if (!e.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+            e = e.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static String unbox(String type, String value) {
+        switch (type) {
+            case "boolean":
+                return "((Boolean) " + value + ").booleanValue()";
+            case "char":
+                return "((Character) " + value + ").charValue()";
+            case "byte":
+            case "short":
+            case "int":
+            case "long":
+            case "float":
+            case "double":
+                return "((Number) " + value + ")." + type + "Value()";
+            default:
+                return "(" + type + ") " + value;
+        }
+    }
+
+    private Elements elements() {
+        return this.processingEnv.getElementUtils();
+    }
+
+    private Types types() {
+        return this.processingEnv.getTypeUtils();
+    }
+
+    private Filer filer() {
+        return this.processingEnv.getFiler();
+    }
+}
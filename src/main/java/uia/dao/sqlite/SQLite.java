@@ -18,6 +18,7 @@
  *******************************************************************************/
 package uia.dao.sqlite;
 
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -43,6 +44,8 @@ public class SQLite extends AbstractDatabase {
         }
     }
 
+    private int maxParameters = 999;
+
     public SQLite() throws SQLException {
         super(null, null, null, null, null);
     }
@@ -223,6 +226,46 @@ public class SQLite extends AbstractDatabase {
         return cts;
     }
 
+    @Override
+    public int getMaxParameters() {
+        return this.maxParameters;
+    }
+
+    @Override
+    public int getMaxInsertRows() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void initialDialect(DatabaseMetaData meta) throws SQLException {
+        // SQLITE_MAX_VARIABLE_NUMBER is 999 before 3.32.0, 32766 after that.
+        int major = meta.getDatabaseMajorVersion();
+        int minor = meta.getDatabaseMinorVersion();
+        this.maxParameters = major > 3 || major == 3 && minor >= 32 ? 32766 : 999;
+    }
+
+    @Override
+    public int getMaxInListSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean supportsRowValueIn() {
+        // supported since 3.15.0
+        return true;
+    }
+
+    @Override
+    public String generateUpsertSQL(String tableName, List<String> columnNames, List<String> primaryKeys) {
+        // supported since 3.24.0
+        return generateOnConflictSQL(tableName, columnNames, primaryKeys);
+    }
+
+    @Override
+    public String generateLimitSQL(String sql, int limit) {
+        return sql + " LIMIT " + limit;
+    }
+
     @Override
     protected String upperOrLower(String value) {
         return value.toLowerCase();
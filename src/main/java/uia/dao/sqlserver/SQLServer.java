@@ -24,6 +24,8 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import uia.dao.AbstractDatabase;
 import uia.dao.ColumnDiff;
@@ -34,6 +36,8 @@ import uia.dao.pg.PostgreSQLColumnType;
 
 public class SQLServer extends AbstractDatabase {
 
+    private static final Pattern SELECT = Pattern.compile("\\s*select\\b(\\s+distinct\\b)?", Pattern.CASE_INSENSITIVE);
+
     public SQLServer() throws SQLException {
         super(null, null, null, null, null);
     }
@@ -267,6 +271,33 @@ public class SQLServer extends AbstractDatabase {
         return cts;
     }
 
+    @Override
+    public int getMaxParameters() {
+        // 2100 at most, some are reserved by sp_executesql.
+        return 2098;
+    }
+
+    @Override
+    public int getMaxInsertRows() {
+        // the table value constructor accepts 1000 rows at most.
+        return 1000;
+    }
+
+    @Override
+    public String generateUpsertSQL(String tableName, List<String> columnNames, List<String> primaryKeys) {
+        // MERGE must be terminated by a semicolon, HOLDLOCK keeps concurrent MERGE of a new key from inserting it twice.
+        return generateMergeSQL(tableName, columnNames, primaryKeys, null, "HOLDLOCK") + ";";
+    }
+
+    @Override
+    public String generateLimitSQL(String sql, int limit) {
+        // TOP follows SELECT or SELECT DISTINCT.
+        Matcher m = SELECT.matcher(sql);
+        return m.lookingAt()
+                ? sql.substring(0, m.end()) + " TOP " + limit + sql.substring(m.end())
+                : null;
+    }
+
     @Override
     protected String upperOrLower(String value) {
         return value.toUpperCase();
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.where;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import uia.dao.where.conditions.ConditionType;
+
+/**
+ * The WHERE statement of the keyset (seek) pagination.<br>
+ * The statement selects rows after the last key in the order of columns, e.g. '(c1&gt;?) or (c1=? and c2&gt;?)'.
+ * A column sorted descending is written as 'c2 desc' and compared with '&lt;'.
+ * The values of the last key must not be null.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class SeekWhere extends Where {
+
+    private final List<String> columns;
+
+    private final boolean[] descs;
+
+    private final Object[] lastKey;
+
+    /**
+     * Constructor.
+     *
+     * @param orderColumns The order columns, e.g. 'c1', 'c2 desc'.
+     * @param lastKey The values of the order columns of the last row, or null for the first page.
+     */
+    public SeekWhere(String[] orderColumns, Object[] lastKey) {
+        if (orderColumns == null || orderColumns.length == 0) {
+            throw new IllegalArgumentException("order columns are required");
+        }
+        if (lastKey != null && lastKey.length != orderColumns.length) {
+            throw new IllegalArgumentException(String.format("%s values of the last key are required", orderColumns.length));
+        }
+
+        ArrayList<String> cols = new ArrayList<>();
+        this.descs = new boolean[orderColumns.length];
+        for (int i = 0; i < orderColumns.length; i++) {
+            String[] parts = orderColumns[i].trim().split("\\s+");
+            cols.add(parts[0]);
+            this.descs[i] = parts.length > 1 && "desc".equalsIgnoreCase(parts[1]);
+        }
+        this.columns = Collections.unmodifiableList(cols);
+        this.lastKey = lastKey;
+    }
+
+    /**
+     * Returns the column names without the sort direction.
+     *
+     * @return The column names.
+     */
+    public List<String> getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Returns the 'order by' statement.
+     *
+     * @return The 'order by' statement.
+     */
+    public String orderBy() {
+        ArrayList<String> orders = new ArrayList<>();
+        for (int i = 0; i < this.descs.length; i++) {
+            orders.add(this.descs[i] ? this.columns.get(i) + " desc" : this.columns.get(i));
+        }
+        return String.join(",", orders);
+    }
+
+    @Override
+    public boolean hasConditions() {
+        return this.lastKey != null;
+    }
+
+    @Override
+    public String generate() {
+        if (this.lastKey == null) {
+            return "";
+        }
+
+        ArrayList<String> ors = new ArrayList<>();
+        for (int i = 0; i < this.columns.size(); i++) {
+            ArrayList<String> ands = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                ands.add(this.columns.get(j) + "=?");
+            }
+            ands.add(this.columns.get(i) + (this.descs[i] ? "<?" : ">?"));
+            ors.add("(" + String.join(" and ", ands) + ")");
+        }
+        return String.join(" or ", ors);
+    }
+
+    @Override
+    public int accept(PreparedStatement ps, int index) throws SQLException {
+        if (this.lastKey == null) {
+            return index;
+        }
+
+        int i = index;
+        for (int c = 0; c < this.columns.size(); c++) {
+            for (int j = 0; j <= c; j++) {
+                ConditionType.apply(ps, i++, this.lastKey[j]);
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public String toString() {
+        return generate();
+    }
+}
@@ -125,12 +125,15 @@ public abstract class Where {
         String sql = where;
         int index = 0;
         for (int i = 0, c = paramValues.size(); i < c; i++) {
-            index = sql.indexOf("?");
-            if (index > 0) {
+            index = sql.indexOf("?", index);
+            if (index >= 0) {
                 String v = "" + paramValues.get(i);
                 sql = sql.substring(0, index) + "'" + v + "'" + sql.substring(index + 1);
                 index = index + v.length() + 2;
             }
+            else {
+                break;
+            }
         }
         return sql;
     }
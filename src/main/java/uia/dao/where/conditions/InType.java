@@ -20,6 +20,7 @@ package uia.dao.where.conditions;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Set;
 
@@ -30,6 +31,8 @@ import java.util.Set;
  */
 public class InType implements ConditionType {
 
+    private static final int MAX_LIST_SIZE = 1000;
+
     private final String key;
 
     private final Set<String> values;
@@ -41,8 +44,21 @@ public class InType implements ConditionType {
 
     @Override
     public String getStatement() {
-        String[] args = new String[this.values.size()];
-        Arrays.fill(args, "?");;
+        if (this.values.size() <= MAX_LIST_SIZE) {
+            return in(this.values.size());
+        }
+
+        // split into groups to meet the limit of the IN list, e.g. Oracle.
+        ArrayList<String> groups = new ArrayList<>();
+        for (int n = this.values.size(); n > 0; n -= MAX_LIST_SIZE) {
+            groups.add(in(Math.min(n, MAX_LIST_SIZE)));
+        }
+        return "(" + String.join(" or ", groups) + ")";
+    }
+
+    private String in(int count) {
+        String[] args = new String[count];
+        Arrays.fill(args, "?");
         return this.key + " in(" + String.join(",", args) + " )";
     }
 
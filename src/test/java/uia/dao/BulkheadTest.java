@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.SQLTransientConnectionException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class BulkheadTest {
+
+    @Test
+    public void testLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead(2, 50);
+        bulkhead.acquire();
+        bulkhead.acquire();
+        Assert.assertEquals(2, bulkhead.getActive());
+        try {
+            bulkhead.acquire();
+            Assert.fail("no permit");
+        }
+        catch (SQLTransientConnectionException ex) {
+        }
+        Assert.assertEquals(2, bulkhead.getAcquired());
+        Assert.assertEquals(1, bulkhead.getRejected());
+        Assert.assertTrue(bulkhead.getMaxWaitedMillis() >= 40);
+
+        bulkhead.release();
+        bulkhead.acquire();
+        Assert.assertEquals(3, bulkhead.getAcquired());
+    }
+
+    @Test
+    public void testReleaseOnce() throws Exception {
+        StubDatabase db = StubDriver.database("bulkheadReleaseOnce");
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+        try {
+            bulkhead.acquire();
+            DaoEnv.ConnectionProxy proxy = new DaoEnv.ConnectionProxy(db.connect(), 0, bulkhead::release);
+            proxy.close();
+            proxy.close();
+        }
+        finally {
+            StubDriver.drop("bulkheadReleaseOnce");
+        }
+        Assert.assertEquals(1, db.getConnectionCloses());
+        Assert.assertEquals(0, bulkhead.getActive());
+    }
+}
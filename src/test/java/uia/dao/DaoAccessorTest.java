@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.sample1.One;
+
+public class DaoAccessorTest {
+
+    @Test
+    public void testPrivateField() throws Exception {
+        // private fields are bound to the method handles, the getters and setters are not called.
+        ArrayList<DaoColumn> columns = columns(Named.class);
+        DaoAccessor accessor = DaoAccessorGenerator.bind(Named.class, columns);
+        Assert.assertNotNull(accessor);
+
+        Named named = (Named) accessor.newInstance();
+        Assert.assertNotNull(named);
+        for (DaoColumn column : columns) {
+            Assert.assertTrue(column.toString(), column.getAccessor() instanceof MethodHandleAccessor);
+        }
+        columns.get(0).setValue(named, "name1");
+        Assert.assertEquals("name1", named.getName());
+        Assert.assertEquals("name1", columns.get(0).getValue(named));
+    }
+
+    @Test
+    public void testProcessed() throws Exception {
+        // the accessor generated by the processor accesses private fields through the method handles.
+        ArrayList<DaoColumn> columns = columns(One.class);
+        DaoAccessor accessor = DaoAccessorGenerator.bind(One.class, columns);
+        Assert.assertEquals(ClassUtils.accessorName(One.class.getName()), accessor.getClass().getName());
+        for (DaoColumn column : columns) {
+            Assert.assertSame(accessor, column.getAccessor());
+        }
+
+        One one = (One) accessor.newInstance();
+        columns.get(0).setValue(one, "1");
+        Assert.assertEquals("1", one.getId());
+    }
+
+    @Test
+    public void testPrivateTyped() throws Exception {
+        ArrayList<DaoColumn> columns = columns(Counter.class);
+        Assert.assertNotNull(DaoAccessorGenerator.bind(Counter.class, columns));
+        Assert.assertTrue(columns.get(0).getAccessor() instanceof MethodHandleAccessor);
+
+        Counter counter = new Counter();
+        DaoAccessor accessor = columns.get(0).getAccessor();
+        accessor.setInt(counter, 0, 3);
+        Assert.assertEquals(3, counter.getCount());
+        Assert.assertEquals(3, accessor.getInt(counter, 0));
+        columns.get(0).setValue(counter, 4);
+        Assert.assertEquals(4, counter.getCount());
+    }
+
+    @Test
+    public void testField() throws Exception {
+        DaoAccessor accessor = DaoAccessorGenerator.bind(Plain.class, columns(Plain.class));
+        Assert.assertNotNull(accessor);
+
+        Plain plain = (Plain) accessor.newInstance();
+        accessor.set(plain, 0, 10L);
+        accessor.set(plain, 1, new byte[] { 1, 2 });
+        Assert.assertEquals(10L, plain.id);
+        Assert.assertEquals(2, plain.content.length);
+        Assert.assertEquals(10L, accessor.get(plain, 0));
+    }
+
+    @Test
+    public void testTyped() throws Exception {
+        DaoAccessor accessor = DaoAccessorGenerator.bind(Plain.class, columns(Plain.class));
+        Assert.assertNotNull(accessor);
+        Assert.assertEquals(accessor.getClass(), accessor.getClass().getMethod("setLong", Object.class, int.class, long.class).getDeclaringClass());
+
+        Plain plain = (Plain) accessor.newInstance();
+        accessor.setLong(plain, 0, 11L);
+        Assert.assertEquals(11L, plain.id);
+        Assert.assertEquals(11L, accessor.getLong(plain, 0));
+    }
+
+    @Test
+    public void testReflectionFallback() throws Exception {
+        // no accessor is generated without the no-arg constructor, the fields are still bound to the method handles.
+        ArrayList<DaoColumn> columns = columns(Hidden.class);
+        Assert.assertNull(DaoAccessorGenerator.bind(Hidden.class, columns));
+        Assert.assertTrue(columns.get(0).getAccessor() instanceof MethodHandleAccessor);
+    }
+
+    private ArrayList<DaoColumn> columns(Class<?> clz) {
+        DaoFactory factory = new DaoFactory(false);
+        ArrayList<DaoColumn> columns = new ArrayList<>();
+        for (Field f : clz.getDeclaredFields()) {
+            if (f.isSynthetic()) {
+                continue;
+            }
+            String cvrtName = f.getType().getSimpleName();
+            columns.add(new DaoColumn(f, factory.getColumnReader(cvrtName), factory.getColumnWriter(cvrtName)));
+        }
+        return columns;
+    }
+
+    public static class Plain {
+
+        long id;
+
+        byte[] content;
+    }
+
+    public static class Named {
+
+        private String name;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name.toUpperCase();
+        }
+    }
+
+    public static class Counter {
+
+        private int count;
+
+        public int getCount() {
+            return this.count;
+        }
+
+        public void setCount(int count) {
+            this.count = count * 10;
+        }
+    }
+
+    public static class Hidden {
+
+        private String id;
+
+        private Hidden() {
+        }
+
+        public String getId() {
+            return this.id;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.sample1.One;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+public class DaoCursorTest {
+
+    private final DaoFactory factory = new DaoFactory(false);
+
+    @Test
+    public void testIterator() throws Exception {
+        StubDatabase db = database("cursorIterator");
+        try (DaoCursor<One> cursor = DaoCursor.open(prepare(db), method(), Filter.ALL, 10)) {
+            ArrayList<String> ids = new ArrayList<>();
+            while (cursor.hasNext()) {
+                ids.add(cursor.next().getId());
+            }
+            Assert.assertEquals(3, ids.size());
+            Assert.assertTrue(cursor.isClosed());
+            Assert.assertEquals(1, db.getStatementCloses());
+        }
+        finally {
+            StubDriver.drop("cursorIterator");
+        }
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        StubDatabase db = database("cursorStream");
+        try {
+            DaoCursor<One> cursor = DaoCursor.open(prepare(db), method(), Filter.ALL, 10);
+            try (Stream<One> stream = cursor.stream()) {
+                List<String> ids = stream.limit(2).map(One::getId).collect(Collectors.toList());
+                Assert.assertEquals(2, ids.size());
+                Assert.assertEquals(0, db.getStatementCloses());
+            }
+            Assert.assertEquals(1, db.getStatementCloses());
+        }
+        finally {
+            StubDriver.drop("cursorStream");
+        }
+    }
+
+    @Test
+    public void testConsume() throws Exception {
+        StubDatabase db = database("cursorConsume");
+        AtomicInteger seen = new AtomicInteger();
+        AtomicInteger count = new AtomicInteger();
+        try {
+            DaoCursor.open(prepare(db), method(), rs -> seen.incrementAndGet() != 2, 10)
+                    .consume(one -> count.incrementAndGet());
+        }
+        finally {
+            StubDriver.drop("cursorConsume");
+        }
+        Assert.assertEquals(2, count.get());
+        Assert.assertEquals(1, db.getStatementCloses());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        StubDatabase db = database("cursorMetrics");
+        try (DaoCursor<One> cursor = DaoCursor.open(prepare(db), method(), Filter.ALL, 10)) {
+            cursor.next();
+            cursor.next();
+        }
+        finally {
+            StubDriver.drop("cursorMetrics");
+        }
+        StatementMetrics metrics = this.factory.getMetrics().of(One.class.getName(), "cursor");
+        Assert.assertEquals(1, metrics.getCount());
+        Assert.assertEquals(2, metrics.getRowsRead());
+        Assert.assertEquals(0, metrics.getErrors());
+        Assert.assertEquals(1, db.getStatementCloses());
+    }
+
+    private StubDatabase database(String name) {
+        return StubDriver.database(name).table(
+                "one",
+                new String[] { "id" },
+                new Object[][] { { "1" }, { "2" }, { "3" } });
+    }
+
+    private DaoStatement prepare(StubDatabase db) throws Exception {
+        return DaoStatement.prepare(db.connect(), this.factory, One.class.getName(), "cursor", "SELECT id FROM one");
+    }
+
+    private DaoMethod<One> method() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        DaoMethod<One> method = new DaoMethod<>(One.class);
+        method.addColumn(new DaoColumn(
+                One.class.getDeclaredField("id"),
+                factory.getColumnReader("String"),
+                factory.getColumnWriter("String")));
+        return method;
+    }
+}
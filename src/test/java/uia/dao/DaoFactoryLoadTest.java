@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.sample1.One;
+import uia.dao.sample1.ViewOne;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class DaoFactoryLoadTest {
+
+    @Test
+    public void testIndex() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.load("uia.dao.sample1", getClass().getClassLoader());
+        Assert.assertTrue(factory.getTables().contains(One.class.getName()));
+
+        DaoLoadMetrics metrics = factory.getLoadMetrics().get(0);
+        System.out.println(metrics);
+        Assert.assertEquals("uia.dao.sample1", metrics.getPackageName());
+        Assert.assertEquals(DaoLoadMetrics.Source.INDEX, metrics.getSource());
+        Assert.assertEquals(factory.getTables().size(), metrics.getTables());
+        Assert.assertEquals(factory.getViews().size(), metrics.getViews());
+        Assert.assertEquals(0, metrics.getScanMillis(), 0.5);
+    }
+
+    @Test
+    public void testLazy() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            ArrayList<Future<TableDaoHelper<One>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return factory.forTable(One.class);
+                }));
+            }
+            start.countDown();
+            TableDaoHelper<One> helper = factory.forTable(One.class);
+            for (Future<TableDaoHelper<One>> future : futures) {
+                Assert.assertSame(helper, future.get(5, TimeUnit.SECONDS));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, factory.getTables().size());
+        Assert.assertTrue(factory.getTables().contains(One.class.getName()));
+
+        // a helper built before loading is kept
+        TableDaoHelper<One> helper = factory.forTable(One.class);
+        factory.load("uia.dao.sample1", getClass().getClassLoader());
+        Assert.assertSame(helper, factory.forTable(One.class));
+        Assert.assertTrue(factory.getViews().contains(ViewOne.class.getName()));
+        Assert.assertSame(factory.forView(ViewOne.class), factory.forView(ViewOne.class));
+    }
+
+    @Test
+    public void testScanIndex() throws Exception {
+        Path dir = Files.createTempDirectory("uia-dao-scan");
+        Path file = dir.resolve("scan.index");
+        compile(dir, "Box", "package y;\n"
+                + "@uia.dao.annotation.TableInfo(name = \"box\")\n"
+                + "public class Box {\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"id\", primaryKey = true) public String id;\n"
+                + "}\n");
+        compile(dir, "Cup", "package y;\n"
+                + "@uia.dao.annotation.ViewInfo(name = \"cup\")\n"
+                + "public class Cup {\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"id\") public String id;\n"
+                + "}\n");
+        compile(dir, "Util", "package y;\n"
+                + "public class Util {\n"
+                + "}\n");
+
+        // scan and save
+        DaoLoadMetrics metrics = load(dir, file);
+        Assert.assertEquals(DaoLoadMetrics.Source.SCAN, metrics.getSource());
+        Assert.assertEquals(3, metrics.getClasses());
+        Assert.assertEquals(1, metrics.getTables());
+        Assert.assertEquals(1, metrics.getViews());
+        Assert.assertTrue(Files.exists(file));
+
+        // warm restart
+        metrics = load(dir, file);
+        Assert.assertEquals(DaoLoadMetrics.Source.SCAN_INDEX, metrics.getSource());
+        Assert.assertEquals(2, metrics.getClasses());
+        Assert.assertEquals(1, metrics.getTables());
+        Assert.assertEquals(1, metrics.getViews());
+
+        // package changed
+        compile(dir, "Pen", "package y;\n"
+                + "@uia.dao.annotation.TableInfo(name = \"pen\")\n"
+                + "public class Pen {\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"id\", primaryKey = true) public String id;\n"
+                + "}\n");
+        metrics = load(dir, file);
+        Assert.assertEquals(DaoLoadMetrics.Source.SCAN, metrics.getSource());
+        Assert.assertEquals(2, metrics.getTables());
+
+        metrics = load(dir, file);
+        Assert.assertEquals(DaoLoadMetrics.Source.SCAN_INDEX, metrics.getSource());
+        Assert.assertEquals(2, metrics.getTables());
+    }
+
+    private DaoLoadMetrics load(Path dir, Path file) throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, getClass().getClassLoader())) {
+            DaoFactory factory = new DaoFactory(false);
+            factory.setScanIndex(file);
+            factory.load("y", loader);
+            Assert.assertEquals(1, factory.getLoadMetrics().size());
+            return factory.getLoadMetrics().get(0);
+        }
+    }
+
+    private void compile(Path dir, String name, String code) throws Exception {
+        Path source = dir.resolve(name + ".java");
+        Files.write(source, code.getBytes(StandardCharsets.UTF_8));
+
+        ArrayList<String> args = new ArrayList<>(Arrays.asList(
+                "-d", dir.toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "-proc:none",
+                source.toString()));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+        Files.delete(source);
+    }
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+import uia.dao.where.Where;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class DaoInterceptorTest {
+
+    @Test
+    public void testChain() throws Exception {
+        List<String> events = new ArrayList<>();
+        List<DaoExecution> executions = new ArrayList<>();
+
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Traced.class);
+        factory.addInterceptor(new DaoInterceptor() {
+
+            @Override
+            public String prepare(DaoExecution execution, String sql) {
+                events.add("prepare1");
+                execution.setAttribute("span", "s1");
+                return "/* tenant:1 */ " + sql;
+            }
+
+            @Override
+            public void before(DaoExecution execution) {
+                events.add("before1");
+            }
+
+            @Override
+            public void after(DaoExecution execution) {
+                events.add("after1");
+                executions.add(execution);
+            }
+        });
+        factory.addInterceptor(new DaoInterceptor() {
+
+            @Override
+            public void after(DaoExecution execution) {
+                events.add("after2:" + execution.getAttribute("span"));
+            }
+        });
+        StubDatabase db = database("interceptorChain").trace(true);
+        try {
+            TableDao<Traced> dao = new TableDao<>(db.connect(), factory.forTable(Traced.class));
+
+            Traced data = new Traced();
+            data.setId("1");
+            data.setName("name1");
+            dao.insert(data);
+            Assert.assertEquals(Arrays.asList("prepare1", "before1", "after2:s1", "after1"), events);
+
+            // where statement
+            Assert.assertEquals(1, dao.select(Where.simpleAnd().eq("name", "name1")).size());
+        }
+        finally {
+            StubDriver.drop("interceptorChain");
+        }
+        List<String> prepared = db.getTrace("prepareStatement");
+
+        DaoExecution insert = executions.get(0);
+        Assert.assertEquals(Traced.class.getName(), insert.getDto());
+        Assert.assertEquals("insert", insert.getOperation());
+        Assert.assertEquals(DaoExecution.Type.INSERT, insert.getType());
+        Assert.assertEquals(Arrays.asList("1", "name1"), insert.getParameters());
+        Assert.assertEquals(1, insert.getRows());
+        Assert.assertFalse(insert.isFailed());
+        Assert.assertTrue(prepared.get(0).startsWith("/* tenant:1 */ INSERT"));
+
+        DaoExecution select = executions.get(1);
+        Assert.assertEquals(DaoExecution.Type.SELECT, select.getType());
+        Assert.assertEquals(Arrays.asList("name1"), select.getParameters());
+        Assert.assertTrue(prepared.get(1).startsWith("/* tenant:1 */ SELECT"));
+        Assert.assertEquals(1, select.getRows());
+
+        Assert.assertEquals(2, factory.getInterceptors().size());
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        List<DaoExecution> executions = new ArrayList<>();
+        List<String> events = new ArrayList<>();
+
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Traced.class);
+        factory.addInterceptor(new DaoInterceptor() {
+
+            @Override
+            public void after(DaoExecution execution) {
+                events.add("after1");
+                executions.add(execution);
+            }
+        });
+        DaoInterceptor throttle = new DaoInterceptor() {
+
+            @Override
+            public void before(DaoExecution execution) throws SQLException {
+                throw new SQLException("throttled");
+            }
+
+            @Override
+            public void after(DaoExecution execution) {
+                events.add("after2");
+            }
+        };
+        factory.addInterceptor(throttle);
+        factory.addInterceptor(new DaoInterceptor() {
+
+            @Override
+            public void before(DaoExecution execution) {
+                events.add("before3");
+            }
+
+            @Override
+            public void after(DaoExecution execution) {
+                events.add("after3");
+            }
+        });
+        StubDatabase db = database("interceptorReject");
+        try {
+            TableDao<Traced> dao = new TableDao<>(db.connect(), factory.forTable(Traced.class));
+            try {
+                dao.selectByPK("1");
+                Assert.fail("rejected");
+            }
+            catch (SQLException ex) {
+                Assert.assertEquals("throttled", ex.getMessage());
+            }
+            // only the interceptor entered before the rejection is notified
+            Assert.assertEquals(0, db.getQueries());
+            Assert.assertEquals(Arrays.asList("after1"), events);
+            Assert.assertEquals("throttled", executions.get(0).getError().getMessage());
+            Assert.assertEquals(1, factory.getMetrics().of(Traced.class.getName(), "selectByPK").getErrors());
+
+            Assert.assertTrue(factory.removeInterceptor(throttle));
+            Assert.assertEquals("1", dao.selectByPK("1").getId());
+        }
+        finally {
+            StubDriver.drop("interceptorReject");
+        }
+        Assert.assertEquals(Arrays.asList("after1", "before3", "after3", "after1"), events);
+        Assert.assertNull(executions.get(1).getError());
+    }
+
+    @Test
+    public void testPrepareFailure() throws Exception {
+        List<String> events = new ArrayList<>();
+
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Traced.class);
+        factory.addInterceptor(new DaoInterceptor() {
+
+            @Override
+            public String prepare(DaoExecution execution, String sql) throws SQLException {
+                events.add("prepare");
+                throw new SQLException("denied");
+            }
+
+            @Override
+            public void before(DaoExecution execution) {
+                events.add("before");
+            }
+
+            @Override
+            public void after(DaoExecution execution) {
+                events.add("after");
+            }
+        });
+        StubDatabase db = database("interceptorPrepareFailure");
+        try {
+            TableDao<Traced> dao = new TableDao<>(db.connect(), factory.forTable(Traced.class));
+            try {
+                dao.selectByPK("1");
+                Assert.fail("denied");
+            }
+            catch (SQLException ex) {
+                Assert.assertEquals("denied", ex.getMessage());
+            }
+            Assert.assertEquals(Arrays.asList("prepare"), events);
+            Assert.assertEquals(0, db.getPrepares());
+            Assert.assertEquals(1, factory.getMetrics().of(Traced.class.getName(), "selectByPK").getErrors());
+
+            // closed without execution
+            events.clear();
+            factory.getInterceptors().forEach(factory::removeInterceptor);
+            factory.addInterceptor(new DaoInterceptor() {
+
+                @Override
+                public void after(DaoExecution execution) {
+                    events.add("after");
+                }
+            });
+            try (DaoStatement stmt = DaoStatement.prepare(db.connect(), factory, Traced.class.getName(), "noop", "SELECT 1")) {
+                Assert.assertNotNull(stmt.getStatement());
+            }
+            Assert.assertTrue(events.isEmpty());
+            Assert.assertEquals(0, db.getQueries());
+        }
+        finally {
+            StubDriver.drop("interceptorPrepareFailure");
+        }
+    }
+
+    @Test
+    public void testType() {
+        Assert.assertEquals(DaoExecution.Type.SELECT, DaoExecution.Type.of(" with x as (select 1) select * from x"));
+        Assert.assertEquals(DaoExecution.Type.UPDATE, DaoExecution.Type.of("update t set a=?"));
+        Assert.assertEquals(DaoExecution.Type.DELETE, DaoExecution.Type.of("DELETE FROM t"));
+        Assert.assertEquals(DaoExecution.Type.MERGE, DaoExecution.Type.of("MERGE INTO t"));
+        Assert.assertEquals(DaoExecution.Type.SELECT, DaoExecution.Type.of("/* x */ -- y\n select 1"));
+        Assert.assertEquals(DaoExecution.Type.OTHER, DaoExecution.Type.of("create table t"));
+        Assert.assertEquals(DaoExecution.Type.OTHER, DaoExecution.Type.of(null));
+    }
+
+    private StubDatabase database(String name) {
+        return StubDriver.database(name).table(
+                "traced",
+                new String[] { "id", "name" },
+                new Object[][] { { "1", "name1" } });
+    }
+
+    @TableInfo(name = "traced")
+    public static class Traced {
+
+        @ColumnInfo(name = "id", primaryKey = true)
+        private String id;
+
+        @ColumnInfo(name = "name")
+        private String name;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
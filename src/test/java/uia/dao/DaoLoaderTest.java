@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+import uia.dao.stub.StubDriverTest.Stubbed;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class DaoLoaderTest {
+
+    @Test
+    public void testBatch() throws Exception {
+        StubDatabase db = database("loaderBatch");
+        DaoLoader<Loaded> loader = new DaoLoader<>(helper(), db::connect, 200, 100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            ArrayList<Future<Loaded>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String id = "" + (i % 4);
+                futures.add(executor.submit(() -> loader.get(id)));
+            }
+            for (int i = 0; i < 8; i++) {
+                Loaded data = futures.get(i).get(5, TimeUnit.SECONDS);
+                Assert.assertEquals("" + (i % 4), data.getId());
+                Assert.assertEquals("name" + (i % 4), data.getName());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            StubDriver.drop("loaderBatch");
+        }
+
+        Assert.assertEquals(1, db.getQueries());
+        Assert.assertEquals(1, loader.getBatches());
+        Assert.assertEquals(4, loader.getJoins());
+        Assert.assertEquals(4.0, loader.getAverageBatchSize(), 0.01);
+    }
+
+    @Test
+    public void testFullBatch() throws Exception {
+        StubDatabase db = database("loaderFullBatch");
+        DaoLoader<Loaded> loader = new DaoLoader<>(helper(), db::connect, 60000, 1);
+        try {
+            long start = System.currentTimeMillis();
+            Assert.assertEquals("1", loader.get("1").getId());
+            Assert.assertNull(loader.get("missing"));
+            Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+        }
+        finally {
+            StubDriver.drop("loaderFullBatch");
+        }
+        Assert.assertEquals(2, db.getQueries());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        StubDatabase db = database("loaderFailure").fail("executeQuery", "down");
+        DaoLoader<Loaded> loader = new DaoLoader<>(helper(), db::connect, 0, 100);
+        try {
+            try {
+                loader.get("1");
+                Assert.fail("query failed");
+            }
+            catch (SQLException ex) {
+                Assert.assertEquals("down", ex.getMessage());
+            }
+
+            // the failed key is not kept in flight
+            try {
+                loader.get("1");
+                Assert.fail("query failed");
+            }
+            catch (SQLException ex) {
+            }
+        }
+        finally {
+            StubDriver.drop("loaderFailure");
+        }
+        Assert.assertEquals(2, loader.getBatches());
+    }
+
+    @Test
+    public void testBulkhead() throws Exception {
+        StubDatabase db = StubDriver.database("testLoaderBulkhead");
+        DaoEnv env = new DaoEnv(DaoEnv.DATAPOOL, false) {
+
+            @Override
+            protected void initialFactory(DaoFactory factory) throws Exception {
+                factory.addTable(Stubbed.class);
+            }
+        }.config(db.getUrl(), null, null, null).limit(1, 100);
+        db.table(env.forTable(Stubbed.class), 10);
+
+        // the caller holds the only permit, the leader doesn't wait for another one.
+        try (Connection conn = env.create()) {
+            Assert.assertEquals("id3", env.loader(Stubbed.class).get("id3").getId());
+        }
+        finally {
+            env.close();
+            StubDriver.drop("testLoaderBulkhead");
+        }
+        Assert.assertEquals(1, env.getBulkhead().getAcquired());
+        Assert.assertEquals(0, env.getBulkhead().getRejected());
+    }
+
+    private TableDaoHelper<Loaded> helper() {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Loaded.class);
+        return factory.forTable(Loaded.class);
+    }
+
+    /**
+     * The rows of ids 0 to 3, a query returns the rows of bound ids.
+     */
+    private StubDatabase database(String name) {
+        Object[][] rows = new Object[4][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[] { "" + i, "name" + i };
+        }
+        return StubDriver.database(name)
+                .table("loaded", new String[] { "id", "name" }, rows)
+                .match(true);
+    }
+
+    @TableInfo(name = "loaded")
+    public static class Loaded {
+
+        @ColumnInfo(name = "id", primaryKey = true)
+        private String id;
+
+        @ColumnInfo(name = "name")
+        private String name;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
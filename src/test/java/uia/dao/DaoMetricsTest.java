@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class DaoMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        DaoHistogram h = new DaoHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i);
+        }
+        Assert.assertEquals(1000, h.getCount());
+        Assert.assertEquals(1000, h.getMax());
+        Assert.assertEquals(500.5, h.getMean(), 0.01);
+        Assert.assertEquals(500, h.getPercentile(50), 500 / 8);
+        Assert.assertEquals(990, h.getPercentile(99), 990 / 8);
+        Assert.assertEquals(1000, h.getPercentile(100));
+
+        for (long v : new long[] { 0, 7, 8, 9, 1000, 123456789L, Long.MAX_VALUE }) {
+            int index = DaoHistogram.index(v);
+            Assert.assertTrue(v + " <= upper", v <= DaoHistogram.upper(index) || index == DaoHistogram.index(Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testTableDao() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Metered.class);
+        TableDaoHelper<Metered> helper = factory.forTable(Metered.class);
+        DaoMetrics metrics = factory.getMetrics();
+        StubDatabase db = StubDriver.database("metricsTableDao").table(
+                "metered",
+                new String[] { "id", "name" },
+                new Object[][] { { "1", "name1" } });
+        try {
+            TableDao<Metered> dao = new TableDao<>(db.connect(), helper);
+
+            Metered data = new Metered();
+            data.setId("1");
+            data.setName("name1");
+            dao.insert(data);
+            dao.insert(Arrays.asList(data, data, data));
+            Assert.assertEquals("1", dao.selectByPK("1").getId());
+
+            StatementMetrics insert = metrics.of(Metered.class.getName(), "insert");
+            Assert.assertEquals(2, insert.getCount());
+            Assert.assertEquals(4, insert.getRowsWritten());
+            Assert.assertEquals(1, insert.getBatchSize().getCount());
+            Assert.assertEquals(3, insert.getBatchSize().getMax());
+
+            StatementMetrics select = metrics.of(Metered.class.getName(), "selectByPK");
+            Assert.assertEquals(1, select.getCount());
+            Assert.assertEquals(1, select.getRowsRead());
+            Assert.assertEquals(1, select.getFetch().getCount());
+            Assert.assertEquals(0, select.getErrors());
+
+            // failure
+            db.fail("executeQuery", "down");
+            try {
+                dao.selectByPK("1");
+                Assert.fail("query failed");
+            }
+            catch (SQLException ex) {
+            }
+            Assert.assertEquals(1, select.getErrors());
+            Assert.assertEquals(2, select.getCount());
+        }
+        finally {
+            StubDriver.drop("metricsTableDao");
+        }
+
+        Assert.assertEquals(2, metrics.getStatements().size());
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.getMetrics().of("uia.dao.X", "select").record(100, 200, 300, false);
+        factory.getMetrics().register("test");
+        try {
+            ObjectName name = new ObjectName("uia.dao:type=DaoMetrics,name=" + ObjectName.quote("test"));
+            CompositeData[] statements = (CompositeData[]) ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Statements");
+            Assert.assertEquals(1, statements.length);
+            Assert.assertEquals("select", statements[0].get("operation"));
+            Assert.assertEquals(1L, ((CompositeData) statements[0].get("total")).get("count"));
+        }
+        finally {
+            factory.getMetrics().unregister();
+        }
+    }
+
+    @TableInfo(name = "metered")
+    public static class Metered {
+
+        @ColumnInfo(name = "id", primaryKey = true)
+        private String id;
+
+        @ColumnInfo(name = "name")
+        private String name;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class EntityCacheTest {
+
+    @Test
+    public void testSelectByPK() throws Exception {
+        StubDatabase db = database("entityCacheSelectByPK", "name");
+        TableDaoHelper<Cached> helper = helper();
+        try {
+            TableDao<Cached> dao = new TableDao<>(db.connect(), helper);
+
+            Cached c1 = dao.selectByPK("1");
+            Cached c2 = dao.selectByPK("1");
+            Assert.assertEquals(1, db.getQueries());
+            Assert.assertNotSame(c1, c2);
+            Assert.assertEquals("name1", c2.getName());
+
+            // defensive copy
+            c2.setName("changed");
+            Assert.assertEquals("name1", dao.selectByPK("1").getName());
+            Assert.assertEquals(1, db.getQueries());
+
+            // invalidated by update
+            dao.update(c2);
+            dao.selectByPK("1");
+            Assert.assertEquals(2, db.getQueries());
+
+            // evicted
+            dao.selectByPK("2");
+            dao.selectByPK("3");
+            Assert.assertEquals(2, helper.getCache().size());
+            Assert.assertEquals(1, helper.getCache().getEvictions());
+            Assert.assertEquals(2, helper.getCache().getHits());
+
+            dao.deleteAll();
+            Assert.assertEquals(0, helper.getCache().size());
+        }
+        finally {
+            StubDriver.drop("entityCacheSelectByPK");
+        }
+    }
+
+    @Test
+    public void testTransaction() throws Exception {
+        // the first session reads its uncommitted rows, the other reads committed rows
+        StubDatabase db1 = database("entityCacheDirty", "dirty");
+        StubDatabase db2 = database("entityCacheCommitted", "name");
+        TableDaoHelper<Cached> helper = helper();
+        try {
+            DaoEnv.ConnectionProxy conn1 = new DaoEnv.ConnectionProxy(db1.connect());
+            DaoEnv.ConnectionProxy conn2 = new DaoEnv.ConnectionProxy(db2.connect());
+            TableDao<Cached> dao1 = new TableDao<>(conn1, helper);
+            TableDao<Cached> dao2 = new TableDao<>(conn2, helper);
+
+            conn1.setAutoCommit(false);
+            dao1.update(cached("1"));
+            Assert.assertEquals("dirty1", dao1.selectByPK("1").getName());
+            Assert.assertEquals(0, helper.getCache().size());
+            Assert.assertEquals("name1", dao2.selectByPK("1").getName());
+            Assert.assertEquals(2, db1.getQueries() + db2.getQueries());
+
+            // the committed row cached by the other session is not read in the transaction
+            Assert.assertEquals("dirty1", dao1.selectByPK("1").getName());
+            Assert.assertEquals(3, db1.getQueries() + db2.getQueries());
+
+            // a transaction not writing the table uses the cache
+            TableDao<Cached> dao3 = new TableDao<>(conn2, helper);
+            conn2.setAutoCommit(false);
+            Assert.assertEquals("name1", dao3.selectByPK("1").getName());
+            Assert.assertEquals(3, db1.getQueries() + db2.getQueries());
+            conn2.setAutoCommit(true);
+
+            conn1.rollback();
+            Assert.assertEquals(0, helper.getCache().size());
+            Assert.assertEquals("name1", dao2.selectByPK("1").getName());
+            Assert.assertEquals(4, db1.getQueries() + db2.getQueries());
+            Assert.assertEquals(1, db1.getRollbacks());
+        }
+        finally {
+            StubDriver.drop("entityCacheDirty");
+            StubDriver.drop("entityCacheCommitted");
+        }
+    }
+
+    @Test
+    public void testLfu() throws Exception {
+        EntityCache<Cached> cache = new EntityCache<>(helper().forSelect(), 2, 0, CachePolicy.LFU);
+        cache.put("a", cached("a"), cache.version());
+        cache.put("b", cached("b"), cache.version());
+        cache.get("a");
+        cache.get("a");
+        cache.put("c", cached("c"), cache.version());
+
+        Assert.assertNull(cache.get("b"));
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNotNull(cache.get("c"));
+        Assert.assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testStalePut() throws Exception {
+        EntityCache<Cached> cache = new EntityCache<>(helper().forSelect(), 2, 0, CachePolicy.LRU);
+        long version = cache.version();
+        cache.invalidate("a");
+        cache.put("a", cached("a"), version);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testTtl() throws Exception {
+        EntityCache<Cached> cache = new EntityCache<>(helper().forSelect(), 2, 1, CachePolicy.LRU);
+        cache.put("a", cached("a"), cache.version());
+        Thread.sleep(5);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(1, cache.getExpirations());
+    }
+
+    private Cached cached(String id) {
+        Cached data = new Cached();
+        data.setId(id);
+        data.setName("name" + id);
+        return data;
+    }
+
+    private TableDaoHelper<Cached> helper() {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Cached.class);
+        return factory.forTable(Cached.class);
+    }
+
+    /**
+     * The rows of ids 1 to 3, a query returns the row of the bound id.
+     */
+    private StubDatabase database(String name, String prefix) {
+        Object[][] rows = new Object[3][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[] { "" + (i + 1), prefix + (i + 1) };
+        }
+        return StubDriver.database(name)
+                .table("cached", new String[] { "id", "name" }, rows)
+                .match(true);
+    }
+
+    @TableInfo(name = "cached", cacheSize = 2)
+    public static class Cached {
+
+        @ColumnInfo(name = "id", primaryKey = true)
+        private String id;
+
+        @ColumnInfo(name = "name")
+        private String name;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.DaoInfo;
+import uia.dao.annotation.DeleteInfo;
+import uia.dao.annotation.SelectInfo;
+import uia.dao.annotation.UpdateInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+import uia.dao.stub.StubDriverTest.Stubbed;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class ProxyDaoTest {
+
+    @Test
+    public void testTableProxy() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        StubDatabase db = StubDriver.database("testTableProxy").table(factory.forTable(Stubbed.class), 10);
+        try (Connection conn = db.connect()) {
+            StubbedDao dao1 = factory.proxyTableDao(StubbedDao.class, conn);
+            StubbedDao dao2 = factory.proxyTableDao(StubbedDao.class, conn);
+            Assert.assertNotSame(dao1, dao2);
+            Assert.assertSame(dao1.getClass(), dao2.getClass());
+
+            Assert.assertEquals(10, dao1.select("id1", 1).size());
+            Assert.assertEquals("id0", dao1.selectOne("id0").getId());
+            Assert.assertEquals(10, dao2.selectBy(rs -> true, "id1").size());
+            Assert.assertEquals(0, dao2.selectBy(rs -> false, "id1").size());
+            Assert.assertEquals(1, dao1.update(3, "id1"));
+            Assert.assertEquals(1, dao2.delete("id1"));
+            Assert.assertNull(dao1.nothing());
+        }
+        finally {
+            StubDriver.drop("testTableProxy");
+        }
+
+        Assert.assertEquals(4, db.getQueries());
+        Assert.assertEquals(2, db.getUpdates());
+        Assert.assertEquals(2 + 1 + 1 + 1 + 2 + 1, db.getBinds());
+    }
+
+    @Test
+    public void testMapper() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        StubDatabase db = StubDriver.database("testMapper").table(factory.forTable(Stubbed.class), 5);
+        Counter.CREATED.set(0);
+        try (Connection conn = db.connect()) {
+            for (int i = 0; i < 3; i++) {
+                StubbedDao dao = factory.proxyTableDao(StubbedDao.class, conn);
+                Assert.assertEquals(Integer.valueOf(5), dao.count("id1"));
+            }
+        }
+        finally {
+            StubDriver.drop("testMapper");
+        }
+        Assert.assertEquals(1, Counter.CREATED.get());
+    }
+
+    @Test
+    public void testResultCache() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        StubDatabase db = StubDriver.database("testResultCache").table(factory.forTable(Stubbed.class), 5);
+        try (Connection conn = db.connect()) {
+            StubbedDao dao = factory.proxyTableDao(StubbedDao.class, conn);
+            dao.selectCached("id1");
+            dao.selectCached("id1");
+            Assert.assertEquals(1, db.getQueries());
+
+            // every write invalidates the results
+            Stubbed row = new Stubbed();
+            row.setId("id9");
+            dao.insert(row);
+            dao.selectCached("id1");
+            Assert.assertEquals(2, db.getQueries());
+            dao.insertMulti(Arrays.asList(row, row));
+            dao.selectCached("id1");
+            Assert.assertEquals(3, db.getQueries());
+            dao.insertBatched(Arrays.asList(row), 10);
+            dao.selectCached("id1");
+            Assert.assertEquals(4, db.getQueries());
+
+            // not loaded in a transaction
+            conn.setAutoCommit(false);
+            dao.insert(row);
+            dao.selectCached("id1");
+            dao.selectCached("id1");
+            Assert.assertEquals(6, db.getQueries());
+            Assert.assertEquals(0, factory.forTable(Stubbed.class).getResultCache().size());
+        }
+        finally {
+            StubDriver.drop("testResultCache");
+        }
+    }
+
+    @Test
+    public void testResultCacheInvalidation() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        TableDaoHelper<Stubbed> helper = factory.forTable(Stubbed.class);
+        StubDatabase db = StubDriver.database("testResultCacheInvalidation").table(helper, 5);
+        try (DaoEnv.ConnectionProxy conn = new DaoEnv.ConnectionProxy(db.connect())) {
+            // no cache without a @SelectInfo method caching results
+            Stubbed row = new Stubbed();
+            row.setId("id9");
+            new TableDao<>(conn, helper).insert(row);
+            Assert.assertNull(helper.getResultCache());
+
+            StubbedDao dao = factory.proxyTableDao(StubbedDao.class, conn);
+            Assert.assertNotNull(helper.getResultCache());
+            dao.selectCached("id1");
+            Assert.assertEquals(1, helper.getResultCache().size());
+
+            // one deferred invalidation per transaction
+            conn.setAutoCommit(false);
+            dao.update(Arrays.asList(row, row));
+            Object deferred = conn.getDirty(helper);
+            Assert.assertTrue(deferred instanceof Runnable);
+            dao.insert(row);
+            dao.upsert(Arrays.asList(row, row));
+            Assert.assertSame(deferred, conn.getDirty(helper));
+            Assert.assertEquals(0, helper.getResultCache().size());
+
+            conn.commit();
+            Assert.assertFalse(conn.isDirty(helper));
+        }
+        finally {
+            StubDriver.drop("testResultCacheInvalidation");
+        }
+    }
+
+    @DaoInfo(type = Stubbed.class)
+    public static abstract class StubbedDao extends TableDao<Stubbed> {
+
+        public StubbedDao(Connection conn, TableDaoHelper<Stubbed> helper) {
+            super(conn, helper);
+        }
+
+        @SelectInfo(sql = "WHERE id<>? AND qty>?")
+        public abstract List<Stubbed> select(String id, int qty) throws SQLException, DaoException;
+
+        @SelectInfo(sql = "WHERE id<>?", cacheTtl = 60000)
+        public abstract List<Stubbed> selectCached(String id) throws SQLException, DaoException;
+
+        @SelectInfo(sql = "WHERE id=?")
+        public abstract Stubbed selectOne(String id) throws SQLException, DaoException;
+
+        @SelectInfo(sql = "WHERE id<>?")
+        public abstract List<Stubbed> selectBy(Filter filter, String id) throws SQLException, DaoException;
+
+        @SelectInfo(sql = "WHERE id<>?", mapper = Counter.class)
+        public abstract Integer count(String id) throws SQLException, DaoException;
+
+        @UpdateInfo(sql = "SET qty=? WHERE id=?")
+        public abstract int update(int qty, String id) throws SQLException, DaoException;
+
+        @DeleteInfo(sql = "WHERE id=?")
+        public abstract int delete(String id) throws SQLException, DaoException;
+
+        public abstract List<Stubbed> nothing() throws SQLException, DaoException;
+    }
+
+    public static class Counter implements ObjectMapper<Integer> {
+
+        static final AtomicInteger CREATED = new AtomicInteger();
+
+        public Counter() {
+            CREATED.incrementAndGet();
+        }
+
+        @Override
+        public Integer read(ResultSet rs) throws SQLException {
+            int n = 0;
+            while (rs.next()) {
+                n++;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.ViewInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+import uia.dao.where.Where;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class ResultCacheTest {
+
+    @Test
+    public void testViewSelect() throws Exception {
+        StubDatabase db = database("resultCacheViewSelect");
+        ViewDaoHelper<CachedView> helper = helper();
+        try {
+            ViewDao<CachedView> dao = new ViewDao<>(db.connect(), helper);
+
+            List<CachedView> r1 = dao.select(Where.simpleAnd().eq("id", "1"));
+            List<CachedView> r2 = dao.select(Where.simpleAnd().eq("id", "1"));
+            Assert.assertEquals(1, db.getQueries());
+            Assert.assertEquals(1, r2.size());
+            Assert.assertNotSame(r1.get(0), r2.get(0));
+
+            // defensive copy
+            r2.get(0).setName("changed");
+            Assert.assertEquals("name1", dao.select(Where.simpleAnd().eq("id", "1")).get(0).getName());
+
+            // another key
+            dao.select(Where.simpleAnd().eq("id", "2"));
+            Assert.assertEquals(2, db.getQueries());
+
+            // explicit invalidation
+            helper.getResultCache().clear();
+            dao.select(Where.simpleAnd().eq("id", "1"));
+            Assert.assertEquals(3, db.getQueries());
+            Assert.assertEquals(2, helper.getResultCache().getHits());
+        }
+        finally {
+            StubDriver.drop("resultCacheViewSelect");
+        }
+    }
+
+    @Test
+    public void testTransaction() throws Exception {
+        StubDatabase db = database("resultCacheTransaction");
+        ViewDaoHelper<CachedView> helper = helper();
+        try (Connection conn = db.connect()) {
+            ViewDao<CachedView> dao = new ViewDao<>(conn, helper);
+
+            // rows of a transaction may not be committed
+            conn.setAutoCommit(false);
+            dao.select(Where.simpleAnd().eq("id", "1"));
+            dao.select(Where.simpleAnd().eq("id", "1"));
+            Assert.assertEquals(2, db.getQueries());
+            Assert.assertEquals(0, helper.getResultCache().size());
+
+            conn.setAutoCommit(true);
+            dao.select(Where.simpleAnd().eq("id", "1"));
+            dao.select(Where.simpleAnd().eq("id", "1"));
+            Assert.assertEquals(3, db.getQueries());
+            Assert.assertEquals(1, helper.getResultCache().size());
+        }
+        finally {
+            StubDriver.drop("resultCacheTransaction");
+        }
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        ResultCache<CachedView> cache = new ResultCache<>(helper().forSelect(), 10);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<List<CachedView>>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.get("sql", Arrays.asList(1), 60000, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException ex) {
+                    throw new DaoException(ex);
+                }
+                return Arrays.asList(view("1"));
+            })));
+            loading.await();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> cache.get("sql", Arrays.asList(1L), 60000, () -> {
+                    loads.incrementAndGet();
+                    return Collections.emptyList();
+                })));
+            }
+            while (cache.getJoins() < 3) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            for (Future<List<CachedView>> f : futures) {
+                Assert.assertEquals("1", f.get(5, TimeUnit.SECONDS).get(0).getId());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testFailureNotCached() throws Exception {
+        ResultCache<CachedView> cache = new ResultCache<>(helper().forSelect(), 10);
+        try {
+            cache.get("sql", Collections.emptyList(), 60000, () -> {
+                throw new SQLException("down");
+            });
+            Assert.fail("loader failed");
+        }
+        catch (SQLException ex) {
+        }
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.get("sql", Collections.emptyList(), 60000, () -> Arrays.asList(view("1"))).size());
+    }
+
+    @Test
+    public void testTtlAndEviction() throws Exception {
+        ResultCache<CachedView> cache = new ResultCache<>(helper().forSelect(), 2);
+        AtomicInteger loads = new AtomicInteger();
+        ResultCache.Loader<CachedView> loader = () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(view("1"));
+        };
+
+        cache.get("a", Collections.emptyList(), 1, loader);
+        Thread.sleep(5);
+        cache.get("a", Collections.emptyList(), 1, loader);
+        Assert.assertEquals(2, loads.get());
+
+        cache.get("b", Collections.emptyList(), 60000, loader);
+        cache.get("c", Collections.emptyList(), 60000, loader);
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+    }
+
+    private CachedView view(String id) {
+        CachedView data = new CachedView();
+        data.setId(id);
+        data.setName("name" + id);
+        return data;
+    }
+
+    private ViewDaoHelper<CachedView> helper() {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addView(CachedView.class);
+        return factory.forView(CachedView.class);
+    }
+
+    /**
+     * The rows of ids 1 and 2, a query returns the row of the bound id.
+     */
+    private StubDatabase database(String name) {
+        return StubDriver.database(name)
+                .table("cached_view", new String[] { "id", "name" }, new Object[][] { { "1", "name1" }, { "2", "name2" } })
+                .match(true);
+    }
+
+    @ViewInfo(name = "cached_view", cacheTtl = 60000)
+    public static class CachedView {
+
+        @ColumnInfo(name = "id")
+        private String id;
+
+        @ColumnInfo(name = "name")
+        private String name;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
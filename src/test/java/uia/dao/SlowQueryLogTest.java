@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+import uia.dao.where.Where;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class SlowQueryLogTest {
+
+    @Test
+    public void testRing() {
+        SlowQueryLog log = new SlowQueryLog(10, 3);
+        for (int i = 0; i < 5; i++) {
+            log.add(new SlowQueryLog.Entry("X", "op" + i, "select 1", null, 0, 0, 20000000L, 0, false));
+        }
+        List<SlowQueryLog.Entry> entries = log.getEntries();
+        Assert.assertEquals(5, log.getCount());
+        Assert.assertEquals(3, entries.size());
+        Assert.assertEquals("op2", entries.get(0).getOperation());
+        Assert.assertEquals("op4", entries.get(2).getOperation());
+        Assert.assertTrue(log.isSlow(10000000L));
+        Assert.assertFalse(log.isSlow(9999999L));
+
+        log.clear();
+        Assert.assertEquals(0, log.getEntries().size());
+    }
+
+    @Test
+    public void testTableDao() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Slow.class);
+        factory.setSlowQueryLog(new SlowQueryLog(0, 10).sampleRate(1));
+        StubDatabase db = database("slowQueryTableDao");
+        try {
+            TableDao<Slow> dao = new TableDao<>(db.connect(), factory.forTable(Slow.class));
+
+            Slow data = new Slow();
+            data.setId("1");
+            data.setName("name1");
+            dao.insert(data);
+            Assert.assertEquals("1", dao.selectByPK("1").getId());
+            Assert.assertEquals(1, dao.select(Where.simpleAnd().eq("name", "name1")).size());
+        }
+        finally {
+            StubDriver.drop("slowQueryTableDao");
+        }
+
+        List<SlowQueryLog.Entry> entries = factory.getSlowQueryLog().getEntries();
+        Assert.assertEquals(3, entries.size());
+
+        SlowQueryLog.Entry insert = entries.get(0);
+        Assert.assertEquals(Slow.class.getName(), insert.getDto());
+        Assert.assertEquals("insert", insert.getOperation());
+        Assert.assertEquals(Arrays.asList("1", "name1"), insert.getParameters());
+        Assert.assertEquals(1, insert.getRows());
+
+        SlowQueryLog.Entry select = entries.get(2);
+        Assert.assertEquals("select", select.getOperation());
+        Assert.assertEquals(Arrays.asList("name1"), select.getParameters());
+        Assert.assertTrue(select.render(), select.render().endsWith("name='name1'"));
+        Assert.assertEquals(1, select.getRows());
+    }
+
+    @Test
+    public void testSampling() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Slow.class);
+        factory.setSlowQueryLog(new SlowQueryLog(0, 10).sampleRate(0));
+        StubDatabase db = database("slowQuerySampling");
+        try {
+            TableDao<Slow> dao = new TableDao<>(db.connect(), factory.forTable(Slow.class));
+            dao.selectByPK("1");
+
+            SlowQueryLog.Entry entry = factory.getSlowQueryLog().getEntries().get(0);
+            Assert.assertNull(entry.getParameters());
+            Assert.assertEquals(entry.getSql(), entry.render());
+
+            // the parameters of a DTO object and a 'where' are read again without sampling
+            Slow data = new Slow();
+            data.setId("2");
+            data.setName("name2");
+            dao.insert(data);
+            dao.select(Where.simpleAnd().eq("name", "name2"));
+            List<SlowQueryLog.Entry> entries = factory.getSlowQueryLog().getEntries();
+            Assert.assertEquals(Arrays.asList("2", "name2"), entries.get(1).getParameters());
+            Assert.assertEquals(Arrays.asList("name2"), entries.get(2).getParameters());
+
+            // not slow
+            factory.setSlowQueryLog(new SlowQueryLog(60000, 10));
+            dao.selectByPK("1");
+            Assert.assertEquals(0, factory.getSlowQueryLog().getCount());
+        }
+        finally {
+            StubDriver.drop("slowQuerySampling");
+        }
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        Path file = Files.createTempFile("slow", ".log");
+        try {
+            SlowQueryLog log = new SlowQueryLog(0, 10).file(file);
+            log.add(new SlowQueryLog.Entry("X", "select", "select * from x where id=?", Arrays.asList("1"), 1, 0, 0, 0, false));
+            log.add(new SlowQueryLog.Entry("X", "delete", "delete from x", null, 2, 0, 0, 0, true));
+            // written by the background thread
+            log.close();
+            log.add(new SlowQueryLog.Entry("X", "update", "update x", null, 2, 0, 0, 0, false));
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            Assert.assertEquals(2, lines.size());
+            Assert.assertTrue(lines.get(0), lines.get(0).endsWith("select * from x where id='1'"));
+            Assert.assertTrue(lines.get(1), lines.get(1).contains("X.delete FAILED"));
+            Assert.assertEquals(0, log.getFileErrors());
+            Assert.assertEquals(0, log.getFileDrops());
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testSampleRate() {
+        SlowQueryLog log = new SlowQueryLog(0, 10);
+        Assert.assertEquals(SlowQueryLog.DEFAULT_SAMPLE_RATE, log.getSampleRate(), 0);
+        Assert.assertTrue(log.sampleRate(1).sample());
+        Assert.assertFalse(log.sampleRate(0).sample());
+    }
+
+    @Test
+    public void testRender() {
+        Assert.assertEquals(
+                "a='?' and b='2'",
+                Where.toString("a=? and b=?", Arrays.asList("?", 2)));
+    }
+
+    private StubDatabase database(String name) {
+        return StubDriver.database(name).table(
+                "slow",
+                new String[] { "id", "name" },
+                new Object[][] { { "1", "name1" } });
+    }
+
+    @TableInfo(name = "slow")
+    public static class Slow {
+
+        @ColumnInfo(name = "id", primaryKey = true)
+        private String id;
+
+        @ColumnInfo(name = "name")
+        private String name;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
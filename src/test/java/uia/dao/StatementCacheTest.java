@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+public class StatementCacheTest {
+
+    @Test
+    public void testReuse() throws Exception {
+        StubDatabase db = StubDriver.database("statementCacheReuse");
+        try {
+            DaoEnv.ConnectionProxy conn = new DaoEnv.ConnectionProxy(db.connect(), 2);
+            StatementCache cache = conn.getStatementCache();
+
+            PreparedStatement borrowed;
+            try (PreparedStatement ps = conn.prepareStatement("select 1")) {
+                ps.setString(1, "a");
+                borrowed = ps;
+            }
+            Assert.assertTrue(borrowed instanceof CachedStatement);
+            Assert.assertTrue(borrowed.isClosed());
+            try {
+                borrowed.setString(1, "b");
+                Assert.fail("closed");
+            }
+            catch (SQLException ex) {
+            }
+            try (PreparedStatement ps = conn.prepareStatement("select 1")) {
+                // nested use of the same SQL gets another statement.
+                try (PreparedStatement ps2 = conn.prepareStatement("select 1")) {
+                    Assert.assertNotSame(ps, ps2);
+                }
+            }
+            Assert.assertEquals(2, db.getPrepares());
+            Assert.assertEquals(1, cache.getHits());
+            Assert.assertEquals(2, cache.getMisses());
+            Assert.assertEquals(1, cache.size());
+            Assert.assertEquals(1, db.getStatementCloses());
+
+            conn.prepareStatement("select 2").close();
+            conn.prepareStatement("select 3").close();
+            Assert.assertEquals(2, cache.size());
+            Assert.assertEquals(1, cache.getEvictions());
+
+            conn.close();
+            Assert.assertEquals(0, cache.size());
+            Assert.assertEquals(4, db.getStatementCloses());
+            Assert.assertEquals(1, db.getConnectionCloses());
+        }
+        finally {
+            StubDriver.drop("statementCacheReuse");
+        }
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        StubDatabase db = StubDriver.database("statementCacheDisabled");
+        try {
+            DaoEnv.ConnectionProxy conn = new DaoEnv.ConnectionProxy(db.connect(), 0);
+            Assert.assertNull(conn.getStatementCache());
+
+            conn.prepareStatement("select 1").close();
+            conn.prepareStatement("select 1").close();
+            Assert.assertEquals(2, db.getPrepares());
+            Assert.assertEquals(2, db.getStatementCloses());
+        }
+        finally {
+            StubDriver.drop("statementCacheDisabled");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.sample1.One;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+public class TableDaoBatchTest {
+
+    @Test
+    public void testChunks() throws Exception {
+        StubDatabase db = StubDriver.database("batchChunks").product("PostgreSQL").trace(true);
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+
+            ArrayList<Integer> chunks = new ArrayList<>();
+            long affected = dao.insertBatched(
+                    IntStream.range(0, 7).mapToObj(this::one),
+                    3,
+                    true,
+                    (chunk, rows, n, total) -> chunks.add(rows));
+
+            Assert.assertEquals(7, affected);
+            Assert.assertEquals("[3, 3, 1]", chunks.toString());
+        }
+        finally {
+            StubDriver.drop("batchChunks");
+        }
+        List<String> calls = db.getTrace();
+        Assert.assertEquals(3, db.getBatches());
+        Assert.assertEquals(3, db.getCommits());
+        Assert.assertEquals("setAutoCommit(true)", calls.get(calls.size() - 1));
+    }
+
+    @Test
+    public void testCommitInTransaction() throws Exception {
+        StubDatabase db = StubDriver.database("batchCommitInTransaction").product("PostgreSQL");
+        try {
+            Connection conn = db.connect();
+            TableDao<One> dao = new TableDao<>(conn, helper());
+
+            // the pending work of the caller must not be committed by the chunks
+            conn.setAutoCommit(false);
+            try {
+                dao.insertBatched(IntStream.range(0, 7).mapToObj(this::one), 3, true, null);
+                Assert.fail("commitPerChunk in a transaction");
+            }
+            catch (IllegalStateException ex) {
+            }
+            Assert.assertEquals(0, db.getBatches());
+            Assert.assertEquals(0, db.getCommits());
+            Assert.assertFalse(conn.getAutoCommit());
+        }
+        finally {
+            StubDriver.drop("batchCommitInTransaction");
+        }
+    }
+
+    @Test
+    public void testRollbackFailed() throws Exception {
+        StubDatabase db = StubDriver.database("batchRollbackFailed")
+                .product("PostgreSQL")
+                .fail("rollback", "rollback failed");
+        try {
+            Connection conn = db.connect();
+            TableDao<One> dao = new TableDao<>(conn, helper());
+
+            Iterator<One> data = IntStream.range(0, 7)
+                    .mapToObj(i -> {
+                        if (i == 4) {
+                            throw new IllegalArgumentException("bad row");
+                        }
+                        return one(i);
+                    })
+                    .iterator();
+            try {
+                dao.insertBatched(data, 3, true, null);
+                Assert.fail("bad row");
+            }
+            catch (IllegalArgumentException ex) {
+                Assert.assertEquals("bad row", ex.getMessage());
+                Assert.assertEquals("rollback failed", ex.getSuppressed()[0].getMessage());
+            }
+            Assert.assertEquals(1, db.getCommits());
+            Assert.assertTrue(conn.getAutoCommit());
+        }
+        finally {
+            StubDriver.drop("batchRollbackFailed");
+        }
+    }
+
+    @Test
+    public void testNoCommit() throws Exception {
+        StubDatabase db = StubDriver.database("batchNoCommit").product("PostgreSQL");
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+
+            ArrayList<One> data = new ArrayList<>();
+            IntStream.range(0, 5).forEach(i -> data.add(one(i)));
+
+            Assert.assertEquals(5, dao.updateBatched(data, 2));
+            Assert.assertEquals(3, db.getBatches());
+            Assert.assertEquals(0, db.getCommits());
+        }
+        finally {
+            StubDriver.drop("batchNoCommit");
+        }
+    }
+
+    @Test
+    public void testInsertMulti() throws Exception {
+        StubDatabase db = StubDriver.database("batchInsertMulti").product("Microsoft SQL Server").trace(true);
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+
+            ArrayList<One> data = new ArrayList<>();
+            IntStream.range(0, 1000).forEach(i -> data.add(one(i)));
+
+            // 2098 / 4 columns = 524 rows per statement, the rest 476 rows = 256 + 128 + 64 + 16 + 8 + 4
+            Assert.assertEquals(1000, dao.insertMulti(data));
+        }
+        finally {
+            StubDriver.drop("batchInsertMulti");
+        }
+        List<Integer> rows = db.getTrace("prepareStatement").stream()
+                .filter(c -> c.startsWith("INSERT"))
+                .map(c -> c.split("\\),\\(").length)
+                .collect(Collectors.toList());
+        Assert.assertEquals("[524, 256, 128, 64, 16, 8, 4]", rows.toString());
+    }
+
+    @Test
+    public void testInsertMultiUnsupported() throws Exception {
+        StubDatabase db = StubDriver.database("batchInsertMultiUnsupported").product("Oracle");
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+
+            ArrayList<One> data = new ArrayList<>();
+            IntStream.range(0, 3).forEach(i -> data.add(one(i)));
+
+            Assert.assertEquals(3, dao.insertMulti(data));
+            Assert.assertEquals(1, db.getBatches());
+        }
+        finally {
+            StubDriver.drop("batchInsertMultiUnsupported");
+        }
+    }
+
+    private TableDaoHelper<One> helper() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.load("uia.dao.sample1");
+        return factory.forTable(One.class);
+    }
+
+    private One one(int i) {
+        One one = new One();
+        one.setId("" + i);
+        one.setName("name" + i);
+        return one;
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.hana.Hana;
+import uia.dao.ora.Oracle;
+import uia.dao.pg.PostgreSQL;
+import uia.dao.sample1.One;
+import uia.dao.sqlserver.SQLServer;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+import uia.dao.where.SeekWhere;
+import uia.dao.where.Where;
+
+public class TableDaoPageTest {
+
+    @Test
+    public void testSeekWhere() {
+        SeekWhere where = new SeekWhere(new String[] { "name", "id desc" }, new Object[] { "a", "1" });
+        Assert.assertEquals("(name>?) or (name=? and id<?)", where.generate());
+        Assert.assertEquals("name,id desc", where.orderBy());
+        Assert.assertEquals(Arrays.asList("name", "id"), where.getColumns());
+        Assert.assertFalse(new SeekWhere(new String[] { "id" }, null).hasConditions());
+    }
+
+    @Test
+    public void testLimitSql() throws Exception {
+        String sql = "SELECT id FROM one order by id";
+        Assert.assertEquals(sql + " LIMIT 10", new PostgreSQL().generateLimitSQL(sql, 10));
+        Assert.assertEquals(sql + " LIMIT 10", new Hana().generateLimitSQL(sql, 10));
+        Assert.assertEquals(sql + " FETCH FIRST 10 ROWS ONLY", new Oracle().generateLimitSQL(sql, 10));
+        Assert.assertEquals("SELECT TOP 10 id FROM one order by id", new SQLServer().generateLimitSQL(sql, 10));
+        Assert.assertEquals("select distinct TOP 10 id FROM one", new SQLServer().generateLimitSQL("select distinct id FROM one", 10));
+    }
+
+    @Test
+    public void testPage() throws Exception {
+        StubDatabase db = database("pagePage", 3).product("PostgreSQL").trace(true);
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+
+            DaoPage<One> page = dao.page(Where.simpleAnd().eq("state_name", 1), new String[] { "id" }, null, 2);
+            Assert.assertEquals(2, page.getRows().size());
+            Assert.assertTrue(page.hasNext());
+            Assert.assertArrayEquals(new Object[] { "1" }, page.getNextKey());
+
+            page = dao.page(Where.simpleAnd().eq("state_name", 1), new String[] { "id" }, page.getNextKey(), 5);
+            Assert.assertEquals(3, page.getRows().size());
+            Assert.assertFalse(page.hasNext());
+        }
+        finally {
+            StubDriver.drop("pagePage");
+        }
+        List<String> sqls = db.getTrace("prepareStatement");
+        Assert.assertTrue(sqls.get(0).endsWith("where (state_name=?) order by id LIMIT 3"));
+        Assert.assertTrue(sqls.get(1).endsWith("where (state_name=?) and ((id>?)) order by id LIMIT 6"));
+        Assert.assertEquals(Arrays.asList("setObject(1,1)", "setObject(1,1)", "setObject(2,1)"), binds(db));
+    }
+
+    @Test
+    public void testTopN() throws Exception {
+        StubDatabase db = database("pageTopN", 10).product("Microsoft SQL Server").trace(true);
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+            Assert.assertEquals(5, dao.select(null, "id", 5).size());
+
+            // unknown dialect
+            db.product("MySQL");
+            dao = new TableDao<>(db.connect(), helper());
+            Assert.assertEquals(3, dao.selectAll(3).size());
+        }
+        finally {
+            StubDriver.drop("pageTopN");
+        }
+        List<String> sqls = db.getTrace("prepareStatement");
+        Assert.assertTrue(sqls.get(0).startsWith("SELECT TOP 5 id,name,birthday,state_name FROM one"));
+        Assert.assertTrue(sqls.get(0).endsWith(" order by id"));
+        Assert.assertFalse(sqls.get(1).contains("3"));
+        Assert.assertEquals(Arrays.asList("setMaxRows(3)"), binds(db));
+    }
+
+    @Test
+    public void testToListFilter() throws Exception {
+        StubDatabase db = database("pageToListFilter", 10);
+        try (Connection conn = db.connect();
+             PreparedStatement ps = conn.prepareStatement("SELECT id,name,birthday,state_name FROM one")) {
+            // accept odd rows only
+            AtomicInteger seen = new AtomicInteger();
+            List<One> rows;
+            try (ResultSet rs = ps.executeQuery()) {
+                rows = helper().forSelect().toList(rs, r -> seen.incrementAndGet() % 2 == 0, 3);
+            }
+            Assert.assertEquals(3, rows.size());
+            Assert.assertEquals("5", rows.get(2).getId());
+            Assert.assertEquals(6, db.getRowsRead());
+        }
+        finally {
+            StubDriver.drop("pageToListFilter");
+        }
+    }
+
+    private TableDaoHelper<One> helper() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.load("uia.dao.sample1");
+        return factory.forTable(One.class);
+    }
+
+    /**
+     * The rows of ids 0 to rows - 1, conditions and limits in SQL are ignored.
+     */
+    private StubDatabase database(String name, int rows) {
+        Object[][] data = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            data[i] = new Object[] { "" + i, null, null, 0 };
+        }
+        return StubDriver.database(name).table("one", new String[] { "id", "name", "birthday", "state_name" }, data);
+    }
+
+    private List<String> binds(StubDatabase db) {
+        return db.getTrace().stream()
+                .filter(c -> c.startsWith("set"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.sample1.One;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+public class TableDaoSelectByPKsTest {
+
+    @Test
+    public void testChunks() throws Exception {
+        // a query returns the row of each bound key, 'x' is not found
+        Object[][] rows = new Object[1003][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[] { "" + i, null, null, 0 };
+        }
+        StubDatabase db = StubDriver.database("selectByPKsChunks")
+                .product("Oracle")
+                .table("one", new String[] { "id", "name", "birthday", "state_name" }, rows)
+                .match(true)
+                .trace(true);
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+
+            ArrayList<String> keys = new ArrayList<>();
+            for (int i = 0; i < 1003; i++) {
+                keys.add("" + i);
+            }
+            keys.add("0");
+            keys.add("x"); // not found
+
+            Map<String, One> result = dao.selectByPKs(keys);
+            Assert.assertEquals(1003, result.size());
+            Assert.assertEquals("7", result.get("7").getId());
+        }
+        finally {
+            StubDriver.drop("selectByPKsChunks");
+        }
+
+        // 1000 + 4 (1004 distinct keys)
+        List<String> sqls = db.getTrace("prepareStatement");
+        Assert.assertEquals(2, sqls.size());
+        Assert.assertEquals(1000, sqls.get(0).split("\\?").length - 1);
+        Assert.assertEquals(4, sqls.get(1).split("\\?").length - 1);
+    }
+
+    @Test
+    public void testWherePKs() throws Exception {
+        TableDaoHelper<One> helper = helper();
+        Assert.assertEquals("id IN (?,?,?)", helper.forWherePKs(3, true));
+    }
+
+    private TableDaoHelper<One> helper() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.load("uia.dao.sample1");
+        return factory.forTable(One.class);
+    }
+}
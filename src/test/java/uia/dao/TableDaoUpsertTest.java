@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.hana.Hana;
+import uia.dao.ora.Oracle;
+import uia.dao.pg.PostgreSQL;
+import uia.dao.sample1.One;
+import uia.dao.sqlserver.SQLServer;
+import uia.dao.sqlserver.SQLServerOld;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+public class TableDaoUpsertTest {
+
+    @Test
+    public void testSql() throws Exception {
+        TableDaoHelper<One> helper = helper();
+        Assert.assertEquals(
+                "INSERT INTO one(id,name,birthday,state_name) VALUES (?,?,?,?) ON CONFLICT (id) DO UPDATE SET name=EXCLUDED.name,birthday=EXCLUDED.birthday,state_name=EXCLUDED.state_name",
+                helper.forUpsert(new PostgreSQL()));
+        Assert.assertEquals(
+                "MERGE INTO one x USING (SELECT ? id,? name,? birthday,? state_name FROM DUAL) s ON (x.id=s.id) WHEN MATCHED THEN UPDATE SET name=s.name,birthday=s.birthday,state_name=s.state_name WHEN NOT MATCHED THEN INSERT (id,name,birthday,state_name) VALUES (s.id,s.name,s.birthday,s.state_name)",
+                helper.forUpsert(new Oracle()));
+        Assert.assertTrue(helper.forUpsert(new Hana()).contains(" FROM DUMMY) s "));
+        Assert.assertEquals(
+                "MERGE INTO one WITH (HOLDLOCK) x USING (SELECT ? id,? name,? birthday,? state_name) s ON (x.id=s.id) WHEN MATCHED THEN UPDATE SET name=s.name,birthday=s.birthday,state_name=s.state_name WHEN NOT MATCHED THEN INSERT (id,name,birthday,state_name) VALUES (s.id,s.name,s.birthday,s.state_name);",
+                helper.forUpsert(new SQLServer()));
+        Assert.assertTrue(helper.forUpsert(new SQLServerOld()).startsWith("MERGE INTO one WITH (HOLDLOCK) x USING "));
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        // no row is updated, the row is inserted then
+        StubDatabase db = database("upsertFallback").product("MySQL");
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+            One one = new One();
+            one.setId("1");
+
+            Assert.assertEquals(1, dao.upsert(one));
+        }
+        finally {
+            StubDriver.drop("upsertFallback");
+        }
+        List<String> calls = db.getTrace("prepareStatement");
+        Assert.assertEquals(2, calls.size());
+        Assert.assertTrue(calls.get(0).startsWith("UPDATE"));
+        Assert.assertTrue(calls.get(1).startsWith("INSERT"));
+    }
+
+    @Test
+    public void testUpsert() throws Exception {
+        StubDatabase db = database("upsert").product("PostgreSQL");
+        try {
+            TableDao<One> dao = new TableDao<>(db.connect(), helper());
+            One one = new One();
+            one.setId("1");
+
+            Assert.assertEquals(1, dao.upsert(one));
+        }
+        finally {
+            StubDriver.drop("upsert");
+        }
+        List<String> calls = db.getTrace("prepareStatement");
+        Assert.assertEquals(1, calls.size());
+        Assert.assertTrue(calls.get(0).contains("ON CONFLICT"));
+    }
+
+    private TableDaoHelper<One> helper() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.load("uia.dao.sample1");
+        return factory.forTable(One.class);
+    }
+
+    /**
+     * The table is empty, an update matches no row.
+     */
+    private StubDatabase database(String name) {
+        return StubDriver.database(name)
+                .table("one", new String[] { "id", "name", "birthday", "state_name" }, new Object[0][])
+                .match(true)
+                .trace(true);
+    }
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+import uia.dao.stub.StubDatabase;
+import uia.dao.stub.StubDriver;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class TypedColumnTest {
+
+    @Test
+    public void testRead() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        TableDaoHelper<Typed> helper = factory.forTable(Typed.class);
+
+        Object[] row = { "1", 2, 3L, 4.5d, true, 6, (short) 7, new Timestamp(8000L) };
+        StubDatabase db = database("typedRead", row).trace(true);
+        List<Typed> result;
+        try {
+            result = read(db, helper);
+        }
+        finally {
+            StubDriver.drop("typedRead");
+        }
+
+        Typed typed = result.get(0);
+        Assert.assertEquals("1", typed.getId());
+        Assert.assertEquals(2, typed.getIntValue());
+        Assert.assertEquals(3L, typed.getLongValue());
+        Assert.assertEquals(4.5d, typed.getDoubleValue(), 0);
+        Assert.assertTrue(typed.isBoolValue());
+        Assert.assertEquals(Integer.valueOf(6), typed.getBoxed());
+        Assert.assertEquals(Short.valueOf((short) 7), typed.getShortValue());
+        Assert.assertEquals(8000L, typed.getTime().getTime());
+
+        // one typed getter per column
+        List<String> calls = calls(db, "get");
+        Assert.assertTrue(calls.stream().noneMatch(c -> c.startsWith("getObject")));
+        Assert.assertEquals(8, calls.size());
+    }
+
+    @Test
+    public void testReadNull() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        TableDaoHelper<Typed> helper = factory.forTable(Typed.class);
+
+        Object[] row = { "1", null, null, null, null, null, null, null };
+        StubDatabase db = database("typedReadNull", row);
+        Typed typed;
+        try {
+            typed = read(db, helper).get(0);
+        }
+        finally {
+            StubDriver.drop("typedReadNull");
+        }
+        Assert.assertEquals(0, typed.getIntValue());
+        Assert.assertEquals(0L, typed.getLongValue());
+        Assert.assertFalse(typed.isBoolValue());
+        Assert.assertNull(typed.getBoxed());
+        Assert.assertNull(typed.getShortValue());
+        Assert.assertNull(typed.getTime());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        TableDaoHelper<Typed> helper = factory.forTable(Typed.class);
+
+        Typed typed = new Typed();
+        typed.setId("1");
+        typed.setIntValue(2);
+        typed.setLongValue(3L);
+        typed.setDoubleValue(4.5d);
+        typed.setBoolValue(true);
+
+        StubDatabase db = StubDriver.database("typedWrite").trace(true);
+        try (Connection conn = db.connect(); PreparedStatement ps = conn.prepareStatement(helper.forInsert().getSql())) {
+            helper.forInsert().fromOne(ps, typed);
+        }
+        finally {
+            StubDriver.drop("typedWrite");
+        }
+        Assert.assertEquals(
+                "[setString(1,1), setInt(2,2), setLong(3,3), setDouble(4,4.5), setBoolean(5,true), setNull(6,4), setNull(7,5), setNull(8,93)]",
+                calls(db, "set").toString());
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.register(
+                "int",
+                ColumnType.DataType.INTEGER,
+                (DaoColumnReader.OfInt) (rs, index) -> rs.getInt(index) * 10,
+                (DaoColumnWriter.OfInt) (ps, index, value) -> ps.setInt(index, value / 10));
+        TableDaoHelper<Typed> helper = factory.forTable(Typed.class);
+
+        Object[] row = { "1", 2, 3L, 4.5d, true, 6, (short) 7, null };
+        StubDatabase db = database("typedRegister", row);
+        try {
+            Typed typed = read(db, helper).get(0);
+            Assert.assertEquals(20, typed.getIntValue());
+
+            db.trace(true);
+            try (Connection conn = db.connect(); PreparedStatement ps = conn.prepareStatement(helper.forInsert().getSql())) {
+                helper.forInsert().fromOne(ps, typed);
+            }
+        }
+        finally {
+            StubDriver.drop("typedRegister");
+        }
+        Assert.assertEquals("setInt(2,2)", calls(db, "set").get(1));
+    }
+
+    private StubDatabase database(String name, Object[] row) {
+        return StubDriver.database(name).table(
+                "typed",
+                new String[] { "id", "int_value", "long_value", "double_value", "bool_value", "boxed", "short_value", "time" },
+                new Object[][] { row });
+    }
+
+    private List<Typed> read(StubDatabase db, TableDaoHelper<Typed> helper) throws Exception {
+        try (Connection conn = db.connect();
+             PreparedStatement ps = conn.prepareStatement(helper.forSelect().getSql());
+             ResultSet rs = ps.executeQuery()) {
+            return helper.forSelect().toList(rs, Filter.ALL);
+        }
+    }
+
+    private List<String> calls(StubDatabase db, String prefix) {
+        return db.getTrace().stream()
+                .filter(c -> c.startsWith(prefix))
+                .collect(Collectors.toList());
+    }
+
+    @TableInfo(name = "typed")
+    public static class Typed {
+
+        @ColumnInfo(name = "id", primaryKey = true)
+        private String id;
+
+        @ColumnInfo(name = "int_value")
+        private int intValue;
+
+        @ColumnInfo(name = "long_value")
+        private long longValue;
+
+        @ColumnInfo(name = "double_value")
+        private double doubleValue;
+
+        @ColumnInfo(name = "bool_value")
+        private boolean boolValue;
+
+        @ColumnInfo(name = "boxed")
+        private Integer boxed;
+
+        @ColumnInfo(name = "short_value")
+        private Short shortValue;
+
+        @ColumnInfo(name = "time")
+        private Date time;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public int getIntValue() {
+            return this.intValue;
+        }
+
+        public void setIntValue(int intValue) {
+            this.intValue = intValue;
+        }
+
+        public long getLongValue() {
+            return this.longValue;
+        }
+
+        public void setLongValue(long longValue) {
+            this.longValue = longValue;
+        }
+
+        public double getDoubleValue() {
+            return this.doubleValue;
+        }
+
+        public void setDoubleValue(double doubleValue) {
+            this.doubleValue = doubleValue;
+        }
+
+        public boolean isBoolValue() {
+            return this.boolValue;
+        }
+
+        public void setBoolValue(boolean boolValue) {
+            this.boolValue = boolValue;
+        }
+
+        public Integer getBoxed() {
+            return this.boxed;
+        }
+
+        public void setBoxed(Integer boxed) {
+            this.boxed = boxed;
+        }
+
+        public Short getShortValue() {
+            return this.shortValue;
+        }
+
+        public void setShortValue(Short shortValue) {
+            this.shortValue = shortValue;
+        }
+
+        public Date getTime() {
+            return this.time;
+        }
+
+        public void setTime(Date time) {
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package uia.dao.env;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class PooledEnvTest {
+
+    private static final FakeDriver DRIVER = new FakeDriver();
+
+    static {
+        try {
+            DriverManager.registerDriver(DRIVER);
+        }
+        catch (SQLException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void testPool() throws Exception {
+        DRIVER.reset();
+        Properties props = new Properties();
+        props.setProperty(PooledEnv.POOL_MIN_IDLE, "1");
+        props.setProperty(PooledEnv.POOL_MAX_SIZE, "1");
+
+        FakeEnv env = new FakeEnv(props);
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = env.create()) {
+                Assert.assertNotNull(conn);
+            }
+        }
+        Assert.assertEquals(1, DRIVER.connects.get());
+        Assert.assertEquals("1", DRIVER.props.get(0).getProperty("cacheSize"));
+        // the driver caches statements, DaoEnv doesn't cache them again.
+        Assert.assertTrue(env.cachesStatements());
+
+        env.close();
+        Assert.assertEquals(1, DRIVER.closes.get());
+        try {
+            env.create();
+            Assert.fail("closed");
+        }
+        catch (SQLException ex) {
+        }
+    }
+
+    @Test
+    public void testNoPool() throws Exception {
+        DRIVER.reset();
+        Properties props = new Properties();
+        props.setProperty(PooledEnv.POOL_ENABLED, "false");
+        props.setProperty("cacheSize", "64");
+
+        FakeEnv env = new FakeEnv(props);
+        for (int i = 0; i < 3; i++) {
+            try (Connection conn = env.create()) {
+                Assert.assertNotNull(conn);
+            }
+        }
+        Assert.assertFalse(env.isPoolEnabled());
+        Assert.assertEquals(3, DRIVER.connects.get());
+        Assert.assertEquals(3, DRIVER.closes.get());
+        Assert.assertEquals("64", DRIVER.props.get(0).getProperty("cacheSize"));
+        Assert.assertNull(DRIVER.props.get(0).getProperty(PooledEnv.POOL_ENABLED));
+    }
+
+    static class FakeEnv extends PooledEnv {
+
+        FakeEnv(Properties props) {
+            super("jdbc:fake:test", "user", "pwd", null, props);
+        }
+
+        @Override
+        public String test() {
+            return this.connString;
+        }
+
+        @Override
+        protected Properties statementCacheProperties() {
+            Properties props = new Properties();
+            props.setProperty("cacheSize", "1");
+            return props;
+        }
+    }
+
+    public static class FakeDriver implements Driver {
+
+        final AtomicInteger connects = new AtomicInteger();
+
+        final AtomicInteger closes = new AtomicInteger();
+
+        final List<Properties> props = new ArrayList<>();
+
+        void reset() {
+            this.connects.set(0);
+            this.closes.set(0);
+            this.props.clear();
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            this.connects.incrementAndGet();
+            this.props.add(info);
+            AtomicInteger closed = new AtomicInteger();
+            return (Connection) Proxy.newProxyInstance(
+                    getClass().getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    (p, m, args) -> {
+                        switch (m.getName()) {
+                            case "close":
+                                if (closed.getAndIncrement() == 0) {
+                                    this.closes.incrementAndGet();
+                                }
+                                return null;
+                            case "isClosed":
+                                return closed.get() > 0;
+                            case "isValid":
+                                return true;
+                            case "getAutoCommit":
+                                return true;
+                            case "hashCode":
+                                return System.identityHashCode(p);
+                            case "equals":
+                                return p == args[0];
+                            default:
+                                Class<?> type = m.getReturnType();
+                                if (type == boolean.class) {
+                                    return false;
+                                }
+                                return type == int.class ? 0 : null;
+                        }
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith("jdbc:fake:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.pg;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.postgresql.copy.CopyIn;
+
+import uia.dao.BindRecorder;
+import uia.dao.DaoFactory;
+import uia.dao.TableDaoHelper;
+import uia.dao.sample1.One;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class PostgreSQLCopyTest {
+
+    @Test
+    public void testEncode() {
+        StringBuilder line = new StringBuilder();
+        PostgreSQLCopy.encodeRow(Arrays.asList(
+                null,
+                "a\tb\\c\nd",
+                true,
+                new BigDecimal("1E+3"),
+                new byte[] { 0x01, (byte) 0xab }), line);
+        Assert.assertEquals("\\N\ta\\tb\\\\c\\nd\tt\t1000\t\\\\x01ab", line.toString());
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.load("uia.dao.sample1");
+        TableDaoHelper<One> helper = factory.forTable(One.class);
+        Assert.assertEquals("COPY one(id,name,birthday,state_name) FROM STDIN",
+                PostgreSQLCopy.copySQL(helper.getTableName(), helper.getColumnNames()));
+
+        ArrayList<One> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            One one = new One();
+            one.setId("" + i);
+            one.setName("name\t" + i);
+            one.setStateName(i);
+            rows.add(one);
+        }
+
+        BindRecorder recorder = new BindRecorder();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger writes = new AtomicInteger();
+        long n = PostgreSQLCopy.write(
+                copyIn(out, writes),
+                rows.iterator(),
+                (row, line) -> {
+                    recorder.clear();
+                    helper.forInsert().fromOne(recorder.getStatement(), row);
+                    PostgreSQLCopy.encodeRow(recorder.getValues(), line);
+                },
+                16);
+
+        Assert.assertEquals(3, n);
+        Assert.assertEquals(3, writes.get());
+        List<String> lines = Arrays.asList(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+        Assert.assertEquals(3, lines.size());
+        Assert.assertEquals("1\tname\\t1\t\\N\t1", lines.get(1));
+    }
+
+    @Test
+    public void testDateSameAsInsert() throws Exception {
+        TimeZone tz = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Taipei"));
+        try {
+            One one = new One();
+            one.setId("1");
+            one.setBirthday(new Date(1700000000123L));
+            for (boolean dateToUTC : new boolean[] { false, true }) {
+                DaoFactory factory = new DaoFactory(dateToUTC);
+                TableDaoHelper<One> helper = factory.forTable(One.class);
+
+                // the timestamp bound by TableDao.insert
+                BindRecorder recorder = new BindRecorder();
+                helper.forInsert().fromOne(recorder.getStatement(), one);
+                Timestamp bound = (Timestamp) recorder.getValues().get(2);
+
+                StringBuilder line = new StringBuilder();
+                PostgreSQLCopy.encodeRow(recorder.getValues(), line);
+                String copied = line.toString().split("\t")[2];
+                OffsetDateTime odt = OffsetDateTime.parse(copied, DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss.SSSSSSxxx"));
+                Assert.assertEquals("+08:00", copied.substring(copied.length() - 6));
+                Assert.assertEquals(bound.toInstant(), odt.toInstant());
+                Assert.assertEquals(bound.toLocalDateTime(), odt.toLocalDateTime());
+                Assert.assertEquals(dateToUTC ? "2023-11-14 22:13:20.123000+08:00" : "2023-11-15 06:13:20.123000+08:00", copied);
+            }
+        }
+        finally {
+            TimeZone.setDefault(tz);
+        }
+    }
+
+    private CopyIn copyIn(ByteArrayOutputStream out, AtomicInteger writes) {
+        AtomicInteger rows = new AtomicInteger();
+        return (CopyIn) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class<?>[] { CopyIn.class },
+                (p, m, args) -> {
+                    switch (m.getName()) {
+                        case "writeToCopy":
+                            writes.incrementAndGet();
+                            byte[] buf = (byte[]) args[0];
+                            out.write(buf, (Integer) args[1], (Integer) args[2]);
+                            for (int i = (Integer) args[1]; i < (Integer) args[1] + (Integer) args[2]; i++) {
+                                if (buf[i] == '\n') {
+                                    rows.incrementAndGet();
+                                }
+                            }
+                            return null;
+                        case "endCopy":
+                            return (long) rows.get();
+                        case "isActive":
+                            return true;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.processor;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.ClassUtils;
+import uia.dao.DaoAccessor;
+import uia.dao.DaoFactory;
+import uia.dao.sample1.One;
+import uia.dao.sample1.ViewOne;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class DaoProcessorTest {
+
+    @Test
+    public void testIndex() throws Exception {
+        Set<Class<?>> classes = ClassUtils.getIndexedClassSet("uia.dao.sample1", getClass().getClassLoader());
+        Assert.assertTrue(classes.contains(One.class));
+        Assert.assertTrue(classes.contains(ViewOne.class));
+
+        DaoFactory factory = new DaoFactory(false);
+        factory.load("uia.dao.sample1", getClass().getClassLoader());
+        Assert.assertTrue(factory.getTables().contains(One.class.getName()));
+        Assert.assertTrue(factory.getViews().contains(ViewOne.class.getName()));
+    }
+
+    @Test
+    public void testAccessor() throws Exception {
+        Class<?> accessorClass = Class.forName(ClassUtils.accessorName(ViewOne.class.getName()));
+        Assert.assertEquals("uia.dao.sample1.ViewOne_DaoAccessor", accessorClass.getName());
+
+        // private fields are accessed through the method handles
+        DaoAccessor accessor = (DaoAccessor) accessorClass.getDeclaredConstructor().newInstance();
+        List<String> fields = Arrays.asList((String[]) accessorClass.getField("FIELDS").get(null));
+        Assert.assertEquals(ViewOne.class.getName() + ".description", fields.get(0));
+        Assert.assertTrue(fields.contains(One.class.getName() + ".id"));
+
+        ViewOne one = (ViewOne) accessor.newInstance();
+        accessor.set(one, 0, "desc");
+        accessor.set(one, fields.indexOf(One.class.getName() + ".id"), "1");
+        Assert.assertEquals("desc", one.getDescription());
+        Assert.assertEquals("1", one.getId());
+        Assert.assertEquals("desc", accessor.get(one, 0));
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        Path dir = Files.createTempDirectory("uia-dao-processor");
+        compile(dir, "Box", "package x;\n"
+                + "@uia.dao.annotation.TableInfo(name = \"box\")\n"
+                + "public class Box extends Base {\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"qty\") int qty;\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"hidden\") private String hidden;\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"name\") private String name;\n"
+                + "    public String getName() { return name; }\n"
+                + "    public void setName(String name) { this.name = name; }\n"
+                + "}\n"
+                + "class Base {\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"id\", primaryKey = true) public long id;\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"version\") private int version;\n"
+                + "}\n");
+        compile(dir, "Cup", "package x;\n"
+                + "@uia.dao.annotation.ViewInfo(name = \"cup\")\n"
+                + "public class Cup {\n"
+                + "    @uia.dao.annotation.ColumnInfo(name = \"id\") public String id;\n"
+                + "}\n");
+
+        // the index of the second compilation is merged
+        List<String> index = Files.readAllLines(dir.resolve(ClassUtils.INDEX), StandardCharsets.UTF_8);
+        Assert.assertEquals(Arrays.asList("x.Box", "x.Cup"), index);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, getClass().getClassLoader())) {
+            Class<?> accessorClass = loader.loadClass("x.Box_DaoAccessor");
+            Assert.assertEquals(
+                    Arrays.asList("x.Box.qty", "x.Box.hidden", "x.Box.name", "x.Base.id", "x.Base.version"),
+                    Arrays.asList((String[]) accessorClass.getField("FIELDS").get(null)));
+
+            DaoAccessor accessor = (DaoAccessor) accessorClass.getDeclaredConstructor().newInstance();
+            Object box = accessor.newInstance();
+            accessor.setInt(box, 0, 3);
+            accessor.set(box, 2, "name1");
+            accessor.setLong(box, 3, 7L);
+            accessor.setInt(box, 4, 2);
+            Assert.assertEquals(3, accessor.getInt(box, 0));
+            Assert.assertEquals("name1", accessor.get(box, 2));
+            Assert.assertEquals("name1", box.getClass().getMethod("getName").invoke(box));
+            Assert.assertEquals(7L, accessor.get(box, 3));
+            Assert.assertEquals(7L, accessor.getLong(box, 3));
+            Assert.assertEquals(2, accessor.getInt(box, 4));
+            Assert.assertEquals(2, accessor.get(box, 4));
+            Assert.assertEquals(2, ClassUtils.getIndexedClassSet("x", loader).size());
+        }
+    }
+
+    private void compile(Path dir, String name, String code) throws Exception {
+        Path source = dir.resolve(name + ".java");
+        Files.write(source, code.getBytes(StandardCharsets.UTF_8));
+
+        ArrayList<String> args = new ArrayList<>(Arrays.asList(
+                "-d", dir.toString(),
+                "-cp", System.getProperty("java.class.path") + File.pathSeparator + dir,
+                "-processor", DaoProcessor.class.getName(),
+                source.toString()));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+    }
+}
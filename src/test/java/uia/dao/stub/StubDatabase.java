@@ -0,0 +1,605 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.stub;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import uia.dao.ColumnType;
+import uia.dao.TableDaoHelper;
+import uia.dao.TableType;
+
+/**
+ * The in-memory database of the stub driver.<br>
+ * A query returns all rows of the table after FROM, conditions are ignored. A 'select count(' query returns the count of rows.
+ * Updates change nothing and return 1 for each statement or batch entry.
+ * Binds, executes and rows read are counted.<br>
+ * Tests can opt in to a trace of JDBC calls, rows matched by keys and injected failures, none of them is enabled by default.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class StubDatabase {
+
+    private static final long BASE_TIME = 1577836800000L;   // 2020-01-01T00:00:00Z
+
+    private final String name;
+
+    private final ConcurrentHashMap<String, Table> tables;
+
+    private final ConcurrentHashMap<String, Table> queries;
+
+    private final LongAdder connections;
+
+    private final LongAdder prepares;
+
+    private final LongAdder binds;
+
+    private final LongAdder queryCount;
+
+    private final LongAdder updates;
+
+    private final LongAdder batches;
+
+    private final LongAdder rowsRead;
+
+    private final LongAdder statementCloses;
+
+    private final LongAdder connectionCloses;
+
+    private final LongAdder commits;
+
+    private final LongAdder rollbacks;
+
+    private final ConcurrentHashMap<String, String> failures;
+
+    private final List<String> trace;
+
+    private volatile String productName;
+
+    private volatile boolean tracing;
+
+    private volatile boolean matching;
+
+    StubDatabase(String name) {
+        this.name = name;
+        this.tables = new ConcurrentHashMap<>();
+        this.queries = new ConcurrentHashMap<>();
+        this.connections = new LongAdder();
+        this.prepares = new LongAdder();
+        this.binds = new LongAdder();
+        this.queryCount = new LongAdder();
+        this.updates = new LongAdder();
+        this.batches = new LongAdder();
+        this.rowsRead = new LongAdder();
+        this.statementCloses = new LongAdder();
+        this.connectionCloses = new LongAdder();
+        this.commits = new LongAdder();
+        this.rollbacks = new LongAdder();
+        this.failures = new ConcurrentHashMap<>();
+        this.trace = Collections.synchronizedList(new ArrayList<>());
+        this.productName = "uia-stub";
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the JDBC connection string of this database.
+     *
+     * @return The connection string.
+     */
+    public String getUrl() {
+        return StubDriver.PREFIX + this.name;
+    }
+
+    /**
+     * Creates a connection without the driver manager.
+     *
+     * @return The connection.
+     */
+    public Connection connect() {
+        this.connections.increment();
+        return new StubConnection(this);
+    }
+
+    /**
+     * Fills the table of a DTO class with synthetic rows.
+     *
+     * @param helper The DAO helper of the table.
+     * @param rows The count of rows.
+     * @return The instance.
+     */
+    public StubDatabase table(TableDaoHelper<?> helper, int rows) {
+        return table(helper.getTableType(), rows);
+    }
+
+    /**
+     * Fills a table with synthetic rows generated from the types of columns.<br>
+     * The value of row i is i for numbers, the column name with i for strings and 2020-01-01 plus i seconds for date-time.
+     *
+     * @param tableType The table.
+     * @param rows The count of rows.
+     * @return The instance.
+     */
+    public StubDatabase table(TableType tableType, int rows) {
+        List<ColumnType> columns = tableType.getColumns();
+        String[] names = new String[columns.size()];
+        for (int c = 0; c < names.length; c++) {
+            names[c] = columns.get(c).getColumnName();
+        }
+
+        Object[][] data = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            Object[] row = new Object[names.length];
+            for (int c = 0; c < names.length; c++) {
+                row[c] = value(columns.get(c), i);
+            }
+            data[i] = row;
+        }
+        return table(tableType.getTableName(), names, data);
+    }
+
+    /**
+     * Fills a table with rows.
+     *
+     * @param tableName The table name.
+     * @param columnNames The column names.
+     * @param rows The values of rows in the order of column names.
+     * @return The instance.
+     */
+    public StubDatabase table(String tableName, String[] columnNames, Object[][] rows) {
+        this.tables.put(tableName.toLowerCase(Locale.ENGLISH), new Table(columnNames, rows));
+        this.queries.clear();
+        return this;
+    }
+
+    /**
+     * Sets the product name of the database meta data, used to select the SQL dialect.
+     *
+     * @param productName The product name, e.g. PostgreSQL.
+     * @return The instance.
+     */
+    public StubDatabase product(String productName) {
+        this.productName = productName;
+        return this;
+    }
+
+    public String getProductName() {
+        return this.productName;
+    }
+
+    /**
+     * Enables or disables the trace of JDBC calls. The trace is cleared.<br>
+     * A call is traced as 'method(arguments)', e.g. 'prepareStatement(SELECT ...)', 'setString(1,abc)', 'getInt(2)' or 'commit()'.
+     *
+     * @param tracing Trace or not.
+     * @return The instance.
+     */
+    public StubDatabase trace(boolean tracing) {
+        this.trace.clear();
+        this.tracing = tracing;
+        return this;
+    }
+
+    /**
+     * Returns the traced calls.
+     *
+     * @return The calls.
+     */
+    public List<String> getTrace() {
+        synchronized (this.trace) {
+            return new ArrayList<>(this.trace);
+        }
+    }
+
+    /**
+     * Returns the arguments of traced calls of a method.
+     *
+     * @param method The method name, e.g. prepareStatement.
+     * @return The arguments of calls.
+     */
+    public List<String> getTrace(String method) {
+        String prefix = method + "(";
+        ArrayList<String> result = new ArrayList<>();
+        for (String call : getTrace()) {
+            if (call.startsWith(prefix)) {
+                result.add(call.substring(prefix.length(), call.length() - 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Enables or disables matching rows by keys.<br>
+     * When enabled, a statement whose WHERE starts with 'column=?' or 'column IN (?,?...)' matches the rows whose column equals one of the bound values.
+     * A query returns the matched rows, an update or delete returns the count of them.
+     *
+     * @param matching Match or not.
+     * @return The instance.
+     */
+    public StubDatabase match(boolean matching) {
+        this.matching = matching;
+        this.queries.clear();
+        return this;
+    }
+
+    /**
+     * Fails calls of a method with a SQLException.<br>
+     * The methods are prepareStatement, executeQuery, executeUpdate, executeBatch, commit and rollback.
+     *
+     * @param method The method name.
+     * @param message The message of the exception or null to stop failing.
+     * @return The instance.
+     */
+    public StubDatabase fail(String method, String message) {
+        if (message == null) {
+            this.failures.remove(method);
+        }
+        else {
+            this.failures.put(method, message);
+        }
+        return this;
+    }
+
+    public int getConnections() {
+        return this.connections.intValue();
+    }
+
+    public long getPrepares() {
+        return this.prepares.sum();
+    }
+
+    public long getBinds() {
+        return this.binds.sum();
+    }
+
+    public long getQueries() {
+        return this.queryCount.sum();
+    }
+
+    /**
+     * Returns the count of updates, including rows of batches.
+     *
+     * @return The count.
+     */
+    public long getUpdates() {
+        return this.updates.sum();
+    }
+
+    public long getBatches() {
+        return this.batches.sum();
+    }
+
+    public long getRowsRead() {
+        return this.rowsRead.sum();
+    }
+
+    /**
+     * Returns the count of calls to close statements, including the calls on closed ones.
+     *
+     * @return The count.
+     */
+    public long getStatementCloses() {
+        return this.statementCloses.sum();
+    }
+
+    /**
+     * Returns the count of calls to close connections, including the calls on closed ones.
+     *
+     * @return The count.
+     */
+    public long getConnectionCloses() {
+        return this.connectionCloses.sum();
+    }
+
+    public long getCommits() {
+        return this.commits.sum();
+    }
+
+    public long getRollbacks() {
+        return this.rollbacks.sum();
+    }
+
+    /**
+     * Resets counters.
+     */
+    public void reset() {
+        this.connections.reset();
+        this.prepares.reset();
+        this.binds.reset();
+        this.queryCount.reset();
+        this.updates.reset();
+        this.batches.reset();
+        this.rowsRead.reset();
+        this.statementCloses.reset();
+        this.connectionCloses.reset();
+        this.commits.reset();
+        this.rollbacks.reset();
+    }
+
+    boolean isTracing() {
+        return this.tracing;
+    }
+
+    boolean isMatching() {
+        return this.matching;
+    }
+
+    void trace(String method, Object... args) {
+        if (this.tracing) {
+            StringBuilder call = new StringBuilder(method).append('(');
+            for (int i = 0; i < args.length; i++) {
+                call.append(i == 0 ? "" : ",").append(args[i]);
+            }
+            this.trace.add(call.append(')').toString());
+        }
+    }
+
+    void check(String method) throws SQLException {
+        if (!this.failures.isEmpty()) {
+            String message = this.failures.get(method);
+            if (message != null) {
+                throw new SQLException(message);
+            }
+        }
+    }
+
+    void prepared() {
+        this.prepares.increment();
+    }
+
+    void bound(int count) {
+        this.binds.add(count);
+    }
+
+    void updated(int count) {
+        this.updates.add(count);
+    }
+
+    void batched() {
+        this.batches.increment();
+    }
+
+    void read(int rows) {
+        this.rowsRead.add(rows);
+    }
+
+    void closed(boolean statement) {
+        if (statement) {
+            this.statementCloses.increment();
+        }
+        else {
+            this.connectionCloses.increment();
+        }
+    }
+
+    void committed(boolean commit) {
+        if (commit) {
+            this.commits.increment();
+        }
+        else {
+            this.rollbacks.increment();
+        }
+    }
+
+    Table query(String sql, Object[] values) {
+        this.queryCount.increment();
+        Table table = this.queries.get(sql);
+        if (table == null) {
+            table = resolve(sql);
+            this.queries.put(sql, table);
+        }
+        if (!this.matching || values == null) {
+            return table;
+        }
+        Object[] keys = keys(sql.toLowerCase(Locale.ENGLISH));
+        return keys == null ? table : match(keys, table, values);
+    }
+
+    /**
+     * Returns the count of rows matched by an update or delete, -1 if not matching.
+     *
+     */
+    int matched(String sql, Object[] values) {
+        if (!this.matching || values == null) {
+            return -1;
+        }
+        String lower = sql.toLowerCase(Locale.ENGLISH).trim();
+        Object[] keys = keys(lower);
+        int from = lower.indexOf(" from ");
+        String tableName = null;
+        if (lower.startsWith("update ")) {
+            tableName = token(lower, 7);
+        }
+        else if (lower.startsWith("delete ") && from > 0) {
+            tableName = token(lower, from + 6);
+        }
+        if (keys == null || tableName == null) {
+            return -1;
+        }
+        Table table = lookup(tableName);
+        return table == null ? 0 : match(keys, table, values).rows.length;
+    }
+
+    private Table resolve(String sql) {
+        String lower = sql.toLowerCase(Locale.ENGLISH);
+        int from = lower.indexOf(" from ");
+        if (from < 0) {
+            return Table.EMPTY;
+        }
+
+        Table table = lookup(token(lower, from + 6));
+        if (table == null) {
+            return Table.EMPTY;
+        }
+        if (lower.trim().startsWith("select count(")) {
+            return new Table(new String[] { "n" }, new Object[][] { { (long) table.rows.length } });
+        }
+        return table;
+    }
+
+    private Table lookup(String tableName) {
+        String name = tableName.replace("\"", "");
+        int dot = name.lastIndexOf('.');
+        return this.tables.get(dot < 0 ? name : name.substring(dot + 1));
+    }
+
+    private static String token(String lower, int b) {
+        while (b < lower.length() && Character.isWhitespace(lower.charAt(b))) {
+            b++;
+        }
+        int e = b;
+        while (e < lower.length() && !Character.isWhitespace(lower.charAt(e)) && lower.charAt(e) != ')' && lower.charAt(e) != ',' && lower.charAt(e) != '(') {
+            e++;
+        }
+        return lower.substring(b, e);
+    }
+
+    /**
+     * Returns the key column, the index of the first key parameter and the count of key parameters, or null.
+     *
+     */
+    private static Object[] keys(String lower) {
+        int where = lower.indexOf(" where ");
+        if (where < 0) {
+            return null;
+        }
+        int b = where + 7;
+        while (b < lower.length() && (Character.isWhitespace(lower.charAt(b)) || lower.charAt(b) == '(')) {
+            b++;
+        }
+        int e = b;
+        while (e < lower.length() && (Character.isLetterOrDigit(lower.charAt(e)) || lower.charAt(e) == '_' || lower.charAt(e) == '.')) {
+            e++;
+        }
+        if (e == b) {
+            return null;
+        }
+        int dot = lower.lastIndexOf('.', e - 1);
+        String column = lower.substring(dot < b ? b : dot + 1, e);
+
+        String rest = lower.substring(e).trim();
+        int count;
+        if (rest.startsWith("=")) {
+            if (!rest.substring(1).trim().startsWith("?")) {
+                return null;
+            }
+            count = 1;
+        }
+        else if (rest.startsWith("in ") || rest.startsWith("in(")) {
+            int close = rest.indexOf(')');
+            String list = rest.substring(rest.indexOf('(') + 1, close < 0 ? rest.length() : close);
+            count = list.length() - list.replace("?", "").length();
+            if (count == 0) {
+                return null;
+            }
+        }
+        else {
+            return null;
+        }
+
+        int first = 0;
+        for (int i = 0; i < b; i++) {
+            if (lower.charAt(i) == '?') {
+                first++;
+            }
+        }
+        return new Object[] { column, first, count };
+    }
+
+    private static Table match(Object[] keys, Table table, Object[] values) {
+        int c = 0;
+        while (c < table.columnNames.length && !table.columnNames[c].equalsIgnoreCase((String) keys[0])) {
+            c++;
+        }
+        if (c == table.columnNames.length) {
+            return table;
+        }
+
+        int first = (Integer) keys[1];
+        int count = (Integer) keys[2];
+        ArrayList<String> bound = new ArrayList<>();
+        for (int i = first; i < first + count && i < values.length; i++) {
+            bound.add(String.valueOf(values[i]));
+        }
+        ArrayList<Object[]> rows = new ArrayList<>();
+        for (Object[] row : table.rows) {
+            if (bound.contains(String.valueOf(row[c]))) {
+                rows.add(row);
+            }
+        }
+        return new Table(table.columnNames, rows.toArray(new Object[0][]));
+    }
+
+    private static Object value(ColumnType column, int i) {
+        switch (column.getDataType()) {
+            case BOOLEAN:
+            case BIT:
+                return i % 2 == 0;
+            case INTEGER:
+                return i;
+            case LONG:
+                return (long) i;
+            case NUMERIC:
+            case FLOAT:
+            case DOUBLE:
+                return BigDecimal.valueOf(i, column.getDecimalDigits());
+            case DATE:
+            case TIME:
+            case TIMESTAMP:
+            case TIMESTAMPZ:
+                return new Timestamp(BASE_TIME + i * 1000L);
+            case BYTE:
+                return (byte) i;
+            case BLOB:
+                return (column.getColumnName() + i).getBytes(StandardCharsets.UTF_8);
+            default:
+                return column.getColumnName() + i;
+        }
+    }
+
+    /**
+     * The rows of a table.
+     *
+     */
+    static final class Table {
+
+        static final Table EMPTY = new Table(new String[0], new Object[0][]);
+
+        final String[] columnNames;
+
+        final Object[][] rows;
+
+        Table(String[] columnNames, Object[][] rows) {
+            this.columnNames = columnNames;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.stub;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * The JDBC driver of in-memory stub databases, used to measure the library without a database.<br>
+ * The connection string is <code>jdbc:uia:stub:{name}</code>, the database of the name is created if it doesn't exist.
+ *
+ * <pre>
+ * StubDatabase db = StubDriver.database("bench").table(factory.forTable(One.class), 10000);
+ * TableDao&lt;One&gt; dao = new TableDao&lt;&gt;(db.connect(), factory.forTable(One.class));
+ * </pre>
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class StubDriver implements Driver {
+
+    public static final String PREFIX = "jdbc:uia:stub:";
+
+    private static final ConcurrentHashMap<String, StubDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new StubDriver());
+        }
+        catch (SQLException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /**
+     * Returns the database of a name, the driver is registered to the driver manager.
+     *
+     * @param name The name.
+     * @return The database.
+     */
+    public static StubDatabase database(String name) {
+        return DATABASES.computeIfAbsent(name, StubDatabase::new);
+    }
+
+    /**
+     * Removes the database of a name.
+     *
+     * @param name The name.
+     */
+    public static void drop(String name) {
+        DATABASES.remove(name);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        return acceptsURL(url)
+                ? database(url.substring(PREFIX.length())).connect()
+                : null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) throws SQLException {
+        return url != null && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) throws SQLException {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
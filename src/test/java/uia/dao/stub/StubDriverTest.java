@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.stub;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import uia.dao.DaoEnv;
+import uia.dao.DaoFactory;
+import uia.dao.DaoSession;
+import uia.dao.TableDao;
+import uia.dao.TableDaoHelper;
+import uia.dao.annotation.ColumnInfo;
+import uia.dao.annotation.TableInfo;
+
+/**
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public class StubDriverTest {
+
+    @Test
+    public void testSelect() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Stubbed.class);
+        TableDaoHelper<Stubbed> helper = factory.forTable(Stubbed.class);
+
+        StubDatabase db = StubDriver.database("testSelect").table(helper, 1000);
+        try (Connection conn = db.connect()) {
+            TableDao<Stubbed> dao = new TableDao<>(conn, helper);
+            List<Stubbed> rows = dao.selectAll();
+            Assert.assertEquals(1000, rows.size());
+
+            Stubbed row = rows.get(7);
+            Assert.assertEquals("id7", row.getId());
+            Assert.assertEquals(7, row.getQty());
+            Assert.assertEquals(0, new BigDecimal("0.07").compareTo(row.getAmount()));
+            Assert.assertEquals(1577836807000L, row.getCreatedTime().getTime());
+            Assert.assertEquals("remark7", row.getRemark());
+
+            Assert.assertEquals(1000, dao.count());
+            Assert.assertEquals("id0", dao.selectByPK("id0").getId());
+        }
+        finally {
+            StubDriver.drop("testSelect");
+        }
+
+        Assert.assertEquals(1, db.getConnections());
+        Assert.assertEquals(3, db.getQueries());
+        Assert.assertEquals(1, db.getBinds());
+        Assert.assertEquals(1002, db.getRowsRead());
+    }
+
+    @Test
+    public void testInsert() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Stubbed.class);
+        TableDaoHelper<Stubbed> helper = factory.forTable(Stubbed.class);
+
+        StubDatabase db = StubDriver.database("testInsert");
+        try (Connection conn = DriverManager.getConnection(db.getUrl())) {
+            TableDao<Stubbed> dao = new TableDao<>(conn, helper);
+            ArrayList<Stubbed> rows = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Stubbed row = new Stubbed();
+                row.setId("id" + i);
+                row.setQty(i);
+                rows.add(row);
+            }
+            Assert.assertEquals(10, dao.insert(rows).length);
+            Assert.assertEquals(1, dao.insert(rows.get(0)));
+        }
+        finally {
+            StubDriver.drop("testInsert");
+        }
+
+        Assert.assertEquals(2, db.getPrepares());
+        Assert.assertEquals(1, db.getBatches());
+        Assert.assertEquals(11, db.getUpdates());
+        Assert.assertEquals(55, db.getBinds());
+        Assert.assertEquals(0, db.getQueries());
+    }
+
+    @Test
+    public void testOptions() throws Exception {
+        DaoFactory factory = new DaoFactory(false);
+        factory.addTable(Stubbed.class);
+        TableDaoHelper<Stubbed> helper = factory.forTable(Stubbed.class);
+
+        StubDatabase db = StubDriver.database("testOptions")
+                .table(helper, 10)
+                .product("PostgreSQL")
+                .match(true)
+                .trace(true);
+        try (Connection conn = db.connect()) {
+            Assert.assertEquals("PostgreSQL", conn.getMetaData().getDatabaseProductName());
+
+            TableDao<Stubbed> dao = new TableDao<>(conn, helper);
+            Assert.assertEquals("id3", dao.selectByPK("id3").getId());
+            Assert.assertNull(dao.selectByPK("id10"));
+            Assert.assertEquals(0, dao.deleteByPK("id10"));
+
+            db.fail("executeQuery", "down");
+            try {
+                dao.selectByPK("id3");
+                Assert.fail("query failed");
+            }
+            catch (SQLException ex) {
+                Assert.assertEquals("down", ex.getMessage());
+            }
+        }
+        finally {
+            StubDriver.drop("testOptions");
+        }
+
+        Assert.assertEquals(4, db.getTrace("prepareStatement").size());
+        Assert.assertEquals("setObject(1,id3)", db.getTrace().get(1));
+        Assert.assertEquals(4, db.getStatementCloses());
+        Assert.assertEquals(1, db.getConnectionCloses());
+    }
+
+    @Test
+    public void testDaoEnv() throws Exception {
+        StubDatabase db = StubDriver.database("testDaoEnv");
+        DaoEnv env = new DaoEnv(DaoEnv.DATAPOOL, false) {
+
+            @Override
+            protected void initialFactory(DaoFactory factory) throws Exception {
+                factory.addTable(Stubbed.class);
+            }
+        }.config(db.getUrl(), null, null, null);
+        db.table(env.forTable(Stubbed.class), 50);
+
+        try (DaoSession session = env.createSession()) {
+            TableDao<Stubbed> dao = session.forTable(Stubbed.class);
+            Assert.assertEquals(50, dao.selectAll().size());
+        }
+        finally {
+            env.close();
+            StubDriver.drop("testDaoEnv");
+        }
+        Assert.assertEquals(50, db.getRowsRead());
+    }
+
+    @TableInfo(name = "stubbed")
+    public static class Stubbed {
+
+        @ColumnInfo(name = "id", primaryKey = true)
+        private String id;
+
+        @ColumnInfo(name = "qty")
+        private int qty;
+
+        @ColumnInfo(name = "amount", scale = 2)
+        private BigDecimal amount;
+
+        @ColumnInfo(name = "created_time")
+        private Date createdTime;
+
+        @ColumnInfo(name = "remark")
+        private String remark;
+
+        public String getId() {
+            return this.id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public int getQty() {
+            return this.qty;
+        }
+
+        public void setQty(int qty) {
+            this.qty = qty;
+        }
+
+        public BigDecimal getAmount() {
+            return this.amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public Date getCreatedTime() {
+            return this.createdTime;
+        }
+
+        public void setCreatedTime(Date createdTime) {
+            this.createdTime = createdTime;
+        }
+
+        public String getRemark() {
+            return this.remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+    }
+}
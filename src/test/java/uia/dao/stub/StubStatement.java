@@ -0,0 +1,700 @@
+/*******************************************************************************
+ * Copyright 2019 UIA
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package uia.dao.stub;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * The statement of a stub database. Parameters are counted, they are kept only to trace or match rows.
+ *
+ * @author Kyle K. Lin
+ *
+ */
+public final class StubStatement implements PreparedStatement {
+
+    private final StubConnection conn;
+
+    private final StubDatabase db;
+
+    private final String sql;
+
+    private boolean closed;
+
+    private int binds;
+
+    private int batch;
+
+    private int maxRows;
+
+    private int fetchSize;
+
+    private int fetchDirection;
+
+    private int queryTimeout;
+
+    private int maxFieldSize;
+
+    private boolean poolable;
+
+    private boolean closeOnCompletion;
+
+    private ResultSet resultSet;
+
+    private int updateCount;
+
+    private int inserts;
+
+    private Object[] values;
+
+    StubStatement(StubConnection conn, String sql) {
+        this.conn = conn;
+        this.db = conn.getDatabase();
+        this.sql = sql;
+        this.fetchDirection = ResultSet.FETCH_FORWARD;
+        this.updateCount = -1;
+        this.inserts = -1;
+    }
+
+    StubDatabase getDatabase() {
+        return this.db;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return executeQuery(this.sql);
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        this.db.check("executeQuery");
+        this.db.trace("executeQuery");
+        flush();
+        this.resultSet = new StubResultSet(this, this.db.query(sql, this.values), this.maxRows);
+        this.updateCount = -1;
+        return this.resultSet;
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return executeUpdate(this.sql);
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        this.db.check("executeUpdate");
+        this.db.trace("executeUpdate");
+        flush();
+        int rows = this.db.matched(sql, this.values);
+        if (rows < 0) {
+            rows = inserts(sql);
+        }
+        this.db.updated(rows);
+        this.resultSet = null;
+        this.updateCount = rows;
+        return rows;
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return executeUpdate(sql);
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return executeUpdate(sql);
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        return executeUpdate(sql);
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return execute(this.sql);
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        if (sql.trim().toLowerCase(Locale.ENGLISH).startsWith("select")) {
+            executeQuery(sql);
+            return true;
+        }
+        executeUpdate(sql);
+        return false;
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        return execute(sql);
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        return execute(sql);
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        return execute(sql);
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        this.db.trace("addBatch");
+        this.batch++;
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        this.batch++;
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        this.batch = 0;
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        this.db.check("executeBatch");
+        this.db.trace("executeBatch");
+        flush();
+        int[] result = new int[this.batch];
+        Arrays.fill(result, 1);
+        this.db.batched();
+        this.db.updated(this.batch);
+        this.batch = 0;
+        return result;
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return this.resultSet;
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return this.updateCount;
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        this.resultSet = null;
+        this.updateCount = -1;
+        return false;
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        return getMoreResults();
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return new StubResultSet(this, StubDatabase.Table.EMPTY, 0);
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return this.resultSet == null ? null : this.resultSet.getMetaData();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.conn;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        flush();
+        this.db.closed(true);
+        this.closed = true;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return this.closed;
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return this.maxRows;
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        this.db.trace("setMaxRows", max);
+        this.maxRows = max;
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return this.maxFieldSize;
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        this.maxFieldSize = max;
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return this.fetchSize;
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        this.fetchSize = rows;
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return this.fetchDirection;
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        this.fetchDirection = direction;
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return this.queryTimeout;
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        this.queryTimeout = seconds;
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return null;
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return ResultSet.CONCUR_READ_ONLY;
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return ResultSet.TYPE_FORWARD_ONLY;
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return ResultSet.CLOSE_CURSORS_AT_COMMIT;
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return this.poolable;
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        this.poolable = poolable;
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        this.closeOnCompletion = true;
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return this.closeOnCompletion;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("not a wrapper of " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        bindNull(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        bind("setBoolean", parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        bind("setByte", parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        bind("setShort", parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        bind("setInt", parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        bind("setLong", parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        bind("setFloat", parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        bind("setDouble", parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+        bind("setBigDecimal", parameterIndex, x);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        bind("setString", parameterIndex, x);
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        bind("setBytes", parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x) throws SQLException {
+        bind("setDate", parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x) throws SQLException {
+        bind("setTime", parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        bind("setTimestamp", parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        bind("setAsciiStream", parameterIndex, x);
+    }
+
+    @Override
+    public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        bind("setUnicodeStream", parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+        bind("setBinaryStream", parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        bind("setObject", parameterIndex, x);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        bind("setObject", parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+        bind("setCharacterStream", parameterIndex, reader);
+    }
+
+    @Override
+    public void setRef(int parameterIndex, Ref x) throws SQLException {
+        bind("setRef", parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        bind("setBlob", parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Clob x) throws SQLException {
+        bind("setClob", parameterIndex, x);
+    }
+
+    @Override
+    public void setArray(int parameterIndex, Array x) throws SQLException {
+        bind("setArray", parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+        bind("setDate", parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+        bind("setTime", parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        bind("setTimestamp", parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+        bindNull(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void setURL(int parameterIndex, URL x) throws SQLException {
+        bind("setURL", parameterIndex, x);
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        throw unsupported();
+    }
+
+    @Override
+    public void setRowId(int parameterIndex, RowId x) throws SQLException {
+        bind("setRowId", parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        bind("setNString", parameterIndex, value);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+        bind("setNCharacterStream", parameterIndex, value);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, NClob value) throws SQLException {
+        bind("setNClob", parameterIndex, value);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        bind("setClob", parameterIndex, reader);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        bind("setBlob", parameterIndex, inputStream);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+        bind("setNClob", parameterIndex, reader);
+    }
+
+    @Override
+    public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+        bind("setSQLXML", parameterIndex, xmlObject);
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+        bind("setObject", parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        bind("setAsciiStream", parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+        bind("setBinaryStream", parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+        bind("setCharacterStream", parameterIndex, reader);
+    }
+
+    @Override
+    public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+        bind("setAsciiStream", parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+        bind("setBinaryStream", parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+        bind("setCharacterStream", parameterIndex, reader);
+    }
+
+    @Override
+    public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+        bind("setNCharacterStream", parameterIndex, value);
+    }
+
+    @Override
+    public void setClob(int parameterIndex, Reader reader) throws SQLException {
+        bind("setClob", parameterIndex, reader);
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        bind("setBlob", parameterIndex, inputStream);
+    }
+
+    @Override
+    public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+        bind("setNClob", parameterIndex, reader);
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+
+    private void bind(String method, int parameterIndex, Object x) {
+        this.binds++;
+        if (this.db.isTracing() || this.db.isMatching()) {
+            this.db.trace(method, parameterIndex, x);
+            if (this.values == null || this.values.length < parameterIndex) {
+                this.values = Arrays.copyOf(this.values == null ? new Object[0] : this.values, Math.max(parameterIndex, 8));
+            }
+            this.values[parameterIndex - 1] = x;
+        }
+    }
+
+    private void bindNull(int parameterIndex, int sqlType) {
+        bind("setNull", parameterIndex, sqlType);
+        if (this.values != null) {
+            this.values[parameterIndex - 1] = null;
+        }
+    }
+
+    /**
+     * Returns the count of rows of an INSERT with multiple VALUES, otherwise 1.
+     *
+     */
+    private int inserts(String sql) {
+        if (sql != this.sql) {
+            return 1;
+        }
+        if (this.inserts < 0) {
+            String lower = sql.trim().toLowerCase(Locale.ENGLISH);
+            this.inserts = lower.startsWith("insert") ? lower.split("\\),\\(", -1).length : 1;
+        }
+        return this.inserts;
+    }
+
+    private void flush() {
+        if (this.binds > 0) {
+            this.db.bound(this.binds);
+            this.binds = 0;
+        }
+    }
+
+    private static SQLFeatureNotSupportedException unsupported() {
+        return new SQLFeatureNotSupportedException("not supported by the stub driver");
+    }
+}